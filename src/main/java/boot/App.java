@@ -1,8 +1,21 @@
 package boot;
 
 
+import boot.limits.RateLimitInterceptor;
+import boot.startup.TrainingRun;
+import boot.tenants.TenantInterceptor;
+import boot.tenants.TenantRegistry;
+import boot.tracing.TracingInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.servlet.config.annotation.ContentNegotiationConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 
@@ -13,9 +26,76 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @SpringBootApplication
 public class App implements WebMvcConfigurer
 {
+    /**Двоичный формат CBOR, компактнее JSON и быстрее при кодировании*/
+    public static final MediaType APPLICATION_CBOR = new MediaType("application", "cbor");
+
+    /**Двоичный формат Smile, совместимый с моделью данных JSON*/
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    /**Подключена ли библиотека jackson-dataformat-cbor, без неё ответы в формате CBOR не обслуживаются*/
+    public static final boolean CBOR_PRESENT = ClassUtils.isPresent(
+            "com.fasterxml.jackson.dataformat.cbor.CBORFactory", App.class.getClassLoader());
+
+    /**Подключена ли библиотека jackson-dataformat-smile, без неё ответы в формате Smile не обслуживаются*/
+    public static final boolean SMILE_PRESENT = ClassUtils.isPresent(
+            "com.fasterxml.jackson.dataformat.smile.SmileFactory", App.class.getClassLoader());
+
+    @Autowired
+    private Environment environment;
+
+    /**Реестр арендаторов; в срезах контекста для тестов контроллеров его может не быть*/
+    @Autowired
+    private ObjectProvider<TenantRegistry> tenants;
+
     public static void main(String[] args)
     {
-        SpringApplication.run(App.class, args);
+        ConfigurableApplicationContext context = SpringApplication.run(App.class, args);
+        if (context.getEnvironment().getProperty("app.training-run", Boolean.class, false))
+        {
+            TrainingRun.executeAndExit(context);
+        }
     }
 
-}
\ No newline at end of file
+    /**Метод регистрирует перехватчик, трассирующий обработку запросов (если трассировка
+     * не отключена), перехватчик, определяющий арендатора запроса и ограничивающий
+     * параллельность его запросов, и перехватчик, ограничивающий нагрузку на методы-обработчики,
+     * отмеченные аннотацией RateLimit. Перехватчик арендаторов регистрируется, только если
+     * в контексте есть реестр арендаторов. Трассировка регистрируется первой, чтобы
+     * в неё попадало и время отклонённых запросов.*/
+    @Override
+    public void addInterceptors(InterceptorRegistry registry)
+    {
+        if (environment.getProperty("app.tracing.enabled", Boolean.class, true))
+        {
+            registry.addInterceptor(new TracingInterceptor(
+                    environment.getProperty("app.tracing.slow-request-millis", Long.class, 1000L)));
+        }
+        TenantRegistry tenantRegistry = tenants.getIfAvailable();
+        if (tenantRegistry != null)
+        {
+            registry.addInterceptor(new TenantInterceptor(tenantRegistry)).addPathPatterns("/users", "/users/**");
+        }
+        registry.addInterceptor(new RateLimitInterceptor(environment));
+    }
+
+    /**Метод настраивает выбор формата ответа: помимо заголовка Accept формат можно
+     * указать параметром запроса format=json|cbor|smile. Двоичные форматы обслуживаются
+     * конвертерами Jackson, которые Spring MVC подключает, только если в classpath есть
+     * библиотеки jackson-dataformat-cbor и jackson-dataformat-smile, поэтому и значения
+     * параметра для них регистрируются только при наличии библиотек.*/
+    @Override
+    public void configureContentNegotiation(ContentNegotiationConfigurer configurer)
+    {
+        configurer.favorParameter(true)
+                .parameterName("format")
+                .mediaType("json", MediaType.APPLICATION_JSON);
+        if (CBOR_PRESENT)
+        {
+            configurer.mediaType("cbor", APPLICATION_CBOR);
+        }
+        if (SMILE_PRESENT)
+        {
+            configurer.mediaType("smile", APPLICATION_SMILE);
+        }
+    }
+}
@@ -0,0 +1,576 @@
+package boot.contacts;
+
+
+import boot.entities.PhoneNumbers;
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+import boot.indexes.UsersIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**Класс представляет граф контактов: ребро ведёт от пользователя A к пользователю B,
+ * если собственный номер телефона B есть в телефонной книжке A. Номера сравниваются
+ * в каноническом виде. Пользователи пронумерованы подряд, а рёбра хранятся
+ * в упорядоченных массивах номеров смежных пользователей в обе стороны, поэтому
+ * ребро занимает 8 байт, а соседи пользователя читаются без обращения к хранилищу.
+ *
+ * Граф обновляется по разнице между прежним и текущим состоянием пользователя:
+ * изменение книжки меняет рёбра только от этого пользователя, а смена его номера -
+ * только рёбра к нему. Изменение одной записи книжки затрагивает только рёбра
+ * к владельцам её номеров. Запросы выполняются под блокировкой чтения, изменения - под
+ * блокировкой записи.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class ContactGraph implements UsersIndex
+{
+    /**Ключ отсутствующего собственного номера пользователя*/
+    private static final long NO_NUMBER = Long.MIN_VALUE;
+
+    private static final long[] NO_KEYS = new long[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**Номера вершин по id пользователей*/
+    private final Map<Long, Integer> nodeIds = new HashMap<>();
+
+    /**Вершины по их номерам, null у освобождённых номеров*/
+    private Node[] nodes = new Node[16];
+
+    private int nodeCount;
+
+    /**Освобождённые номера вершин для повторного использования*/
+    private final SortedIntSet freeNodes = new SortedIntSet();
+
+    /**Вершины-владельцы по ключам собственных номеров пользователей*/
+    private final Map<Long, SortedIntSet> owners = new HashMap<>();
+
+    /**Вершины, в книжках которых есть номер, по ключам номеров*/
+    private final Map<Long, SortedIntSet> holders = new HashMap<>();
+
+    @Override
+    public void put(User user)
+    {
+        long ownKey = user.getPhoneNumber() == null ? NO_NUMBER
+                : PhoneNumbers.numericMatchKey(user.getPhoneNumber());
+        long[] bookKeys = bookKeysOf(user);
+        lock.writeLock().lock();
+        try
+        {
+            int node = nodeOf(user.getUserId());
+            update(node, ownKey, bookKeys);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long userId)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            Integer node = nodeIds.remove(userId);
+            if (node != null)
+            {
+                update(node, NO_NUMBER, NO_KEYS);
+                nodes[node] = null;
+                freeNodes.add(node);
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void phoneRecordChanged(Long userId, PhoneRecord removed, PhoneRecord added)
+    {
+        long removedKey = removed == null || removed.getPhoneNumber() == null ? NO_NUMBER : keyOf(removed);
+        long addedKey = added == null || added.getPhoneNumber() == null ? NO_NUMBER : keyOf(added);
+        if (removedKey == addedKey)
+        {
+            return;//Номер записи не изменился
+        }
+        lock.writeLock().lock();
+        try
+        {
+            Integer node = nodeIds.get(userId);
+            if (node == null)
+            {
+                return;//Пользователь будет занесён целиком
+            }
+            if (addedKey != NO_NUMBER)
+            {
+                addBookKey(node, addedKey);
+            }
+            if (removedKey != NO_NUMBER)
+            {
+                removeBookKey(node, removedKey);
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**Метод проверяет, есть ли пользователь в графе.
+     @param userId id пользователя
+     @return true если пользователь занесён в граф*/
+    public boolean contains(Long userId)
+    {
+        lock.readLock().lock();
+        try
+        {
+            return nodeIds.containsKey(userId);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**Метод возвращает пользователей, номера которых есть в телефонной книжке пользователя.
+     @param userId id пользователя
+     @return id пользователей по возрастанию, или null если пользователя нет в графе*/
+    public List<Long> getContacts(Long userId)
+    {
+        lock.readLock().lock();
+        try
+        {
+            Integer node = nodeIds.get(userId);
+            return node == null ? null : userIdsOf(nodes[node].out);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**Метод возвращает пользователей, в телефонных книжках которых есть номер пользователя.
+     @param userId id пользователя
+     @return id пользователей по возрастанию, или null если пользователя нет в графе*/
+    public List<Long> getUsersHaving(Long userId)
+    {
+        lock.readLock().lock();
+        try
+        {
+            Integer node = nodeIds.get(userId);
+            return node == null ? null : userIdsOf(nodes[node].in);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**Метод возвращает общие контакты двух пользователей: пользователей, номера
+     * которых есть в телефонных книжках обоих.
+     @param userId id первого пользователя
+     @param otherUserId id второго пользователя
+     @return id пользователей по возрастанию, или null если одного из пользователей нет в графе*/
+    public List<Long> getMutualContacts(Long userId, Long otherUserId)
+    {
+        lock.readLock().lock();
+        try
+        {
+            Integer node = nodeIds.get(userId);
+            Integer other = nodeIds.get(otherUserId);
+            if (node == null || other == null)
+            {
+                return null;
+            }
+            SortedIntSet first = nodes[node].out;
+            SortedIntSet second = nodes[other].out;
+            List<Long> mutual = new ArrayList<>();
+            //Оба множества упорядочены, поэтому пересечение находится одним проходом
+            for (int i = 0, j = 0; i < first.size() && j < second.size(); )
+            {
+                int a = first.get(i);
+                int b = second.get(j);
+                if (a == b)
+                {
+                    mutual.add(nodes[a].userId);
+                    i++;
+                    j++;
+                }
+                else if (a < b)
+                {
+                    i++;
+                }
+                else
+                {
+                    j++;
+                }
+            }
+            mutual.sort(null);
+            return mutual;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**Метод обходит граф в ширину от пользователя и возвращает пользователей,
+     * достижимых не более чем за указанное количество переходов.
+     @param userId id исходного пользователя
+     @param maxHops наибольшее количество переходов
+     @param limit наибольшее количество возвращаемых пользователей
+     @return достижимые пользователи в порядке возрастания количества переходов,
+     или null если пользователя нет в графе*/
+    public List<ReachableUser> getReachable(Long userId, int maxHops, int limit)
+    {
+        lock.readLock().lock();
+        try
+        {
+            Integer start = nodeIds.get(userId);
+            if (start == null)
+            {
+                return null;
+            }
+            List<ReachableUser> reachable = new ArrayList<>();
+            BitSet visited = new BitSet(nodeCount);
+            visited.set(start);
+            int[] frontier = {start};
+            int frontierSize = 1;
+            for (int hops = 1; hops <= maxHops && frontierSize > 0; hops++)
+            {
+                int[] next = new int[16];
+                int nextSize = 0;
+                for (int f = 0; f < frontierSize; f++)
+                {
+                    SortedIntSet out = nodes[frontier[f]].out;
+                    for (int i = 0; i < out.size(); i++)
+                    {
+                        int node = out.get(i);
+                        if (visited.get(node))
+                        {
+                            continue;
+                        }
+                        visited.set(node);
+                        reachable.add(new ReachableUser(nodes[node].userId, hops));
+                        if (reachable.size() >= limit)
+                        {
+                            return reachable;
+                        }
+                        if (nextSize == next.length)
+                        {
+                            next = Arrays.copyOf(next, nextSize << 1);
+                        }
+                        next[nextSize++] = node;
+                    }
+                }
+                frontier = next;
+                frontierSize = nextSize;
+            }
+            return reachable;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**Метод возвращает количество рёбер графа.
+     @return количество пар пользователей, номер второго из которых есть в книжке первого*/
+    public long getEdgeCount()
+    {
+        lock.readLock().lock();
+        try
+        {
+            long edges = 0;
+            for (int i = 0; i < nodeCount; i++)
+            {
+                if (nodes[i] != null)
+                {
+                    edges += nodes[i].out.size();
+                }
+            }
+            return edges;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**Метод приводит вершину к новому собственному номеру и номерам книжки пользователя.
+     * Ребро h -> n есть тогда и только тогда, когда номер n есть в книжке h, поэтому
+     * изменения книжки затрагивают только исходящие рёбра, а смена номера - входящие.
+     * Повторы ключей в книжке учитываются один раз.*/
+    private void update(int node, long ownKey, long[] bookKeys)
+    {
+        Node vertex = nodes[node];
+        long[] previous = vertex.bookKeys;
+        int previousSize = vertex.bookSize;
+        int i = 0;
+        int j = 0;
+        while (i < previousSize || j < bookKeys.length)
+        {
+            long key;
+            if (j == bookKeys.length || (i < previousSize && previous[i] < bookKeys[j]))
+            {
+                key = previous[i];
+                unhold(node, key);
+            }
+            else if (i == previousSize || bookKeys[j] < previous[i])
+            {
+                key = bookKeys[j];
+                hold(node, key);
+            }
+            else
+            {
+                key = previous[i];
+            }
+            for (; i < previousSize && previous[i] == key; i++)
+            {
+                //Пропуск повторов ключа
+            }
+            for (; j < bookKeys.length && bookKeys[j] == key; j++)
+            {
+                //Пропуск повторов ключа
+            }
+        }
+        vertex.bookKeys = bookKeys;
+        vertex.bookSize = bookKeys.length;
+
+        if (vertex.ownKey != ownKey)
+        {
+            if (vertex.ownKey != NO_NUMBER)
+            {
+                disown(node, vertex.ownKey);
+            }
+            vertex.ownKey = ownKey;
+            if (ownKey != NO_NUMBER)
+            {
+                own(node, ownKey);
+            }
+        }
+    }
+
+    /**Метод добавляет ключ записи в книжку вершины; рёбра добавляются, если номера в книжке не было.*/
+    private void addBookKey(int node, long key)
+    {
+        Node vertex = nodes[node];
+        int index = Arrays.binarySearch(vertex.bookKeys, 0, vertex.bookSize, key);
+        if (index < 0)
+        {
+            index = -index - 1;
+            hold(node, key);
+        }
+        if (vertex.bookSize == vertex.bookKeys.length)
+        {
+            vertex.bookKeys = Arrays.copyOf(vertex.bookKeys, Math.max(4, vertex.bookSize + (vertex.bookSize >> 1)));
+        }
+        System.arraycopy(vertex.bookKeys, index, vertex.bookKeys, index + 1, vertex.bookSize - index);
+        vertex.bookKeys[index] = key;
+        vertex.bookSize++;
+    }
+
+    /**Метод удаляет ключ записи из книжки вершины; рёбра удаляются, если номера в книжке не осталось.*/
+    private void removeBookKey(int node, long key)
+    {
+        Node vertex = nodes[node];
+        long[] keys = vertex.bookKeys;
+        int index = Arrays.binarySearch(keys, 0, vertex.bookSize, key);
+        if (index < 0)
+        {
+            return;
+        }
+        System.arraycopy(keys, index + 1, keys, index, vertex.bookSize - index - 1);
+        int size = --vertex.bookSize;
+        if ((index == 0 || keys[index - 1] != key) && (index == size || keys[index] != key))
+        {
+            unhold(node, key);
+        }
+        if (size < keys.length >> 2)
+        {
+            vertex.bookKeys = size == 0 ? NO_KEYS : Arrays.copyOf(keys, size << 1);
+        }
+    }
+
+    /**Метод заносит номер в книжку вершины и добавляет рёбра к владельцам номера.*/
+    private void hold(int node, long key)
+    {
+        holders.computeIfAbsent(key, k -> new SortedIntSet()).add(node);
+        SortedIntSet keyOwners = owners.get(key);
+        if (keyOwners != null)
+        {
+            for (int i = 0; i < keyOwners.size(); i++)
+            {
+                link(node, keyOwners.get(i));
+            }
+        }
+    }
+
+    private void unhold(int node, long key)
+    {
+        SortedIntSet keyHolders = holders.get(key);
+        keyHolders.remove(node);
+        if (keyHolders.isEmpty())
+        {
+            holders.remove(key);
+        }
+        SortedIntSet keyOwners = owners.get(key);
+        if (keyOwners != null)
+        {
+            for (int i = 0; i < keyOwners.size(); i++)
+            {
+                unlink(node, keyOwners.get(i));
+            }
+        }
+    }
+
+    /**Метод делает вершину владельцем номера и добавляет рёбра от вершин, в книжках которых он есть.*/
+    private void own(int node, long key)
+    {
+        owners.computeIfAbsent(key, k -> new SortedIntSet()).add(node);
+        SortedIntSet keyHolders = holders.get(key);
+        if (keyHolders != null)
+        {
+            for (int i = 0; i < keyHolders.size(); i++)
+            {
+                link(keyHolders.get(i), node);
+            }
+        }
+    }
+
+    private void disown(int node, long key)
+    {
+        SortedIntSet keyOwners = owners.get(key);
+        keyOwners.remove(node);
+        if (keyOwners.isEmpty())
+        {
+            owners.remove(key);
+        }
+        SortedIntSet keyHolders = holders.get(key);
+        if (keyHolders != null)
+        {
+            for (int i = 0; i < keyHolders.size(); i++)
+            {
+                unlink(keyHolders.get(i), node);
+            }
+        }
+    }
+
+    private void link(int from, int to)
+    {
+        if (from != to)//Собственный номер в своей книжке не считается контактом
+        {
+            nodes[from].out.add(to);
+            nodes[to].in.add(from);
+        }
+    }
+
+    private void unlink(int from, int to)
+    {
+        if (from != to)
+        {
+            nodes[from].out.remove(to);
+            nodes[to].in.remove(from);
+        }
+    }
+
+    private int nodeOf(Long userId)
+    {
+        Integer node = nodeIds.get(userId);
+        if (node != null)
+        {
+            return node;
+        }
+        int free;
+        if (!freeNodes.isEmpty())
+        {
+            free = freeNodes.get(0);
+            freeNodes.remove(free);
+        }
+        else
+        {
+            if (nodeCount == nodes.length)
+            {
+                nodes = Arrays.copyOf(nodes, nodeCount << 1);
+            }
+            free = nodeCount++;
+        }
+        nodes[free] = new Node(userId);
+        nodeIds.put(userId, free);
+        return free;
+    }
+
+    private List<Long> userIdsOf(SortedIntSet set)
+    {
+        List<Long> userIds = new ArrayList<>(set.size());
+        for (int i = 0; i < set.size(); i++)
+        {
+            userIds.add(nodes[set.get(i)].userId);
+        }
+        userIds.sort(null);
+        return userIds;
+    }
+
+    /**Метод возвращает упорядоченные ключи номеров телефонной книжки пользователя с повторами.*/
+    private static long[] bookKeysOf(User user)
+    {
+        if (user.getPhoneBook() == null)
+        {
+            return NO_KEYS;
+        }
+        List<PhoneRecord> phoneRecords = user.getPhoneBook().getListPhoneRecords();
+        long[] keys = new long[phoneRecords.size()];
+        int count = 0;
+        for (PhoneRecord phoneRecord : phoneRecords)
+        {
+            if (phoneRecord.getPhoneNumber() != null)
+            {
+                keys[count++] = keyOf(phoneRecord);
+            }
+        }
+        if (count == 0)
+        {
+            return NO_KEYS;
+        }
+        keys = count == keys.length ? keys : Arrays.copyOf(keys, count);
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    private static long keyOf(PhoneRecord phoneRecord)
+    {
+        return PhoneNumbers.numericMatchKey(phoneRecord.getPhoneNumber(), phoneRecord.getPhoneKey());
+    }
+
+    /**Вершина графа: пользователь, ключ его номера, ключи номеров его книжки и смежные вершины*/
+    private static final class Node
+    {
+        final Long userId;
+
+        long ownKey = NO_NUMBER;
+
+        /**Упорядоченные ключи номеров книжки с повторами, по одному на запись с номером*/
+        long[] bookKeys = NO_KEYS;
+
+        /**Количество занятых элементов массива ключей*/
+        int bookSize;
+
+        /**Вершины пользователей, номера которых есть в книжке этого пользователя*/
+        final SortedIntSet out = new SortedIntSet();
+
+        /**Вершины пользователей, в книжках которых есть номер этого пользователя*/
+        final SortedIntSet in = new SortedIntSet();
+
+        Node(Long userId)
+        {
+            this.userId = userId;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package boot.contacts;
+
+
+import java.util.Objects;
+
+/**Класс представляет пользователя, достижимого по графу контактов, и наименьшее
+ * количество переходов до него: 1 - его номер есть в телефонной книжке исходного
+ * пользователя, 2 - в книжке одного из таких пользователей и т.д.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class ReachableUser
+{
+    /**id достижимого пользователя*/
+    private final Long userId;
+
+    /**Наименьшее количество переходов от исходного пользователя*/
+    private final int hops;
+
+    public ReachableUser(Long userId, int hops)
+    {
+        this.userId = userId;
+        this.hops = hops;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public int getHops() {
+        return hops;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ReachableUser)) return false;
+        ReachableUser that = (ReachableUser) o;
+        return hops == that.hops && Objects.equals(userId, that.userId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, hops);
+    }
+
+    @Override
+    public String toString() {
+        return "ReachableUser{" +
+                "userId=" + userId +
+                ", hops=" + hops +
+                '}';
+    }
+}
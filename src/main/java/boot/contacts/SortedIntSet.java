@@ -0,0 +1,81 @@
+package boot.contacts;
+
+
+import java.util.Arrays;
+
+/**Класс представляет множество чисел типа int в упорядоченном массиве: занимает
+ * по 4 байта на элемент без объектов-обёрток, проверка наличия выполняется двоичным
+ * поиском, добавление и удаление - сдвигом хвоста массива. Методы не потокобезопасны.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+final class SortedIntSet
+{
+    private static final int[] EMPTY = new int[0];
+
+    private int[] values = EMPTY;
+
+    private int size;
+
+    /**Метод добавляет число в множество.
+     @return true если числа в множестве не было*/
+    boolean add(int value)
+    {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0)
+        {
+            return false;
+        }
+        index = -index - 1;
+        if (size == values.length)
+        {
+            values = Arrays.copyOf(values, Math.max(4, size + (size >> 1)));
+        }
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+        size++;
+        return true;
+    }
+
+    /**Метод удаляет число из множества. Массив сжимается, когда заполнен меньше чем на четверть.
+     @return true если число было в множестве*/
+    boolean remove(int value)
+    {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0)
+        {
+            return false;
+        }
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        if (size == 0)
+        {
+            values = EMPTY;
+        }
+        else if (size < values.length >> 2)
+        {
+            values = Arrays.copyOf(values, size << 1);
+        }
+        return true;
+    }
+
+    boolean contains(int value)
+    {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**@return число по его номеру в порядке возрастания*/
+    int get(int index)
+    {
+        return values[index];
+    }
+}
@@ -0,0 +1,30 @@
+package boot.controllers;
+
+
+import boot.startup.WarmUpRunner;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**Класс представляет собой REST-контроллёр для проверки готовности приложения
+ * к обработке запросов, например балансировщиком нагрузки.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@RestController
+public class ReadinessController
+{
+    @Autowired
+    private WarmUpRunner warmUpRunner;
+
+    /**Метод обрабатывает GET-запросы о готовности приложения.
+     * @return Http-статус 200, если приложение запущено и прогрето, иначе 503*/
+    @GetMapping("/ready")
+    public ResponseEntity<Void> ready()
+    {
+        if (!warmUpRunner.isReady())
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        return ResponseEntity.ok().build();
+    }
+}
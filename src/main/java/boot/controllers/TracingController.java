@@ -0,0 +1,79 @@
+package boot.controllers;
+
+
+import boot.tracing.FlightRecorder;
+import boot.tracing.RecordingStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**Класс представляет собой REST-контроллёр для записи Java Flight Recorder по запросу:
+ * запись запускается, пока воспроизводится медленный запрос, и затем скачивается
+ * файлом для просмотра в JDK Mission Control.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@RestController
+@RequestMapping("/tracing")
+public class TracingController
+{
+    /**Наибольшее время записи, которое можно запросить, - час*/
+    private static final long MAX_RECORDING_SECONDS = 3600;
+
+    @Autowired
+    private FlightRecorder flightRecorder;
+
+    /**Метод обрабатывает POST-запросы на запуск записи JFR. Если запись уже идёт,
+     * возвращается её состояние.
+     * @param durationSeconds время, через которое запись остановится сама (от 1 до 3600)
+     * @return состояние записи*/
+    @PostMapping("recording")
+    public ResponseEntity<RecordingStatus> startRecording(
+            @RequestParam(defaultValue = "300") long durationSeconds)
+    {
+        long duration = Math.max(1, Math.min(MAX_RECORDING_SECONDS, durationSeconds));
+        return ResponseEntity.ok().body(flightRecorder.start(duration));
+    }
+
+    /**Метод обрабатывает GET-запросы и возвращает состояние записи JFR.
+     * @return состояние записи, или Http-статус 404 если записи нет*/
+    @GetMapping("recording")
+    public ResponseEntity<RecordingStatus> getRecording()
+    {
+        return ResponseEntity.ok().body(flightRecorder.status());
+    }
+
+    /**Метод обрабатывает POST-запросы на остановку записи JFR и возвращает
+     * файл записи.
+     * @return файл записи, или Http-статус 404 если записи нет*/
+    @PostMapping("recording/stop")
+    public ResponseEntity<StreamingResponseBody> stopRecording() throws IOException
+    {
+        Path file = flightRecorder.stop();
+        StreamingResponseBody body = out ->
+        {
+            try
+            {
+                Files.copy(file, out);
+            }
+            finally
+            {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.jfr\"")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(body);
+    }
+}
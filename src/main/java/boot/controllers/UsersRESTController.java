@@ -1,16 +1,38 @@
 package boot.controllers;
 
 
+import boot.contacts.ReachableUser;
+import boot.dao.MemoryStats;
+import boot.entities.BatchResult;
 import boot.entities.PhoneRecord;
+import boot.entities.PhoneRecordOrder;
 import boot.entities.User;
+import boot.events.ChangeEvent;
 import boot.exceptions.EntityNotFoundException;
+import boot.exceptions.InvalidRequestParameterException;
+import boot.exceptions.VersionConflictException;
+import boot.indexes.IndexStatus;
+import boot.limits.QueryExecutor;
+import boot.limits.RateLimit;
 import boot.services.UsersService;
+import boot.statistics.PhoneBookSize;
+import boot.statistics.PhoneNumberCount;
+import boot.statistics.UsersStatistics;
+import boot.tenants.TenantContext;
+import boot.tenants.TenantRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.Banner;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -22,15 +44,86 @@ import java.util.stream.Collectors;
 @RequestMapping("/users")
 public class UsersRESTController
 {
+    /**Тип содержимого потока событий: по одному JSON-объекту в строке*/
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    /**Максимальное количество событий изменения, читаемых из сервиса за один раз*/
+    private static final int CHANGE_EVENTS_BATCH_SIZE = 256;
+
+    /**Интервал опроса сервиса в ожидании новых событий изменения, в миллисекундах*/
+    private static final long CHANGE_EVENTS_POLL_MILLIS = 50L;
+
+    /**Максимальное время ожидания новых событий изменения одним запросом, в миллисекундах*/
+    private static final long CHANGE_EVENTS_MAX_WAIT_MILLIS = 30_000L;
+
+    /**Количество записей на странице, если оно не указано в запросе*/
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    /**Максимальное количество записей на странице*/
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    /**Количество книжек и номеров в отчётах о самых больших книжках и частых номерах,
+     * если оно не указано в запросе*/
+    private static final int DEFAULT_TOP_SIZE = 10;
+
+    /**Максимальное количество книжек и номеров в этих отчётах*/
+    private static final int MAX_TOP_SIZE = 100;
+
+    /**Наибольшее количество переходов при поиске достижимых пользователей*/
+    private static final int MAX_HOPS = 6;
+
+    /**Максимальное количество достижимых пользователей в ответе*/
+    private static final int MAX_REACHABLE = 10_000;
+
+    /**Максимальное количество id в одном пакетном запросе*/
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    /**Значения заголовка ETag для первых версий сущностей*/
+    /*Большинство сущностей редактируется редко, поэтому значения заголовка
+    * для их версий создаются один раз, а не при каждом ответе*/
+    private static final String[] VERSION_ETAGS = new String[256];
+
+    static
+    {
+        for (int version = 0; version < VERSION_ETAGS.length; version++)
+            VERSION_ETAGS[version] = "\"" + version + "\"";
+    }
+
     @Autowired
     private UsersService usersService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private QueryExecutor queryExecutor;
+
+    @Autowired
+    private TenantRegistry tenants;
+
     /**Метод обрабатывает GET-запросы и возвращает список всех пользователей.
-     * @return список всех пользователей*/
+     * Запрос выполняется асинхронно в пуле затратных запросов.
+     * @param phoneBooks возвращать ли пользователей вместе с их телефонными книжками,
+     * по умолчанию true
+     * @return список всех пользователей, или Http-статус 503 если пул перегружен
+     * или запрос не выполнен за отведённое время*/
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers()
+    @RateLimit(permitsPerSecond = "${users.rate-limit.get-all-users.permits-per-second:10}",
+            burst = "${users.rate-limit.get-all-users.burst:20}",
+            maxConcurrency = "${users.rate-limit.get-all-users.max-concurrency:16}")
+    public DeferredResult<ResponseEntity<List<User>>> getAllUsers(
+            @RequestParam(value = "phoneBooks", defaultValue = "true") boolean phoneBooks)
     {
-        List<User> users = usersService.getAllUsers();
+        //Просмотр всех пользователей выполняется в пуле затратных запросов, а не в потоке Tomcat
+        //Хранилище арендатора выбирается до передачи запроса в пул, где арендатор не задан
+        UsersService service = usersService();
+        return queryExecutor.submit(() -> allUsers(service, phoneBooks));
+    }
+
+    /**Метод получает список всех пользователей хранилища и формирует ответ с ним.*/
+    private static ResponseEntity<List<User>> allUsers(UsersService service, boolean phoneBooks)
+    {
+        List<User> users = withPhoneBooks(service.getAllUsers(), phoneBooks);
 
         /*Возвращаем ResponseEntity<List<User>>, это более гибкий вариант, чем вернуть
         просто User, поскольку для ResponseEntity можно установить Http-статус ответа –
@@ -49,71 +142,110 @@ public class UsersRESTController
     /*@RequestBody говорит, что параметр будет именно в теле запроса*/
     public ResponseEntity<User> addUser(@RequestBody User user)
     {
-        usersService.addUser(user);
+        usersService().addUser(user);
         return ResponseEntity.status(201).body(user);
     }
 
     /**Метод обрабатывает GET-запросы и возвращает объект пользователя по его id.
+     * Версия пользователя передаётся в заголовке ETag.
      * @param userId id пользователя
      * @return объект пользователя*/
     @GetMapping("/{userId}")
     public ResponseEntity<User> getUser(@PathVariable("userId") Long userId)
     {
-        User user = usersService.getUser(userId);
+        User user = usersService().getUser(userId);
         if (user == null)
-            throw new EntityNotFoundException("Users id-" + userId + " not found.");
-        return ResponseEntity.ok().body(user);
+            throw EntityNotFoundException.ofUser(userId);
+        return okWithVersion(user.getVersion()).body(user);
+    }
+
+    /**Метод обрабатывает HEAD-запросы и проверяет существование пользователя.
+     * Если пользователя точно нет, ответ даётся без обращения к хранилищу.
+     * @param userId id пользователя
+     * @return Http-статус 200 если пользователь существует, иначе 404*/
+    @RequestMapping(value = "/{userId}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> userExists(@PathVariable("userId") Long userId)
+    {
+        /*Ответ 404 формируется без исключения: у HEAD-ответа нет тела,
+        и обработка ошибки только замедлила бы проверку*/
+        return ResponseEntity.status(usersService().userExists(userId) ? 200 : 404).build();
     }
 
     /**Метод обрабатывает DELETE-запросы и удаляет объект пользователя по его id.
      * @param userId id пользователя который будет удалён
-     * @return объект удалённого пользователя или null, если в параметре null,
-     * или пользователя с таким id не существует*/
+     * @return объект удалённого пользователя*/
     @DeleteMapping("/{userId}")
     public ResponseEntity<User> deleteUser(@PathVariable("userId") Long userId)
     {
-        User user = usersService.getUser(userId);
+        User user = usersService().removeUser(userId);
         if (user == null)
-            throw new EntityNotFoundException("Users id-" + userId + " not found.");
-
-        usersService.deleteUser(userId);
+            throw EntityNotFoundException.ofUser(userId);
         return ResponseEntity.ok().body(user);
     }
 
     /**Метод обрабатывает PUT-запросы и редактирует объект пользователя.
+     * Если передан заголовок If-Match, пользователь редактируется только при совпадении
+     * его текущей версии с указанной, иначе возвращается Http-статус 412.
      * @param user объект пользователя который будет отредактирован
+     * @param ifMatch ожидаемая версия пользователя (значение ETag), необязательно
      * @return объект отредактированного пользователя или null, если в параметре null,
      * или пользователя с таким id не существует*/
     @PutMapping
-    public ResponseEntity<User> updateUser(@RequestBody User user)
+    public ResponseEntity<User> updateUser(@RequestBody User user,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch)
     {
-        Long id = usersService.updateUser(user);
+        if (ifMatch != null)
+            user.setVersion(parseIfMatch(ifMatch));
+
+        Long id = usersService().updateUser(user);
         if (id == null)
-            throw new EntityNotFoundException("Users id-" + id + " not found.");
+            throw EntityNotFoundException.ofUser(user.getUserId());
 
-        return ResponseEntity.ok().body(user);
+        return okWithVersion(user.getVersion()).body(user);
     }
 
     /**Метод обрабатывает GET-запросы и возвращает список объектов пользователей
      *  по части их имени.
      * @param partName часть имени пользователя.
-     * @return список объектов пользователей.*/
+     * @param phoneBooks возвращать ли пользователей вместе с их телефонными книжками,
+     * по умолчанию true
+     * @return список объектов пользователей, или Http-статус 503 если пул затратных
+     * запросов перегружен или запрос не выполнен за отведённое время.*/
     @GetMapping("name")
-    public ResponseEntity<List<User>> getUsersByName(@RequestParam String partName)
+    @RateLimit(permitsPerSecond = "${users.rate-limit.get-users-by-name.permits-per-second:20}",
+            burst = "${users.rate-limit.get-users-by-name.burst:40}",
+            maxConcurrency = "${users.rate-limit.get-users-by-name.max-concurrency:32}")
+    public DeferredResult<ResponseEntity<List<User>>> getUsersByName(@RequestParam String partName,
+            @RequestParam(value = "phoneBooks", defaultValue = "true") boolean phoneBooks)
     {
-        List<User> users = usersService.getUsersByName(partName);
-
-        return ResponseEntity.ok().body(users);
+        UsersService service = usersService();
+        return queryExecutor.submit(() -> ResponseEntity.ok().body(
+                withPhoneBooks(service.getUsersByName(partName), phoneBooks)));
     }
 
-    /**Метод обрабатывает GET-запросы и возвращает список всех записей
-     * в телефонной книжке пользователя.
+    /**Метод обрабатывает GET-запросы и возвращает список записей в телефонной книжке
+     * пользователя. Без параметров возвращаются все записи, иначе - страница записей
+     * в указанном порядке, следующая за последней записью предыдущей страницы.
      * @param userId id пользователя записи в телефонной книжке которого нужно получить.
-     * @return список всех записей*/
+     * @param sort порядок записей: id (по умолчанию), name или phoneNumber.
+     * @param afterId id последней записи предыдущей страницы, необязательно.
+     * @param afterKey имя или номер телефона последней записи предыдущей страницы,
+     * необязательно (нужен, если эта запись могла быть удалена).
+     * @param limit максимальное количество записей на странице, необязательно.
+     * @return список записей*/
     @GetMapping("phoneRecords/{userId}")
-    public ResponseEntity<List<PhoneRecord>> getUserAllPhoneRecords(@PathVariable("userId") Long userId)
+    public ResponseEntity<List<PhoneRecord>> getUserAllPhoneRecords(@PathVariable("userId") Long userId,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "afterId", required = false) Long afterId,
+            @RequestParam(value = "afterKey", required = false) String afterKey,
+            @RequestParam(value = "limit", required = false) Integer limit)
     {
-        List<PhoneRecord> records = usersService.getUserAllPhoneRecords(userId);
+        List<PhoneRecord> records;
+        if (sort == null && afterId == null && limit == null)
+            records = usersService().getUserAllPhoneRecords(userId);
+        else
+            records = usersService().getUserPhoneRecordsPage(userId, parsePhoneRecordOrder(sort),
+                    afterId, afterKey, limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
 
         return ResponseEntity.ok().body(records);
     }
@@ -127,7 +259,7 @@ public class UsersRESTController
     public ResponseEntity<PhoneRecord> addUserPhoneRecord(@PathVariable("userId") Long userId,
                                                @RequestBody PhoneRecord phoneRecord)
     {
-        Long id = usersService.addUserPhoneRecord(userId, phoneRecord);
+        Long id = usersService().addUserPhoneRecord(userId, phoneRecord);
         phoneRecord.setPhoneRecordId(id);
         return ResponseEntity.status(201).body(phoneRecord);
     }
@@ -141,10 +273,10 @@ public class UsersRESTController
     public ResponseEntity<PhoneRecord> getUserPhoneRecord(@PathVariable("userId") Long userId,
                                                           @RequestParam Long id)
     {
-        PhoneRecord record = usersService.getUserPhoneRecord(userId, id);
+        PhoneRecord record = usersService().getUserPhoneRecord(userId, id);
         if (record == null)
-            throw new EntityNotFoundException("Records id-" + id + " not found.");
-        return ResponseEntity.ok().body(record);
+            throw EntityNotFoundException.ofPhoneRecord(id);
+        return okWithVersion(record.getVersion()).body(record);
     }
 
     /**Метод обрабатывает DELETE-запросы и удаляет запись по её id
@@ -156,26 +288,45 @@ public class UsersRESTController
     public ResponseEntity<PhoneRecord> deleteUserPhoneRecord(@PathVariable("userId") Long userId,
                                                           @RequestParam Long id)
     {
-        PhoneRecord record =  usersService.getUserPhoneRecord(userId, id);
+        PhoneRecord record = usersService().removeUserPhoneRecord(userId, id);
         if (record == null)
-            throw new EntityNotFoundException("Records id-" + id + " not found.");
-        usersService.deleteUserPhoneRecord(userId, id);
+            throw EntityNotFoundException.ofPhoneRecord(id);
         return ResponseEntity.ok().body(record);
     }
 
+    /**Метод обрабатывает HEAD-запросы и проверяет существование записи
+     * в телефонной книжке пользователя. Если записи точно нет, ответ даётся
+     * без обращения к хранилищу.
+     * @param userId id пользователя
+     * @param id id записи
+     * @return Http-статус 200 если запись существует, иначе 404*/
+    @RequestMapping(value = "phoneRecord/{userId}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> userPhoneRecordExists(@PathVariable("userId") Long userId,
+                                                      @RequestParam Long id)
+    {
+        return ResponseEntity.status(usersService().userPhoneRecordExists(userId, id) ? 200 : 404).build();
+    }
+
     /**Метод обрабатывает PUT-запросы и редактирует  запись в телефонной книжке пользователя.
+     * Если передан заголовок If-Match, запись редактируется только при совпадении
+     * её текущей версии с указанной, иначе возвращается Http-статус 412.
      *@param userId id пользователя, у которого нужно отредактировать запись.
      *@param phoneRecord объект записи, которым нужно обновить существующую запись.
+     *@param ifMatch ожидаемая версия записи (значение ETag), необязательно
      * @return объект отредактированной записи.*/
     @PutMapping("phoneRecord/{userId}")
     public ResponseEntity<PhoneRecord> updateUserPhoneRecord(@PathVariable("userId") Long userId,
-                                                      @RequestBody PhoneRecord phoneRecord)
+                                                      @RequestBody PhoneRecord phoneRecord,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch)
     {
-        Long id = usersService.updateUserPhoneRecord(userId, phoneRecord);
+        if (ifMatch != null)
+            phoneRecord.setVersion(parseIfMatch(ifMatch));
+
+        Long id = usersService().updateUserPhoneRecord(userId, phoneRecord);
         if (id == null)
-            throw new EntityNotFoundException("Records id-" + id + " not found.");
+            throw EntityNotFoundException.ofPhoneRecord(phoneRecord.getPhoneRecordId());
 
-        return ResponseEntity.ok().body(phoneRecord);
+        return okWithVersion(phoneRecord.getVersion()).body(phoneRecord);
     }
 
     /**Метод обрабатывает GET-запросы и возвращает список всех записей
@@ -187,11 +338,376 @@ public class UsersRESTController
     public ResponseEntity<List<PhoneRecord>> getUserPhoneRecordsByPhoneNumber(
             @PathVariable("userId") Long userId, @RequestParam String phoneNumber)
     {
-        List<PhoneRecord> records = usersService.getUserPhoneRecordsByPhoneNumber(
+        List<PhoneRecord> records = usersService().getUserPhoneRecordsByPhoneNumber(
                 userId, phoneNumber);
         if (records == null)
-            throw new EntityNotFoundException("Users id-" + userId + " not found.");
+            throw EntityNotFoundException.ofUser(userId);
 
         return ResponseEntity.ok().body(records);
     }
+
+    /**Метод обрабатывает GET-запросы и возвращает пользователей по списку id
+     * одним ответом, например /users/batch?ids=1,2,3.
+     * @param ids id пользователей, не больше MAX_BATCH_SIZE.
+     * @param phoneBooks возвращать ли пользователей вместе с их телефонными книжками,
+     * по умолчанию true
+     * @return найденные пользователи и id, по которым пользователей нет*/
+    @GetMapping("batch")
+    public ResponseEntity<BatchResult<User>> getUsers(@RequestParam List<Long> ids,
+            @RequestParam(value = "phoneBooks", defaultValue = "true") boolean phoneBooks)
+    {
+        BatchResult<User> users = usersService().getUsers(checkBatchSize(ids));
+        return ResponseEntity.ok().body(phoneBooks ? users
+                : new BatchResult<>(withPhoneBooks(users.getFound(), false), users.getMissing()));
+    }
+
+    /**Метод обрабатывает POST-запросы со списком id в теле запроса и возвращает
+     * пользователей одним ответом. Используется, когда id слишком много для адреса запроса.
+     * @param ids id пользователей, не больше MAX_BATCH_SIZE.
+     * @param phoneBooks возвращать ли пользователей вместе с их телефонными книжками
+     * @return найденные пользователи и id, по которым пользователей нет*/
+    @PostMapping("batch")
+    public ResponseEntity<BatchResult<User>> postUsers(@RequestBody List<Long> ids,
+            @RequestParam(value = "phoneBooks", defaultValue = "true") boolean phoneBooks)
+    {
+        return getUsers(ids, phoneBooks);
+    }
+
+    /**Метод обрабатывает GET-запросы и возвращает записи из телефонной книжки
+     * пользователя по списку их id одним ответом, например /users/phoneRecords/batch/1?ids=1,2.
+     * @param userId id пользователя
+     * @param ids id записей, не больше MAX_BATCH_SIZE.
+     * @return найденные записи и id, по которым записей нет*/
+    @GetMapping("phoneRecords/batch/{userId}")
+    public ResponseEntity<BatchResult<PhoneRecord>> getUserPhoneRecords(@PathVariable("userId") Long userId,
+                                                                        @RequestParam List<Long> ids)
+    {
+        BatchResult<PhoneRecord> records = usersService().getUserPhoneRecords(userId, checkBatchSize(ids));
+        if (records == null)
+            throw EntityNotFoundException.ofUser(userId);
+        return ResponseEntity.ok().body(records);
+    }
+
+    /**Метод обрабатывает POST-запросы со списком id записей в теле запроса и возвращает
+     * записи из телефонной книжки пользователя одним ответом.
+     * @param userId id пользователя
+     * @param ids id записей, не больше MAX_BATCH_SIZE.
+     * @return найденные записи и id, по которым записей нет*/
+    @PostMapping("phoneRecords/batch/{userId}")
+    public ResponseEntity<BatchResult<PhoneRecord>> postUserPhoneRecords(@PathVariable("userId") Long userId,
+                                                                         @RequestBody List<Long> ids)
+    {
+        return getUserPhoneRecords(userId, ids);
+    }
+
+    /**Метод обрабатывает GET-запросы и возвращает пользователя вместе с его телефонной
+     * книжкой в том состоянии, в котором он был на указанный момент времени.
+     * @param userId id пользователя
+     * @param asOf момент времени: миллисекунды от начала эпохи или
+     * момент в формате ISO-8601, например 2026-10-19T10:15:30Z.
+     * @return объект пользователя на указанный момент*/
+    @GetMapping("history/{userId}")
+    public ResponseEntity<User> getUserAsOf(@PathVariable("userId") Long userId, @RequestParam String asOf)
+    {
+        User user = usersService().getUserAsOf(userId, parseTimestamp(asOf));
+        if (user == null)
+            throw EntityNotFoundException.ofUser(userId);
+        return okWithVersion(user.getVersion()).body(user);
+    }
+
+    /**Метод обрабатывает GET-запросы и возвращает записи в телефонной книжке
+     * пользователя в том состоянии, в котором они были на указанный момент времени.
+     * @param userId id пользователя
+     * @param asOf момент времени: миллисекунды от начала эпохи или момент в формате ISO-8601.
+     * @return список записей в порядке их id*/
+    @GetMapping("phoneRecords/history/{userId}")
+    public ResponseEntity<List<PhoneRecord>> getUserPhoneRecordsAsOf(@PathVariable("userId") Long userId,
+                                                                     @RequestParam String asOf)
+    {
+        List<PhoneRecord> records = usersService().getUserPhoneRecordsAsOf(userId, parseTimestamp(asOf));
+        if (records == null)
+            throw EntityNotFoundException.ofUser(userId);
+        return ResponseEntity.ok().body(records);
+    }
+
+    /**Метод обрабатывает GET-запросы и передаёт поток событий изменения хранилища
+     * в формате NDJSON (по одному событию в строке), начиная с указанного номера.
+     * Поток остаётся открытым в ожидании новых событий не дольше waitMillis, после чего
+     * клиент может переподключиться, передав номер, следующий за последним полученным.
+     * @param fromOffset номер первого события, которое нужно получить.
+     * @param waitMillis время ожидания новых событий в миллисекундах.
+     * @return поток событий изменения*/
+    @GetMapping(value = "changes", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getChangeEvents(
+            @RequestParam(defaultValue = "0") Long fromOffset,
+            @RequestParam(defaultValue = "0") Long waitMillis)
+    {
+        /*Первая порция читается до начала передачи ответа, чтобы запрос уже вытесненных
+        из буфера событий завершался Http-статусом 410, а не обрывом потока*/
+        UsersService service = usersService();
+        List<ChangeEvent> firstEvents = service.getChangeEvents(
+                fromOffset, CHANGE_EVENTS_BATCH_SIZE);
+
+        StreamingResponseBody body = outputStream -> {
+            long deadline = System.currentTimeMillis()
+                    + Math.min(waitMillis, CHANGE_EVENTS_MAX_WAIT_MILLIS);
+            long offset = fromOffset;
+            List<ChangeEvent> events = firstEvents;
+            while (true)
+            {
+                for (ChangeEvent event : events)
+                {
+                    outputStream.write(objectMapper.writeValueAsBytes(event));
+                    outputStream.write('\n');
+                    offset = event.getOffset() + 1;
+                }
+                outputStream.flush();
+
+                if (events.isEmpty())
+                {
+                    if (System.currentTimeMillis() >= deadline)
+                    {
+                        break;
+                    }
+                    try
+                    {
+                        Thread.sleep(CHANGE_EVENTS_POLL_MILLIS);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+                events = service.getChangeEvents(offset, CHANGE_EVENTS_BATCH_SIZE);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
+    }
+
+    /**Метод обрабатывает GET-запросы и возвращает показатели использования памяти
+     * хранилищем пользователей: количество пользователей, оценку занимаемой памяти,
+     * бюджет памяти, количество вытесненных пользователей и отклонённых записей.
+     * @return показатели использования памяти*/
+    @GetMapping("stats/memory")
+    public ResponseEntity<MemoryStats> getMemoryStats()
+    {
+        return ResponseEntity.ok().body(usersService().getMemoryStats());
+    }
+
+    /**Метод обрабатывает GET-запросы и возвращает состояния вторичных индексов:
+     * построен ли индекс, сколько пользователей уже занесено в строящийся индекс
+     * и сколько изменений, сделанных за время построения, ещё не применено.
+     * @return список состояний индексов*/
+    @GetMapping("indexes")
+    public ResponseEntity<List<IndexStatus>> getIndexStatuses()
+    {
+        return ResponseEntity.ok().body(usersService().getIndexStatuses());
+    }
+
+    /**Метод обрабатывает POST-запросы на перестроение вторичного индекса. Индекс
+     * перестраивается в фоне, до завершения запросы используют его прежний экземпляр.
+     * @param name название индекса
+     * @return Http-статус 202 и состояние индекса после запуска перестроения*/
+    @PostMapping("indexes/{name}/rebuild")
+    public ResponseEntity<IndexStatus> reindex(@PathVariable("name") String name)
+    {
+        return ResponseEntity.accepted().body(usersService().reindex(name));
+    }
+
+    /**Метод обрабатывает GET-запросы и возвращает количество пользователей, записей
+     * и распределение размеров телефонных книжек. Показатели обновляются при каждом
+     * изменении, запрос не просматривает хранилище. Пока индекс показателей строится
+     * после запуска, запросы показателей получают Http-статус 503.
+     * @return сводные показатели хранилища*/
+    @GetMapping("statistics")
+    public ResponseEntity<UsersStatistics> getStatistics()
+    {
+        return ResponseEntity.ok().body(usersService().getStatistics());
+    }
+
+    /**Метод обрабатывает GET-запросы и возвращает самые большие телефонные книжки.
+     * @param limit количество книжек, по умолчанию 10, не больше 100
+     * @return id пользователей и размеры их книжек по убыванию размера*/
+    @GetMapping("statistics/largestPhoneBooks")
+    public ResponseEntity<List<PhoneBookSize>> getLargestPhoneBooks(
+            @RequestParam(value = "limit", defaultValue = "" + DEFAULT_TOP_SIZE) int limit)
+    {
+        return ResponseEntity.ok().body(usersService().getLargestPhoneBooks(topSize(limit)));
+    }
+
+    /**Метод обрабатывает GET-запросы и возвращает самые частые номера телефонов во всех
+     * телефонных книжках. Номера приводятся к каноническому виду, количества записей
+     * с ними оцениваются сверху.
+     * @param limit количество номеров, по умолчанию 10, не больше 100
+     * @return номера по убыванию количества записей с ними*/
+    @GetMapping("statistics/topPhoneNumbers")
+    public ResponseEntity<List<PhoneNumberCount>> getTopPhoneNumbers(
+            @RequestParam(value = "limit", defaultValue = "" + DEFAULT_TOP_SIZE) int limit)
+    {
+        return ResponseEntity.ok().body(usersService().getTopPhoneNumbers(topSize(limit)));
+    }
+
+    /**Метод обрабатывает GET-запросы и возвращает пользователей, номера телефонов
+     * которых есть в телефонной книжке пользователя. Пока граф контактов строится
+     * после запуска, запросы контактов получают Http-статус 503.
+     * @param userId id пользователя
+     * @return id пользователей по возрастанию*/
+    @GetMapping("contacts/{userId}")
+    public ResponseEntity<List<Long>> getContacts(@PathVariable("userId") Long userId)
+    {
+        List<Long> contacts = usersService().getContacts(userId);
+        if (contacts == null)
+            throw EntityNotFoundException.ofUser(userId);
+        return ResponseEntity.ok().body(contacts);
+    }
+
+    /**Метод обрабатывает GET-запросы и возвращает пользователей, в телефонных книжках
+     * которых есть номер телефона пользователя.
+     * @param userId id пользователя
+     * @return id пользователей по возрастанию*/
+    @GetMapping("contacts/{userId}/knownBy")
+    public ResponseEntity<List<Long>> getUsersHavingContact(@PathVariable("userId") Long userId)
+    {
+        List<Long> users = usersService().getUsersHavingContact(userId);
+        if (users == null)
+            throw EntityNotFoundException.ofUser(userId);
+        return ResponseEntity.ok().body(users);
+    }
+
+    /**Метод обрабатывает GET-запросы и возвращает общие контакты двух пользователей.
+     * @param userId id первого пользователя
+     * @param otherUserId id второго пользователя
+     * @return id пользователей, номера которых есть в книжках обоих, по возрастанию*/
+    @GetMapping("contacts/{userId}/mutual")
+    public ResponseEntity<List<Long>> getMutualContacts(@PathVariable("userId") Long userId,
+            @RequestParam("with") Long otherUserId)
+    {
+        List<Long> mutual = usersService().getMutualContacts(userId, otherUserId);
+        if (mutual == null)
+            throw EntityNotFoundException.ofUser(usersService().userExists(userId) ? otherUserId : userId);
+        return ResponseEntity.ok().body(mutual);
+    }
+
+    /**Метод обрабатывает GET-запросы и возвращает пользователей, достижимых
+     * от пользователя по графу контактов.
+     * @param userId id пользователя
+     * @param hops наибольшее количество переходов, по умолчанию 2, не больше 6
+     * @param limit наибольшее количество пользователей, по умолчанию 1000, не больше 10000
+     * @return пользователи и количество переходов до них в порядке его возрастания*/
+    @GetMapping("contacts/{userId}/reachable")
+    public ResponseEntity<List<ReachableUser>> getReachableUsers(@PathVariable("userId") Long userId,
+            @RequestParam(value = "hops", defaultValue = "2") int hops,
+            @RequestParam(value = "limit", defaultValue = "1000") int limit)
+    {
+        List<ReachableUser> reachable = usersService().getReachableUsers(userId,
+                Math.max(1, Math.min(hops, MAX_HOPS)), Math.max(1, Math.min(limit, MAX_REACHABLE)));
+        if (reachable == null)
+            throw EntityNotFoundException.ofUser(userId);
+        return ResponseEntity.ok().body(reachable);
+    }
+
+    /**Метод возвращает хранилище арендатора, к данным которого относится запрос.*/
+    private UsersService usersService()
+    {
+        return tenants.serviceFor(TenantContext.current(), usersService);
+    }
+
+    private static int topSize(int limit)
+    {
+        return Math.max(1, Math.min(limit, MAX_TOP_SIZE));
+    }
+
+    /**Метод при необходимости заменяет пользователей их копиями без телефонных книжек,
+     * чтобы телефонные книжки не читались из хранилища только ради ответа.
+     * @param users список пользователей
+     * @param phoneBooks нужны ли в ответе телефонные книжки
+     * @return список пользователей для ответа*/
+    private static List<User> withPhoneBooks(List<User> users, boolean phoneBooks)
+    {
+        if (phoneBooks)
+            return users;
+        return users.stream().map(User::withoutPhoneBook).collect(Collectors.toList());
+    }
+
+    /**Метод создаёт заготовку успешного ответа с версией сущности в заголовке ETag.
+     * @param version версия сущности, или null если версия неизвестна.
+     * @return заготовка ответа*/
+    private static ResponseEntity.BodyBuilder okWithVersion(Long version)
+    {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (version != null)
+            builder.eTag(version >= 0 && version < VERSION_ETAGS.length
+                    ? VERSION_ETAGS[version.intValue()] : version.toString());
+        return builder;
+    }
+
+    /**Метод определяет порядок записей телефонной книжки по значению параметра запроса.
+     * @param sort значение параметра: id, name, phoneNumber или null.
+     * @return порядок записей, по id если параметр не указан.
+     * @throws InvalidRequestParameterException если порядок неизвестен*/
+    private static PhoneRecordOrder parsePhoneRecordOrder(String sort)
+    {
+        if (sort == null || sort.equals("id"))
+            return PhoneRecordOrder.ID;
+        if (sort.equals("name"))
+            return PhoneRecordOrder.NAME;
+        if (sort.equals("phoneNumber"))
+            return PhoneRecordOrder.PHONE_NUMBER;
+        throw new InvalidRequestParameterException("Unknown sort order " + sort + ".");
+    }
+
+    /**Метод проверяет количество id в пакетном запросе.
+     * @param ids id из запроса.
+     * @return те же id.
+     * @throws InvalidRequestParameterException если id больше MAX_BATCH_SIZE*/
+    private static List<Long> checkBatchSize(List<Long> ids)
+    {
+        if (ids.size() > MAX_BATCH_SIZE)
+            throw new InvalidRequestParameterException("Too many ids " + ids.size()
+                    + ", at most " + MAX_BATCH_SIZE + " are allowed.");
+        return ids;
+    }
+
+    /**Метод определяет момент времени по значению параметра запроса.
+     * @param asOf миллисекунды от начала эпохи или момент в формате ISO-8601.
+     * @return момент времени в миллисекундах.
+     * @throws InvalidRequestParameterException если значение не является моментом времени*/
+    private static long parseTimestamp(String asOf)
+    {
+        try
+        {
+            if (!asOf.isEmpty() && asOf.chars().allMatch(Character::isDigit))
+                return Long.parseLong(asOf);
+            return Instant.parse(asOf).toEpochMilli();
+        }
+        catch (DateTimeParseException | NumberFormatException e)
+        {
+            throw new InvalidRequestParameterException("Invalid timestamp " + asOf + ".", e);
+        }
+    }
+
+    /**Метод извлекает ожидаемую версию сущности из значения заголовка If-Match.
+     * @param ifMatch значение заголовка, например "3" или W/"3".
+     * @return ожидаемая версия, или null если подходит любая версия ("*").
+     * @throws VersionConflictException если значение заголовка не является версией*/
+    private static Long parseIfMatch(String ifMatch)
+    {
+        String tag = ifMatch.trim();
+        if (tag.equals("*"))
+            return null;
+        if (tag.startsWith("W/"))
+            tag = tag.substring(2);
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\""))
+            tag = tag.substring(1, tag.length() - 1);
+        try
+        {
+            return Long.valueOf(tag);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new VersionConflictException("If-Match " + ifMatch + " does not match any version.");
+        }
+    }
 }
@@ -0,0 +1,1014 @@
+package boot.dao;
+
+
+import boot.entities.PhoneBook;
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**Класс-реализация интерфейса UsersDao, хранящая пользователей на диске во встроенном
+ * журнальном хранилище и не требующая сервера баз данных
+ * (users.storage.type=file).
+ * Каждое изменение пользователя дописывается в конец файла данных, в оперативной памяти
+ * хранятся только индекс (id пользователя, его имя и положение последней версии в файле)
+ * и кэш часто используемых пользователей. Поэтому объём данных может превышать
+ * объём оперативной памяти, а редко используемые телефонные книжки читаются с диска.
+ * Пользователь и его телефонная книжка хранятся отдельными записями, и телефонная
+ * книжка читается только при обращении к ней. Изменение телефонной записи дописывает
+ * в журнал только изменённые записи со ссылкой на предыдущую запись телефонной книжки,
+ * а телефонная книжка целиком переписывается, когда изменённых записей накопится
+ * больше четверти её размера. Поэтому журнал растёт пропорционально количеству
+ * изменений, а не размеру телефонных книжек.
+ * Устаревшие версии удаляются из файла в фоновом потоке, когда они занимают больше
+ * половины файла.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@Repository
+@ConditionalOnProperty(name = "users.storage.type", havingValue = "file")
+public class FileUsersDao implements UsersDao, DisposableBean
+{
+    private static final Logger log = LoggerFactory.getLogger(FileUsersDao.class);
+
+    /**Имя файла данных*/
+    private static final String DATA_FILE = "users.log";
+
+    /**Вид записи журнала: сохранение пользователя без телефонной книжки*/
+    private static final byte PUT_USER = 1;
+
+    /**Вид записи журнала: удаление пользователя*/
+    private static final byte DELETE = 2;
+
+    /**Вид записи журнала: сохранение телефонной книжки пользователя*/
+    private static final byte PUT_PHONE_BOOK = 3;
+
+    /**Вид записи журнала: сохранение изменённых записей телефонной книжки пользователя*/
+    private static final byte PUT_PHONE_RECORDS = 4;
+
+    /**Размер заголовка записи журнала: длина тела и его контрольная сумма*/
+    private static final int HEADER_SIZE = 8;
+
+    /**Размер начала тела записи: вид записи и id пользователя*/
+    private static final int BODY_PREFIX_SIZE = 1 + 8;
+
+    /**Размер начала данных записи изменённых телефонных записей: смещение и длина
+     * предыдущей записи телефонной книжки и количество изменённых записей*/
+    private static final int PHONE_RECORDS_LINK_SIZE = 8 + 4 + 4;
+
+    /**Размер файла, начиная с которого выполняется уплотнение*/
+    private static final long COMPACTION_MIN_BYTES = 1L << 20;
+
+    /**Наименьшее количество изменённых записей, после которого телефонная книжка
+     * записывается в журнал целиком*/
+    private static final int PHONE_BOOK_REWRITE_MIN_CHANGES = 16;
+
+    /**Какую часть размера телефонной книжки должны составить изменённые записи,
+     * чтобы она была записана в журнал целиком*/
+    private static final int PHONE_BOOK_REWRITE_DIVISOR = 4;
+
+    /**Оценка объёма элемента индекса без символов имени пользователя: узел карты,
+     * ключ типа Long, объект Location и строка имени*/
+    private static final long INDEX_ENTRY_BYTES = 40 + 16 + 48 + 40;
+
+    /**Количество блокировок, между которыми распределяются пользователи*/
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path dataFile;
+
+    /**Признак принудительной записи на диск после каждого изменения*/
+    private final boolean syncWrites;
+
+    private volatile FileChannel channel;
+
+    /**Файл данных до последнего уплотнения. Остаётся открытым до следующего уплотнения,
+     * чтобы пользователи, прочитанные до замены файла, могли прочитать свои телефонные книжки*/
+    private FileChannel previousChannel;
+
+    /**Номер файла данных, увеличивается при каждом уплотнении*/
+    private volatile int generation;
+
+    /**Размер файла данных, изменяется только под блокировкой appendLock*/
+    private volatile long fileSize;
+
+    private final Object appendLock = new Object();
+
+    /**Объём последних версий пользователей и телефонных книжек в файле данных*/
+    private final AtomicLong liveBytes = new AtomicLong();
+
+    /*Положения записей в индексе и файл, в котором они находятся, согласованы под
+    * блокировкой на чтение, а на запись её берёт только уплотнение при замене файла*/
+    private final ReadWriteLock fileLock = new ReentrantReadWriteLock();
+
+    /**Поток уплотнения файла данных*/
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(task ->
+    {
+        Thread thread = new Thread(task, "users-log-compaction");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**Признак того, что уплотнение уже запланировано или выполняется*/
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+
+    /**Положение последней версии каждого пользователя в файле, упорядоченное по id*/
+    private final ConcurrentNavigableMap<Long, Location> index = new ConcurrentSkipListMap<>();
+
+    private final UsersCache cache;
+
+    /*Изменения одного пользователя выполняются последовательно, изменения
+    * разных пользователей - параллельно, если они попали в разные блокировки*/
+    private final ReadWriteLock[] locks = new ReadWriteLock[LOCK_STRIPES];
+
+    @Autowired
+    public FileUsersDao(@Value("${users.storage.directory:data}") String directory,
+                        @Value("${users.memory.budget-bytes:0}") long memoryBudget,
+                        @Value("${users.storage.sync-writes:false}") boolean syncWrites) throws IOException
+    {
+        this.dataFile = Paths.get(directory).resolve(DATA_FILE);
+        this.syncWrites = syncWrites;
+        this.cache = new UsersCache(MemoryBudget.resolve(memoryBudget));
+        for (int i = 0; i < LOCK_STRIPES; i++)
+        {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+        Files.createDirectories(dataFile.getParent());
+        open();
+        compactIfNeeded();
+    }
+
+    @Override
+    public User findUser(Long userId)
+    {
+        if (userId == null)
+        {
+            return null;
+        }
+        User user = cache.get(userId);
+        if (user != null)
+        {
+            return user;
+        }
+        ReadWriteLock lock = lockFor(userId);
+        lock.readLock().lock();
+        try
+        {
+            return load(userId);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*Пользователи, которых нет в кэше, читаются с диска в порядке расположения
+    * их записей в файле, а не в порядке запроса*/
+    @Override
+    public Map<Long, User> findUsers(Collection<Long> userIds)
+    {
+        Map<Long, User> cached = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long userId : userIds)
+        {
+            User user = cache.get(userId);
+            if (user != null)
+            {
+                cached.put(userId, user);
+            }
+            else if (index.containsKey(userId))
+            {
+                misses.add(userId);
+            }
+        }
+        misses.sort(Comparator.comparingLong(userId ->
+        {
+            Location location = index.get(userId);
+            return location == null ? Long.MAX_VALUE : location.offset;
+        }));
+        for (Long userId : misses)
+        {
+            User user = findUser(userId);
+            if (user != null)//Пользователь мог быть удалён во время чтения
+            {
+                cached.put(userId, user);
+            }
+        }
+        Map<Long, User> users = new LinkedHashMap<>();
+        for (Long userId : userIds)
+        {
+            User user = cached.get(userId);
+            if (user != null)
+            {
+                users.put(userId, user);
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public List<User> findAllUsers()
+    {
+        List<User> users = new ArrayList<>(index.size());
+        for (Long userId : index.keySet())
+        {
+            User user = findUser(userId);
+            if (user != null)//Пользователь мог быть удалён во время обхода
+            {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    /*Имена пользователей хранятся в индексе, поэтому с диска читаются только найденные,
+    * а их телефонные книжки - только при обращении к ним*/
+    @Override
+    public List<User> findUsersByName(String partName)
+    {
+        List<User> users = new ArrayList<>();
+        for (Map.Entry<Long, Location> entry : index.entrySet())
+        {
+            String userName = entry.getValue().userName;
+            if (userName != null && userName.contains(partName))
+            {
+                User user = findUser(entry.getKey());
+                if (user != null)
+                {
+                    users.add(user);
+                }
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public boolean insertUser(User user)
+    {
+        ReadWriteLock lock = lockFor(user.getUserId());
+        lock.writeLock().lock();
+        try
+        {
+            if (index.containsKey(user.getUserId()))
+            {
+                return false;
+            }
+            store(user);
+            return true;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean replaceUser(User updated)
+    {
+        ReadWriteLock lock = lockFor(updated.getUserId());
+        lock.writeLock().lock();
+        try
+        {
+            /*Объект в кэше мог быть вытеснен и прочитан с диска заново,
+            * поэтому пользователи сравниваются по версии, а не по ссылке*/
+            User stored = load(updated.getUserId());
+            if (stored == null || stored != updated && stored.getVersion() + 1 != updated.getVersion())
+            {
+                return false;
+            }
+            store(updated);
+            return true;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public User removeUser(Long userId)
+    {
+        if (userId == null)
+        {
+            return null;
+        }
+        ReadWriteLock lock = lockFor(userId);
+        lock.writeLock().lock();
+        try
+        {
+            User stored = load(userId);
+            if (stored == null)
+            {
+                return null;
+            }
+            //Телефонная книжка читается до удаления, чтобы удалённый пользователь возвращался с ней
+            stored.getPhoneBook();
+            fileLock.readLock().lock();
+            try
+            {
+                append(entry(DELETE, userId, new byte[0]));
+                Location removed = index.remove(userId);
+                liveBytes.addAndGet(-removed.liveBytes());
+                cache.remove(userId);
+            }
+            finally
+            {
+                fileLock.readLock().unlock();
+            }
+            compactIfNeeded();
+            return stored;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public <R> R modifyUser(Long userId, Function<User, R> modification)
+    {
+        if (userId == null)
+        {
+            return null;
+        }
+        ReadWriteLock lock = lockFor(userId);
+        lock.writeLock().lock();
+        try
+        {
+            User user = load(userId);
+            if (user == null)
+            {
+                return null;
+            }
+            R result;
+            try
+            {
+                result = modification.apply(user);
+            }
+            catch (RuntimeException e)
+            {
+                //Объект мог быть изменён частично, при следующем чтении он будет взят с диска
+                cache.remove(userId);
+                throw e;
+            }
+            if (result != null)
+            {
+                user.setVersion(user.getVersion() + 1);
+                store(user);
+            }
+            return result;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*Пользователи, не помещающиеся в бюджет памяти, вытесняются из кэша на диск*/
+    @Override
+    public boolean hasMemoryFor(long bytes)
+    {
+        return true;
+    }
+
+    /*В памяти находятся кэш и индекс, объём индекса оценивается без учёта кэша*/
+    @Override
+    public MemoryStats getMemoryStats()
+    {
+        long indexBytes = 0;
+        for (Location location : index.values())
+        {
+            indexBytes += INDEX_ENTRY_BYTES + 2L * (location.userName == null ? 0 : location.userName.length());
+        }
+        return new MemoryStats(index.size(), cache.size(), cache.usedBytes() + indexBytes,
+                cache.capacityBytes(), cache.evictions(), 0);
+    }
+
+    /**Метод дожидается завершения уплотнения и закрывает файл данных,
+     * предварительно записав изменения на диск.*/
+    @Override
+    public void destroy() throws IOException
+    {
+        //Прерывание потока закрыло бы читаемый им файл данных, поэтому уплотнение не прерывается
+        compactor.shutdown();
+        try
+        {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (appendLock)
+        {
+            if (previousChannel != null)
+            {
+                previousChannel.close();
+            }
+            channel.force(true);
+            channel.close();
+        }
+    }
+
+    /**Метод возвращает пользователя из кэша или читает его с диска.
+     * Вызывается под блокировкой пользователя.*/
+    private User load(Long userId)
+    {
+        User user = cache.get(userId);
+        if (user != null)
+        {
+            return user;
+        }
+        Location location;
+        int locationGeneration;
+        fileLock.readLock().lock();
+        try
+        {
+            location = index.get(userId);
+            if (location == null)
+            {
+                return null;
+            }
+            locationGeneration = generation;
+            user = UserCodec.decodeUser(payload(readEntry(channel, location.offset, location.length), 0));
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        finally
+        {
+            fileLock.readLock().unlock();
+        }
+        //Телефонная книжка читается в той версии, в которой она была при чтении пользователя
+        User read = user;
+        user.loadPhoneBookWith(() ->
+        {
+            PhoneBook phoneBook = loadPhoneBook(location, locationGeneration);
+            cache.phoneBookLoaded(read, phoneBook.estimatedBytes());
+            return phoneBook;
+        });
+        return cache.putIfAbsent(user);
+    }
+
+    /**Метод читает с диска телефонную книжку пользователя, положение которой было
+     * в индексе при чтении пользователя, и включает отслеживание её изменений.
+     @param location положение записей пользователя при его чтении
+     @param locationGeneration номер файла данных, в котором находились записи*/
+    /*Записи журнала не изменяются после записи, поэтому чтение выполняется без блокировки
+    * пользователя, которую может удерживать поток, обратившийся к телефонной книжке*/
+    private PhoneBook loadPhoneBook(Location location, int locationGeneration)
+    {
+        PhoneBook phoneBook;
+        fileLock.readLock().lock();
+        try
+        {
+            if (location.phoneBookLength == 0)
+            {
+                phoneBook = new PhoneBook();
+            }
+            else if (locationGeneration == generation)
+            {
+                phoneBook = readPhoneBook(channel, location);
+            }
+            else if (locationGeneration == generation - 1)
+            {
+                phoneBook = readPhoneBook(previousChannel, location);
+            }
+            else
+            {
+                throw new IOException("Users data file was compacted twice since the user was read");
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        finally
+        {
+            fileLock.readLock().unlock();
+        }
+        phoneBook.trackChanges();
+        return phoneBook;
+    }
+
+    /**Метод читает телефонную книжку: последнюю целиком записанную версию
+     * и дописанные после неё изменённые записи.*/
+    private static PhoneBook readPhoneBook(FileChannel source, Location location) throws IOException
+    {
+        Deque<ByteBuffer> changes = new ArrayDeque<>();
+        ByteBuffer entry = readEntry(source, location.phoneBookOffset, location.phoneBookLength);
+        while (entry.get(HEADER_SIZE) == PUT_PHONE_RECORDS)
+        {
+            changes.push(entry);
+            int link = HEADER_SIZE + BODY_PREFIX_SIZE;
+            entry = readEntry(source, entry.getLong(link), entry.getInt(link + 8));
+        }
+        if (entry.get(HEADER_SIZE) != PUT_PHONE_BOOK)
+        {
+            throw new IOException("Broken phone book chain in users data file");
+        }
+        PhoneBook phoneBook = UserCodec.decodePhoneBook(payload(entry, 0));
+        while (!changes.isEmpty())
+        {
+            UserCodec.applyPhoneRecords(payload(changes.pop(), PHONE_RECORDS_LINK_SIZE), phoneBook);
+        }
+        return phoneBook;
+    }
+
+    /**Метод дописывает пользователя в журнал и обновляет индекс и кэш. Телефонная книжка
+     * записывается, только если она находится в памяти, иначе на диске она не изменилась:
+     * если её изменения отслеживаются, дописываются только изменённые записи, иначе
+     * она записывается целиком. Вызывается под блокировкой пользователя на запись.*/
+    private void store(User user)
+    {
+        Long userId = user.getUserId();
+        ByteBuffer userEntry = entry(PUT_USER, userId, UserCodec.encodeUser(user));
+        fileLock.readLock().lock();
+        try
+        {
+            Location previous = index.get(userId);
+            ByteBuffer phoneBookEntry = null;
+            int changedRecords = 0;
+            if (user.phoneBookLoaded())
+            {
+                PhoneBook phoneBook = user.getPhoneBook();
+                Map<Long, PhoneRecord> changes = phoneBook == null ? null : phoneBook.drainChanges();
+                if (changes == null || previous == null || previous.phoneBookLength == 0
+                        || previous.phoneBookChanges + changes.size() > Math.max(PHONE_BOOK_REWRITE_MIN_CHANGES,
+                                phoneBook.size() / PHONE_BOOK_REWRITE_DIVISOR))
+                {
+                    phoneBookEntry = entry(PUT_PHONE_BOOK, userId, UserCodec.encodePhoneBook(phoneBook));
+                    if (phoneBook != null)
+                    {
+                        phoneBook.trackChanges();
+                    }
+                }
+                else if (!changes.isEmpty())
+                {
+                    changedRecords = changes.size();
+                    byte[] records = UserCodec.encodePhoneRecords(phoneBook.lastPhoneRecordId(), changes);
+                    phoneBookEntry = entry(PUT_PHONE_RECORDS, userId, ByteBuffer
+                            .allocate(PHONE_RECORDS_LINK_SIZE + records.length)
+                            .putLong(previous.phoneBookOffset).putInt(previous.phoneBookLength)
+                            .putInt(changedRecords).put(records).array());
+                }
+            }
+            long offset = phoneBookEntry == null ? append(userEntry) : append(userEntry, phoneBookEntry);
+
+            Location location = previous == null
+                    ? new Location(offset, userEntry.limit(), user.getUserName(), 0, 0, 0, 0)
+                    : previous.withUser(offset, userEntry.limit(), user.getUserName());
+            if (phoneBookEntry != null)
+            {
+                long phoneBookOffset = offset + userEntry.limit();
+                location = changedRecords == 0
+                        ? location.withPhoneBook(phoneBookOffset, phoneBookEntry.limit())
+                        : location.withPhoneRecords(phoneBookOffset, phoneBookEntry.limit(), changedRecords);
+            }
+            index.put(userId, location);
+            liveBytes.addAndGet(location.liveBytes() - (previous == null ? 0 : previous.liveBytes()));
+            cache.put(user);
+        }
+        catch (UncheckedIOException e)
+        {
+            cache.remove(userId);
+            throw e;
+        }
+        finally
+        {
+            fileLock.readLock().unlock();
+        }
+        compactIfNeeded();
+    }
+
+    /**Метод формирует запись журнала с заголовком и контрольной суммой.*/
+    private static ByteBuffer entry(byte kind, long userId, byte[] payload)
+    {
+        int bodyLength = BODY_PREFIX_SIZE + payload.length;
+        ByteBuffer entry = ByteBuffer.allocate(HEADER_SIZE + bodyLength);
+        entry.putInt(bodyLength).putInt(0).put(kind).putLong(userId).put(payload);
+        CRC32 crc = new CRC32();
+        crc.update(entry.array(), HEADER_SIZE, bodyLength);
+        entry.putInt(4, (int) crc.getValue());
+        entry.flip();
+        return entry;
+    }
+
+    /**Метод дописывает записи в конец журнала одна за другой.
+     @return положение первой записи в файле*/
+    private long append(ByteBuffer... entries)
+    {
+        synchronized (appendLock)
+        {
+            try
+            {
+                long offset = fileSize;
+                long position = offset;
+                for (ByteBuffer entry : entries)
+                {
+                    while (entry.hasRemaining())
+                    {
+                        channel.write(entry, position + entry.position());
+                    }
+                    position += entry.limit();
+                }
+                if (syncWrites)
+                {
+                    channel.force(false);
+                }
+                fileSize = position;
+                return offset;
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**Метод читает запись журнала, расположенную в файле по указанному смещению.*/
+    private static ByteBuffer readEntry(FileChannel source, long offset, int length) throws IOException
+    {
+        ByteBuffer entry = ByteBuffer.allocate(length);
+        readFully(source, entry, offset);
+        return entry;
+    }
+
+    /**Метод возвращает данные записи журнала, пропуская указанное количество их первых байт.*/
+    private static ByteArrayInputStream payload(ByteBuffer entry, int skip)
+    {
+        int payloadStart = HEADER_SIZE + BODY_PREFIX_SIZE + skip;
+        return new ByteArrayInputStream(entry.array(), payloadStart, entry.limit() - payloadStart);
+    }
+
+    /**Метод открывает файл данных и восстанавливает индекс, читая журнал от начала.
+     * Недописанная запись в конце файла (например, после сбоя питания) отбрасывается.
+     * Повреждённая запись, за которой следуют целые, пропускается с сообщением в журнале
+     * приложения, так как записи после неё - изменения, уже подтверждённые клиентам.*/
+    private void open() throws IOException
+    {
+        channel = FileChannel.open(dataFile, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        long offset = 0;
+        long maxUserId = 0;
+        while (offset + HEADER_SIZE <= size)
+        {
+            ByteBuffer body = readBody(offset, size);
+            if (body == null)
+            {
+                long next = findNextEntry(offset + 1, size);
+                if (next < 0)
+                {
+                    break;
+                }
+                log.error("Users data file {} is corrupt at offset {}, skipped {} bytes",
+                        dataFile, offset, next - offset);
+                offset = next;
+                continue;
+            }
+
+            byte kind = body.get(0);
+            long userId = body.getLong(1);
+            int length = HEADER_SIZE + body.limit();
+            Location previous = index.get(userId);
+            if (kind == PUT_USER)
+            {
+                User user = UserCodec.decodeUser(new ByteArrayInputStream(
+                        body.array(), BODY_PREFIX_SIZE, body.limit() - BODY_PREFIX_SIZE));
+                index.put(userId, previous == null
+                        ? new Location(offset, length, user.getUserName(), 0, 0, 0, 0)
+                        : previous.withUser(offset, length, user.getUserName()));
+            }
+            else if (kind == PUT_PHONE_BOOK)
+            {
+                if (previous != null)//Телефонная книжка записывается после пользователя
+                {
+                    index.put(userId, previous.withPhoneBook(offset, length));
+                }
+            }
+            else if (kind == PUT_PHONE_RECORDS)
+            {
+                //Изменения применимы, только если предыдущая запись телефонной книжки не пропущена
+                if (previous != null && previous.phoneBookLength > 0
+                        && previous.phoneBookOffset == body.getLong(BODY_PREFIX_SIZE))
+                {
+                    index.put(userId, previous.withPhoneRecords(offset, length,
+                            body.getInt(BODY_PREFIX_SIZE + 12)));
+                }
+                else if (previous != null)
+                {
+                    log.error("Users data file {} has phone records of user {} at offset {} following "
+                            + "a skipped entry, they are lost", dataFile, userId, offset);
+                }
+            }
+            else
+            {
+                index.remove(userId);
+            }
+            maxUserId = Math.max(maxUserId, userId);
+            offset += length;
+        }
+        if (offset < size)
+        {
+            log.warn("Users data file {} has a torn tail of {} bytes, it is discarded", dataFile, size - offset);
+            channel.truncate(offset);
+        }
+        fileSize = offset;
+        long live = 0;
+        for (Location location : index.values())
+        {
+            live += location.liveBytes();
+        }
+        liveBytes.set(live);
+        User.reserveUserIds(maxUserId);
+    }
+
+    /**Метод читает тело записи журнала и проверяет его контрольную сумму.
+     @return тело записи, или null если по этому смещению нет целой записи*/
+    private ByteBuffer readBody(long offset, long size) throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header, offset);
+        int bodyLength = header.getInt(0);
+        if (bodyLength < BODY_PREFIX_SIZE || offset + HEADER_SIZE + bodyLength > size)
+        {
+            return null;
+        }
+        ByteBuffer body = ByteBuffer.allocate(bodyLength);
+        readFully(channel, body, offset + HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        crc.update(body.array(), 0, bodyLength);
+        byte kind = body.get(0);
+        if ((int) crc.getValue() != header.getInt(4) || kind < PUT_USER || kind > PUT_PHONE_RECORDS)
+        {
+            return null;
+        }
+        return body;
+    }
+
+    /**Метод ищет первую целую запись после повреждённой. Сбой может оборвать только
+     * последнюю запись, поэтому если целых записей дальше нет, повреждение - недописанный
+     * конец файла, иначе файл повреждён в середине.
+     @return смещение целой записи, или -1 если до конца файла их нет*/
+    private long findNextEntry(long from, long size) throws IOException
+    {
+        for (long offset = from; offset + HEADER_SIZE <= size; offset++)
+        {
+            if (readBody(offset, size) != null)
+            {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    /**Метод запускает уплотнение в фоновом потоке, если устаревшие версии занимают
+     * больше половины файла данных и уплотнение ещё не запущено.*/
+    private void compactIfNeeded()
+    {
+        if (fileSize > COMPACTION_MIN_BYTES && liveBytes.get() * 2 < fileSize
+                && compactionScheduled.compareAndSet(false, true))
+        {
+            try
+            {
+                compactor.execute(() ->
+                {
+                    try
+                    {
+                        compact();
+                    }
+                    catch (IOException | UncheckedIOException e)
+                    {
+                        log.error("Users data file " + dataFile + " compaction failed", e);
+                    }
+                    finally
+                    {
+                        compactionScheduled.set(false);
+                    }
+                });
+            }
+            catch (RejectedExecutionException e)//Хранилище закрывается
+            {
+                compactionScheduled.set(false);
+            }
+        }
+    }
+
+    /**Метод переписывает файл данных, оставляя в нём только последние версии
+     * пользователей и их телефонных книжек. Пользователи копируются в новый файл
+     * параллельно с их изменениями, а изменённые за это время копируются повторно
+     * при замене файла, когда изменения приостановлены.*/
+    private void compact() throws IOException
+    {
+        Path compacted = dataFile.resolveSibling(DATA_FILE + ".compact");
+        Map<Long, Location> copied = new HashMap<>();
+        Map<Long, Location> moved = new HashMap<>();
+        FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try
+        {
+            long position = 0;
+            for (Map.Entry<Long, Location> entry : index.entrySet())
+            {
+                position = copy(target, entry.getKey(), entry.getValue(), position, moved);
+                copied.put(entry.getKey(), entry.getValue());
+            }
+
+            fileLock.writeLock().lock();
+            try
+            {
+                //Положения записей не изменяются, пока удерживается блокировка на запись
+                for (Map.Entry<Long, Location> entry : index.entrySet())
+                {
+                    if (copied.get(entry.getKey()) != entry.getValue())
+                    {
+                        position = copy(target, entry.getKey(), entry.getValue(), position, moved);
+                    }
+                }
+                target.force(true);
+                target.close();
+                synchronized (appendLock)
+                {
+                    Files.move(compacted, dataFile, StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                    if (previousChannel != null)
+                    {
+                        previousChannel.close();
+                    }
+                    previousChannel = channel;
+                    channel = FileChannel.open(dataFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    generation++;
+                    fileSize = position;
+                }
+                /*Пользователи из кэша с незагруженными книжками прочитаны из прежних файлов
+                и после следующего уплотнения не смогли бы загрузить книжку, поэтому они
+                будут прочитаны заново из нового файла*/
+                cache.removeNotLoaded();
+                long live = 0;
+                for (Long userId : index.keySet())
+                {
+                    Location location = moved.get(userId);
+                    index.put(userId, location);
+                    live += location.liveBytes();
+                }
+                liveBytes.set(live);
+            }
+            finally
+            {
+                fileLock.writeLock().unlock();
+            }
+        }
+        finally
+        {
+            target.close();
+            Files.deleteIfExists(compacted);
+        }
+    }
+
+    /**Метод копирует в новый файл последние версии пользователя и его телефонной книжки,
+     * записывая телефонную книжку целиком.
+     @return положение в новом файле после скопированных записей*/
+    private long copy(FileChannel target, Long userId, Location location, long position,
+                      Map<Long, Location> moved) throws IOException
+    {
+        write(target, readEntry(channel, location.offset, location.length), position);
+        Location copy = new Location(position, location.length, location.userName, 0, 0, 0, 0);
+        position += location.length;
+        if (location.phoneBookLength > 0)
+        {
+            ByteBuffer phoneBookEntry = location.phoneBookChanges == 0
+                    ? readEntry(channel, location.phoneBookOffset, location.phoneBookLength)
+                    : entry(PUT_PHONE_BOOK, userId, UserCodec.encodePhoneBook(readPhoneBook(channel, location)));
+            write(target, phoneBookEntry, position);
+            copy = copy.withPhoneBook(position, phoneBookEntry.limit());
+            position += phoneBookEntry.limit();
+        }
+        moved.put(userId, copy);
+        return position;
+    }
+
+    private static void write(FileChannel target, ByteBuffer entry, long offset) throws IOException
+    {
+        entry.rewind();
+        while (entry.hasRemaining())
+        {
+            target.write(entry, offset + entry.position());
+        }
+    }
+
+    private ReadWriteLock lockFor(Long userId)
+    {
+        return locks[(int) (userId & (LOCK_STRIPES - 1))];
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            if (channel.read(buffer, offset + buffer.position()) < 0)
+            {
+                throw new IOException("Unexpected end of users data file");
+            }
+        }
+    }
+
+    /**Класс представляет положение последних версий пользователя и его
+     * телефонной книжки в файле данных.*/
+    private static class Location
+    {
+        /**Смещение записи пользователя от начала файла*/
+        private final long offset;
+
+        /**Длина записи пользователя вместе с заголовком*/
+        private final int length;
+
+        /**Имя пользователя, хранится в индексе для поиска без чтения с диска*/
+        private final String userName;
+
+        /**Смещение последней записи телефонной книжки от начала файла: её самой
+         * или её изменённых записей*/
+        private final long phoneBookOffset;
+
+        /**Длина последней записи телефонной книжки вместе с заголовком, 0 если её нет*/
+        private final int phoneBookLength;
+
+        /**Количество записей, изменённых после того, как телефонная книжка
+         * была записана целиком*/
+        private final int phoneBookChanges;
+
+        /**Общая длина записей, из которых читается телефонная книжка*/
+        private final long phoneBookBytes;
+
+        Location(long offset, int length, String userName, long phoneBookOffset, int phoneBookLength,
+                 int phoneBookChanges, long phoneBookBytes)
+        {
+            this.offset = offset;
+            this.length = length;
+            this.userName = userName;
+            this.phoneBookOffset = phoneBookOffset;
+            this.phoneBookLength = phoneBookLength;
+            this.phoneBookChanges = phoneBookChanges;
+            this.phoneBookBytes = phoneBookBytes;
+        }
+
+        Location withUser(long offset, int length, String userName)
+        {
+            return new Location(offset, length, userName, phoneBookOffset, phoneBookLength,
+                    phoneBookChanges, phoneBookBytes);
+        }
+
+        Location withPhoneBook(long phoneBookOffset, int phoneBookLength)
+        {
+            return new Location(offset, length, userName, phoneBookOffset, phoneBookLength, 0, phoneBookLength);
+        }
+
+        Location withPhoneRecords(long phoneRecordsOffset, int phoneRecordsLength, int changes)
+        {
+            return new Location(offset, length, userName, phoneRecordsOffset, phoneRecordsLength,
+                    phoneBookChanges + changes, phoneBookBytes + phoneRecordsLength);
+        }
+
+        /**Метод возвращает объём записей пользователя, которые нельзя удалить при уплотнении.*/
+        long liveBytes()
+        {
+            return length + phoneBookBytes;
+        }
+    }
+}
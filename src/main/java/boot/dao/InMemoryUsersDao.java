@@ -0,0 +1,249 @@
+package boot.dao;
+
+
+import boot.entities.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**Класс-реализация интерфейса UsersDao, хранящая пользователей в оперативной памяти.
+ * Используется по умолчанию (users.storage.type=memory).
+ * Вытеснять пользователей некуда, поэтому при исчерпании бюджета памяти
+ * (users.memory.budget-bytes) или общего бюджета, в который входит хранилище,
+ * записи, увеличивающие хранилище, отклоняются.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@Repository
+@ConditionalOnProperty(name = "users.storage.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryUsersDao implements UsersDao
+{
+    /**Пользователи (владельцы телефонных книжек), упорядоченные по их id*/
+    /*Неблокирующая упорядоченная структура позволяет читать данные одновременно
+    * с их изменением и сохраняет порядок добавления пользователей*/
+    private final ConcurrentNavigableMap<Long, User> usersList = new ConcurrentSkipListMap<>();
+
+    /**Бюджет памяти хранилища в байтах*/
+    private final long budgetBytes;
+
+    /**Оценка объёма памяти, занимаемого пользователями, в байтах*/
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    private final AtomicLong rejectedWrites = new AtomicLong();
+
+    /**Общий бюджет памяти, в который входит хранилище, или null если его нет*/
+    private final SharedMemoryBudget sharedBudget;
+
+    /**Конструктор создаёт хранилище с бюджетом памяти в половину максимального размера кучи.*/
+    public InMemoryUsersDao()
+    {
+        this(0);
+    }
+
+    @Autowired
+    public InMemoryUsersDao(@Value("${users.memory.budget-bytes:0}") long budgetBytes)
+    {
+        this(budgetBytes, null);
+    }
+
+    /**@param budgetBytes собственный бюджет памяти хранилища
+     @param sharedBudget общий бюджет памяти, в который входит хранилище, или null*/
+    public InMemoryUsersDao(long budgetBytes, SharedMemoryBudget sharedBudget)
+    {
+        this.budgetBytes = MemoryBudget.resolve(budgetBytes);
+        this.sharedBudget = sharedBudget;
+    }
+
+    @Override
+    public User findUser(Long userId)
+    {
+        if (userId == null)
+        {
+            return null;
+        }
+        return usersList.get(userId);
+    }
+
+    @Override
+    public Map<Long, User> findUsers(Collection<Long> userIds)
+    {
+        Map<Long, User> users = new LinkedHashMap<>();
+        for (Long userId : userIds)
+        {
+            User user = usersList.get(userId);
+            if (user != null)
+            {
+                users.put(userId, user);
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public List<User> findAllUsers()
+    {
+        return new ArrayList<>(usersList.values());
+    }
+
+    @Override
+    public List<User> findUsersByName(String partName)
+    {
+        return usersList.values().stream()
+                .filter(s -> s.getUserName().contains(partName)).collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean insertUser(User user)
+    {
+        if (usersList.putIfAbsent(user.getUserId(), user) != null)
+        {
+            return false;
+        }
+        account(user.estimatedBytes());
+        return true;
+    }
+
+    @Override
+    public boolean replaceUser(User updated)
+    {
+        while (true)
+        {
+            User stored = usersList.get(updated.getUserId());
+            if (stored == null)
+            {
+                return false;
+            }
+            synchronized (stored)
+            {
+                if (usersList.get(updated.getUserId()) != stored)
+                {
+                    continue;//Пользователь заменён, пока ожидалась блокировка
+                }
+                /*Изменения записей книжки увеличивают версию хранимого объекта на месте,
+                * поэтому замена не пройдёт, если пользователь был изменён после чтения.
+                * Хранимый объект, изменённый на месте вызывающим, заменяется самим собой*/
+                if (stored != updated && stored.getVersion() + 1 != updated.getVersion())
+                {
+                    return false;
+                }
+                usersList.put(updated.getUserId(), updated);
+                account(updated.estimatedBytes() - stored.estimatedBytes());
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public User removeUser(Long userId)
+    {
+        if (userId == null)
+        {
+            return null;
+        }
+        while (true)
+        {
+            User stored = usersList.get(userId);
+            if (stored == null)
+            {
+                return null;
+            }
+            synchronized (stored)
+            {
+                if (usersList.get(userId) != stored)
+                {
+                    continue;
+                }
+                usersList.remove(userId);
+                account(-stored.estimatedBytes());
+                return stored;
+            }
+        }
+    }
+
+    /*Пользователь хранится в единственном экземпляре, поэтому изменение применяется
+    * к нему на месте. Изменения, замены и удаление одного пользователя выполняются
+    * под блокировкой хранимого объекта, и изменение применяется, только если объект
+    * всё ещё хранится: иначе оно попало бы в заменённый или удалённый экземпляр*/
+    @Override
+    public <R> R modifyUser(Long userId, Function<User, R> modification)
+    {
+        while (true)
+        {
+            User user = findUser(userId);
+            if (user == null)
+            {
+                return null;
+            }
+            synchronized (user)
+            {
+                if (usersList.get(userId) != user)
+                {
+                    continue;
+                }
+                long before = user.estimatedBytes();
+                try
+                {
+                    R result = modification.apply(user);
+                    if (result != null)
+                    {
+                        user.setVersion(user.getVersion() + 1);
+                    }
+                    return result;
+                }
+                finally
+                {
+                    account(user.estimatedBytes() - before);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean hasMemoryFor(long bytes)
+    {
+        if (usedBytes.get() + bytes <= budgetBytes && (sharedBudget == null || sharedBudget.hasMemoryFor(bytes)))
+        {
+            return true;
+        }
+        rejectedWrites.incrementAndGet();
+        return false;
+    }
+
+    @Override
+    public MemoryStats getMemoryStats()
+    {
+        int users = usersList.size();
+        return new MemoryStats(users, users, usedBytes.get(), budgetBytes, 0, rejectedWrites.get());
+    }
+
+    /**Метод возвращает объём, занятый хранилищем, в общий бюджет памяти,
+     * когда хранилище удаляется целиком.*/
+    public void releaseSharedBudget()
+    {
+        long released = usedBytes.getAndSet(0);
+        if (sharedBudget != null)
+        {
+            sharedBudget.add(-released);
+        }
+    }
+
+    private void account(long bytes)
+    {
+        usedBytes.addAndGet(bytes);
+        if (sharedBudget != null)
+        {
+            sharedBudget.add(bytes);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package boot.dao;
+
+/**Класс служит для определения бюджета памяти хранилища пользователей.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+final class MemoryBudget
+{
+    private MemoryBudget()
+    {
+    }
+
+    /**Метод возвращает бюджет памяти хранилища.
+     @param configured бюджет из настройки users.memory.budget-bytes, 0 если не задан
+     @return заданный бюджет, или половина максимального размера кучи*/
+    static long resolve(long configured)
+    {
+        return configured > 0 ? configured : Runtime.getRuntime().maxMemory() / 2;
+    }
+}
@@ -0,0 +1,66 @@
+package boot.dao;
+
+/**Класс представляет показатели использования памяти хранилищем пользователей.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class MemoryStats
+{
+    /**Количество пользователей в хранилище*/
+    private final long users;
+
+    /**Количество пользователей, находящихся в оперативной памяти*/
+    private final long usersInMemory;
+
+    /**Оценка объёма памяти, занимаемого хранилищем, в байтах*/
+    private final long estimatedBytes;
+
+    /**Бюджет памяти хранилища в байтах*/
+    private final long budgetBytes;
+
+    /**Количество пользователей, вытесненных из памяти на диск*/
+    private final long evictedUsers;
+
+    /**Количество записей, отклонённых из-за превышения бюджета памяти*/
+    private final long rejectedWrites;
+
+    public MemoryStats(long users, long usersInMemory, long estimatedBytes, long budgetBytes,
+                       long evictedUsers, long rejectedWrites)
+    {
+        this.users = users;
+        this.usersInMemory = usersInMemory;
+        this.estimatedBytes = estimatedBytes;
+        this.budgetBytes = budgetBytes;
+        this.evictedUsers = evictedUsers;
+        this.rejectedWrites = rejectedWrites;
+    }
+
+    public long getUsers()
+    {
+        return users;
+    }
+
+    public long getUsersInMemory()
+    {
+        return usersInMemory;
+    }
+
+    public long getEstimatedBytes()
+    {
+        return estimatedBytes;
+    }
+
+    public long getBudgetBytes()
+    {
+        return budgetBytes;
+    }
+
+    public long getEvictedUsers()
+    {
+        return evictedUsers;
+    }
+
+    public long getRejectedWrites()
+    {
+        return rejectedWrites;
+    }
+}
@@ -0,0 +1,54 @@
+package boot.dao;
+
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**Класс представляет общий бюджет памяти нескольких хранилищ в оперативной памяти,
+ * например хранилищ всех арендаторов: запись, увеличивающая любое из них, отклоняется,
+ * если суммарный объём хранилищ превысил бы общий бюджет, даже когда собственный
+ * бюджет хранилища ещё не исчерпан.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class SharedMemoryBudget
+{
+    /**Общий бюджет памяти в байтах*/
+    private final long budgetBytes;
+
+    /**Оценка суммарного объёма памяти, занимаемого хранилищами, в байтах*/
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    /**@param budgetBytes общий бюджет памяти в байтах*/
+    public SharedMemoryBudget(long budgetBytes)
+    {
+        if (budgetBytes < 1)
+        {
+            throw new IllegalArgumentException("Memory budget must be positive.");
+        }
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**Метод проверяет, хватит ли общего бюджета для записи указанного объёма.
+     @param bytes оценка объёма, на который увеличится хранилище
+     @return true если запись можно выполнить*/
+    public boolean hasMemoryFor(long bytes)
+    {
+        return usedBytes.get() + bytes <= budgetBytes;
+    }
+
+    /**Метод учитывает изменение объёма одного из хранилищ.
+     @param bytes изменение объёма в байтах, отрицательное при уменьшении*/
+    public void add(long bytes)
+    {
+        usedBytes.addAndGet(bytes);
+    }
+
+    public long getBudgetBytes()
+    {
+        return budgetBytes;
+    }
+
+    public long getUsedBytes()
+    {
+        return usedBytes.get();
+    }
+}
@@ -0,0 +1,230 @@
+package boot.dao;
+
+
+import boot.entities.PhoneBook;
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**Класс служит для преобразования пользователя и его телефонной книжки
+ * в компактное двоичное представление для хранения на диске и обратно.
+ * Пользователь и телефонная книжка преобразуются отдельно, чтобы пользователя
+ * можно было прочитать, не читая всех его телефонных записей, а изменённые записи
+ * телефонной книжки - отдельно от неё, чтобы не переписывать её целиком.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+final class UserCodec
+{
+    /**Версия формата, записывается первым байтом, чтобы формат можно было менять.
+     * Во второй версии у пользователя добавлен собственный номер телефона*/
+    private static final byte FORMAT_VERSION = 2;
+
+    /**Версия формата без номера телефона пользователя, которую можно прочитать*/
+    private static final byte FORMAT_VERSION_WITHOUT_PHONE_NUMBER = 1;
+
+    private UserCodec()
+    {
+    }
+
+    /**Метод преобразует пользователя без его телефонной книжки в двоичное представление.
+     @param user объект пользователя
+     @return двоичное представление пользователя*/
+    static byte[] encodeUser(User user)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes))
+        {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(user.getUserId());
+            writeString(out, user.getUserName());
+            out.writeLong(user.getVersion() == null ? 0L : user.getVersion());
+            writeString(out, user.getPhoneNumber());
+        }
+        catch (IOException e)//Запись в массив в памяти не приводит к ошибкам ввода-вывода
+        {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**Метод преобразует телефонную книжку в двоичное представление.
+     @param phoneBook телефонная книжка, null записывается как пустая
+     @return двоичное представление телефонной книжки*/
+    static byte[] encodePhoneBook(PhoneBook phoneBook)
+    {
+        if (phoneBook == null)
+        {
+            phoneBook = new PhoneBook();
+        }
+        List<PhoneRecord> records = phoneBook.getListPhoneRecords();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + records.size() * 48);
+        try (DataOutputStream out = new DataOutputStream(bytes))
+        {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(phoneBook.lastPhoneRecordId());
+            out.writeInt(records.size());
+            for (PhoneRecord record : records)
+            {
+                out.writeLong(record.getPhoneRecordId());
+                writeString(out, record.getName());
+                writeString(out, record.getPhoneNumber());
+                out.writeLong(record.getVersion() == null ? 0L : record.getVersion());
+            }
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**Метод преобразует изменённые записи телефонной книжки в двоичное представление.
+     @param lastPhoneRecordId последний выданный телефонной книжкой id записи
+     @param changes изменённые записи по их id, null для удалённых записей
+     @return двоичное представление изменений*/
+    static byte[] encodePhoneRecords(long lastPhoneRecordId, Map<Long, PhoneRecord> changes)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + changes.size() * 48);
+        try (DataOutputStream out = new DataOutputStream(bytes))
+        {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(lastPhoneRecordId);
+            out.writeInt(changes.size());
+            for (Map.Entry<Long, PhoneRecord> change : changes.entrySet())
+            {
+                PhoneRecord record = change.getValue();
+                out.writeLong(change.getKey());
+                out.writeBoolean(record != null);
+                if (record != null)
+                {
+                    writeString(out, record.getName());
+                    writeString(out, record.getPhoneNumber());
+                    out.writeLong(record.getVersion() == null ? 0L : record.getVersion());
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**Метод восстанавливает пользователя без его телефонной книжки из двоичного представления.
+     @param in поток с двоичным представлением пользователя
+     @return объект пользователя
+     @throws IOException если данные повреждены или записаны в неизвестном формате*/
+    static User decodeUser(InputStream in) throws IOException
+    {
+        DataInputStream data = new DataInputStream(in);
+        byte format = checkFormat(data);
+        User user = new User();
+        user.setUserId(data.readLong());
+        user.setUserName(readString(data));
+        user.setVersion(data.readLong());
+        if (format != FORMAT_VERSION_WITHOUT_PHONE_NUMBER)
+        {
+            user.setPhoneNumber(readString(data));
+        }
+        return user;
+    }
+
+    /**Метод восстанавливает телефонную книжку из двоичного представления.
+     @param in поток с двоичным представлением телефонной книжки
+     @return телефонная книжка
+     @throws IOException если данные повреждены или записаны в неизвестном формате*/
+    static PhoneBook decodePhoneBook(InputStream in) throws IOException
+    {
+        DataInputStream data = new DataInputStream(in);
+        checkFormat(data);
+        long lastPhoneRecordId = data.readLong();
+        int count = data.readInt();
+        List<PhoneRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            long id = data.readLong();
+            PhoneRecord record = new PhoneRecord(readString(data), readString(data));
+            record.computePhoneKey();
+            record.setPhoneRecordId(id);
+            record.setVersion(data.readLong());
+            records.add(record);
+        }
+        PhoneBook phoneBook = new PhoneBook();
+        phoneBook.setListPhoneRecords(records);
+        phoneBook.restoreLastPhoneRecordId(lastPhoneRecordId);
+        return phoneBook;
+    }
+
+    /**Метод применяет к телефонной книжке изменения записей из двоичного представления.
+     @param in поток с двоичным представлением изменений
+     @param phoneBook телефонная книжка, к которой применяются изменения
+     @throws IOException если данные повреждены или записаны в неизвестном формате*/
+    static void applyPhoneRecords(InputStream in, PhoneBook phoneBook) throws IOException
+    {
+        DataInputStream data = new DataInputStream(in);
+        checkFormat(data);
+        long lastPhoneRecordId = data.readLong();
+        int count = data.readInt();
+        for (int i = 0; i < count; i++)
+        {
+            long id = data.readLong();
+            if (data.readBoolean())
+            {
+                PhoneRecord record = new PhoneRecord(readString(data), readString(data));
+                record.computePhoneKey();
+                record.setPhoneRecordId(id);
+                record.setVersion(data.readLong());
+                phoneBook.restorePhoneRecord(record);
+            }
+            else
+            {
+                phoneBook.removePhoneRecord(id);
+            }
+        }
+        phoneBook.restoreLastPhoneRecordId(lastPhoneRecordId);
+    }
+
+    /*Телефонная книжка в обеих версиях записывается одинаково*/
+    private static byte checkFormat(DataInputStream data) throws IOException
+    {
+        byte format = data.readByte();
+        if (format != FORMAT_VERSION && format != FORMAT_VERSION_WITHOUT_PHONE_NUMBER)
+        {
+            throw new IOException("Unknown user format version " + format);
+        }
+        return format;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException
+    {
+        if (value == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException
+    {
+        int length = in.readInt();
+        if (length < 0)
+        {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,256 @@
+package boot.dao;
+
+
+import boot.entities.User;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**Класс представляет ограниченный по объёму памяти кэш часто используемых пользователей.
+ * Объём пользователя оценивается при помещении в кэш и уточняется при обращении к нему,
+ * например после загрузки его телефонной книжки.
+ * Вытеснение выполняется по алгоритму "второго шанса" (CLOCK): пользователь,
+ * к которому обращались после прошлого обхода, остаётся в кэше ещё на один обход.
+ * Чтение из кэша выполняется без блокировок.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+class UsersCache
+{
+    /**Наибольший объём пользователей в кэше, в байтах*/
+    private final long capacityBytes;
+
+    /**Оценка объёма пользователей в кэше, в байтах*/
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    /**Количество вытесненных пользователей*/
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    /**Признак выполняющегося вытеснения, вытеснение выполняет только один поток*/
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    /**"Стрелка часов": положение, с которого продолжается следующий обход при вытеснении.
+     * Используется только потоком, выполняющим вытеснение*/
+    private Iterator<Map.Entry<Long, Entry>> hand;
+
+    UsersCache(long capacityBytes)
+    {
+        this.capacityBytes = capacityBytes;
+    }
+
+    /**Метод возвращает пользователя из кэша.
+     @param userId id пользователя
+     @return объект пользователя, или null если его нет в кэше*/
+    User get(Long userId)
+    {
+        Entry entry = entries.get(userId);
+        if (entry == null)
+        {
+            return null;
+        }
+        if (!entry.referenced)
+        {
+            entry.referenced = true;
+        }
+        reweigh(entry);
+        return entry.user;
+    }
+
+    /**Метод помещает пользователя в кэш, при необходимости вытесняя давно не использованных.
+     @param user объект пользователя*/
+    void put(User user)
+    {
+        Entry entry = new Entry(user);
+        usedBytes.addAndGet(entry.weight.get());
+        Entry previous = entries.put(user.getUserId(), entry);
+        if (previous != null)
+        {
+            usedBytes.addAndGet(-previous.weight.getAndSet(0));
+        }
+        if (usedBytes.get() > capacityBytes)
+        {
+            evict();
+        }
+    }
+
+    /**Метод помещает пользователя в кэш, если в кэше ещё нет пользователя с тем же id.
+     * Используется при чтении с диска, чтобы не заменить более новый объект,
+     * помещённый в кэш при изменении пользователя.
+     @param user объект пользователя
+     @return пользователь, оказавшийся в кэше*/
+    User putIfAbsent(User user)
+    {
+        Entry entry = new Entry(user);
+        Entry existing = entries.putIfAbsent(user.getUserId(), entry);
+        if (existing != null)
+        {
+            return existing.user;
+        }
+        usedBytes.addAndGet(entry.weight.get());
+        if (usedBytes.get() > capacityBytes)
+        {
+            evict();
+        }
+        return user;
+    }
+
+    /**Метод учитывает в объёме кэша загруженную телефонную книжку пользователя, чтобы
+     * пользователи, к которым после загрузки книжки не обращались через кэш, не занимали
+     * памяти больше, чем учтено.
+     @param user пользователь, телефонная книжка которого загружена
+     @param bytes оценка объёма телефонной книжки*/
+    void phoneBookLoaded(User user, long bytes)
+    {
+        Entry entry = entries.get(user.getUserId());
+        if (entry == null || entry.user != user)
+        {
+            return;//Пользователь не в кэше, его память не учитывается
+        }
+        long previous;
+        do
+        {
+            previous = entry.weight.get();
+            if (previous == 0)
+            {
+                return;//Пользователь уже удалён из кэша
+            }
+        }
+        while (!entry.weight.compareAndSet(previous, previous + bytes));
+        if (usedBytes.addAndGet(bytes) > capacityBytes)
+        {
+            evict();
+        }
+    }
+
+    /**Метод удаляет из кэша пользователей, телефонные книжки которых ещё не загружены.
+     * Вызывается при замене файла данных: такие пользователи загружают книжку из файла,
+     * в котором были прочитаны, а он остаётся открытым только до следующей замены.*/
+    void removeNotLoaded()
+    {
+        for (Map.Entry<Long, Entry> mapping : entries.entrySet())
+        {
+            Entry entry = mapping.getValue();
+            if (!entry.user.phoneBookLoaded() && entries.remove(mapping.getKey(), entry))
+            {
+                usedBytes.addAndGet(-entry.weight.getAndSet(0));
+            }
+        }
+    }
+
+    /**Метод удаляет пользователя из кэша.
+     @param userId id пользователя*/
+    void remove(Long userId)
+    {
+        Entry removed = entries.remove(userId);
+        if (removed != null)
+        {
+            usedBytes.addAndGet(-removed.weight.getAndSet(0));
+        }
+    }
+
+    /**Метод возвращает количество пользователей в кэше.
+     @return количество пользователей*/
+    int size()
+    {
+        return entries.size();
+    }
+
+    /**Метод возвращает оценку объёма пользователей в кэше.
+     @return оценка в байтах*/
+    long usedBytes()
+    {
+        return usedBytes.get();
+    }
+
+    /**Метод возвращает наибольший объём пользователей в кэше.
+     @return объём в байтах*/
+    long capacityBytes()
+    {
+        return capacityBytes;
+    }
+
+    /**Метод возвращает количество пользователей, вытесненных из кэша.
+     @return количество вытесненных пользователей*/
+    long evictions()
+    {
+        return evictions.get();
+    }
+
+    /**Метод уточняет оценку объёма пользователя, изменившегося в кэше.*/
+    private void reweigh(Entry entry)
+    {
+        long weight = entry.user.estimatedBytes();
+        long previous = entry.weight.get();
+        //Нулевая оценка означает, что пользователь уже удалён из кэша
+        if (weight != previous && previous != 0 && entry.weight.compareAndSet(previous, weight))
+        {
+            usedBytes.addAndGet(weight - previous);
+            if (weight > previous && usedBytes.get() > capacityBytes)
+            {
+                evict();
+            }
+        }
+    }
+
+    private void evict()
+    {
+        if (!evicting.compareAndSet(false, true))
+        {
+            return;//Вытеснение уже выполняется другим потоком
+        }
+        try
+        {
+            /*Обход продолжается с места, где остановился прошлый, иначе отметки снимались бы
+            всегда с одних и тех же записей. Не более двух полных обходов: на первом снимаются
+            отметки, на втором вытесняются записи*/
+            long limit = 2L * entries.size();
+            for (long scanned = 0; scanned < limit && usedBytes.get() > capacityBytes; scanned++)
+            {
+                if (hand == null || !hand.hasNext())
+                {
+                    hand = entries.entrySet().iterator();
+                    if (!hand.hasNext())
+                    {
+                        break;
+                    }
+                }
+                Map.Entry<Long, Entry> mapping = hand.next();
+                Entry entry = mapping.getValue();
+                if (entry.referenced)
+                {
+                    entry.referenced = false;
+                }
+                else if (entries.remove(mapping.getKey(), entry))
+                {
+                    usedBytes.addAndGet(-entry.weight.getAndSet(0));
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+        finally
+        {
+            evicting.set(false);
+        }
+    }
+
+    /**Класс представляет запись кэша с отметкой об обращении.*/
+    private static class Entry
+    {
+        private final User user;
+
+        private volatile boolean referenced;
+
+        /**Оценка объёма пользователя, учтённая в объёме кэша*/
+        private final AtomicLong weight;
+
+        Entry(User user)
+        {
+            this.user = user;
+            this.weight = new AtomicLong(user.estimatedBytes());
+        }
+    }
+}
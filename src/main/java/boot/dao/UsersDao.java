@@ -0,0 +1,71 @@
+package boot.dao;
+
+
+import boot.entities.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**Интерфейс служит для определения операций хранилища пользователей
+ * и их телефонных книжек.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public interface UsersDao
+{
+    /**Метод возвращает пользователя по его id.
+     @param userId id пользователя
+     @return объект класса User, или null если такового нет*/
+    User findUser(Long userId);
+
+    /**Метод возвращает пользователей по их id за один проход по хранилищу.
+     @param userIds id пользователей без повторов
+     @return найденные пользователи по их id в порядке запрошенных id,
+     без id, по которым пользователей нет*/
+    Map<Long, User> findUsers(Collection<Long> userIds);
+
+    /**Метод возвращает список всех пользователей, упорядоченный по их id.
+     @return список объектов класса User*/
+    List<User> findAllUsers();
+
+    /**Метод возвращает список пользователей по части их имени.
+     @param partName часть имени пользователя
+     @return список объектов класса User, упорядоченный по их id*/
+    List<User> findUsersByName(String partName);
+
+    /**Метод сохраняет нового пользователя, если пользователя с тем же id нет.
+     @param user объект пользователя
+     @return true если пользователь сохранён, false если id уже занят*/
+    boolean insertUser(User user);
+
+    /**Метод заменяет пользователя новым, только если версия нового пользователя
+     * на единицу больше хранимой (сравнение с обменом по версии).
+     @param updated пользователь, которым нужно заменить хранимого
+     @return true если пользователь заменён, false если он был изменён или удалён*/
+    boolean replaceUser(User updated);
+
+    /**Метод удаляет пользователя по его id.
+     @param userId id пользователя
+     @return удалённый пользователь, или null если такового нет*/
+    User removeUser(Long userId);
+
+    /**Метод применяет изменение к хранимому пользователю (например, к его телефонной
+     * книжке), увеличивает версию пользователя и сохраняет результат. Изменения одного
+     * пользователя, в том числе замены и удаление, не пересекаются между собой.
+     * Если изменение вернуло null, пользователь считается не изменённым.
+     @param userId id пользователя
+     @param modification изменение, возвращающее его результат
+     @return результат изменения, или null если пользователя с таким id нет*/
+    <R> R modifyUser(Long userId, Function<User, R> modification);
+
+    /**Метод проверяет, хватит ли бюджета памяти хранилища для записи указанного объёма.
+     * Хранилища, вытесняющие данные на диск, принимают запись всегда.
+     @param bytes оценка объёма, на который увеличится хранилище
+     @return true если запись можно выполнить, false если её нужно отклонить*/
+    boolean hasMemoryFor(long bytes);
+
+    /**Метод возвращает показатели использования памяти хранилищем.
+     @return показатели использования памяти*/
+    MemoryStats getMemoryStats();
+}
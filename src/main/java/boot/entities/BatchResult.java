@@ -0,0 +1,59 @@
+package boot.entities;
+
+
+import java.util.List;
+import java.util.Objects;
+
+/**Класс представляет результат пакетного чтения сущностей по их id:
+ * найденные сущности и id, по которым ничего не найдено.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class BatchResult<T>
+{
+    /**Найденные сущности в порядке запрошенных id*/
+    private final List<T> found;
+
+    /**id, по которым сущности не найдены, в порядке запроса*/
+    private final List<Long> missing;
+
+    public BatchResult(List<T> found, List<Long> missing)
+    {
+        this.found = found;
+        this.missing = missing;
+    }
+
+    public List<T> getFound()
+    {
+        return found;
+    }
+
+    public List<Long> getMissing()
+    {
+        return missing;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) return true;
+        if (!(o instanceof BatchResult)) return false;
+        BatchResult<?> that = (BatchResult<?>) o;
+        return Objects.equals(found, that.found) &&
+                Objects.equals(missing, that.missing);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(found, missing);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BatchResult{" +
+                "found=" + found +
+                ", missing=" + missing +
+                '}';
+    }
+}
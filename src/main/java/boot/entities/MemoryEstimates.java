@@ -0,0 +1,35 @@
+package boot.entities;
+
+/**Класс содержит оценки объёма памяти, занимаемого сущностями, для учёта памяти
+ * хранилища. Оценки рассчитаны для 64-разрядной JVM со сжатыми указателями:
+ * заголовок объекта 12 байт, ссылка 4 байта, выравнивание до 8 байт.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+final class MemoryEstimates
+{
+    /**Строка без символов: объект String и заголовок массива символов*/
+    static final long STRING = 40;
+
+    /**Запись без строк: объект записи, id и версия типа Long, узел в карте записей
+     * и узлы в двух индексах телефонной книжки*/
+    static final long PHONE_RECORD = 32 + 16 + 16 + 3 * 40;
+
+    /**Пустая телефонная книжка: объект, счётчик id, карта записей и два индекса*/
+    static final long PHONE_BOOK = 32 + 16 + 3 * 64;
+
+    /**Пользователь без имени и телефонной книжки: объект, id и версия типа Long
+     * и узел в карте пользователей хранилища*/
+    static final long USER = 32 + 16 + 16 + 40;
+
+    private MemoryEstimates()
+    {
+    }
+
+    /**Метод возвращает оценку объёма памяти, занимаемого строкой.
+     @param value строка, или null
+     @return оценка в байтах*/
+    static long of(String value)
+    {
+        return value == null ? 0 : STRING + 2L * value.length();
+    }
+}
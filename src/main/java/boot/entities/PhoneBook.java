@@ -2,54 +2,318 @@ package boot.entities;
 
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**Класс представляет телефонную книжку.
  @author Артемьев Р.А.
  @version 02.12.2019 */
 public class PhoneBook
 {
+    /**Порядок записей по имени, записи с одинаковым именем упорядочены по id*/
+    private static final Comparator<PhoneRecord> BY_NAME = Comparator
+            .comparing(PhoneRecord::getName, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(PhoneRecord::getPhoneRecordId);
+
+    /**Порядок записей по номеру телефона, записи с одинаковым номером упорядочены по id*/
+    private static final Comparator<PhoneRecord> BY_PHONE_NUMBER = Comparator
+            .comparing(PhoneRecord::getPhoneNumber, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(PhoneRecord::getPhoneRecordId);
+
     /**Счётчик для получения уникальных(в рамках конкретного экземпляра телефонной книжки)
      * id номеров новыми записями в телефонной книжке.*/
     /*Он применяется поскольку задание не предусматривает использование
      * баз данных с характерными для них механизмами присвоения уникальных id*/
-    private Long counter;
+    private final AtomicLong counter;
+
+    /**Телефонные записи, упорядоченные по их id*/
+    /*Неблокирующая упорядоченная структура позволяет читать телефонную книжку
+    * одновременно с её изменением, сохраняя порядок добавления записей*/
+    private final ConcurrentNavigableMap<Long, PhoneRecord> phoneRecords;
+
+    /**Записи, упорядоченные по имени*/
+    /*Упорядоченные индексы позволяют получать страницу записей в нужном порядке
+    * за O(log n + размер страницы) без сортировки всей телефонной книжки.
+    * Индексы изменяются вместе с записями под блокировкой телефонной книжки,
+    * а читаются без блокировок*/
+    private final NavigableSet<PhoneRecord> nameIndex;
+
+    /**Записи, упорядоченные по номеру телефона*/
+    private final NavigableSet<PhoneRecord> phoneNumberIndex;
+
+    /**Количество записей, изменяется вместе с записями*/
+    /*Размер ConcurrentSkipListMap вычисляется обходом всех записей,
+    * поэтому количество записей хранится отдельно*/
+    private volatile int size;
 
-    /**Список телефонных записей*/
-    private List<PhoneRecord> listPhoneRecords;
+    /**Оценка объёма памяти, занимаемого записями, в байтах*/
+    private volatile long estimatedRecordsBytes;
+
+    /**Записи, изменённые с последнего вызова drainChanges, по их id (null - запись удалена),
+     * или null если изменения не отслеживаются. Изменяется под блокировкой телефонной книжки*/
+    /*Отслеживание включает хранилище, дописывающее в журнал только изменённые записи*/
+    private Map<Long, PhoneRecord> changes;
 
     public PhoneBook()
     {
-        this.counter = 0L;
-        this.listPhoneRecords = new ArrayList<>();
+        this.counter = new AtomicLong();
+        this.phoneRecords = new ConcurrentSkipListMap<>();
+        this.nameIndex = new ConcurrentSkipListSet<>(BY_NAME);
+        this.phoneNumberIndex = new ConcurrentSkipListSet<>(BY_PHONE_NUMBER);
     }
 
-    public Long addPhoneRecord(PhoneRecord newPhoneRecord)
+    public synchronized Long addPhoneRecord(PhoneRecord newPhoneRecord)
     {
-        newPhoneRecord.setPhoneRecordId(++this.counter);
-        listPhoneRecords.add(newPhoneRecord);
+        newPhoneRecord.setPhoneRecordId(counter.incrementAndGet());
+        newPhoneRecord.setVersion(0L);
+        phoneRecords.put(newPhoneRecord.getPhoneRecordId(), newPhoneRecord);
+        index(newPhoneRecord);
+        changed(newPhoneRecord.getPhoneRecordId(), newPhoneRecord);
         return newPhoneRecord.getPhoneRecordId();
     }
 
-    public Long deletePhoneRecord(PhoneRecord delPhoneRecord)
+    public synchronized Long deletePhoneRecord(PhoneRecord delPhoneRecord)
     {
-        listPhoneRecords.remove(delPhoneRecord);
+        PhoneRecord removed = phoneRecords.remove(delPhoneRecord.getPhoneRecordId());
+        if (removed != null)
+        {
+            unindex(removed);
+            changed(removed.getPhoneRecordId(), null);
+        }
         return delPhoneRecord.getPhoneRecordId();
     }
 
-    public Long updatePhoneRecord(PhoneRecord phoneRecord)
+    /**Метод заменяет запись новой, только если в телефонной книжке всё ещё
+     * хранится именно ожидаемая запись (сравнение с обменом).
+     @param current запись, которая должна храниться в телефонной книжке
+     @param phoneRecord запись, которой нужно её заменить
+     @return true если запись заменена, false если она была изменена или удалена*/
+    public synchronized boolean replacePhoneRecord(PhoneRecord current, PhoneRecord phoneRecord)
+    {
+        if (!phoneRecords.replace(current.getPhoneRecordId(), current, phoneRecord))
+        {
+            return false;
+        }
+        unindex(current);
+        index(phoneRecord);
+        changed(phoneRecord.getPhoneRecordId(), phoneRecord);
+        return true;
+    }
+
+    /**Метод сохраняет запись с уже назначенным id, заменяя запись с тем же id,
+     * например при восстановлении телефонной книжки из журнала изменений.
+     @param phoneRecord запись с назначенными id и версией*/
+    public synchronized void restorePhoneRecord(PhoneRecord phoneRecord)
+    {
+        counter.accumulateAndGet(phoneRecord.getPhoneRecordId(), Math::max);
+        PhoneRecord previous = phoneRecords.put(phoneRecord.getPhoneRecordId(), phoneRecord);
+        if (previous != null)
+        {
+            unindex(previous);
+        }
+        index(phoneRecord);
+        changed(phoneRecord.getPhoneRecordId(), phoneRecord);
+    }
+
+    /**Метод удаляет запись по её id.
+     @param phoneRecordId id записи
+     @return удалённая запись, или null если записи с таким id нет*/
+    public synchronized PhoneRecord removePhoneRecord(Long phoneRecordId)
+    {
+        PhoneRecord removed = phoneRecords.remove(phoneRecordId);
+        if (removed != null)
+        {
+            unindex(removed);
+            changed(phoneRecordId, null);
+        }
+        return removed;
+    }
+
+    /**Метод включает отслеживание изменённых записей и забывает уже сделанные изменения.
+     * Изменения, сделанные после вызова, возвращает метод drainChanges.*/
+    public synchronized void trackChanges()
+    {
+        changes = new LinkedHashMap<>();
+    }
+
+    /**Метод возвращает записи, изменённые с включения отслеживания или предыдущего
+     * вызова, и начинает отслеживание заново. Замена всех записей методом
+     * setListPhoneRecords отключает отслеживание.
+     @return изменённые записи по их id в порядке изменения, null для удалённых записей,
+     или null если изменения не отслеживались*/
+    public synchronized Map<Long, PhoneRecord> drainChanges()
+    {
+        Map<Long, PhoneRecord> drained = changes;
+        if (drained != null)
+        {
+            changes = new LinkedHashMap<>();
+        }
+        return drained;
+    }
+
+    /**Метод возвращает страницу записей в указанном порядке, начиная со следующей
+     * за указанной записью (постраничный вывод по ключу).
+     @param order порядок записей
+     @param afterId id последней записи предыдущей страницы, или null для первой страницы
+     @param afterKey имя или номер телефона последней записи предыдущей страницы
+     для порядков NAME и PHONE_NUMBER; если null, берётся из записи с id afterId
+     @param limit максимальное количество записей на странице
+     @return список записей, или null если afterKey не указан, а записи с id afterId нет*/
+    public List<PhoneRecord> getPhoneRecords(PhoneRecordOrder order, Long afterId, String afterKey, int limit)
     {
-        listPhoneRecords.set(listPhoneRecords.indexOf(phoneRecord), phoneRecord);
-        return phoneRecord.getPhoneRecordId();
+        List<PhoneRecord> page = new ArrayList<>(Math.min(limit, 256));
+        if (order == PhoneRecordOrder.ID)
+        {
+            Iterator<PhoneRecord> records = (afterId == null ? phoneRecords
+                    : phoneRecords.tailMap(afterId, false)).values().iterator();
+            while (page.size() < limit && records.hasNext())
+            {
+                page.add(records.next());
+            }
+            return page;
+        }
+
+        boolean byName = order == PhoneRecordOrder.NAME;
+        NavigableSet<PhoneRecord> index = byName ? nameIndex : phoneNumberIndex;
+        Iterator<PhoneRecord> records;
+        if (afterId == null)
+        {
+            records = index.iterator();
+        }
+        else
+        {
+            if (afterKey == null)
+            {
+                PhoneRecord after = phoneRecords.get(afterId);
+                if (after == null)
+                {
+                    return null;
+                }
+                afterKey = byName ? after.getName() : after.getPhoneNumber();
+            }
+            PhoneRecord position = byName ? new PhoneRecord(afterKey, null) : new PhoneRecord(null, afterKey);
+            position.setPhoneRecordId(afterId);
+            records = index.tailSet(position, false).iterator();
+        }
+        while (page.size() < limit && records.hasNext())
+        {
+            PhoneRecord record = records.next();
+            //Пропускаем запись, если она заменена или удалена во время чтения
+            if (phoneRecords.get(record.getPhoneRecordId()) == record)
+            {
+                page.add(record);
+            }
+        }
+        return page;
+    }
+
+    /**Метод возвращает запись по её id.
+     @param phoneRecordId id записи
+     @return запись, или null если записи с таким id нет*/
+    public PhoneRecord getPhoneRecord(Long phoneRecordId)
+    {
+        if (phoneRecordId == null)
+        {
+            return null;
+        }
+        return phoneRecords.get(phoneRecordId);
+    }
+
+    /**Метод возвращает наибольший id, выданный записям этой телефонной книжки.
+     @return последний выданный id*/
+    public long lastPhoneRecordId()
+    {
+        return counter.get();
+    }
+
+    /**Метод восстанавливает счётчик id записей, например при загрузке
+     * телефонной книжки из хранилища, чтобы id удалённых записей не выдавались повторно.
+     @param lastPhoneRecordId последний выданный id*/
+    public void restoreLastPhoneRecordId(long lastPhoneRecordId)
+    {
+        counter.accumulateAndGet(lastPhoneRecordId, Math::max);
     }
 
     public List<PhoneRecord> getListPhoneRecords() {
-        return listPhoneRecords;
+        return new ArrayList<>(phoneRecords.values());
+    }
+
+    public synchronized void setListPhoneRecords(List<PhoneRecord> listPhoneRecords) {
+        this.phoneRecords.clear();
+        this.nameIndex.clear();
+        this.phoneNumberIndex.clear();
+        this.size = 0;
+        this.estimatedRecordsBytes = 0;
+        this.changes = null;
+        for (PhoneRecord phoneRecord : listPhoneRecords)
+        {
+            if (phoneRecord.getPhoneRecordId() == null)
+            {
+                phoneRecord.setPhoneRecordId(counter.incrementAndGet());
+            }
+            else
+            {
+                counter.accumulateAndGet(phoneRecord.getPhoneRecordId(), Math::max);
+            }
+            if (phoneRecord.getVersion() == null)
+            {
+                phoneRecord.setVersion(0L);
+            }
+            PhoneRecord previous = this.phoneRecords.put(phoneRecord.getPhoneRecordId(), phoneRecord);
+            if (previous != null)
+            {
+                unindex(previous);
+            }
+            index(phoneRecord);
+        }
     }
 
-    public void setListPhoneRecords(List<PhoneRecord> listPhoneRecords) {
-        this.listPhoneRecords = listPhoneRecords;
+    /**Метод возвращает количество записей в телефонной книжке.
+     @return количество записей*/
+    public int size()
+    {
+        return size;
+    }
+
+    /**Метод возвращает оценку объёма памяти, занимаемого телефонной книжкой вместе с записями.
+     @return оценка в байтах*/
+    public long estimatedBytes()
+    {
+        return MemoryEstimates.PHONE_BOOK + estimatedRecordsBytes;
+    }
+
+    /*Методы index и unindex вызываются под блокировкой телефонной книжки*/
+    private void index(PhoneRecord phoneRecord)
+    {
+        nameIndex.add(phoneRecord);
+        phoneNumberIndex.add(phoneRecord);
+        size++;
+        estimatedRecordsBytes += phoneRecord.estimatedBytes();
+    }
+
+    private void unindex(PhoneRecord phoneRecord)
+    {
+        nameIndex.remove(phoneRecord);
+        phoneNumberIndex.remove(phoneRecord);
+        size--;
+        estimatedRecordsBytes -= phoneRecord.estimatedBytes();
+    }
+
+    private void changed(Long phoneRecordId, PhoneRecord phoneRecord)
+    {
+        if (changes != null)
+        {
+            changes.put(phoneRecordId, phoneRecord);
+        }
     }
 
     @Override
@@ -57,19 +321,19 @@ public class PhoneBook
         if (this == o) return true;
         if (!(o instanceof PhoneBook)) return false;
         PhoneBook phoneBook = (PhoneBook) o;
-        return Objects.equals(listPhoneRecords, phoneBook.listPhoneRecords);
+        return Objects.equals(phoneRecords, phoneBook.phoneRecords);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(listPhoneRecords);
+        return Objects.hash(phoneRecords);
     }
 
     @Override
     public String toString() {
         return "PhoneBook{" +
                 "counter=" + counter +
-                ", listPhoneRecords=" + listPhoneRecords +
+                ", listPhoneRecords=" + phoneRecords.values() +
                 '}';
     }
 }
@@ -0,0 +1,134 @@
+package boot.entities;
+
+/**Класс приводит номера телефонов к каноническому виду, чтобы одинаковые номера,
+ * записанные по-разному ("+7 (900) 123-45-67", "8 900 123 45 67", "89001234567"),
+ * совпадали при поиске. Канонический номер хранится в записи телефонной книжки
+ * в виде числового ключа, который вычисляется один раз при сохранении записи,
+ * поэтому поиск сравнивает числа, а не разбирает номера при каждом запросе.
+ *
+ * Номер приводится к каноническому виду, если он состоит только из цифр и
+ * разделителей (пробелов, скобок, дефисов, точек) с необязательным "+" в начале и
+ * содержит не больше 15 цифр, как номер в международном формате. Номер из 11 цифр,
+ * начинающийся с 8 и записанный без "+", и номер из 10 цифр считаются российскими
+ * и получают код страны 7. Остальные строки ключа не имеют и сравниваются как есть.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public final class PhoneNumbers
+{
+    /**Ключ строки, которая не является номером телефона*/
+    public static final long NO_KEY = -1L;
+
+    /**Код страны, добавляемый к номерам без него*/
+    private static final char DEFAULT_COUNTRY_CODE = '7';
+
+    /**Наибольшее количество цифр в номере в международном формате*/
+    private static final int MAX_DIGITS = 15;
+
+    private PhoneNumbers()
+    {
+    }
+
+    /**Метод вычисляет числовой ключ канонического вида номера телефона. Ключ - это
+     * цифры канонического номера с единицей впереди, чтобы не терялись ведущие нули.
+     @param phoneNumber номер телефона в произвольной записи
+     @return ключ, или NO_KEY если строка не является номером телефона*/
+    public static long canonicalKey(String phoneNumber)
+    {
+        if (phoneNumber == null)
+        {
+            return NO_KEY;
+        }
+        char[] digits = new char[MAX_DIGITS + 1];
+        int count = 0;
+        boolean plus = false;
+        for (int i = 0; i < phoneNumber.length(); i++)
+        {
+            char c = phoneNumber.charAt(i);
+            if (c >= '0' && c <= '9')
+            {
+                if (count == MAX_DIGITS)
+                {
+                    return NO_KEY;
+                }
+                digits[++count] = c;
+            }
+            else if (c == '+' && count == 0 && !plus)
+            {
+                plus = true;
+            }
+            else if (c != ' ' && c != '(' && c != ')' && c != '-' && c != '.')
+            {
+                return NO_KEY;
+            }
+        }
+        if (count == 0)
+        {
+            return NO_KEY;
+        }
+        int from = 1;
+        if (!plus && count == 11 && digits[1] == '8')
+        {
+            digits[1] = DEFAULT_COUNTRY_CODE;//Выход на междугороднюю связь заменяется кодом страны
+        }
+        else if (!plus && count == 10)
+        {
+            digits[0] = DEFAULT_COUNTRY_CODE;
+            from = 0;
+        }
+        long key = 1;
+        for (int i = from; i <= count; i++)
+        {
+            key = key * 10 + (digits[i] - '0');
+        }
+        return key;
+    }
+
+    /**Метод возвращает канонический вид номера телефона по его ключу.
+     @param key ключ, вычисленный методом canonicalKey
+     @return номер в виде "+" и цифр, или null если ключа нет*/
+    public static String canonical(long key)
+    {
+        return key == NO_KEY ? null : "+" + Long.toString(key).substring(1);
+    }
+
+    /**Метод возвращает строку, по которой номер телефона сравнивается с другими:
+     * канонический вид номера или саму строку, если она не является номером.
+     * Строка без ключа не может совпасть с каноническим видом другого номера,
+     * потому что строка из "+" и не больше 15 цифр всегда имеет ключ.
+     @param phoneNumber номер телефона в произвольной записи
+     @return строка для сравнения, или null если в параметре null*/
+    public static String matchKey(String phoneNumber)
+    {
+        long key = canonicalKey(phoneNumber);
+        return key == NO_KEY ? phoneNumber : canonical(key);
+    }
+
+    /**Метод возвращает число, по которому номер телефона сравнивается с другими:
+     * неотрицательный ключ канонического вида номера, а если номер к нему не приводится -
+     * 64-битный хэш строки с установленным старшим битом. Такие хэши отрицательны
+     * и не совпадают с ключами, но разные строки изредка могут получить один хэш.
+     @param phoneNumber номер телефона в произвольной записи, не null
+     @param key ключ номера, вычисленный методом canonicalKey
+     @return число для сравнения номера*/
+    public static long numericMatchKey(String phoneNumber, long key)
+    {
+        if (key != NO_KEY)
+        {
+            return key;
+        }
+        long hash = 1125899906842597L;
+        for (int i = 0; i < phoneNumber.length(); i++)
+        {
+            hash = 31 * hash + phoneNumber.charAt(i);
+        }
+        return hash | Long.MIN_VALUE;
+    }
+
+    /**Метод возвращает число, по которому номер телефона сравнивается с другими.
+     @param phoneNumber номер телефона в произвольной записи, не null
+     @return число для сравнения номера, см. numericMatchKey(String, long)*/
+    public static long numericMatchKey(String phoneNumber)
+    {
+        return numericMatchKey(phoneNumber, canonicalKey(phoneNumber));
+    }
+}
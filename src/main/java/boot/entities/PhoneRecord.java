@@ -1,6 +1,8 @@
 package boot.entities;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.Objects;
 
 /**Класс представляет запись в телефонной книжке.
@@ -17,6 +19,17 @@ public class PhoneRecord
     /**Телефон*/
     private String phoneNumber;
 
+    /**Версия записи, увеличивается при каждом её редактировании. Присваивается при
+     * добавлении записи в телефонную книжку; null в записи, пришедшей от клиента,
+     * означает безусловное редактирование*/
+    private Long version;
+
+    /**Признак ещё не вычисленного ключа номера телефона*/
+    private static final long KEY_NOT_COMPUTED = Long.MIN_VALUE;
+
+    /**Числовой ключ канонического вида номера телефона, вычисляется при сохранении записи*/
+    private volatile long phoneKey = KEY_NOT_COMPUTED;
+
     public PhoneRecord(String name, String phoneNumber) {
         this.name = name;
         this.phoneNumber = phoneNumber;
@@ -44,6 +57,48 @@ public class PhoneRecord
 
     public void setPhoneNumber(String phoneNumber) {
         this.phoneNumber = phoneNumber;
+        this.phoneKey = KEY_NOT_COMPUTED;
+    }
+
+    /**Метод возвращает числовой ключ канонического вида номера телефона. Обычно ключ
+     * вычислен заранее при сохранении записи, иначе он вычисляется при первом обращении.
+     @return ключ, или PhoneNumbers.NO_KEY если номер не приводится к каноническому виду*/
+    @JsonIgnore
+    public long getPhoneKey() {
+        long key = phoneKey;
+        return key == KEY_NOT_COMPUTED ? computePhoneKey() : key;
+    }
+
+    /**Метод вычисляет и запоминает числовой ключ канонического вида номера телефона.
+     * Вызывается при сохранении записи, чтобы поиск по номеру не разбирал номера.
+     @return ключ, или PhoneNumbers.NO_KEY если номер не приводится к каноническому виду*/
+    public long computePhoneKey() {
+        long key = PhoneNumbers.canonicalKey(phoneNumber);
+        phoneKey = key;
+        return key;
+    }
+
+    /**Метод возвращает строку, по которой номер телефона записи сравнивается с другими.
+     @return канонический вид номера или сам номер, если он не приводится к каноническому виду*/
+    @JsonIgnore
+    public String getPhoneMatchKey() {
+        long key = getPhoneKey();
+        return key == PhoneNumbers.NO_KEY ? phoneNumber : PhoneNumbers.canonical(key);
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**Метод возвращает оценку объёма памяти, занимаемого записью в телефонной книжке,
+     * вместе с её строками, id, версией и элементами индексов телефонной книжки.
+     @return оценка в байтах*/
+    public long estimatedBytes() {
+        return MemoryEstimates.PHONE_RECORD + MemoryEstimates.of(name) + MemoryEstimates.of(phoneNumber);
     }
 
     @Override
@@ -53,12 +108,13 @@ public class PhoneRecord
         PhoneRecord that = (PhoneRecord) o;
         return Objects.equals(phoneRecordId, that.phoneRecordId) &&
                 Objects.equals(name, that.name) &&
-                Objects.equals(phoneNumber, that.phoneNumber);
+                Objects.equals(phoneNumber, that.phoneNumber) &&
+                Objects.equals(version, that.version);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(phoneRecordId, name, phoneNumber);
+        return Objects.hash(phoneRecordId, name, phoneNumber, version);
     }
 
     @Override
@@ -67,6 +123,7 @@ public class PhoneRecord
                 "phoneRecordId=" + phoneRecordId +
                 ", name='" + name + '\'' +
                 ", phoneNumber=" + phoneNumber +
+                ", version=" + version +
                 '}';
     }
 }
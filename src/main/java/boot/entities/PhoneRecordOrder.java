@@ -0,0 +1,14 @@
+package boot.entities;
+
+/**Перечисление порядков, в которых можно получать записи телефонной книжки.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public enum PhoneRecordOrder
+{
+    /**По id записи, то есть в порядке добавления*/
+    ID,
+    /**По имени, записи с одинаковым именем - по id*/
+    NAME,
+    /**По номеру телефона, записи с одинаковым номером - по id*/
+    PHONE_NUMBER
+}
@@ -3,16 +3,18 @@ package boot.entities;
 
 
 import java.util.Objects;
+import java.util.function.Supplier;
 
 /**Класс представляет пользователя, владельца телефонной книжки.
  @author Артемьев Р.А.
  @version 02.12.2019 */
 public class User
 {
-    /**Счётчик для получения уникальных id номеров новыми пользователями.*/
+    /**Счётчик для получения уникальных id номеров новыми пользователями
+     * основного хранилища и пользователями, созданными с именем.*/
      /*Он применяется поскольку задание не предусматривает использование
      * баз данных с характерными для них механизмами присвоения уникальных id*/
-    private static Long counter = 0L;
+    private static final UserIdGenerator counter = new UserIdGenerator();
 
     /**id пользователя*/
     private Long userId;
@@ -20,18 +22,50 @@ public class User
     /**Имя пользователя*/
     private String userName;
 
+    /**Собственный номер телефона пользователя, по которому он находится
+     * в телефонных книжках других пользователей, или null если не указан*/
+    private String phoneNumber;
+
     /**Телефонная книга, владельцем которой является пользователь*/
-    private PhoneBook phoneBook;
+    private volatile PhoneBook phoneBook;
+
+    /**Загрузчик телефонной книжки, если она ещё не прочитана из хранилища*/
+    /*Телефонная книжка может быть намного больше самого пользователя, поэтому
+    * при чтении пользователя из хранилища она читается только при обращении к ней*/
+    private volatile Supplier<PhoneBook> phoneBookLoader;
+
+    /**Версия пользователя, увеличивается при каждом его редактировании и изменении его телефонной книжки*/
+    private Long version;
 
     public User(String userName) {
-        this.userId = ++User.counter;
+        this.userId = nextUserId();
         this.userName = userName;
         this.phoneBook = new PhoneBook();
+        this.version = 0L;
     }
 
     public User() {
     }
 
+    /**Метод возвращает новый уникальный id для пользователя.
+     @return новый id*/
+    public static Long nextUserId() {
+        return counter.nextUserId();
+    }
+
+    /**Метод гарантирует, что новые id пользователей будут больше указанного,
+     * например после загрузки сохранённых пользователей из хранилища.
+     @param userId наибольший из уже занятых id*/
+    public static void reserveUserIds(long userId) {
+        counter.reserveUserIds(userId);
+    }
+
+    /**Метод возвращает общий генератор id, которым пользуется основное хранилище.
+     @return общий генератор id*/
+    public static UserIdGenerator sharedIdGenerator() {
+        return counter;
+    }
+
     public Long getUserId() {
         return userId;
     }
@@ -48,14 +82,76 @@ public class User
         this.userName = userName;
     }
 
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public void setPhoneNumber(String phoneNumber) {
+        this.phoneNumber = phoneNumber;
+    }
+
     public PhoneBook getPhoneBook() {
+        if (phoneBookLoader != null) {
+            synchronized (this) {
+                if (phoneBookLoader != null) {
+                    phoneBook = phoneBookLoader.get();
+                    phoneBookLoader = null;
+                }
+            }
+        }
         return phoneBook;
     }
 
     public void setPhoneBook(PhoneBook phoneBook) {
         this.phoneBook = phoneBook;
+        this.phoneBookLoader = null;
+    }
+
+    /**Метод задаёт загрузчик, которым телефонная книжка будет прочитана
+     * при первом обращении к ней.
+     @param phoneBookLoader загрузчик телефонной книжки*/
+    public void loadPhoneBookWith(Supplier<PhoneBook> phoneBookLoader) {
+        this.phoneBook = null;
+        this.phoneBookLoader = phoneBookLoader;
+    }
+
+    /**Метод сообщает, находится ли телефонная книжка пользователя в памяти.
+     @return true если телефонная книжка уже загружена или не требует загрузки*/
+    public boolean phoneBookLoaded() {
+        return phoneBookLoader == null;
+    }
+
+    /**Метод возвращает копию пользователя без телефонной книжки, например для
+     * списков пользователей, где телефонные книжки не нужны и не должны загружаться.
+     @return копия пользователя с пустой ссылкой на телефонную книжку*/
+    public User withoutPhoneBook() {
+        User user = new User();
+        user.userId = userId;
+        user.userName = userName;
+        user.phoneNumber = phoneNumber;
+        user.version = version;
+        return user;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**Метод возвращает оценку объёма памяти, занимаемого пользователем. Телефонная
+     * книжка учитывается, только если она находится в памяти, и не загружается ради оценки.
+     @return оценка в байтах*/
+    public long estimatedBytes() {
+        PhoneBook loaded = phoneBook;
+        return MemoryEstimates.USER + MemoryEstimates.of(userName) + MemoryEstimates.of(phoneNumber)
+                + (loaded == null ? 0 : loaded.estimatedBytes());
     }
 
+    /*Телефонная книжка не сравнивается: любое её изменение увеличивает версию
+    * пользователя, а сравнение не должно читать её из хранилища*/
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -63,12 +159,13 @@ public class User
         User user = (User) o;
         return Objects.equals(userId, user.userId) &&
                 Objects.equals(userName, user.userName) &&
-                Objects.equals(phoneBook, user.phoneBook);
+                Objects.equals(phoneNumber, user.phoneNumber) &&
+                Objects.equals(version, user.version);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(userId, userName, phoneBook);
+        return Objects.hash(userId, userName, phoneNumber, version);
     }
 
     @Override
@@ -76,7 +173,9 @@ public class User
         return "User{" +
                 "userId=" + userId +
                 ", userName='" + userName + '\'' +
-                ", phoneBook=" + phoneBook +
+                ", phoneNumber='" + phoneNumber + '\'' +
+                ", phoneBook=" + (phoneBookLoaded() ? String.valueOf(phoneBook) : "<not loaded>") +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,30 @@
+package boot.entities;
+
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**Класс выдаёт id новым пользователям одного хранилища. Основное хранилище приложения
+ * пользуется общим генератором класса User, у хранилища каждого арендатора свой,
+ * поэтому id в хранилищах арендаторов не зависят от записи в другие хранилища.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class UserIdGenerator
+{
+    /**Наибольший из выданных или занятых id*/
+    private final AtomicLong counter = new AtomicLong();
+
+    /**Метод возвращает новый уникальный id для пользователя.
+     @return новый id*/
+    public Long nextUserId()
+    {
+        return counter.incrementAndGet();
+    }
+
+    /**Метод гарантирует, что новые id пользователей будут больше указанного,
+     * например после загрузки сохранённых пользователей из хранилища.
+     @param userId наибольший из уже занятых id*/
+    public void reserveUserIds(long userId)
+    {
+        counter.accumulateAndGet(userId, Math::max);
+    }
+}
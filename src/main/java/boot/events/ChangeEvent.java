@@ -0,0 +1,163 @@
+package boot.events;
+
+
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+
+import java.util.Objects;
+
+/**Класс представляет событие изменения хранилища (добавление, редактирование или
+ * удаление пользователя либо записи в его телефонной книжке).
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class ChangeEvent
+{
+    /**Порядковый номер события в потоке изменений, присваивается при публикации*/
+    private long offset;
+
+    /**Время возникновения события в миллисекундах*/
+    private final long timestamp;
+
+    /**Вид изменения*/
+    private final ChangeType type;
+
+    /**id пользователя, к которому относится изменение*/
+    private final Long userId;
+
+    /**Имя пользователя (для событий USER_ADDED и USER_UPDATED)*/
+    private final String userName;
+
+    /**id записи в телефонной книжке (для событий по записям)*/
+    private final Long phoneRecordId;
+
+    /**Имя из записи в телефонной книжке*/
+    private final String name;
+
+    /**Телефон из записи в телефонной книжке*/
+    private final String phoneNumber;
+
+    private ChangeEvent(ChangeType type, Long userId, String userName,
+                        Long phoneRecordId, String name, String phoneNumber)
+    {
+        this.timestamp = System.currentTimeMillis();
+        this.type = type;
+        this.userId = userId;
+        this.userName = userName;
+        this.phoneRecordId = phoneRecordId;
+        this.name = name;
+        this.phoneNumber = phoneNumber;
+    }
+
+    /**Метод создаёт событие изменения пользователя.
+     @param type вид изменения
+     @param user объект пользователя, состояние которого фиксируется в событии
+     @return новое событие*/
+    public static ChangeEvent ofUser(ChangeType type, User user)
+    {
+        return new ChangeEvent(type, user.getUserId(), user.getUserName(),
+                null, null, null);
+    }
+
+    /**Метод создаёт событие удаления пользователя.
+     @param userId id удалённого пользователя
+     @return новое событие*/
+    public static ChangeEvent ofUserDeleted(Long userId)
+    {
+        return new ChangeEvent(ChangeType.USER_DELETED, userId, null,
+                null, null, null);
+    }
+
+    /**Метод создаёт событие изменения записи в телефонной книжке пользователя.
+     @param type вид изменения
+     @param userId id пользователя, владельца телефонной книжки
+     @param record запись, состояние которой фиксируется в событии
+     @return новое событие*/
+    public static ChangeEvent ofPhoneRecord(ChangeType type, Long userId, PhoneRecord record)
+    {
+        return new ChangeEvent(type, userId, null,
+                record.getPhoneRecordId(), record.getName(), record.getPhoneNumber());
+    }
+
+    /**Метод создаёт событие удаления записи из телефонной книжки пользователя.
+     @param userId id пользователя, владельца телефонной книжки
+     @param phoneRecordId id удалённой записи
+     @return новое событие*/
+    public static ChangeEvent ofPhoneRecordDeleted(Long userId, Long phoneRecordId)
+    {
+        return new ChangeEvent(ChangeType.PHONE_RECORD_DELETED, userId, null,
+                phoneRecordId, null, null);
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    /*Номер присваивается буфером событий до публикации события в кольцевом буфере,
+    * после публикации событие не изменяется*/
+    void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public Long getPhoneRecordId() {
+        return phoneRecordId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ChangeEvent)) return false;
+        ChangeEvent that = (ChangeEvent) o;
+        return offset == that.offset &&
+                timestamp == that.timestamp &&
+                type == that.type &&
+                Objects.equals(userId, that.userId) &&
+                Objects.equals(userName, that.userName) &&
+                Objects.equals(phoneRecordId, that.phoneRecordId) &&
+                Objects.equals(name, that.name) &&
+                Objects.equals(phoneNumber, that.phoneNumber);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(offset, timestamp, type, userId, userName,
+                phoneRecordId, name, phoneNumber);
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeEvent{" +
+                "offset=" + offset +
+                ", timestamp=" + timestamp +
+                ", type=" + type +
+                ", userId=" + userId +
+                ", userName='" + userName + '\'' +
+                ", phoneRecordId=" + phoneRecordId +
+                ", name='" + name + '\'' +
+                ", phoneNumber=" + phoneNumber +
+                '}';
+    }
+}
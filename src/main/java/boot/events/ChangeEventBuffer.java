@@ -0,0 +1,100 @@
+package boot.events;
+
+
+import boot.exceptions.ChangeEventsExpiredException;
+import boot.exceptions.InvalidRequestParameterException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**Класс представляет ограниченный по размеру кольцевой буфер событий изменения
+ * хранилища. Публикация и чтение событий выполняются без блокировок.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class ChangeEventBuffer
+{
+    /**Ячейки кольцевого буфера*/
+    private final AtomicReferenceArray<ChangeEvent> slots;
+
+    /**Маска для вычисления номера ячейки по номеру события*/
+    private final int mask;
+
+    /**Номер, который получит следующее опубликованное событие*/
+    private final AtomicLong nextOffset = new AtomicLong();
+
+    /**@param capacity количество хранимых событий, должно быть степенью двойки*/
+    public ChangeEventBuffer(int capacity)
+    {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+        {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**Метод публикует событие в буфере, присваивая ему очередной номер.
+     * Если буфер заполнен, самое старое событие перезаписывается,
+     * поэтому отстающие читатели никогда не задерживают публикацию.
+     @param event событие, которое нужно опубликовать
+     @return номер, присвоенный событию*/
+    public long publish(ChangeEvent event)
+    {
+        long offset = nextOffset.getAndIncrement();
+        event.setOffset(offset);
+        slots.set((int) (offset & mask), event);
+        return offset;
+    }
+
+    /**Метод возвращает события начиная с указанного номера в порядке их публикации.
+     * Чтение останавливается на первом ещё не опубликованном событии.
+     @param fromOffset номер первого события, которое нужно получить
+     @param maxCount максимальное количество возвращаемых событий
+     @return список событий, пустой если новых событий нет
+     @throws ChangeEventsExpiredException если события начиная с указанного номера
+     уже перезаписаны более новыми
+     @throws InvalidRequestParameterException если номер больше номера следующего события*/
+    public List<ChangeEvent> read(long fromOffset, int maxCount)
+    {
+        long next = nextOffset.get();
+        if (fromOffset > next)//Такого номера ещё не было, иначе потребитель пропустил бы события
+        {
+            throw new InvalidRequestParameterException("Change events offset-" + fromOffset
+                    + " is beyond the next offset-" + next + ".");
+        }
+        List<ChangeEvent> events = new ArrayList<>();
+        long offset = Math.max(fromOffset, 0L);
+        while (events.size() < maxCount)
+        {
+            ChangeEvent event = slots.get((int) (offset & mask));
+            if (event == null || event.getOffset() < offset)//Событие ещё не опубликовано
+            {
+                break;
+            }
+            if (event.getOffset() > offset)//Событие уже перезаписано более новым
+            {
+                throw new ChangeEventsExpiredException("Change events from offset-"
+                        + offset + " are no longer available.");
+            }
+            events.add(event);
+            offset++;
+        }
+        return events;
+    }
+
+    /**Метод возвращает номер, который получит следующее опубликованное событие.
+     @return номер следующего события*/
+    public long getNextOffset()
+    {
+        return nextOffset.get();
+    }
+
+    /**Метод возвращает номер самого старого события, доступного для чтения.
+     @return номер самого старого хранимого события*/
+    public long getOldestOffset()
+    {
+        return Math.max(nextOffset.get() - slots.length(), 0L);
+    }
+}
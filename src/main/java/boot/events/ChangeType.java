@@ -0,0 +1,14 @@
+package boot.events;
+
+/**Перечисление видов изменений хранилища пользователей и их телефонных книжек.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public enum ChangeType
+{
+    USER_ADDED,
+    USER_UPDATED,
+    USER_DELETED,
+    PHONE_RECORD_ADDED,
+    PHONE_RECORD_UPDATED,
+    PHONE_RECORD_DELETED
+}
@@ -0,0 +1,31 @@
+package boot.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**Класс исключения, возникающего при запросе событий изменения, которые уже
+ * вытеснены из буфера событий более новыми.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@ResponseStatus(HttpStatus.GONE)
+public class ChangeEventsExpiredException extends RuntimeException
+{
+    public ChangeEventsExpiredException()
+    {
+    }
+
+    public ChangeEventsExpiredException(String message)
+    {
+        super(message);
+    }
+
+    public ChangeEventsExpiredException(Throwable cause)
+    {
+        super(cause);
+    }
+
+    public ChangeEventsExpiredException(String message, Throwable cause)
+    {
+        super(message, cause);
+    }
+}
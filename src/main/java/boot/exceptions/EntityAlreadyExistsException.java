@@ -0,0 +1,31 @@
+package boot.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**Класс исключения, возникающего при попытке добавить сущность с id,
+ * который уже занят другой сущностью.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class EntityAlreadyExistsException extends RuntimeException
+{
+    public EntityAlreadyExistsException()
+    {
+    }
+
+    public EntityAlreadyExistsException(String message)
+    {
+        super(message);
+    }
+
+    public EntityAlreadyExistsException(Throwable cause)
+    {
+        super(cause);
+    }
+
+    public EntityAlreadyExistsException(String message, Throwable cause)
+    {
+        super(message, cause);
+    }
+}
@@ -9,22 +9,72 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 @ResponseStatus(HttpStatus.NOT_FOUND)
 public class EntityNotFoundException extends RuntimeException
 {
+    /**Название вида сущности для сообщения, формируемого при обращении к нему*/
+    private final String entityName;
+
+    /**id несуществующей сущности*/
+    private final Long entityId;
+
     public EntityNotFoundException()
     {
+        this.entityName = null;
+        this.entityId = null;
     }
 
     public EntityNotFoundException(String message)
     {
         super(message);
+        this.entityName = null;
+        this.entityId = null;
     }
 
     public EntityNotFoundException(Throwable cause)
     {
         super(cause);
+        this.entityName = null;
+        this.entityId = null;
     }
 
     public EntityNotFoundException(String message, Throwable cause)
     {
         super(message, cause);
+        this.entityName = null;
+        this.entityId = null;
+    }
+
+    /*Исключение используется для ответа 404 и не требует стека вызовов,
+    * заполнение которого - самая затратная часть создания исключения,
+    * а сообщение формируется только при обращении к нему*/
+    private EntityNotFoundException(String entityName, Long entityId)
+    {
+        super(null, null, false, false);
+        this.entityName = entityName;
+        this.entityId = entityId;
+    }
+
+    /**Метод создаёт исключение об отсутствии пользователя.
+     @param userId id пользователя
+     @return исключение без стека вызовов*/
+    public static EntityNotFoundException ofUser(Long userId)
+    {
+        return new EntityNotFoundException("Users", userId);
+    }
+
+    /**Метод создаёт исключение об отсутствии записи в телефонной книжке.
+     @param phoneRecordId id записи
+     @return исключение без стека вызовов*/
+    public static EntityNotFoundException ofPhoneRecord(Long phoneRecordId)
+    {
+        return new EntityNotFoundException("Records", phoneRecordId);
+    }
+
+    @Override
+    public String getMessage()
+    {
+        if (entityName == null)
+        {
+            return super.getMessage();
+        }
+        return entityName + " id-" + entityId + " not found.";
     }
 }
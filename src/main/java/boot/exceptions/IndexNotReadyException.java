@@ -0,0 +1,31 @@
+package boot.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**Класс исключения, возникающего при запросе, который выполняется только по вторичному
+ * индексу, пока индекс строится. Запрос можно повторить после построения индекса.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class IndexNotReadyException extends RuntimeException
+{
+    public IndexNotReadyException()
+    {
+    }
+
+    public IndexNotReadyException(String message)
+    {
+        super(message);
+    }
+
+    public IndexNotReadyException(Throwable cause)
+    {
+        super(cause);
+    }
+
+    public IndexNotReadyException(String message, Throwable cause)
+    {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,30 @@
+package boot.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**Класс исключения, возникающего при недопустимом значении параметра запроса.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidRequestParameterException extends RuntimeException
+{
+    public InvalidRequestParameterException()
+    {
+    }
+
+    public InvalidRequestParameterException(String message)
+    {
+        super(message);
+    }
+
+    public InvalidRequestParameterException(Throwable cause)
+    {
+        super(cause);
+    }
+
+    public InvalidRequestParameterException(String message, Throwable cause)
+    {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,30 @@
+package boot.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**Класс исключения, возникающего при отказе в обработке запроса из-за перегрузки сервиса.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceOverloadedException extends RuntimeException
+{
+    public ServiceOverloadedException()
+    {
+    }
+
+    public ServiceOverloadedException(String message)
+    {
+        super(message);
+    }
+
+    public ServiceOverloadedException(Throwable cause)
+    {
+        super(cause);
+    }
+
+    public ServiceOverloadedException(String message, Throwable cause)
+    {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,31 @@
+package boot.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**Класс исключения, возникающего при попытке записи сверх ограничения хранилища:
+ * квоты записей в телефонной книжке пользователя или бюджета памяти хранилища.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@ResponseStatus(HttpStatus.INSUFFICIENT_STORAGE)
+public class StorageLimitExceededException extends RuntimeException
+{
+    public StorageLimitExceededException()
+    {
+    }
+
+    public StorageLimitExceededException(String message)
+    {
+        super(message);
+    }
+
+    public StorageLimitExceededException(Throwable cause)
+    {
+        super(cause);
+    }
+
+    public StorageLimitExceededException(String message, Throwable cause)
+    {
+        super(message, cause);
+    }
+}
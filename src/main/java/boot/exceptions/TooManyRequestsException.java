@@ -0,0 +1,30 @@
+package boot.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**Класс исключения, возникающего при превышении клиентом допустимой частоты запросов.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class TooManyRequestsException extends RuntimeException
+{
+    public TooManyRequestsException()
+    {
+    }
+
+    public TooManyRequestsException(String message)
+    {
+        super(message);
+    }
+
+    public TooManyRequestsException(Throwable cause)
+    {
+        super(cause);
+    }
+
+    public TooManyRequestsException(String message, Throwable cause)
+    {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,31 @@
+package boot.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**Класс исключения, возникающего при попытке изменить сущность, версия которой
+ * не совпадает с ожидаемой (сущность уже изменена другим клиентом).
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class VersionConflictException extends RuntimeException
+{
+    public VersionConflictException()
+    {
+    }
+
+    public VersionConflictException(String message)
+    {
+        super(message);
+    }
+
+    public VersionConflictException(Throwable cause)
+    {
+        super(cause);
+    }
+
+    public VersionConflictException(String message, Throwable cause)
+    {
+        super(message, cause);
+    }
+}
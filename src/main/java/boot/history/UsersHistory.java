@@ -0,0 +1,451 @@
+package boot.history;
+
+
+import boot.entities.PhoneBook;
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+import boot.exceptions.InvalidRequestParameterException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**Класс хранит историю изменений пользователей и их телефонных книжек в виде цепочек
+ * версий: для каждого пользователя и каждой записи в его телефонной книжке хранятся
+ * предыдущие состояния вместе со временем их появления. Это позволяет получить
+ * состояние пользователя на любой момент в пределах окна хранения истории.
+ * Текущие версии по-прежнему читаются из хранилища пользователей, история только
+ * дополняет его и не замедляет чтение текущих версий.
+ * Версии старше окна хранения удаляются в фоновом потоке, кроме последней из них,
+ * которая остаётся состоянием на начало окна.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@Component
+public class UsersHistory implements InitializingBean, DisposableBean
+{
+    /**Окно хранения истории по умолчанию - сутки*/
+    public static final long DEFAULT_RETENTION_MILLIS = 86_400_000;
+
+    /**Окно хранения истории в миллисекундах*/
+    private final long retentionMillis;
+
+    /**Цепочки версий пользователей по их id*/
+    private final Map<Long, UserChain> users = new ConcurrentHashMap<>();
+
+    /**Поток удаления устаревших версий, запускается только в приложении*/
+    private ScheduledExecutorService collector;
+
+    @Autowired
+    public UsersHistory(@Value("${users.history.retention-millis:86400000}") long retentionMillis)
+    {
+        this.retentionMillis = retentionMillis;
+    }
+
+    /**Метод запускает фоновое удаление устаревших версий с периодом в четверть окна хранения.*/
+    @Override
+    public void afterPropertiesSet()
+    {
+        long period = Math.max(1000, retentionMillis / 4);
+        collector = Executors.newSingleThreadScheduledExecutor(task ->
+        {
+            Thread thread = new Thread(task, "users-history-gc");
+            thread.setDaemon(true);
+            return thread;
+        });
+        collector.scheduleWithFixedDelay(this::collectGarbage, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy()
+    {
+        if (collector != null)
+        {
+            collector.shutdownNow();
+        }
+    }
+
+    /**Метод добавляет в историю нового пользователя вместе с его телефонной книжкой.
+     @param user добавленный пользователь*/
+    public void recordUserAdded(User user)
+    {
+        UserChain chain = lockChain(user.getUserId());
+        try
+        {
+            long timestamp = chain.nextTimestamp();
+            chain.head = new UserVersion(user.getVersion(), timestamp, user.getUserName(),
+                    user.getPhoneNumber(), false, chain.head);
+            recordPhoneBook(chain, user.getPhoneBook(), timestamp);
+        }
+        finally
+        {
+            unlockChain(chain);
+        }
+    }
+
+    /**Метод добавляет в историю новую версию отредактированного пользователя.
+     * Версия, запоздавшая относительно уже записанной более новой версии или
+     * удаления пользователя, не записывается, так как никогда не была последней.
+     @param user отредактированный пользователь*/
+    public void recordUserUpdated(User user)
+    {
+        UserChain chain = lockChain(user.getUserId());
+        try
+        {
+            UserVersion head = chain.head;
+            if (head != null && (head.deleted || user.getVersion() <= head.version))
+            {
+                return;
+            }
+            long timestamp = chain.nextTimestamp();
+            chain.head = new UserVersion(user.getVersion(), timestamp, user.getUserName(),
+                    user.getPhoneNumber(), false, head);
+            recordPhoneBook(chain, user.getPhoneBook(), timestamp);
+        }
+        finally
+        {
+            unlockChain(chain);
+        }
+    }
+
+    /**Метод отмечает в истории удаление пользователя и всех записей его телефонной книжки.
+     @param user удалённый пользователь*/
+    public void recordUserDeleted(User user)
+    {
+        UserChain chain = lockChain(user.getUserId());
+        try
+        {
+            long timestamp = chain.nextTimestamp();
+            long version = chain.head == null ? user.getVersion() : Math.max(user.getVersion(), chain.head.version);
+            chain.head = new UserVersion(version + 1, timestamp, null, null, true, chain.head);
+            recordPhoneBook(chain, null, timestamp);
+        }
+        finally
+        {
+            unlockChain(chain);
+        }
+    }
+
+    /**Метод добавляет в историю новую версию записи в телефонной книжке пользователя
+     * и следующую версию самого пользователя, так как изменение книжки увеличивает её.
+     * Вызывается, пока изменение телефонной книжки не видно другим потокам-писателям.
+     @param userId id пользователя, владельца телефонной книжки
+     @param phoneRecord добавленная или отредактированная запись*/
+    public void recordPhoneRecord(Long userId, PhoneRecord phoneRecord)
+    {
+        UserChain chain = lockChain(userId);
+        try
+        {
+            long timestamp = chain.nextTimestamp();
+            chain.records.put(phoneRecord.getPhoneRecordId(), new RecordVersion(timestamp,
+                    copyOf(phoneRecord), chain.records.get(phoneRecord.getPhoneRecordId())));
+            recordNextVersion(chain, timestamp);
+        }
+        finally
+        {
+            unlockChain(chain);
+        }
+    }
+
+    /**Метод отмечает в истории удаление записи из телефонной книжки пользователя
+     * и следующую версию самого пользователя.
+     @param userId id пользователя, владельца телефонной книжки
+     @param phoneRecordId id удалённой записи*/
+    public void recordPhoneRecordDeleted(Long userId, Long phoneRecordId)
+    {
+        UserChain chain = lockChain(userId);
+        try
+        {
+            long timestamp = chain.nextTimestamp();
+            chain.records.put(phoneRecordId,
+                    new RecordVersion(timestamp, null, chain.records.get(phoneRecordId)));
+            recordNextVersion(chain, timestamp);
+        }
+        finally
+        {
+            unlockChain(chain);
+        }
+    }
+
+    /**Метод возвращает состояние пользователя вместе с телефонной книжкой на указанный момент.
+     @param userId id пользователя
+     @param timestamp момент времени в миллисекундах
+     @return копия пользователя, или null если в этот момент пользователя не было
+     @throws InvalidRequestParameterException если момент времени старше окна хранения истории*/
+    public User getUserAsOf(Long userId, long timestamp)
+    {
+        UserChain chain = findChain(userId, timestamp);
+        UserVersion version = chain == null ? null : chain.head;
+        while (version != null && version.timestamp > timestamp)
+        {
+            version = version.previous;
+        }
+        if (version == null || version.deleted)
+        {
+            return null;
+        }
+        User user = new User();
+        user.setUserId(userId);
+        user.setUserName(version.userName);
+        user.setPhoneNumber(version.phoneNumber);
+        user.setVersion(version.version);
+        PhoneBook phoneBook = new PhoneBook();
+        phoneBook.setListPhoneRecords(phoneRecordsAsOf(chain, timestamp));
+        user.setPhoneBook(phoneBook);
+        return user;
+    }
+
+    /**Метод возвращает записи телефонной книжки пользователя на указанный момент
+     * в порядке их id.
+     @param userId id пользователя
+     @param timestamp момент времени в миллисекундах
+     @return список записей, или null если в этот момент пользователя не было
+     @throws InvalidRequestParameterException если момент времени старше окна хранения истории*/
+    public List<PhoneRecord> getUserPhoneRecordsAsOf(Long userId, long timestamp)
+    {
+        User user = getUserAsOf(userId, timestamp);
+        return user == null ? null : user.getPhoneBook().getListPhoneRecords();
+    }
+
+    /**Метод удаляет версии, устаревшие относительно окна хранения истории. Из версий
+     * старше окна остаётся только последняя, а пользователи и записи, удалённые
+     * до начала окна, удаляются из истории полностью.*/
+    public void collectGarbage()
+    {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        for (Map.Entry<Long, UserChain> entry : users.entrySet())
+        {
+            UserChain chain = entry.getValue();
+            chain.lock.lock();
+            try
+            {
+                for (Map.Entry<Long, RecordVersion> record : chain.records.entrySet())
+                {
+                    RecordVersion version = record.getValue();
+                    while (version != null && version.timestamp > cutoff)
+                    {
+                        version = version.previous;
+                    }
+                    if (version == null)
+                    {
+                        continue;
+                    }
+                    if (version == record.getValue() && version.record == null)
+                    {
+                        chain.records.remove(record.getKey(), version);
+                    }
+                    version.previous = null;
+                }
+                UserVersion version = chain.head;
+                while (version != null && version.timestamp > cutoff)
+                {
+                    version = version.previous;
+                }
+                if (version != null)
+                {
+                    version.previous = null;
+                    if (version == chain.head && version.deleted && chain.records.isEmpty())
+                    {
+                        chain.removed = true;
+                        users.remove(entry.getKey(), chain);
+                    }
+                }
+            }
+            finally
+            {
+                chain.lock.unlock();
+            }
+        }
+    }
+
+    /**Метод возвращает количество пользователей, история которых хранится.
+     @return количество пользователей*/
+    public int size()
+    {
+        return users.size();
+    }
+
+    private UserChain findChain(Long userId, long timestamp)
+    {
+        if (timestamp < System.currentTimeMillis() - retentionMillis)
+        {
+            throw new InvalidRequestParameterException("Timestamp " + timestamp
+                    + " is outside the history retention window of " + retentionMillis + " ms.");
+        }
+        return users.get(userId);
+    }
+
+    /**Метод возвращает цепочку версий пользователя, захватив её блокировку. Цепочка,
+     * которую поток удаления устаревших версий успел удалить, заменяется новой.*/
+    private UserChain lockChain(Long userId)
+    {
+        while (true)
+        {
+            UserChain chain = users.computeIfAbsent(userId, id -> new UserChain());
+            chain.lock.lock();
+            if (!chain.removed)
+            {
+                return chain;
+            }
+            unlockChain(chain);
+        }
+    }
+
+    private static void unlockChain(UserChain chain)
+    {
+        chain.lock.unlock();
+    }
+
+    /**Метод записывает версии записей, отличающиеся от последних записанных, и отмечает
+     * удалёнными записи, которых нет в телефонной книжке. Вызывается под блокировкой цепочки.
+     @param phoneBook телефонная книжка, или null если удалены все записи*/
+    /**Метод добавляет версию пользователя, следующую за последней, с теми же именем
+     * и номером телефона. Вызывается под блокировкой цепочки.*/
+    private static void recordNextVersion(UserChain chain, long timestamp)
+    {
+        UserVersion head = chain.head;
+        if (head != null && !head.deleted)
+        {
+            chain.head = new UserVersion(head.version + 1, timestamp, head.userName,
+                    head.phoneNumber, false, head);
+        }
+    }
+
+    private static void recordPhoneBook(UserChain chain, PhoneBook phoneBook, long timestamp)
+    {
+        Set<Long> present = new HashSet<>();
+        if (phoneBook != null)
+        {
+            for (PhoneRecord phoneRecord : phoneBook.getListPhoneRecords())
+            {
+                present.add(phoneRecord.getPhoneRecordId());
+                RecordVersion head = chain.records.get(phoneRecord.getPhoneRecordId());
+                if (head == null || !phoneRecord.equals(head.record))
+                {
+                    chain.records.put(phoneRecord.getPhoneRecordId(),
+                            new RecordVersion(timestamp, copyOf(phoneRecord), head));
+                }
+            }
+        }
+        for (Map.Entry<Long, RecordVersion> record : chain.records.entrySet())
+        {
+            if (record.getValue().record != null && !present.contains(record.getKey()))
+            {
+                record.setValue(new RecordVersion(timestamp, null, record.getValue()));
+            }
+        }
+    }
+
+    private static List<PhoneRecord> phoneRecordsAsOf(UserChain chain, long timestamp)
+    {
+        List<PhoneRecord> records = new ArrayList<>();
+        for (RecordVersion version : chain.records.values())
+        {
+            while (version != null && version.timestamp > timestamp)
+            {
+                version = version.previous;
+            }
+            if (version != null && version.record != null)
+            {
+                records.add(copyOf(version.record));
+            }
+        }
+        records.sort(Comparator.comparing(PhoneRecord::getPhoneRecordId));
+        return records;
+    }
+
+    /*Записи копируются, чтобы версии в истории не зависели от объектов, которые
+    * хранилище или клиенты могут изменить*/
+    private static PhoneRecord copyOf(PhoneRecord phoneRecord)
+    {
+        PhoneRecord copy = new PhoneRecord(phoneRecord.getName(), phoneRecord.getPhoneNumber());
+        copy.setPhoneRecordId(phoneRecord.getPhoneRecordId());
+        copy.setVersion(phoneRecord.getVersion());
+        return copy;
+    }
+
+    /**Цепочка версий пользователя и записей его телефонной книжки. Изменяется под её
+     * блокировкой, читается без блокировок.*/
+    private static final class UserChain
+    {
+        /*Блокировка берётся в lockChain и отпускается в unlockChain, поэтому вместо
+        монитора используется явная блокировка*/
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**Последняя версия пользователя*/
+        private volatile UserVersion head;
+
+        /**Последние версии записей телефонной книжки по их id*/
+        private final Map<Long, RecordVersion> records = new ConcurrentHashMap<>();
+
+        /**Время последней записанной версии*/
+        private long lastTimestamp;
+
+        /**Признак удаления цепочки из истории потоком удаления устаревших версий*/
+        private boolean removed;
+
+        /**Метод возвращает время новой версии, не меньшее времени предыдущей,
+         * даже если системные часы были переведены назад.*/
+        private long nextTimestamp()
+        {
+            lastTimestamp = Math.max(lastTimestamp, System.currentTimeMillis());
+            return lastTimestamp;
+        }
+    }
+
+    /**Версия пользователя: имя на момент времени, или отметка об удалении*/
+    private static final class UserVersion
+    {
+        private final long version;
+
+        private final long timestamp;
+
+        private final String userName;
+
+        private final String phoneNumber;
+
+        private final boolean deleted;
+
+        private volatile UserVersion previous;
+
+        private UserVersion(long version, long timestamp, String userName, String phoneNumber,
+                            boolean deleted, UserVersion previous)
+        {
+            this.version = version;
+            this.timestamp = timestamp;
+            this.userName = userName;
+            this.phoneNumber = phoneNumber;
+            this.deleted = deleted;
+            this.previous = previous;
+        }
+    }
+
+    /**Версия записи в телефонной книжке, или отметка об удалении записи, если record равен null*/
+    private static final class RecordVersion
+    {
+        private final long timestamp;
+
+        private final PhoneRecord record;
+
+        private volatile RecordVersion previous;
+
+        private RecordVersion(long timestamp, PhoneRecord record, RecordVersion previous)
+        {
+            this.timestamp = timestamp;
+            this.record = record;
+            this.previous = previous;
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package boot.indexes;
+
+
+import boot.dao.UsersDao;
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**Класс строит и поддерживает вторичные индексы по пользователям, не останавливая
+ * обработку запросов. Индекс строится в фоновом потоке: сначала в него заносятся
+ * все пользователи хранилища, затем - пользователи, изменённые за время заполнения,
+ * id которых собираются в журнал изменений. Когда журнал опустошён, индекс становится
+ * пригодным для запросов и дальше обновляется при каждом изменении пользователя.
+ * Пока индекс строится, запросы выполняются без него, а при перестроении
+ * продолжает использоваться прежний экземпляр индекса.
+ *
+ * Изменения пользователей заносятся в индекс повторным чтением пользователя из
+ * хранилища под блокировкой его id, поэтому последнее занесение всегда видит
+ * последнее состояние пользователя, в каком бы порядке ни выполнялись изменения.
+ * Изменение записи телефонной книжки заносится разницей без чтения книжки. Разница
+ * неприменима к экземпляру, который мог увидеть изменение при заполнении, поэтому
+ * вызывающий запоминает поколение индексов до изменения хранилища, и если за это
+ * время какой-либо экземпляр стал пригодным для запросов, пользователь перечитывается.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class IndexManager
+{
+    /**Количество блокировок, по которым распределяются id пользователей, степень двойки*/
+    private static final int LOCKS = 64;
+
+    /**Размер журнала изменений, который применяется при остановленном пополнении журнала*/
+    private static final int FINAL_CATCH_UP = 64;
+
+    private final UsersDao usersDao;
+
+    /**Зарегистрированные индексы по их названиям*/
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Object[] locks = new Object[LOCKS];
+
+    /**Поколение индексов: увеличивается до и после замены текущего экземпляра
+     * какого-либо индекса, поэтому нечётно, пока замена выполняется*/
+    private final AtomicLong generation = new AtomicLong();
+
+    /**Поток построения индексов; завершается, когда строить нечего*/
+    private final ExecutorService builder;
+
+    public IndexManager(UsersDao usersDao)
+    {
+        this.usersDao = usersDao;
+        for (int i = 0; i < LOCKS; i++)
+        {
+            locks[i] = new Object();
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), task ->
+        {
+            Thread thread = new Thread(task, "users-index-builder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        this.builder = executor;
+    }
+
+    /**Метод регистрирует индекс и запускает его построение в фоновом потоке.
+     @param name название индекса
+     @param factory создаёт пустой экземпляр индекса при каждом построении
+     @throws IllegalArgumentException если индекс с таким названием уже зарегистрирован*/
+    public void register(String name, Supplier<? extends UsersIndex> factory)
+    {
+        Entry entry = new Entry(name, factory);
+        if (entries.putIfAbsent(name, entry) != null)
+        {
+            throw new IllegalArgumentException("Index " + name + " is already registered.");
+        }
+        rebuild(entry);
+    }
+
+    /**Метод запускает перестроение индекса в фоновом потоке. До его завершения
+     * запросы используют прежний экземпляр индекса, если он был построен.
+     @param name название индекса
+     @return состояние индекса, или null если индекса с таким названием нет*/
+    public IndexStatus reindex(String name)
+    {
+        Entry entry = entries.get(name);
+        if (entry == null)
+        {
+            return null;
+        }
+        return rebuild(entry);
+    }
+
+    /**Метод возвращает индекс, если он пригоден для запросов.
+     @param name название индекса
+     @param type класс индекса
+     @return построенный индекс, или null если индекс ещё не построен*/
+    public <T extends UsersIndex> T getReady(String name, Class<T> type)
+    {
+        Entry entry = entries.get(name);
+        return entry == null ? null : type.cast(entry.active);
+    }
+
+    /**Метод возвращает состояния всех зарегистрированных индексов.
+     @return список состояний в порядке названий индексов*/
+    public List<IndexStatus> getStatuses()
+    {
+        List<IndexStatus> statuses = new ArrayList<>();
+        entries.values().stream().sorted((a, b) -> a.name.compareTo(b.name))
+                .forEach(entry -> statuses.add(entry.status()));
+        return statuses;
+    }
+
+    /**Метод ожидает, пока все индексы станут пригодными для запросов.
+     @param timeoutMillis наибольшее время ожидания в миллисекундах
+     @return true если все индексы построены, false если время истекло
+     или построение какого-либо индекса завершилось ошибкой*/
+    public boolean awaitReady(long timeoutMillis) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (Entry entry : entries.values())
+        {
+            synchronized (entry)
+            {
+                while (entry.state != IndexState.READY)
+                {
+                    if (entry.state == IndexState.FAILED)
+                    {
+                        return false;
+                    }
+                    long left = deadline - System.currentTimeMillis();
+                    if (left <= 0)
+                    {
+                        return false;
+                    }
+                    entry.wait(left);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**Метод заносит изменение пользователя во все индексы. Вызывается после
+     * сохранения изменения в хранилище.
+     @param userId id изменённого или удалённого пользователя*/
+    public void changed(Long userId)
+    {
+        for (Entry entry : entries.values())
+        {
+            /*Журнал проверяется до обращения к текущему экземпляру: если построение
+            завершится после проверки, текущим уже будет новый экземпляр*/
+            if (entry.building != null)
+            {
+                synchronized (entry)
+                {
+                    if (entry.building != null)
+                    {
+                        entry.delta.add(userId);
+                    }
+                }
+            }
+            UsersIndex active = entry.active;
+            if (active != null)
+            {
+                refresh(active, userId);
+            }
+        }
+    }
+
+    /**Метод возвращает поколение индексов, которое запоминается до изменения записи
+     * телефонной книжки в хранилище и передаётся в phoneRecordChanged.
+     @return текущее поколение*/
+    public long generation()
+    {
+        return generation.get();
+    }
+
+    /**Метод заносит изменение одной записи телефонной книжки во все индексы.
+     * Вызывается после сохранения изменения в хранилище под той же блокировкой
+     * пользователя, что и само изменение.
+     @param generation поколение индексов, полученное до изменения хранилища
+     @param userId id пользователя
+     @param removed прежнее состояние записи, или null если запись добавлена
+     @param added новое состояние записи, или null если запись удалена*/
+    public void phoneRecordChanged(long generation, Long userId, PhoneRecord removed, PhoneRecord added)
+    {
+        for (Entry entry : entries.values())
+        {
+            //Строящийся экземпляр получает пользователя целиком из журнала
+            if (entry.building != null)
+            {
+                synchronized (entry)
+                {
+                    if (entry.building != null)
+                    {
+                        entry.delta.add(userId);
+                    }
+                }
+            }
+            UsersIndex active = entry.active;
+            if (active == null)
+            {
+                continue;
+            }
+            /*Текущий экземпляр был пригоден для запросов и до изменения хранилища,
+            только если поколение не менялось и замена не выполнялась*/
+            if ((generation & 1) == 0 && this.generation.get() == generation)
+            {
+                synchronized (lockOf(userId))
+                {
+                    active.phoneRecordChanged(userId, removed, added);
+                }
+            }
+            else
+            {
+                refresh(active, userId);
+            }
+        }
+    }
+
+    private IndexStatus rebuild(Entry entry)
+    {
+        IndexStatus status;
+        synchronized (entry)
+        {
+            if (entry.building != null)
+            {
+                return entry.status();//Построение уже идёт
+            }
+            entry.building = entry.factory.get();
+            entry.delta.clear();
+            entry.state = IndexState.BUILDING;
+            entry.scanned = 0;
+            entry.total = 0;
+            entry.startedAt = System.currentTimeMillis();
+            entry.error = null;
+            //Снимок берётся до запуска построения, иначе быстрое построение
+            //успевает завершиться и вызывающий не видит его начала
+            status = entry.status();
+        }
+        builder.execute(() -> build(entry));
+        return status;
+    }
+
+    private void build(Entry entry)
+    {
+        UsersIndex building = entry.building;
+        try
+        {
+            //Хранилище читается после начала записи в журнал, поэтому изменения,
+            //сделанные во время чтения, попадут в индекс хотя бы одним из двух путей
+            List<User> users = usersDao.findAllUsers();
+            entry.total = users.size();
+            for (User user : users)
+            {
+                building.put(user);
+                entry.scanned++;
+            }
+            entry.state = IndexState.CATCHING_UP;
+            while (entry.delta.size() > FINAL_CATCH_UP)
+            {
+                drain(entry, building);
+            }
+            synchronized (entry)
+            {
+                drain(entry, building);
+                generation.incrementAndGet();
+                entry.active = building;
+                generation.incrementAndGet();
+                entry.building = null;
+                entry.state = IndexState.READY;
+                entry.readyAt = System.currentTimeMillis();
+                entry.notifyAll();
+            }
+        }
+        catch (RuntimeException e)
+        {
+            synchronized (entry)
+            {
+                entry.building = null;
+                entry.delta.clear();
+                entry.state = IndexState.FAILED;
+                entry.error = e.getMessage();
+                entry.notifyAll();
+            }
+        }
+    }
+
+    /**Метод заносит в индекс пользователей из журнала изменений. id удаляется из
+     * журнала до чтения пользователя, чтобы повторное изменение снова попало в журнал.*/
+    private void drain(Entry entry, UsersIndex index)
+    {
+        for (Iterator<Long> iterator = entry.delta.iterator(); iterator.hasNext(); )
+        {
+            Long userId = iterator.next();
+            iterator.remove();
+            refresh(index, userId);
+        }
+    }
+
+    private void refresh(UsersIndex index, Long userId)
+    {
+        synchronized (lockOf(userId))
+        {
+            User user = usersDao.findUser(userId);
+            if (user == null)
+            {
+                index.remove(userId);
+            }
+            else
+            {
+                index.put(user);
+            }
+        }
+    }
+
+    private Object lockOf(Long userId)
+    {
+        return locks[(userId.hashCode() ^ (userId.hashCode() >>> 16)) & (LOCKS - 1)];
+    }
+
+    private static final class Entry
+    {
+        final String name;
+
+        final Supplier<? extends UsersIndex> factory;
+
+        /**Экземпляр, пригодный для запросов, или null если индекс ещё не построен*/
+        volatile UsersIndex active;
+
+        /**Строящийся экземпляр, или null если построение не идёт*/
+        volatile UsersIndex building;
+
+        /**Журнал изменений: id пользователей, изменённых во время построения*/
+        final Set<Long> delta = ConcurrentHashMap.newKeySet();
+
+        volatile IndexState state;
+
+        volatile long scanned;
+
+        volatile long total;
+
+        volatile long startedAt;
+
+        volatile Long readyAt;
+
+        volatile String error;
+
+        Entry(String name, Supplier<? extends UsersIndex> factory)
+        {
+            this.name = name;
+            this.factory = factory;
+        }
+
+        IndexStatus status()
+        {
+            return new IndexStatus(name, state, scanned, total, delta.size(), startedAt, readyAt, error);
+        }
+    }
+}
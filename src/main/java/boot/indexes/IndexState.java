@@ -0,0 +1,16 @@
+package boot.indexes;
+
+/**Перечисление состояний вторичного индекса.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public enum IndexState
+{
+    /**Индекс заполняется пользователями из хранилища*/
+    BUILDING,
+    /**Индекс применяет изменения, сделанные во время заполнения*/
+    CATCHING_UP,
+    /**Индекс догнал хранилище и используется для запросов*/
+    READY,
+    /**Построение индекса завершилось ошибкой*/
+    FAILED
+}
@@ -0,0 +1,122 @@
+package boot.indexes;
+
+
+import java.util.Objects;
+
+/**Класс представляет состояние построения вторичного индекса для отчёта о нём.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class IndexStatus
+{
+    /**Название индекса*/
+    private final String name;
+
+    /**Состояние индекса*/
+    private final IndexState state;
+
+    /**Количество пользователей, уже занесённых в строящийся индекс*/
+    private final long scannedUsers;
+
+    /**Количество пользователей в хранилище на момент начала построения*/
+    private final long totalUsers;
+
+    /**Количество пользователей, изменённых во время построения и ещё не занесённых в индекс*/
+    private final long pendingChanges;
+
+    /**Время начала последнего построения в миллисекундах*/
+    private final long startedAt;
+
+    /**Время, когда индекс стал пригоден для запросов, или null если ещё не стал*/
+    private final Long readyAt;
+
+    /**Сообщение об ошибке построения, или null если ошибки не было*/
+    private final String error;
+
+    public IndexStatus(String name, IndexState state, long scannedUsers, long totalUsers,
+                       long pendingChanges, long startedAt, Long readyAt, String error)
+    {
+        this.name = name;
+        this.state = state;
+        this.scannedUsers = scannedUsers;
+        this.totalUsers = totalUsers;
+        this.pendingChanges = pendingChanges;
+        this.startedAt = startedAt;
+        this.readyAt = readyAt;
+        this.error = error;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public IndexState getState() {
+        return state;
+    }
+
+    public long getScannedUsers() {
+        return scannedUsers;
+    }
+
+    public long getTotalUsers() {
+        return totalUsers;
+    }
+
+    public long getPendingChanges() {
+        return pendingChanges;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public Long getReadyAt() {
+        return readyAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**Метод возвращает долю пользователей, уже занесённых в строящийся индекс.
+     @return число от 0 до 1*/
+    public double getProgress() {
+        if (state == IndexState.READY || state == IndexState.CATCHING_UP) {
+            return 1.0;
+        }
+        return totalUsers == 0 ? 0.0 : Math.min(1.0, (double) scannedUsers / totalUsers);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IndexStatus)) return false;
+        IndexStatus that = (IndexStatus) o;
+        return scannedUsers == that.scannedUsers &&
+                totalUsers == that.totalUsers &&
+                pendingChanges == that.pendingChanges &&
+                startedAt == that.startedAt &&
+                Objects.equals(name, that.name) &&
+                state == that.state &&
+                Objects.equals(readyAt, that.readyAt) &&
+                Objects.equals(error, that.error);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, state, scannedUsers, totalUsers, pendingChanges, startedAt, readyAt, error);
+    }
+
+    @Override
+    public String toString() {
+        return "IndexStatus{" +
+                "name='" + name + '\'' +
+                ", state=" + state +
+                ", scannedUsers=" + scannedUsers +
+                ", totalUsers=" + totalUsers +
+                ", pendingChanges=" + pendingChanges +
+                ", startedAt=" + startedAt +
+                ", readyAt=" + readyAt +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,145 @@
+package boot.indexes;
+
+
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**Класс представляет индекс пользователей по триграммам их имён (всем подстрокам
+ * из трёх символов) для поиска по части имени без просмотра всех пользователей.
+ * Имя, содержащее искомую строку, содержит и все её триграммы, поэтому пересечение
+ * множеств пользователей по триграммам искомой строки включает всех подходящих
+ * пользователей; лишние кандидаты отсеиваются проверкой самого имени.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class NameIndex implements UsersIndex
+{
+    /**Длина подстрок, по которым индексируются имена*/
+    static final int GRAM = 3;
+
+    /**id пользователей по триграммам их имён*/
+    private final Map<String, Set<Long>> usersByGram = new ConcurrentHashMap<>();
+
+    /**Проиндексированные имена пользователей по их id*/
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+
+    @Override
+    public void put(User user)
+    {
+        String userName = user.getUserName();
+        String previous = userName == null ? names.remove(user.getUserId())
+                : names.put(user.getUserId(), userName);
+        if (userName != null && userName.equals(previous))
+        {
+            return;
+        }
+        unindex(user.getUserId(), previous);
+        if (userName != null)
+        {
+            for (String gram : grams(userName))
+            {
+                //Добавление и удаление выполняются атомарно для триграммы, чтобы id
+                //не попал в множество, которое удаляется как опустевшее
+                usersByGram.compute(gram, (key, users) ->
+                {
+                    Set<Long> updated = users == null ? ConcurrentHashMap.newKeySet() : users;
+                    updated.add(user.getUserId());
+                    return updated;
+                });
+            }
+        }
+    }
+
+    @Override
+    public void remove(Long userId)
+    {
+        unindex(userId, names.remove(userId));
+    }
+
+    @Override
+    public void phoneRecordChanged(Long userId, PhoneRecord removed, PhoneRecord added)
+    {
+        //Записи телефонной книжки не влияют на индекс имён
+    }
+
+    /**Метод возвращает id пользователей, имена которых могут содержать указанную строку.
+     @param partName часть имени
+     @return id пользователей по возрастанию, среди которых есть все пользователи
+     с подходящим именем, или null если строка короче триграммы и индекс неприменим*/
+    public NavigableSet<Long> findCandidates(String partName)
+    {
+        if (partName == null || partName.length() < GRAM)
+        {
+            return null;
+        }
+        //Пересечение начинается с самого короткого множества
+        Set<String> grams = grams(partName);
+        Set<Long> smallest = null;
+        for (String gram : grams)
+        {
+            Set<Long> users = usersByGram.get(gram);
+            if (users == null)
+            {
+                return new TreeSet<>();
+            }
+            if (smallest == null || users.size() < smallest.size())
+            {
+                smallest = users;
+            }
+        }
+        NavigableSet<Long> candidates = new TreeSet<>();
+        for (Long userId : smallest)
+        {
+            if (containsAll(grams, userId))
+            {
+                candidates.add(userId);
+            }
+        }
+        return candidates;
+    }
+
+    private boolean containsAll(Set<String> grams, Long userId)
+    {
+        for (String gram : grams)
+        {
+            Set<Long> users = usersByGram.get(gram);
+            if (users == null || !users.contains(userId))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void unindex(Long userId, String userName)
+    {
+        if (userName == null)
+        {
+            return;
+        }
+        for (String gram : grams(userName))
+        {
+            usersByGram.computeIfPresent(gram, (key, users) ->
+            {
+                users.remove(userId);
+                return users.isEmpty() ? null : users;
+            });
+        }
+    }
+
+    private static Set<String> grams(String value)
+    {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++)
+        {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
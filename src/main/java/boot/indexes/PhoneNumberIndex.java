@@ -0,0 +1,146 @@
+package boot.indexes;
+
+
+import boot.entities.PhoneNumbers;
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**Класс представляет индекс пользователей по номерам телефонов в их телефонных
+ * книжках: для номера хранятся id пользователей, у которых есть хотя бы одна
+ * запись с этим номером. Номера хранятся в каноническом виде, поэтому номера,
+ * записанные по-разному, считаются одним номером.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class PhoneNumberIndex implements UsersIndex
+{
+    /**id пользователей по каноническому виду номеров телефонов*/
+    private final Map<String, Set<Long>> usersByNumber = new ConcurrentHashMap<>();
+
+    /**Количество записей с каждым проиндексированным номером по id пользователей*/
+    private final Map<Long, Map<String, Integer>> numbers = new ConcurrentHashMap<>();
+
+    @Override
+    public void put(User user)
+    {
+        Map<String, Integer> current = new HashMap<>();
+        if (user.getPhoneBook() != null)
+        {
+            for (PhoneRecord phoneRecord : user.getPhoneBook().getListPhoneRecords())
+            {
+                if (phoneRecord.getPhoneNumber() != null)
+                {
+                    current.merge(phoneRecord.getPhoneMatchKey(), 1, Integer::sum);
+                }
+            }
+        }
+        Map<String, Integer> previous = current.isEmpty() ? numbers.remove(user.getUserId())
+                : numbers.put(user.getUserId(), current);
+        if (previous == null)
+        {
+            previous = Collections.emptyMap();
+        }
+        for (String phoneNumber : previous.keySet())
+        {
+            if (!current.containsKey(phoneNumber))
+            {
+                unindex(user.getUserId(), phoneNumber);
+            }
+        }
+        for (String phoneNumber : current.keySet())
+        {
+            if (!previous.containsKey(phoneNumber))
+            {
+                index(user.getUserId(), phoneNumber);
+            }
+        }
+    }
+
+    @Override
+    public void remove(Long userId)
+    {
+        Map<String, Integer> previous = numbers.remove(userId);
+        if (previous != null)
+        {
+            for (String phoneNumber : previous.keySet())
+            {
+                unindex(userId, phoneNumber);
+            }
+        }
+    }
+
+    @Override
+    public void phoneRecordChanged(Long userId, PhoneRecord removed, PhoneRecord added)
+    {
+        String removedNumber = removed == null || removed.getPhoneNumber() == null ? null : removed.getPhoneMatchKey();
+        String addedNumber = added == null || added.getPhoneNumber() == null ? null : added.getPhoneMatchKey();
+        if (Objects.equals(removedNumber, addedNumber))
+        {
+            return;//Номер записи не изменился
+        }
+        if (addedNumber != null
+                && numbers.computeIfAbsent(userId, id -> new HashMap<>()).merge(addedNumber, 1, Integer::sum) == 1)
+        {
+            index(userId, addedNumber);
+        }
+        Map<String, Integer> userNumbers = removedNumber == null ? null : numbers.get(userId);
+        if (userNumbers != null && userNumbers.containsKey(removedNumber)
+                && userNumbers.merge(removedNumber, -1, Integer::sum) == 0)
+        {
+            userNumbers.remove(removedNumber);
+            if (userNumbers.isEmpty())
+            {
+                numbers.remove(userId);
+            }
+            unindex(userId, removedNumber);
+        }
+    }
+
+    /**Метод возвращает id пользователей, в телефонных книжках которых есть указанный номер.
+     @param phoneNumber номер телефона
+     @return id пользователей по возрастанию, пустое множество если таких нет*/
+    public NavigableSet<Long> findUsers(String phoneNumber)
+    {
+        Set<Long> users = phoneNumber == null ? null : usersByNumber.get(PhoneNumbers.matchKey(phoneNumber));
+        return users == null ? new TreeSet<>() : new TreeSet<>(users);
+    }
+
+    /**Метод проверяет, есть ли указанный номер в телефонной книжке пользователя.
+     @param userId id пользователя
+     @param phoneNumber номер телефона
+     @return true если есть хотя бы одна запись с этим номером*/
+    public boolean contains(Long userId, String phoneNumber)
+    {
+        Set<Long> users = phoneNumber == null ? null : usersByNumber.get(PhoneNumbers.matchKey(phoneNumber));
+        return users != null && users.contains(userId);
+    }
+
+    private void index(Long userId, String phoneNumber)
+    {
+        //Добавление и удаление выполняются атомарно для номера, чтобы id
+        //не попал в множество, которое удаляется как опустевшее
+        usersByNumber.compute(phoneNumber, (key, users) ->
+        {
+            Set<Long> updated = users == null ? ConcurrentHashMap.newKeySet() : users;
+            updated.add(userId);
+            return updated;
+        });
+    }
+
+    private void unindex(Long userId, String phoneNumber)
+    {
+        usersByNumber.computeIfPresent(phoneNumber, (key, users) ->
+        {
+            users.remove(userId);
+            return users.isEmpty() ? null : users;
+        });
+    }
+}
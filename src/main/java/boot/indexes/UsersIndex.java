@@ -0,0 +1,32 @@
+package boot.indexes;
+
+
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+
+/**Интерфейс вторичного индекса по пользователям и их телефонным книжкам.
+ * При добавлении, изменении и удалении пользователя в индекс передаётся его текущее
+ * состояние из хранилища, поэтому повторное применение такого изменения безопасно.
+ * Изменение одной записи телефонной книжки передаётся разницей - прежним и новым
+ * состоянием записи, чтобы обновление индекса не зависело от размера книжки;
+ * такая разница применяется к индексу ровно один раз.
+ * Методы вызываются для одного пользователя из одного потока за раз,
+ * для разных пользователей - из разных потоков одновременно.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public interface UsersIndex
+{
+    /**Метод заменяет в индексе всё, что относится к пользователю, его текущим состоянием.
+     @param user пользователь вместе с телефонной книжкой*/
+    void put(User user);
+
+    /**Метод удаляет из индекса всё, что относится к пользователю.
+     @param userId id пользователя*/
+    void remove(Long userId);
+
+    /**Метод заносит в индекс изменение одной записи телефонной книжки пользователя.
+     @param userId id пользователя, уже занесённого в индекс
+     @param removed прежнее состояние записи, или null если запись добавлена
+     @param added новое состояние записи, или null если запись удалена*/
+    void phoneRecordChanged(Long userId, PhoneRecord removed, PhoneRecord added);
+}
@@ -0,0 +1,158 @@
+package boot.limits;
+
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**Класс представляет адаптивный ограничитель количества одновременно обрабатываемых
+ * запросов. Допустимое количество увеличивается на единицу, пока время обработки
+ * близко к базовому, и уменьшается в несколько раз, когда время обработки заметно
+ * растёт (алгоритм AIMD).
+ *
+ * Время обработки оценивается окнами: окно длится столько завершённых запросов,
+ * сколько их допускается одновременно (не меньше MIN_WINDOW_SAMPLES), то есть примерно
+ * одно время обработки при полной нагрузке. Предел уменьшается не чаще раза за окно
+ * и только если даже самый быстрый запрос окна превысил базовое время, поэтому
+ * одиночные долгие запросы его не снижают. Базовое время - наименьшее из наименьших
+ * времён последних BASELINE_WINDOWS окон, поэтому оно растёт вместе с объёмом данных,
+ * а короткие запросы прогрева перестают влиять на него через BASELINE_WINDOWS окон.
+ * Запросы учитываются без блокировок, блокировка берётся только при закрытии окна.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class AdaptiveConcurrencyLimiter
+{
+    /**Во сколько раз время обработки должно превысить базовое,
+     * чтобы считаться признаком перегрузки*/
+    private static final double OVERLOAD_LATENCY_RATIO = 2.0;
+
+    /**Коэффициент уменьшения допустимого количества запросов при перегрузке*/
+    private static final double DECREASE_FACTOR = 0.9;
+
+    /**Наименьшее количество завершённых запросов в окне*/
+    static final int MIN_WINDOW_SAMPLES = 10;
+
+    /**Количество последних окон, по которым определяется базовое время обработки*/
+    static final int BASELINE_WINDOWS = 16;
+
+    /**Наибольшее допустимое количество одновременно обрабатываемых запросов*/
+    private final int maxLimit;
+
+    /**Текущее допустимое количество одновременно обрабатываемых запросов*/
+    private final AtomicInteger limit;
+
+    /**Количество запросов в обработке*/
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**Количество запросов, завершённых в текущем окне*/
+    private final AtomicInteger windowSamples = new AtomicInteger();
+
+    /**Количество завершённых запросов, после которого закрывается текущее окно*/
+    private volatile int windowSize;
+
+    /**Наименьшее время обработки в текущем окне, в наносекундах*/
+    private final AtomicLong windowMinNanos = new AtomicLong(Long.MAX_VALUE);
+
+    /**Наибольшее количество запросов в обработке в текущем окне*/
+    private final AtomicInteger windowMaxInFlight = new AtomicInteger();
+
+    /**Наименьшие времена обработки последних окон, изменяются под блокировкой объекта*/
+    private final long[] windowMinima = new long[BASELINE_WINDOWS];
+
+    private int nextWindow;
+
+    /**Базовое время обработки запроса в наносекундах, Long.MAX_VALUE пока оно не известно*/
+    private volatile long baselineNanos = Long.MAX_VALUE;
+
+    /**@param maxLimit наибольшее допустимое количество одновременно обрабатываемых запросов*/
+    public AdaptiveConcurrencyLimiter(int maxLimit)
+    {
+        if (maxLimit < 1)
+        {
+            throw new IllegalArgumentException("Concurrency limit must be positive.");
+        }
+        this.maxLimit = maxLimit;
+        this.limit = new AtomicInteger(maxLimit);
+        this.windowSize = Math.max(MIN_WINDOW_SAMPLES, maxLimit);
+        Arrays.fill(windowMinima, Long.MAX_VALUE);
+    }
+
+    /**Метод пытается занять место для обработки запроса.
+     @return true если запрос можно обрабатывать, false если сервис перегружен*/
+    public boolean tryAcquire()
+    {
+        while (true)
+        {
+            int current = inFlight.get();
+            if (current >= limit.get())
+            {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1))
+            {
+                return true;
+            }
+        }
+    }
+
+    /**Метод освобождает место, занятое запросом, и корректирует допустимое
+     * количество запросов по времени его обработки.
+     @param latencyNanos время обработки запроса в наносекундах*/
+    public void release(long latencyNanos)
+    {
+        int wasInFlight = inFlight.getAndDecrement();
+        windowMinNanos.accumulateAndGet(latencyNanos, Math::min);
+        windowMaxInFlight.accumulateAndGet(wasInFlight, Math::max);
+
+        //Увеличиваем допустимое количество, только если оно действительно было исчерпано
+        if (wasInFlight >= limit.get() && latencyNanos <= baselineNanos * OVERLOAD_LATENCY_RATIO)
+        {
+            limit.updateAndGet(l -> Math.min(maxLimit, l + 1));
+        }
+
+        int samples = windowSamples.incrementAndGet();
+        if (samples >= windowSize && windowSamples.compareAndSet(samples, 0))
+        {
+            closeWindow();
+        }
+    }
+
+    /**Метод возвращает текущее допустимое количество одновременно обрабатываемых запросов.
+     @return текущий предел*/
+    public int getLimit()
+    {
+        return limit.get();
+    }
+
+    /**Метод возвращает количество запросов в обработке.
+     @return количество запросов*/
+    public int getInFlight()
+    {
+        return inFlight.get();
+    }
+
+    /**Метод завершает окно: при перегрузке однократно уменьшает предел,
+     * затем добавляет наименьшее время окна к базовому.*/
+    private synchronized void closeWindow()
+    {
+        long windowMin = windowMinNanos.getAndSet(Long.MAX_VALUE);
+        int maxInFlight = windowMaxInFlight.getAndSet(0);
+
+        /*Одиночный долгий запрос при малой нагрузке не считается признаком перегрузки,
+        предел уменьшается, только если сервис был загружен хотя бы наполовину*/
+        if (windowMin > baselineNanos * OVERLOAD_LATENCY_RATIO && maxInFlight * 2 >= limit.get())
+        {
+            limit.updateAndGet(l -> Math.max(1, (int) (l * DECREASE_FACTOR)));
+        }
+
+        windowMinima[nextWindow] = windowMin;
+        nextWindow = (nextWindow + 1) % BASELINE_WINDOWS;
+        long baseline = Long.MAX_VALUE;
+        for (long minimum : windowMinima)
+        {
+            baseline = Math.min(baseline, minimum);
+        }
+        baselineNanos = baseline;
+        windowSize = Math.max(MIN_WINDOW_SAMPLES, limit.get());
+    }
+}
@@ -0,0 +1,175 @@
+package boot.limits;
+
+
+import boot.exceptions.ServiceOverloadedException;
+import boot.tenants.TenantContext;
+import boot.tracing.RequestTrace;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**Класс выполняет затратные запросы (просмотр всех пользователей, поиск по имени)
+ * в отдельном ограниченном пуле потоков, чтобы они не занимали потоки Tomcat
+ * и не задерживали дешёвые запросы по id. Обработчик запроса возвращает
+ * DeferredResult, поток Tomcat освобождается сразу, а ответ отправляется из потока
+ * пула. Если пул и его очередь заняты, запрос сразу отклоняется с Http-статусом 503;
+ * запрос, не дождавшийся выполнения за отведённое время, тоже получает 503
+ * и снимается с выполнения, если ещё не начат.
+ *
+ * Пул общий для всех арендаторов, поэтому количество запросов одного арендатора
+ * в очереди и в работе ограничено (по умолчанию половиной потоков пула): запросы
+ * сверх него сразу получают 503, и занятый просмотрами арендатор не занимает
+ * весь пул и его очередь. Ограничение действует и для арендатора по умолчанию.
+ *
+ * Запрос выполняется с трассировкой Http-запроса, который его поставил, поэтому
+ * время вызовов сервиса из пула учитывается в ней.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@Component
+public class QueryExecutor implements DisposableBean
+{
+    private final ThreadPoolExecutor executor;
+
+    /**Время, за которое запрос должен быть выполнен, в миллисекундах*/
+    private final long timeoutMillis;
+
+    /**Наибольшее количество запросов одного арендатора в очереди и в работе*/
+    private final int maxQueriesPerTenant;
+
+    /**Количество запросов в очереди и в работе по арендаторам, у которых они есть*/
+    private final Map<String, Integer> queriesByTenant = new ConcurrentHashMap<>();
+
+    /**Конструктор создаёт пул без ограничения количества запросов одного арендатора.*/
+    public QueryExecutor(int threads, int queueCapacity, long timeoutMillis)
+    {
+        this(threads, queueCapacity, timeoutMillis, Integer.MAX_VALUE);
+    }
+
+    /**@param maxQueriesPerTenant наибольшее количество запросов одного арендатора
+     в очереди и в работе, 0 - половина потоков пула*/
+    @Autowired
+    public QueryExecutor(@Value("${app.async.threads:0}") int threads,
+                         @Value("${app.async.queue-capacity:256}") int queueCapacity,
+                         @Value("${app.async.timeout-millis:10000}") long timeoutMillis,
+                         @Value("${app.async.max-queries-per-tenant:0}") int maxQueriesPerTenant)
+    {
+        //Затратные запросы загружают процессор, поэтому потоков по умолчанию столько же, сколько ядер
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task ->
+        {
+            Thread thread = new Thread(task, "users-query-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.timeoutMillis = timeoutMillis;
+        this.maxQueriesPerTenant = maxQueriesPerTenant > 0 ? maxQueriesPerTenant : Math.max(1, poolSize / 2);
+    }
+
+    /**Метод ставит запрос в очередь пула и возвращает результат, который будет
+     * заполнен по его выполнении.
+     @param query запрос
+     @return отложенный результат запроса
+     @throws ServiceOverloadedException если пул и его очередь заняты или у арендатора
+     запроса наибольшее количество запросов в пуле*/
+    public <T> DeferredResult<T> submit(Supplier<T> query)
+    {
+        String tenant = TenantContext.current();
+        if (!acquire(tenant))
+        {
+            throw new ServiceOverloadedException("Too many queued queries of tenant " + tenant + ".");
+        }
+        DeferredResult<T> result = new DeferredResult<>(timeoutMillis);
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Supplier<T> traced = RequestTrace.propagate(query);
+        try
+        {
+            executor.execute(() ->
+            {
+                try
+                {
+                    if (future.isDone())
+                    {
+                        return;//Время ожидания истекло, пока запрос стоял в очереди
+                    }
+                    future.complete(traced.get());
+                }
+                catch (RuntimeException | Error e)
+                {
+                    future.completeExceptionally(e);
+                }
+                finally
+                {
+                    release(tenant);
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            release(tenant);
+            throw new ServiceOverloadedException("Too many queued queries.");
+        }
+        future.whenComplete((value, error) ->
+        {
+            if (error == null)
+            {
+                result.setResult(value);
+            }
+            else if (!future.isCancelled())//Об отмене по времени ответ уже отправлен
+            {
+                result.setErrorResult(error);
+            }
+        });
+        result.onTimeout(() ->
+        {
+            result.setErrorResult(new ServiceOverloadedException("Query timed out after "
+                    + timeoutMillis + " ms."));
+            future.cancel(false);
+        });
+        return result;
+    }
+
+    /**Метод занимает место для запроса арендатора.
+     @return false если у арендатора уже наибольшее количество запросов*/
+    private boolean acquire(String tenant)
+    {
+        boolean[] acquired = new boolean[1];
+        queriesByTenant.compute(tenant, (key, queries) ->
+        {
+            int current = queries == null ? 0 : queries;
+            if (current >= maxQueriesPerTenant)
+            {
+                return queries;
+            }
+            acquired[0] = true;
+            return current + 1;
+        });
+        return acquired[0];
+    }
+
+    /**Метод освобождает место запроса арендатора; арендаторы без запросов не хранятся.*/
+    private void release(String tenant)
+    {
+        queriesByTenant.computeIfPresent(tenant, (key, queries) -> queries == 1 ? null : queries - 1);
+    }
+
+    @Override
+    public void destroy()
+    {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,29 @@
+package boot.limits;
+
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**Аннотация задаёт ограничения нагрузки для метода-обработчика Http-запросов.
+ * Значения могут содержать заполнители свойств приложения, например
+ * "${users.rate-limit.get-all-users.permits-per-second:10}", что позволяет
+ * настраивать ограничения для каждого обработчика без изменения кода.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimit
+{
+    /**Допустимое количество запросов в секунду от одного клиента,
+     * пустое значение отключает ограничение частоты*/
+    String permitsPerSecond() default "";
+
+    /**Количество запросов, которое клиент может выполнить подряд сверх средней частоты*/
+    String burst() default "1";
+
+    /**Максимальное количество одновременно обрабатываемых запросов,
+     * пустое значение отключает адаптивное ограничение параллельности*/
+    String maxConcurrency() default "";
+}
@@ -0,0 +1,191 @@
+package boot.limits;
+
+
+import boot.exceptions.ServiceOverloadedException;
+import boot.exceptions.TooManyRequestsException;
+import boot.tenants.TenantInterceptor;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**Класс представляет перехватчик Http-запросов, применяющий ограничения нагрузки,
+ * заданные аннотацией RateLimit на методах-обработчиках: ограничение частоты запросов
+ * для каждого клиента (Http-статус 429) и адаптивное ограничение количества
+ * одновременно обрабатываемых запросов (Http-статус 503). Запросы служебных
+ * арендаторов (например, прогрева) не ограничиваются и не учитываются.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class RateLimitInterceptor implements AsyncHandlerInterceptor
+{
+    /**Имя атрибута запроса с ограничителем параллельности, в котором занято место*/
+    private static final String LIMITER_ATTRIBUTE = RateLimitInterceptor.class.getName() + ".LIMITER";
+
+    /**Имя атрибута запроса со временем начала обработки*/
+    private static final String START_ATTRIBUTE = RateLimitInterceptor.class.getName() + ".START";
+
+    /**Признак обработчика без ограничений*/
+    private static final EndpointLimits NO_LIMITS = new EndpointLimits(0, 1, null);
+
+    /**Через сколько секунд клиенту предлагается повторить отклонённый запрос*/
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final Environment environment;
+
+    /**Количество клиентов, после которого из памяти удаляются давно неактивные*/
+    private final int maxClients;
+
+    /**Ограничения для каждого метода-обработчика*/
+    private final ConcurrentMap<Method, EndpointLimits> limits = new ConcurrentHashMap<>();
+
+    /**@param environment окружение, из которого берутся значения свойств в аннотациях RateLimit*/
+    public RateLimitInterceptor(Environment environment)
+    {
+        this.environment = environment;
+        this.maxClients = environment.getProperty("users.rate-limit.max-clients", Integer.class, 10000);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+    {
+        /*При асинхронной обработке запрос повторно проходит через перехватчик,
+        но ограничения к нему уже применены при первой диспетчеризации*/
+        if (!(handler instanceof HandlerMethod) || request.getDispatcherType() == DispatcherType.ASYNC
+                || request.getAttribute(TenantInterceptor.INTERNAL_TENANT_ATTRIBUTE) != null)
+        {
+            return true;
+        }
+        EndpointLimits endpoint = limitsFor((HandlerMethod) handler);
+        if (endpoint == NO_LIMITS)
+        {
+            return true;
+        }
+
+        long now = System.nanoTime();
+        if (endpoint.permitsPerSecond > 0
+                && !endpoint.bucketFor(request.getRemoteAddr(), now, maxClients).tryAcquire(now))
+        {
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            throw new TooManyRequestsException("Rate limit exceeded for " + request.getRequestURI());
+        }
+        if (endpoint.concurrency != null)
+        {
+            if (!endpoint.concurrency.tryAcquire())
+            {
+                response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+                throw new ServiceOverloadedException("Too many concurrent requests to "
+                        + request.getRequestURI());
+            }
+            request.setAttribute(LIMITER_ATTRIBUTE, endpoint.concurrency);
+            request.setAttribute(START_ATTRIBUTE, now);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex)
+    {
+        Object limiter = request.getAttribute(LIMITER_ATTRIBUTE);
+        if (limiter != null)
+        {
+            request.removeAttribute(LIMITER_ATTRIBUTE);
+            long start = (Long) request.getAttribute(START_ATTRIBUTE);
+            ((AdaptiveConcurrencyLimiter) limiter).release(System.nanoTime() - start);
+        }
+    }
+
+    /**Метод возвращает ограничения для метода-обработчика, создавая их при первом обращении.*/
+    private EndpointLimits limitsFor(HandlerMethod handlerMethod)
+    {
+        EndpointLimits endpoint = limits.get(handlerMethod.getMethod());
+        if (endpoint == null)
+        {
+            endpoint = limits.computeIfAbsent(handlerMethod.getMethod(),
+                    m -> createLimits(handlerMethod.getMethodAnnotation(RateLimit.class)));
+        }
+        return endpoint;
+    }
+
+    /**Метод создаёт ограничения по аннотации, подставляя значения свойств приложения.*/
+    private EndpointLimits createLimits(RateLimit rateLimit)
+    {
+        if (rateLimit == null)
+        {
+            return NO_LIMITS;
+        }
+        String permitsPerSecond = environment.resolvePlaceholders(rateLimit.permitsPerSecond()).trim();
+        String burst = environment.resolvePlaceholders(rateLimit.burst()).trim();
+        String maxConcurrency = environment.resolvePlaceholders(rateLimit.maxConcurrency()).trim();
+
+        return new EndpointLimits(
+                permitsPerSecond.isEmpty() ? 0 : Double.parseDouble(permitsPerSecond),
+                burst.isEmpty() ? 1 : Integer.parseInt(burst),
+                maxConcurrency.isEmpty() ? null
+                        : new AdaptiveConcurrencyLimiter(Integer.parseInt(maxConcurrency)));
+    }
+
+    /**Класс представляет ограничения одного метода-обработчика.*/
+    private static class EndpointLimits
+    {
+        private final double permitsPerSecond;
+
+        private final int burst;
+
+        /**Ограничители частоты запросов для каждого клиента*/
+        private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+        /**Ограничитель параллельности, или null если он отключён*/
+        private final AdaptiveConcurrencyLimiter concurrency;
+
+        EndpointLimits(double permitsPerSecond, int burst, AdaptiveConcurrencyLimiter concurrency)
+        {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+            this.concurrency = concurrency;
+        }
+
+        TokenBucket bucketFor(String client, long now, int maxClients)
+        {
+            TokenBucket bucket = buckets.get(client);
+            if (bucket == null)
+            {
+                if (buckets.size() >= maxClients)
+                {
+                    evict(now, maxClients);
+                }
+                bucket = buckets.computeIfAbsent(client, c -> new TokenBucket(permitsPerSecond, burst, now));
+            }
+            return bucket;
+        }
+
+        /**Метод освобождает место для новых клиентов. Корзины неактивных клиентов не
+         * отличаются от новых, поэтому удаляются без потери состояния; если их меньше
+         * четверти, удаляются и корзины активных клиентов. Так просмотр всех корзин
+         * выполняется не чаще, чем раз на четверть maxClients новых клиентов.*/
+        private synchronized void evict(long now, int maxClients)
+        {
+            //Пока ожидали блокировку, место мог освободить другой поток
+            if (buckets.size() < maxClients)
+            {
+                return;
+            }
+            buckets.values().removeIf(b -> b.isIdle(now));
+            int target = maxClients - Math.max(1, maxClients / 4);
+            Iterator<TokenBucket> iterator = buckets.values().iterator();
+            while (buckets.size() > target && iterator.hasNext())
+            {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+}
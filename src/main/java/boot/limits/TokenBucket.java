@@ -0,0 +1,65 @@
+package boot.limits;
+
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**Класс представляет ограничитель частоты запросов по алгоритму маркерной корзины.
+ * Состояние корзины хранится в одном атомарном значении - теоретическом времени
+ * прибытия следующего запроса (алгоритм GCRA), поэтому проверка выполняется
+ * без блокировок и без выделения памяти.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class TokenBucket
+{
+    /**Интервал между запросами при средней допустимой частоте, в наносекундах*/
+    private final long emissionIntervalNanos;
+
+    /**Допустимое опережение теоретического времени прибытия, в наносекундах*/
+    private final long toleranceNanos;
+
+    /**Теоретическое время прибытия следующего запроса, в наносекундах*/
+    private final AtomicLong theoreticalArrival;
+
+    /**@param permitsPerSecond средняя допустимая частота запросов
+     * @param burst количество запросов, которое можно выполнить подряд
+     * @param nowNanos текущее время в наносекундах*/
+    public TokenBucket(double permitsPerSecond, int burst, long nowNanos)
+    {
+        if (permitsPerSecond <= 0 || burst < 1)
+        {
+            throw new IllegalArgumentException("Rate and burst must be positive.");
+        }
+        this.emissionIntervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.toleranceNanos = emissionIntervalNanos * (burst - 1);
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**Метод пытается получить разрешение на выполнение запроса.
+     @param nowNanos текущее время в наносекундах
+     @return true если запрос разрешён, false если частота превышена*/
+    public boolean tryAcquire(long nowNanos)
+    {
+        while (true)
+        {
+            long arrival = theoreticalArrival.get();
+            long start = arrival - nowNanos > 0 ? arrival : nowNanos;
+            if (start - nowNanos > toleranceNanos)
+            {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, start + emissionIntervalNanos))
+            {
+                return true;
+            }
+        }
+    }
+
+    /**Метод проверяет, что корзина полностью восполнилась и её состояние
+     * не отличается от состояния новой корзины.
+     @param nowNanos текущее время в наносекундах
+     @return true если клиент давно не выполнял запросов*/
+    public boolean isIdle(long nowNanos)
+    {
+        return theoreticalArrival.get() - nowNanos <= 0;
+    }
+}
@@ -0,0 +1,86 @@
+package boot.server;
+
+
+import org.apache.catalina.connector.Connector;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.coyote.ProtocolHandler;
+import org.apache.coyote.http11.AbstractHttp11Protocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.function.IntConsumer;
+
+/**Класс настраивает коннектор встроенного Tomcat для большого количества коротких
+ * одновременных запросов: включает HTTP/2 без шифрования (h2c, переход с HTTP/1.1
+ * по заголовку Upgrade или сразу с преамбулы HTTP/2), что позволяет мобильным
+ * клиентам мультиплексировать запросы в одном соединении, и задаёт количество потоков,
+ * очередь соединений и параметры keep-alive. Свойства с префиксом app.server,
+ * которые не заданы, оставляют значения Tomcat по умолчанию.
+ * Количество потоков-акцепторов и потоков-поллеров не настраивается: у NIO-коннектора
+ * Tomcat 9 всегда один акцептор и один поллер, а соответствующие настройки устарели
+ * и игнорируются.
+ * HTTP/1.1-клиенты по-прежнему могут отправлять запросы конвейером (pipelining)
+ * в одном keep-alive соединении, Tomcat обрабатывает их по очереди.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@Component
+public class TomcatTuning implements WebServerFactoryCustomizer<TomcatServletWebServerFactory>
+{
+    private static final String PREFIX = "app.server.";
+
+    private final Environment environment;
+
+    @Autowired
+    public TomcatTuning(Environment environment)
+    {
+        this.environment = environment;
+    }
+
+    @Override
+    public void customize(TomcatServletWebServerFactory factory)
+    {
+        factory.addConnectorCustomizers(this::customize);
+    }
+
+    private void customize(Connector connector)
+    {
+        if (environment.getProperty(PREFIX + "h2c.enabled", Boolean.class, false))
+        {
+            Http2Protocol http2 = new Http2Protocol();
+            set("http2.max-concurrent-streams", http2::setMaxConcurrentStreams);
+            set("http2.max-concurrent-stream-execution", http2::setMaxConcurrentStreamExecution);
+            set("http2.keep-alive-timeout-millis", http2::setKeepAliveTimeout);
+            connector.addUpgradeProtocol(http2);
+        }
+
+        ProtocolHandler handler = connector.getProtocolHandler();
+        if (handler instanceof AbstractProtocol)
+        {
+            AbstractProtocol<?> protocol = (AbstractProtocol<?>) handler;
+            set("max-threads", protocol::setMaxThreads);
+            set("min-spare-threads", protocol::setMinSpareThreads);
+            set("accept-count", protocol::setAcceptCount);
+            set("max-connections", protocol::setMaxConnections);
+            set("connection-timeout-millis", protocol::setConnectionTimeout);
+            set("keep-alive-timeout-millis", protocol::setKeepAliveTimeout);
+        }
+        if (handler instanceof AbstractHttp11Protocol)
+        {
+            set("max-keep-alive-requests", ((AbstractHttp11Protocol<?>) handler)::setMaxKeepAliveRequests);
+        }
+    }
+
+    /**Метод передаёт значение свойства в настройку коннектора, если свойство задано.*/
+    private void set(String name, IntConsumer setter)
+    {
+        Integer value = environment.getProperty(PREFIX + name, Integer.class);
+        if (value != null)
+        {
+            setter.accept(value);
+        }
+    }
+}
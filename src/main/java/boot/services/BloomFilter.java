@@ -0,0 +1,84 @@
+package boot.services;
+
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**Класс представляет фильтр Блума над ключами типа long: компактное множество,
+ * которое может ошибочно ответить «возможно есть» для отсутствующего ключа,
+ * но никогда не отвечает «нет» для добавленного. Добавление и проверка выполняются
+ * без блокировок.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class BloomFilter
+{
+    private final AtomicLongArray words;
+
+    /**Количество битов фильтра*/
+    private final long bitCount;
+
+    /**Количество хэш-функций (битов на ключ)*/
+    private final int hashes;
+
+    /**@param expectedKeys ожидаемое количество ключей
+     @param falsePositiveRate допустимая доля ложноположительных ответов при этом количестве ключей*/
+    public BloomFilter(int expectedKeys, double falsePositiveRate)
+    {
+        int keys = Math.max(1, expectedKeys);
+        long bits = (long) Math.ceil(-keys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.max(1, (bits + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = wordCount * 64L;
+        this.hashes = Math.max(1, (int) Math.round((double) bitCount / keys * Math.log(2)));
+    }
+
+    /**Метод добавляет ключ в фильтр.
+     @param key ключ*/
+    public void add(long key)
+    {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++)
+        {
+            long bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = words.get(word)) & mask) == 0 && !words.compareAndSet(word, current, current | mask))
+            {
+                //Другой поток изменил то же слово, повторяем
+            }
+        }
+    }
+
+    /**Метод проверяет, мог ли ключ быть добавлен в фильтр.
+     @param key ключ
+     @return false если ключ точно не добавлялся, true если он мог быть добавлен*/
+    public boolean mightContain(long key)
+    {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++)
+        {
+            long bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**Метод перемешивает биты ключа (финализатор SplitMix64), чтобы близкие id
+     * давали независимые хэши.
+     @param key ключ
+     @return 64-битный хэш*/
+    static long mix(long key)
+    {
+        long z = key + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,175 @@
+package boot.services;
+
+
+import boot.dao.UsersDao;
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**Класс отвечает на вопрос о существовании пользователей и записей в их телефонных
+ * книжках без обращения к хранилищу, если ответ отрицательный. Для этого id
+ * пользователей и пары id пользователя и id записи добавляются в фильтр Блума.
+ * Удалённые сущности из фильтра не удаляются, поэтому фильтр перестраивается
+ * по содержимому хранилища, когда добавлений или удалений становится больше,
+ * чем он рассчитан. Фильтр строится при первой проверке, а перестраивается
+ * при проверке, а не при изменении, чтобы не задерживать изменения.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+class ExistenceIndex
+{
+    /**Доля ложноположительных ответов фильтра при расчётном количестве ключей*/
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    /**Наименьшее расчётное количество ключей фильтра*/
+    private static final int MIN_CAPACITY = 1024;
+
+    private final UsersDao usersDao;
+
+    /**Текущий фильтр, или null если он ещё не построен*/
+    private volatile BloomFilter filter;
+
+    /**Строящийся фильтр, в который добавления попадают наравне с текущим*/
+    private volatile BloomFilter next;
+
+    /**Количество изменений, после которого фильтр нужно перестроить*/
+    private volatile long capacity;
+
+    /**Количество ключей при последнем построении фильтра*/
+    private long keys;
+
+    /**Количество ключей, добавленных и удалённых с момента построения фильтра*/
+    private final AtomicLong changes = new AtomicLong();
+
+    ExistenceIndex(UsersDao usersDao)
+    {
+        this.usersDao = usersDao;
+    }
+
+    /**Метод добавляет в фильтр пользователя и все записи его телефонной книжки.
+     * Вызывается после сохранения пользователя в хранилище.*/
+    void addUser(User user)
+    {
+        if (filter == null && next == null)
+        {
+            return;//Фильтр ещё не построен и при построении прочитает пользователя из хранилища
+        }
+        add(userKey(user.getUserId()));
+        if (user.getPhoneBook() == null)
+        {
+            return;
+        }
+        for (PhoneRecord phoneRecord : user.getPhoneBook().getListPhoneRecords())
+        {
+            add(phoneRecordKey(user.getUserId(), phoneRecord.getPhoneRecordId()));
+        }
+    }
+
+    /**Метод добавляет в фильтр запись телефонной книжки.
+     * Вызывается после сохранения записи в хранилище.*/
+    void addPhoneRecord(Long userId, Long phoneRecordId)
+    {
+        if (filter == null && next == null)
+        {
+            return;
+        }
+        add(phoneRecordKey(userId, phoneRecordId));
+    }
+
+    /**Метод учитывает удаление сущности: её ключ остаётся в фильтре и увеличивает
+     * долю ложноположительных ответов до перестроения фильтра.*/
+    void remove()
+    {
+        changes.incrementAndGet();
+    }
+
+    /**Метод проверяет, может ли существовать пользователь.
+     @return false если пользователя точно нет*/
+    boolean mightContainUser(Long userId)
+    {
+        return current().mightContain(userKey(userId));
+    }
+
+    /**Метод проверяет, может ли существовать запись в телефонной книжке пользователя.
+     @return false если записи точно нет*/
+    boolean mightContainPhoneRecord(Long userId, Long phoneRecordId)
+    {
+        return current().mightContain(phoneRecordKey(userId, phoneRecordId));
+    }
+
+    private void add(long key)
+    {
+        BloomFilter current = filter;
+        if (current != null)
+        {
+            current.add(key);
+        }
+        /*Если строящийся фильтр появился после сохранения сущности, он прочитает её
+        из хранилища, иначе ключ будет добавлен в него здесь*/
+        BloomFilter building = next;
+        if (building != null)
+        {
+            building.add(key);
+        }
+        changes.incrementAndGet();
+    }
+
+    private BloomFilter current()
+    {
+        BloomFilter current = filter;
+        if (current == null || changes.get() > capacity)
+        {
+            current = rebuild();
+        }
+        return current;
+    }
+
+    /**Метод строит новый фильтр по содержимому хранилища и заменяет им текущий.
+     * Размер фильтра выбирается с запасом вдвое от количества ключей при прошлом
+     * построении; если ключей оказалось больше, следующая проверка построит фильтр
+     * нужного размера.*/
+    private synchronized BloomFilter rebuild()
+    {
+        BloomFilter current = filter;
+        if (current != null && changes.get() <= capacity)
+        {
+            return current;//Фильтр уже перестроен другим потоком
+        }
+        long newCapacity = Math.max(MIN_CAPACITY, Math.min(Integer.MAX_VALUE / 2, 2 * (keys + changes.get())));
+        BloomFilter building = new BloomFilter((int) newCapacity, FALSE_POSITIVE_RATE);
+        next = building;
+        changes.set(0);
+        //Хранилище читается после публикации строящегося фильтра, поэтому сущности,
+        //сохранённые во время чтения, попадут в фильтр хотя бы одним из двух путей
+        long count = 0;
+        for (User user : usersDao.findAllUsers())
+        {
+            building.add(userKey(user.getUserId()));
+            count++;
+            if (user.getPhoneBook() == null)
+            {
+                continue;
+            }
+            for (PhoneRecord phoneRecord : user.getPhoneBook().getListPhoneRecords())
+            {
+                building.add(phoneRecordKey(user.getUserId(), phoneRecord.getPhoneRecordId()));
+                count++;
+            }
+        }
+        keys = count;
+        capacity = newCapacity - count;
+        filter = building;
+        next = null;
+        return building;
+    }
+
+    private static long userKey(Long userId)
+    {
+        return userId;
+    }
+
+    private static long phoneRecordKey(Long userId, Long phoneRecordId)
+    {
+        return BloomFilter.mix(userId) ^ (phoneRecordId * 0xC2B2AE3D27D4EB4FL) ^ 0x165667B19E3779F9L;
+    }
+}
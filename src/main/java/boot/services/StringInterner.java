@@ -0,0 +1,79 @@
+package boot.services;
+
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**Класс представляет пул строк для дедупликации одинаковых имён и номеров телефонов:
+ * вместо множества одинаковых экземпляров String хранилище держит один общий экземпляр.
+ * Строки пула удерживаются слабыми ссылками и удаляются сборщиком мусора, когда
+ * на них больше никто не ссылается. Пул разбит на сегменты со своими блокировками,
+ * чтобы потоки, работающие с разными строками, не мешали друг другу.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class StringInterner
+{
+    /**Количество сегментов пула, степень двойки*/
+    private static final int SEGMENTS = 64;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    public StringInterner()
+    {
+        for (int i = 0; i < SEGMENTS; i++)
+        {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**Метод возвращает экземпляр строки из пула, равный указанной строке.
+     * Если такой строки в пуле нет, указанная строка добавляется в пул.
+     @param value строка
+     @return общий экземпляр строки, или null если в параметре null*/
+    public String intern(String value)
+    {
+        if (value == null)
+        {
+            return null;
+        }
+        int hash = value.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)].intern(value);
+    }
+
+    /**Метод возвращает количество строк в пуле, включая ещё не удалённые сборщиком мусора.
+     @return количество строк*/
+    public int size()
+    {
+        int size = 0;
+        for (Segment segment : segments)
+        {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private static final class Segment
+    {
+        /*Значение - слабая ссылка на сам ключ, чтобы по равной строке получить
+        общий экземпляр и при этом не удерживать его от сборки мусора*/
+        private final Map<String, WeakReference<String>> strings = new WeakHashMap<>();
+
+        synchronized String intern(String value)
+        {
+            WeakReference<String> reference = strings.get(value);
+            String interned = reference == null ? null : reference.get();
+            if (interned == null)
+            {
+                strings.put(value, new WeakReference<>(value));
+                interned = value;
+            }
+            return interned;
+        }
+
+        synchronized int size()
+        {
+            return strings.size();
+        }
+    }
+}
@@ -1,11 +1,21 @@
 package boot.services;
 
 
+import boot.contacts.ReachableUser;
+import boot.dao.MemoryStats;
+import boot.entities.BatchResult;
 import boot.entities.PhoneRecord;
+import boot.entities.PhoneRecordOrder;
 import boot.entities.User;
+import boot.events.ChangeEvent;
+import boot.indexes.IndexStatus;
+import boot.statistics.PhoneBookSize;
+import boot.statistics.PhoneNumberCount;
+import boot.statistics.UsersStatistics;
 import org.springframework.boot.Banner;
 
 
+import java.util.Collection;
 import java.util.List;
 
 /**Интерфейс служит для определения серсисных функций по работе с пользователями
@@ -20,7 +30,9 @@ public interface UsersService
 
     /**Метод добавляет нового пользователя.
      @param newUser объект представляющий пользователя, которого надо добавить
-     @return id нового пользователя, или null если в параметре null*/
+     @return id нового пользователя, или null если в параметре null
+     @throws boot.exceptions.EntityAlreadyExistsException если пользователь
+     с указанным id уже существует*/
     Long addUser(User newUser);
 
     /**Метод возвращает объект класса User по его id.
@@ -34,10 +46,24 @@ public interface UsersService
      или пользователя с таким id не существует*/
      Long deleteUser(Long id);
 
+    /**Метод удаляет пользователя по его id и возвращает удалённого пользователя.
+     * Пользователь находится и удаляется за одно обращение к хранилищу.
+     @param id id пользователя
+     @return удалённый пользователь, или null если пользователя с таким id не существует*/
+    User removeUser(Long id);
+
+    /**Метод проверяет существование пользователя. Если пользователя точно нет,
+     * ответ даётся без обращения к хранилищу.
+     @param id id пользователя
+     @return true если пользователь существует*/
+    boolean userExists(Long id);
+
     /**Метод редактирует информацию о пользователе.
      * @param user - объект пользователя которым нужно обновить существующий
      * @return id номер отредактированного пользователя или null, если в параметр null
-     * или пользователя с таким id не существует*/
+     * или пользователя с таким id не существует
+     * @throws boot.exceptions.VersionConflictException если версия пользователя
+     * в параметре указана и не совпадает с текущей*/
      Long updateUser(User user);
 
     /**Метод возвращает список пользователей по части их имени.
@@ -51,14 +77,44 @@ public interface UsersService
      пользователя с таким id не существует*/
     List<PhoneRecord> getUserAllPhoneRecords(Long userId);
 
+    /**Метод для получения страницы записей в телефонной книжке пользователя
+     в указанном порядке, начиная со следующей за указанной записью.
+     @param userId id пользователя, у которого нужно получить записи.
+     @param order порядок записей.
+     @param afterId id последней записи предыдущей страницы, или null для первой страницы.
+     @param afterKey имя или номер телефона последней записи предыдущей страницы,
+     необязательно.
+     @param limit максимальное количество записей на странице.
+     @return список записей, объектов класса PhoneRecord или null если
+     пользователя с таким id не существует
+     @throws boot.exceptions.EntityNotFoundException если afterKey не указан,
+     а записи с id afterId не существует*/
+    List<PhoneRecord> getUserPhoneRecordsPage(Long userId, PhoneRecordOrder order,
+                                              Long afterId, String afterKey, int limit);
+
     /**Метод добавляет новую запись в телефонную книжку пользователя.
      @param userId id пользователя, которому в телефонную книжку
      нужно добавить запись.
      @param newPhoneRecord объект представляющий запись, которую надо добавить в телефонную книжку.
      @return id новой телефонной записи, или null если в параметре null или
-     пользователя с таким id не существует*/
+     пользователя с таким id не существует
+     @throws boot.exceptions.StorageLimitExceededException если телефонная книжка
+     заполнена до квоты или исчерпан бюджет памяти хранилища*/
     Long addUserPhoneRecord(Long userId, PhoneRecord newPhoneRecord);
 
+    /**Метод возвращает пользователей по их id за одно обращение к хранилищу.
+     @param userIds id пользователей, повторяющиеся id учитываются один раз
+     @return найденные пользователи в порядке запрошенных id и id, по которым
+     пользователей нет*/
+    BatchResult<User> getUsers(Collection<Long> userIds);
+
+    /**Метод возвращает записи по их id из телефонной книжки пользователя.
+     @param userId id пользователя
+     @param ids id записей, повторяющиеся id учитываются один раз
+     @return найденные записи в порядке запрошенных id и id, по которым записей нет,
+     или null если пользователя с таким id не существует*/
+    BatchResult<PhoneRecord> getUserPhoneRecords(Long userId, Collection<Long> ids);
+
     /**Метод для получения записи по её id в телефонной книжке пользователя.
      @param userId id пользователя, у которого нужно получить запись.
      @param id id записи которую нужно получить.
@@ -73,18 +129,128 @@ public interface UsersService
      записи с таким id не существует*/
     Long deleteUserPhoneRecord(Long userId, Long id);
 
+    /**Метод удаляет запись по её id из телефонной книжки пользователя и возвращает её.
+     * Запись находится и удаляется за одно обращение к хранилищу.
+     @param userId id пользователя, у которого нужно удалить запись.
+     @param id id записи которую нужно удалить.
+     @return удалённая запись, или null если пользователя или записи с таким id не существует*/
+    PhoneRecord removeUserPhoneRecord(Long userId, Long id);
+
+    /**Метод проверяет существование записи в телефонной книжке пользователя.
+     * Если записи точно нет, ответ даётся без обращения к хранилищу.
+     @param userId id пользователя
+     @param id id записи
+     @return true если пользователь и запись существуют*/
+    boolean userPhoneRecordExists(Long userId, Long id);
+
     /**Метод для редактирования записи в телефонной книжке пользователя.
      @param userId id пользователя, у которого нужно отредактировать запись.
      @param phoneRecord объект записи, которым нужно обновить существующую запись.
      @return id номер отредактированной записи или null, если пользователя с таким id
-     или записи не существует*/
+     или записи не существует
+     @throws boot.exceptions.VersionConflictException если версия записи
+     в параметре указана и не совпадает с текущей*/
     Long updateUserPhoneRecord(Long userId, PhoneRecord phoneRecord);
 
     /**Метод для получения записей в телефонной книжке пользователя
-     по номеру телефона.
+     по номеру телефона. Номера, записанные по-разному ("+7 (900) 123-45-67"
+     и "89001234567"), сравниваются в каноническом виде.
     @param userId id пользователя, у которого нужно найти записи.
-    @param phoneNumber номер телефона.
+    @param phoneNumber номер телефона в произвольной записи.
     @return список записей в телефонной книжке пользователя с указанным номером телефона
     или null, если  пользователя с таким id не существует*/
     List<PhoneRecord> getUserPhoneRecordsByPhoneNumber(Long userId, String phoneNumber);
+
+    /**Метод для получения событий изменения хранилища (добавления, редактирования
+     и удаления пользователей и записей) в порядке их возникновения.
+     @param fromOffset номер первого события, которое нужно получить.
+     @param maxCount максимальное количество возвращаемых событий.
+     @return список событий, пустой если новых событий нет
+     @throws boot.exceptions.ChangeEventsExpiredException если события начиная
+     с указанного номера больше не хранятся
+     @throws boot.exceptions.InvalidRequestParameterException если номер больше
+     номера следующего события*/
+    List<ChangeEvent> getChangeEvents(long fromOffset, int maxCount);
+
+    /**Метод возвращает состояние пользователя вместе с его телефонной книжкой
+     * на указанный момент времени.
+     @param userId id пользователя
+     @param timestamp момент времени в миллисекундах
+     @return пользователь на указанный момент, или null если в этот момент
+     пользователя не было
+     @throws boot.exceptions.InvalidRequestParameterException если момент
+     старше окна хранения истории*/
+    User getUserAsOf(Long userId, long timestamp);
+
+    /**Метод возвращает записи в телефонной книжке пользователя на указанный момент времени.
+     @param userId id пользователя
+     @param timestamp момент времени в миллисекундах
+     @return список записей в порядке их id, или null если в этот момент
+     пользователя не было
+     @throws boot.exceptions.InvalidRequestParameterException если момент
+     старше окна хранения истории*/
+    List<PhoneRecord> getUserPhoneRecordsAsOf(Long userId, long timestamp);
+
+    /**Метод возвращает показатели использования памяти хранилищем пользователей.
+     @return показатели использования памяти*/
+    MemoryStats getMemoryStats();
+
+    /**Метод возвращает состояния построения вторичных индексов.
+     @return список состояний индексов*/
+    List<IndexStatus> getIndexStatuses();
+
+    /**Метод запускает перестроение вторичного индекса в фоне.
+     @param name название индекса
+     @return состояние индекса после запуска перестроения
+     @throws boot.exceptions.EntityNotFoundException если индекса с таким названием нет*/
+    IndexStatus reindex(String name);
+
+    /**Метод возвращает количество пользователей, записей и распределение размеров
+     * телефонных книжек.
+     @return сводные показатели хранилища
+     @throws boot.exceptions.IndexNotReadyException если индекс показателей ещё не построен*/
+    UsersStatistics getStatistics();
+
+    /**Метод возвращает самые большие телефонные книжки.
+     @param limit наибольшее количество книжек
+     @return id пользователей и размеры их книжек по убыванию размера
+     @throws boot.exceptions.IndexNotReadyException если индекс показателей ещё не построен*/
+    List<PhoneBookSize> getLargestPhoneBooks(int limit);
+
+    /**Метод возвращает самые частые номера телефонов во всех телефонных книжках.
+     @param limit наибольшее количество номеров
+     @return номера по убыванию количества записей с ними
+     @throws boot.exceptions.IndexNotReadyException если индекс показателей ещё не построен*/
+    List<PhoneNumberCount> getTopPhoneNumbers(int limit);
+
+    /**Метод возвращает пользователей, номера телефонов которых есть в телефонной
+     * книжке пользователя.
+     @param userId id пользователя
+     @return id пользователей по возрастанию, или null если пользователя с таким id не существует
+     @throws boot.exceptions.IndexNotReadyException если граф контактов ещё не построен*/
+    List<Long> getContacts(Long userId);
+
+    /**Метод возвращает пользователей, в телефонных книжках которых есть номер телефона
+     * пользователя.
+     @param userId id пользователя
+     @return id пользователей по возрастанию, или null если пользователя с таким id не существует
+     @throws boot.exceptions.IndexNotReadyException если граф контактов ещё не построен*/
+    List<Long> getUsersHavingContact(Long userId);
+
+    /**Метод возвращает общие контакты двух пользователей.
+     @param userId id первого пользователя
+     @param otherUserId id второго пользователя
+     @return id пользователей, номера которых есть в книжках обоих, по возрастанию,
+     или null если одного из пользователей не существует
+     @throws boot.exceptions.IndexNotReadyException если граф контактов ещё не построен*/
+    List<Long> getMutualContacts(Long userId, Long otherUserId);
+
+    /**Метод возвращает пользователей, достижимых от пользователя по графу контактов.
+     @param userId id пользователя
+     @param maxHops наибольшее количество переходов
+     @param limit наибольшее количество пользователей
+     @return пользователи в порядке возрастания количества переходов до них,
+     или null если пользователя с таким id не существует
+     @throws boot.exceptions.IndexNotReadyException если граф контактов ещё не построен*/
+    List<ReachableUser> getReachableUsers(Long userId, int maxHops, int limit);
 }
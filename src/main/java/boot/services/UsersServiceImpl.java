@@ -1,13 +1,46 @@
 package boot.services;
 
 
+import boot.contacts.ContactGraph;
+import boot.contacts.ReachableUser;
+import boot.dao.InMemoryUsersDao;
+import boot.dao.MemoryStats;
+import boot.dao.UsersDao;
+import boot.entities.BatchResult;
 import boot.entities.PhoneBook;
+import boot.entities.PhoneNumbers;
 import boot.entities.PhoneRecord;
+import boot.entities.PhoneRecordOrder;
 import boot.entities.User;
+import boot.entities.UserIdGenerator;
+import boot.events.ChangeEvent;
+import boot.events.ChangeEventBuffer;
+import boot.events.ChangeType;
+import boot.history.UsersHistory;
+import boot.indexes.IndexManager;
+import boot.indexes.IndexStatus;
+import boot.indexes.NameIndex;
+import boot.indexes.PhoneNumberIndex;
+import boot.exceptions.EntityAlreadyExistsException;
+import boot.exceptions.EntityNotFoundException;
+import boot.exceptions.IndexNotReadyException;
+import boot.exceptions.InvalidRequestParameterException;
+import boot.exceptions.StorageLimitExceededException;
+import boot.exceptions.VersionConflictException;
+import boot.statistics.PhoneBookSize;
+import boot.statistics.PhoneNumberCount;
+import boot.statistics.StatisticsIndex;
+import boot.statistics.UsersStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 
@@ -18,31 +51,165 @@ import java.util.stream.Collectors;
 @Service
 public class UsersServiceImpl implements UsersService
 {
-    /**Список пользователей (владельцев телефонных книжек)*/
-    /*Поскольку задание не предусматривает использования баз данных,
-    * DAO-слоя в приложении нет, и данные храняться в оперативной памяти*/
-    private List<User> usersList = new ArrayList<>();
+    /**Хранилище пользователей (владельцев телефонных книжек)*/
+    private final UsersDao usersDao;
 
+    /**Наибольшее количество записей в телефонной книжке пользователя по умолчанию*/
+    private static final int DEFAULT_MAX_RECORDS_PER_USER = 100_000;
+
+    /**Наибольшее количество записей в телефонной книжке одного пользователя*/
+    private final int maxRecordsPerUser;
+
+    /**Количество событий изменения, хранимых для потребителей потока изменений*/
+    private static final int CHANGE_EVENTS_CAPACITY = 1 << 16;
+
+    /**Кольцевой буфер событий изменения хранилища*/
+    private final ChangeEventBuffer changeEvents = new ChangeEventBuffer(CHANGE_EVENTS_CAPACITY);
+
+    /**Генератор id новых пользователей хранилища*/
+    private final UserIdGenerator userIds;
+
+    /**История изменений пользователей для чтения их состояния на прошедший момент*/
+    private final UsersHistory history;
+
+    /**Фильтр для быстрых отрицательных ответов на проверки существования*/
+    private final ExistenceIndex existence;
+
+    /**Пул строк, через который проходят имена и номера телефонов сохраняемых
+     * пользователей и записей, чтобы одинаковые значения хранились в одном экземпляре*/
+    private final StringInterner strings = new StringInterner();
+
+    /**Название индекса пользователей по части имени*/
+    public static final String NAME_INDEX = "userName";
+
+    /**Название индекса пользователей по номерам телефонов в их телефонных книжках*/
+    public static final String PHONE_NUMBER_INDEX = "phoneNumber";
+
+    /**Название индекса сводных показателей хранилища*/
+    public static final String STATISTICS_INDEX = "statistics";
+
+    /**Название графа контактов: связей пользователей через номера телефонов в их книжках*/
+    public static final String CONTACTS_INDEX = "contacts";
+
+    /**Вторичные индексы, строящиеся в фоне без остановки обработки запросов*/
+    private final IndexManager indexes;
+
+    /**Количество блокировок, по которым распределяются id пользователей, степень двойки*/
+    private static final int USER_LOCKS = 256;
+
+    /**Блокировки, под которыми изменение пользователя сохраняется, заносится в историю
+     * и индексы и публикуется, чтобы события одного пользователя шли в порядке изменений*/
+    private final Object[] userLocks = new Object[USER_LOCKS];
+
+    /**Конструктор создаёт сервис, хранящий пользователей в оперативной памяти.*/
+    public UsersServiceImpl()
+    {
+        this(new InMemoryUsersDao());
+    }
+
+    public UsersServiceImpl(UsersDao usersDao)
+    {
+        this(usersDao, DEFAULT_MAX_RECORDS_PER_USER);
+    }
+
+    public UsersServiceImpl(UsersDao usersDao, int maxRecordsPerUser)
+    {
+        this(usersDao, maxRecordsPerUser, new UsersHistory(UsersHistory.DEFAULT_RETENTION_MILLIS));
+    }
+
+    @Autowired
+    public UsersServiceImpl(UsersDao usersDao,
+                            @Value("${users.memory.max-records-per-user:100000}") int maxRecordsPerUser,
+                            UsersHistory history)
+    {
+        this(usersDao, maxRecordsPerUser, history, User.sharedIdGenerator());
+    }
+
+    /**@param userIds генератор id новых пользователей: общий генератор User
+     для основного хранилища или собственный для хранилища арендатора*/
+    public UsersServiceImpl(UsersDao usersDao, int maxRecordsPerUser, UsersHistory history,
+                            UserIdGenerator userIds)
+    {
+        this.usersDao = usersDao;
+        this.userIds = userIds;
+        this.maxRecordsPerUser = maxRecordsPerUser;
+        this.history = history;
+        this.existence = new ExistenceIndex(usersDao);
+        this.indexes = new IndexManager(usersDao);
+        for(int i = 0; i < USER_LOCKS; i++)
+        {
+            userLocks[i] = new Object();
+        }
+        indexes.register(NAME_INDEX, NameIndex::new);
+        indexes.register(PHONE_NUMBER_INDEX, PhoneNumberIndex::new);
+        indexes.register(STATISTICS_INDEX, StatisticsIndex::new);
+        indexes.register(CONTACTS_INDEX, ContactGraph::new);
+    }
 
     /**Метод возвращает список всех пользователей, экземпляров класса User.
      @return список объектов класса User*/
     @Override
     public List<User> getAllUsers()
     {
-        return usersList;
+        return usersDao.findAllUsers();
     }
 
     /**Метод добавляет нового пользователя.
      @param newUser объект представляющий пользователя, которого надо добавить
-     @return id нового пользователя, или null если в параметре null*/
+     @return id нового пользователя, или null если в параметре null
+     @throws EntityAlreadyExistsException если пользователь с указанным id уже существует*/
     @Override
     public Long addUser(User newUser)
+    {
+        return addUser(newUser, true);
+    }
+
+    /**Метод добавляет нового пользователя.
+     @param newUser объект представляющий пользователя, которого надо добавить
+     @param locked false если метод вызывается единственным потоком-писателем хранилища
+     @return id нового пользователя, или null если в параметре null*/
+    Long addUser(User newUser, boolean locked)
     {
         if(newUser == null)
         {
             return null;
         }
-        usersList.add(newUser);
+        if(newUser.getUserId() == null)//Пользователю, пришедшему без id, присваиваем новый
+        {
+            newUser.setUserId(userIds.nextUserId());
+        }
+        else//Присваиваемые далее id должны быть больше id, указанного клиентом
+        {
+            userIds.reserveUserIds(newUser.getUserId());
+        }
+        if(newUser.getPhoneBook() == null)
+        {
+            newUser.setPhoneBook(new PhoneBook());
+        }
+        checkQuota(newUser);
+        checkMemory(newUser.estimatedBytes());
+        normalize(newUser);
+        newUser.setVersion(0L);
+        if(!locked)
+        {
+            return insertUser(newUser);
+        }
+        synchronized(lockOf(newUser.getUserId()))
+        {
+            return insertUser(newUser);
+        }
+    }
+
+    private Long insertUser(User newUser)
+    {
+        if(!usersDao.insertUser(newUser))
+        {
+            throw new EntityAlreadyExistsException("Users id-" + newUser.getUserId() + " already exists.");
+        }
+        existence.addUser(newUser);
+        history.recordUserAdded(newUser);
+        indexes.changed(newUser.getUserId());
+        changeEvents.publish(ChangeEvent.ofUser(ChangeType.USER_ADDED, newUser));
         return newUser.getUserId();
     }
 
@@ -52,13 +219,7 @@ public class UsersServiceImpl implements UsersService
     @Override
     public User getUser(Long id)
     {
-        List<User> userList = usersList.stream()//Ищем пользователя с указанным id
-            .filter(s -> s.getUserId() == id).collect(Collectors.toList());
-        if(userList.size() == 0)//Если пользователь с указанным id не найден
-        {
-            return null;
-        }
-        return userList.get(0);
+        return usersDao.findUser(id);
     }
 
     /**Метод удаляет объект класса User представляющий пользователя по его id.
@@ -68,29 +229,125 @@ public class UsersServiceImpl implements UsersService
     @Override
     public Long deleteUser(Long id)
     {
-        List<User> userList = usersList.stream()
-                .filter(s -> s.getUserId() == id).collect(Collectors.toList());
-        if(userList.size() == 0)
+        return removeUser(id) == null ? null : id;
+    }
+
+    /**Метод удаляет пользователя по его id и возвращает удалённого пользователя.
+     * Пользователь находится и удаляется за одно обращение к хранилищу.
+     @param id id пользователя
+     @return удалённый пользователь, или null если пользователя с таким id не существует*/
+    @Override
+    public User removeUser(Long id)
+    {
+        return removeUser(id, true);
+    }
+
+    /**Метод удаляет пользователя по его id и возвращает удалённого пользователя.
+     @param id id пользователя
+     @param locked false если метод вызывается единственным потоком-писателем хранилища
+     @return удалённый пользователь, или null если пользователя с таким id не существует*/
+    User removeUser(Long id, boolean locked)
+    {
+        if(id == null)
         {
             return null;
         }
-        usersList.remove(userList.get(0));
-        return id;
+        if(!locked)
+        {
+            return deleteStoredUser(id);
+        }
+        synchronized(lockOf(id))
+        {
+            return deleteStoredUser(id);
+        }
+    }
+
+    private User deleteStoredUser(Long id)
+    {
+        User removed = usersDao.removeUser(id);
+        if(removed == null)
+        {
+            return null;
+        }
+        existence.remove();
+        history.recordUserDeleted(removed);
+        indexes.changed(id);
+        changeEvents.publish(ChangeEvent.ofUserDeleted(id));
+        return removed;
+    }
+
+    /**Метод проверяет существование пользователя. Если пользователя точно нет,
+     * ответ даётся без обращения к хранилищу.
+     @param id id пользователя
+     @return true если пользователь существует*/
+    @Override
+    public boolean userExists(Long id)
+    {
+        return id != null && existence.mightContainUser(id) && usersDao.findUser(id) != null;
     }
 
     /**Метод редактирует информацию о пользователе.
      * @param user - объект пользователя которым нужно обновить существующий
      * @return id номер отредактированного пользователя или null, если в параметр null
-     * или пользователя с таким id не существует*/
+     * или пользователя с таким id не существует
+     * @throws VersionConflictException если версия пользователя в параметре указана
+     * и не совпадает с текущей*/
     @Override
     public Long updateUser(User user) {
-        List<User> userList = usersList.stream()
-                .filter(s -> s.getUserId() == user.getUserId()).collect(Collectors.toList());
-        if(userList.size() == 0)
+        return updateUser(user, true);
+    }
+
+    /**Метод редактирует информацию о пользователе.
+     @param user объект пользователя которым нужно обновить существующий
+     @param locked false если метод вызывается единственным потоком-писателем хранилища
+     @return id отредактированного пользователя или null, если пользователя не существует*/
+    Long updateUser(User user, boolean locked)
+    {
+        if(user == null || user.getUserId() == null)
         {
             return null;
         }
-        usersList.set(usersList.indexOf(userList.get(0)), user);
+        checkQuota(user);
+        normalize(user);
+        if(!locked)
+        {
+            return replaceUser(user);
+        }
+        synchronized(lockOf(user.getUserId()))
+        {
+            return replaceUser(user);
+        }
+    }
+
+    private Long replaceUser(User user)
+    {
+        Long expectedVersion = user.getVersion();//null означает безусловное редактирование
+        while(true)
+        {
+            User current = usersDao.findUser(user.getUserId());
+            if(current == null)
+            {
+                return null;
+            }
+            long currentVersion = current.getVersion();
+            if(expectedVersion != null && expectedVersion != currentVersion)
+            {
+                throw new VersionConflictException("Users id-" + user.getUserId()
+                        + " version-" + expectedVersion + " is outdated.");
+            }
+            checkMemory(user.estimatedBytes() - current.estimatedBytes());
+            user.setVersion(currentVersion + 1);
+            /*Замена выполняется, только если с момента чтения пользователь не изменён
+            другим потоком, иначе повторяем попытку с его новой версией*/
+            if(usersDao.replaceUser(user))
+            {
+                break;
+            }
+        }
+        existence.addUser(user);
+        history.recordUserUpdated(user);
+        indexes.changed(user.getUserId());
+        changeEvents.publish(ChangeEvent.ofUser(ChangeType.USER_UPDATED, user));
         return user.getUserId();
     }
 
@@ -100,8 +357,16 @@ public class UsersServiceImpl implements UsersService
     @Override
     public List<User> getUsersByName(String partName)
     {
-        return usersList.stream()
-                .filter(s -> s.getUserName().contains(partName)).collect(Collectors.toList());
+        NameIndex nameIndex = indexes.getReady(NAME_INDEX, NameIndex.class);
+        Set<Long> candidates = nameIndex == null ? null : nameIndex.findCandidates(partName);
+        if(candidates == null)//Индекс ещё не построен или строка слишком коротка для него
+        {
+            return usersDao.findUsersByName(partName);
+        }
+        //Кандидаты идут по возрастанию id, как и пользователи при просмотре хранилища
+        return usersDao.findUsers(candidates).values().stream()
+                .filter(s -> s.getUserName().contains(partName))
+                .collect(Collectors.toList());
     }
 
     /**Метод для получения списка всех записей в телефонной книжке пользователя.
@@ -111,13 +376,40 @@ public class UsersServiceImpl implements UsersService
     @Override
     public List<PhoneRecord> getUserAllPhoneRecords(Long userId)
     {
-        List<User> userList = usersList.stream()
-                .filter(s -> s.getUserId() == userId).collect(Collectors.toList());
-        if(userList.size() == 0)
+        User user = getUser(userId);
+        if(user == null)
+        {
+            return null;
+        }
+        return user.getPhoneBook().getListPhoneRecords();
+    }
+
+    /**Метод для получения страницы записей в телефонной книжке пользователя
+     в указанном порядке, начиная со следующей за указанной записью.
+     @param userId id пользователя, у которого нужно получить записи.
+     @param order порядок записей.
+     @param afterId id последней записи предыдущей страницы, или null для первой страницы.
+     @param afterKey имя или номер телефона последней записи предыдущей страницы,
+     необязательно.
+     @param limit максимальное количество записей на странице.
+     @return список записей, объектов класса PhoneRecord или null если
+     пользователя с таким id не существует
+     @throws EntityNotFoundException если afterKey не указан, а записи с id afterId не существует*/
+    @Override
+    public List<PhoneRecord> getUserPhoneRecordsPage(Long userId, PhoneRecordOrder order,
+                                                     Long afterId, String afterKey, int limit)
+    {
+        User user = getUser(userId);
+        if(user == null)
         {
             return null;
         }
-        return userList.get(0).getPhoneBook().getListPhoneRecords();
+        List<PhoneRecord> page = user.getPhoneBook().getPhoneRecords(order, afterId, afterKey, limit);
+        if(page == null)//Не удалось определить положение удалённой записи в порядке сортировки
+        {
+            throw EntityNotFoundException.ofPhoneRecord(afterId);
+        }
+        return page;
     }
 
     /**Метод добавляет новую запись в телефонную книжку пользователя.
@@ -128,18 +420,111 @@ public class UsersServiceImpl implements UsersService
      пользователя с таким id не существует*/
     @Override
     public Long addUserPhoneRecord(Long userId, PhoneRecord newPhoneRecord)
+    {
+        return addUserPhoneRecord(userId, newPhoneRecord, true);
+    }
+
+    /**Метод добавляет новую запись в телефонную книжку пользователя.
+     @param userId id пользователя
+     @param newPhoneRecord объект представляющий запись, которую надо добавить
+     @param locked false если метод вызывается единственным потоком-писателем хранилища
+     @return id новой записи, или null если пользователя с таким id не существует*/
+    Long addUserPhoneRecord(Long userId, PhoneRecord newPhoneRecord, boolean locked)
     {
         if(newPhoneRecord == null)
         {
             return null;
         }
-        List<User> userList = usersList.stream()
-                .filter(s -> s.getUserId() == userId).collect(Collectors.toList());
-        if(userList.size() == 0)
+        if(userId == null)
+        {
+            return null;
+        }
+        checkMemory(newPhoneRecord.estimatedBytes());
+        normalize(newPhoneRecord);
+        if(!locked)
+        {
+            return insertPhoneRecord(userId, newPhoneRecord);
+        }
+        synchronized(lockOf(userId))
+        {
+            return insertPhoneRecord(userId, newPhoneRecord);
+        }
+    }
+
+    private Long insertPhoneRecord(Long userId, PhoneRecord newPhoneRecord)
+    {
+        long generation = indexes.generation();
+        Long id = usersDao.modifyUser(userId, user ->
+        {
+            if(user.getPhoneBook().size() >= maxRecordsPerUser)
+            {
+                throw new StorageLimitExceededException("Users id-" + userId + " phone book already has "
+                        + maxRecordsPerUser + " records.");
+            }
+            Long newId = user.getPhoneBook().addPhoneRecord(newPhoneRecord);
+            history.recordPhoneRecord(userId, newPhoneRecord);
+            return newId;
+        });
+        if(id == null)
         {
             return null;
         }
-        return userList.get(0).getPhoneBook().addPhoneRecord(newPhoneRecord);
+        existence.addPhoneRecord(userId, id);
+        indexes.phoneRecordChanged(generation, userId, null, newPhoneRecord);
+        changeEvents.publish(ChangeEvent.ofPhoneRecord(
+                ChangeType.PHONE_RECORD_ADDED, userId, newPhoneRecord));
+        return id;
+    }
+
+    /**Метод возвращает пользователей по их id за одно обращение к хранилищу.
+     @param userIds id пользователей, повторяющиеся id учитываются один раз
+     @return найденные пользователи в порядке запрошенных id и id, по которым
+     пользователей нет*/
+    @Override
+    public BatchResult<User> getUsers(Collection<Long> userIds)
+    {
+        Set<Long> ids = distinctIds(userIds);
+        Map<Long, User> users = usersDao.findUsers(ids);
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids)
+        {
+            if (!users.containsKey(id))
+            {
+                missing.add(id);
+            }
+        }
+        return new BatchResult<>(new ArrayList<>(users.values()), missing);
+    }
+
+    /**Метод возвращает записи по их id из телефонной книжки пользователя.
+     @param userId id пользователя
+     @param ids id записей, повторяющиеся id учитываются один раз
+     @return найденные записи в порядке запрошенных id и id, по которым записей нет,
+     или null если пользователя с таким id не существует*/
+    @Override
+    public BatchResult<PhoneRecord> getUserPhoneRecords(Long userId, Collection<Long> ids)
+    {
+        User user = getUser(userId);
+        if(user == null)
+        {
+            return null;
+        }
+        PhoneBook phoneBook = user.getPhoneBook();
+        List<PhoneRecord> found = new ArrayList<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : distinctIds(ids))
+        {
+            PhoneRecord record = phoneBook.getPhoneRecord(id);
+            if (record != null)
+            {
+                found.add(record);
+            }
+            else
+            {
+                missing.add(id);
+            }
+        }
+        return new BatchResult<>(found, missing);
     }
 
     /**Метод для получения записи по её id в телефонной книжке пользователя.
@@ -150,21 +535,13 @@ public class UsersServiceImpl implements UsersService
     @Override
     public PhoneRecord getUserPhoneRecord(Long userId, Long id)
     {
-        List<User> userList = usersList.stream()//Ищем пользователя с указанным id
-                .filter(s -> s.getUserId() == userId).collect(Collectors.toList());
-        if(userList.size() == 0)//Если пользователь с указанным id не найден
-        {
-            return null;
-        }
-        //Ищем запись с указанным id
-        List<PhoneRecord> recordList = userList.get(0).getPhoneBook().getListPhoneRecords()
-                .stream().filter(s -> s.getPhoneRecordId() == id).collect(Collectors.toList());
-        if(recordList.size() == 0)//Если запись с указанным id не найдена
+        User user = getUser(userId);//Ищем пользователя с указанным id
+        if(user == null)//Если пользователь с указанным id не найден
         {
             return null;
         }
-
-        return recordList.get(0);
+        //Ищем запись с указанным id, или null если запись не найдена
+        return user.getPhoneBook().getPhoneRecord(id);
     }
 
     /**Метод для удаления записи по её id в телефонной книжке пользователя.
@@ -175,68 +552,420 @@ public class UsersServiceImpl implements UsersService
     @Override
     public Long deleteUserPhoneRecord(Long userId, Long id)
     {
-        List<User> userList = usersList.stream()
-                .filter(s -> s.getUserId() == userId).collect(Collectors.toList());
-        if(userList.size() == 0)
+        return removeUserPhoneRecord(userId, id) == null ? null : id;
+    }
+
+    /**Метод удаляет запись по её id из телефонной книжки пользователя и возвращает её.
+     * Запись находится и удаляется за одно обращение к хранилищу.
+     @param userId id пользователя, у которого нужно удалить запись.
+     @param id id записи которую нужно удалить.
+     @return удалённая запись, или null если пользователя или записи с таким id не существует*/
+    @Override
+    public PhoneRecord removeUserPhoneRecord(Long userId, Long id)
+    {
+        return removeUserPhoneRecord(userId, id, true);
+    }
+
+    /**Метод удаляет запись по её id из телефонной книжки пользователя и возвращает её.
+     @param userId id пользователя, у которого нужно удалить запись.
+     @param id id записи которую нужно удалить.
+     @param locked false если метод вызывается единственным потоком-писателем хранилища
+     @return удалённая запись, или null если пользователя или записи с таким id не существует*/
+    PhoneRecord removeUserPhoneRecord(Long userId, Long id, boolean locked)
+    {
+        if(userId == null)
         {
             return null;
         }
+        if(!locked)
+        {
+            return deletePhoneRecord(userId, id);
+        }
+        synchronized(lockOf(userId))
+        {
+            return deletePhoneRecord(userId, id);
+        }
+    }
 
-        List<PhoneRecord> recordList = userList.get(0).getPhoneBook().getListPhoneRecords()
-                .stream().filter(s -> s.getPhoneRecordId() == id).collect(Collectors.toList());
-        if(recordList.size() == 0)
+    private PhoneRecord deletePhoneRecord(Long userId, Long id)
+    {
+        long generation = indexes.generation();
+        PhoneRecord removed = usersDao.modifyUser(userId, user ->
+        {
+            PhoneRecord record = user.getPhoneBook().getPhoneRecord(id);
+            if(record == null)
+            {
+                return null;
+            }
+            user.getPhoneBook().deletePhoneRecord(record);
+            history.recordPhoneRecordDeleted(userId, id);
+            return record;
+        });
+        if(removed == null)
         {
             return null;
         }
+        existence.remove();
+        indexes.phoneRecordChanged(generation, userId, removed, null);
+        changeEvents.publish(ChangeEvent.ofPhoneRecordDeleted(userId, id));
+        return removed;
+    }
 
-        return userList.get(0).getPhoneBook().deletePhoneRecord(recordList.get(0));
+    /**Метод проверяет существование записи в телефонной книжке пользователя.
+     * Если записи точно нет, ответ даётся без обращения к хранилищу.
+     @param userId id пользователя
+     @param id id записи
+     @return true если пользователь и запись существуют*/
+    @Override
+    public boolean userPhoneRecordExists(Long userId, Long id)
+    {
+        return userId != null && id != null && existence.mightContainPhoneRecord(userId, id)
+                && getUserPhoneRecord(userId, id) != null;
     }
 
     /**Метод для редактирования записи в телефонной книжке пользователя.
      @param userId id пользователя, у которого нужно отредактировать запись.
      @param phoneRecord объект записи, которым нужно обновить существующую запись.
      @return id номер отредактированной записи или null, если пользователя с таким id
-     или записи не существует*/
+     или записи не существует
+     @throws VersionConflictException если версия записи в параметре указана
+     и не совпадает с текущей*/
     @Override
     public Long updateUserPhoneRecord(Long userId, PhoneRecord phoneRecord)
     {
-        List<User> userList = usersList.stream()//Ищем пользователя с указанным id
-                .filter(s -> s.getUserId() == userId).collect(Collectors.toList());
-        if(userList.size() == 0)//Если пользователь с указанным id не найден
+        return updateUserPhoneRecord(userId, phoneRecord, true);
+    }
+
+    /**Метод для редактирования записи в телефонной книжке пользователя.
+     @param userId id пользователя, у которого нужно отредактировать запись.
+     @param phoneRecord объект записи, которым нужно обновить существующую запись.
+     @param locked false если метод вызывается единственным потоком-писателем хранилища
+     @return id отредактированной записи или null, если пользователя или записи не существует*/
+    Long updateUserPhoneRecord(Long userId, PhoneRecord phoneRecord, boolean locked)
+    {
+        if(userId == null)
         {
             return null;
         }
-        List<PhoneRecord> recordList = userList.get(0).getPhoneBook().getListPhoneRecords()
-                .stream().filter(s -> s.getPhoneRecordId() == phoneRecord.getPhoneRecordId())
-                .collect(Collectors.toList());
-        if(recordList.size() == 0)
+        Long expectedVersion = phoneRecord.getVersion();//null означает безусловное редактирование
+        normalize(phoneRecord);
+        if(!locked)
         {
-            return null;
+            return replacePhoneRecord(userId, phoneRecord, expectedVersion);
+        }
+        synchronized(lockOf(userId))
+        {
+            return replacePhoneRecord(userId, phoneRecord, expectedVersion);
         }
+    }
 
-        return userList.get(0).getPhoneBook().updatePhoneRecord(phoneRecord);
+    private Long replacePhoneRecord(Long userId, PhoneRecord phoneRecord, Long expectedVersion)
+    {
+        long generation = indexes.generation();
+        PhoneRecord[] replaced = new PhoneRecord[1];//Прежнее состояние записи для индексов
+        //Результат null означает, что пользователь или запись не найдены
+        Long updatedId = usersDao.modifyUser(userId, user ->
+        {
+            PhoneBook phoneBook = user.getPhoneBook();
+            while(true)
+            {
+                PhoneRecord current = phoneBook.getPhoneRecord(phoneRecord.getPhoneRecordId());
+                if(current == null)
+                {
+                    return null;
+                }
+                long currentVersion = current.getVersion();
+                if(expectedVersion != null && expectedVersion != currentVersion)
+                {
+                    throw new VersionConflictException("Records id-" + phoneRecord.getPhoneRecordId()
+                            + " version-" + expectedVersion + " is outdated.");
+                }
+                phoneRecord.setVersion(currentVersion + 1);
+                if(phoneBook.replacePhoneRecord(current, phoneRecord))
+                {
+                    replaced[0] = current;
+                    history.recordPhoneRecord(userId, phoneRecord);
+                    return phoneRecord.getPhoneRecordId();
+                }
+            }
+        });
+        if(updatedId == null)
+        {
+            return null;
+        }
+        indexes.phoneRecordChanged(generation, userId, replaced[0], phoneRecord);
+        changeEvents.publish(ChangeEvent.ofPhoneRecord(
+                ChangeType.PHONE_RECORD_UPDATED, userId, phoneRecord));
+        return updatedId;
     }
 
     /**Метод для получения записей в телефонной книжке пользователя
-     по номеру телефона.
+     по номеру телефона. Номера, записанные по-разному ("+7 (900) 123-45-67"
+     и "89001234567"), сравниваются в каноническом виде.
      @param userId id пользователя, у которого нужно найти записи.
-     @param phoneNumber номер телефона.
+     @param phoneNumber номер телефона в произвольной записи.
      @return список записей в телефонной книжке пользователя с указанным номером телефона
      или null, если  пользователя с таким id не существует*/
     @Override
     public List<PhoneRecord> getUserPhoneRecordsByPhoneNumber(Long userId, String phoneNumber)
     {
-        List<User> userList = usersList.stream()
-                .filter(s -> s.getUserId() == userId).collect(Collectors.toList());
-        if(userList.size() == 0)
+        User user = getUser(userId);
+        if(user == null)
         {
             return null;
         }
-        //Фильтруем все записи в телефонной книжке пользователя по номеру телефона
-        return userList.get(0).getPhoneBook().getListPhoneRecords()
-                .stream().filter(s -> s.getPhoneNumber().equals(phoneNumber))
+        PhoneNumberIndex phoneNumberIndex = indexes.getReady(PHONE_NUMBER_INDEX, PhoneNumberIndex.class);
+        if(phoneNumberIndex != null && !phoneNumberIndex.contains(userId, phoneNumber))
+        {
+            return new ArrayList<>();//Номера точно нет в книжке, просматривать её незачем
+        }
+        long phoneKey = PhoneNumbers.canonicalKey(phoneNumber);
+        if(phoneKey == PhoneNumbers.NO_KEY)//Строка не является номером, сравниваем как есть
+        {
+            return user.getPhoneBook().getListPhoneRecords()
+                    .stream().filter(s -> s.getPhoneNumber().equals(phoneNumber))
+                    .collect(Collectors.toList());
+        }
+        //Ключи записей вычислены при сохранении, поэтому номера записей не разбираются
+        return user.getPhoneBook().getListPhoneRecords()
+                .stream().filter(s -> s.getPhoneKey() == phoneKey)
                 .collect(Collectors.toList());
     }
 
+    /**Метод возвращает состояние пользователя вместе с его телефонной книжкой
+     * на указанный момент времени.
+     @param userId id пользователя
+     @param timestamp момент времени в миллисекундах
+     @return пользователь на указанный момент, или null если в этот момент
+     пользователя не было
+     @throws InvalidRequestParameterException если момент старше окна хранения истории*/
+    @Override
+    public User getUserAsOf(Long userId, long timestamp)
+    {
+        return history.getUserAsOf(userId, timestamp);
+    }
+
+    /**Метод возвращает записи в телефонной книжке пользователя на указанный момент времени.
+     @param userId id пользователя
+     @param timestamp момент времени в миллисекундах
+     @return список записей в порядке их id, или null если в этот момент
+     пользователя не было
+     @throws InvalidRequestParameterException если момент старше окна хранения истории*/
+    @Override
+    public List<PhoneRecord> getUserPhoneRecordsAsOf(Long userId, long timestamp)
+    {
+        return history.getUserPhoneRecordsAsOf(userId, timestamp);
+    }
+
+    /**Метод возвращает показатели использования памяти хранилищем пользователей.
+     @return показатели использования памяти*/
+    @Override
+    public MemoryStats getMemoryStats()
+    {
+        return usersDao.getMemoryStats();
+    }
+
+    /**Метод возвращает состояния построения вторичных индексов.
+     @return список состояний индексов*/
+    @Override
+    public List<IndexStatus> getIndexStatuses()
+    {
+        return indexes.getStatuses();
+    }
+
+    /**Метод запускает перестроение вторичного индекса в фоне. Пока индекс
+     * перестраивается, запросы используют его прежний экземпляр.
+     @param name название индекса
+     @return состояние индекса после запуска перестроения
+     @throws EntityNotFoundException если индекса с таким названием нет*/
+    @Override
+    public IndexStatus reindex(String name)
+    {
+        IndexStatus status = indexes.reindex(name);
+        if(status == null)
+        {
+            throw new EntityNotFoundException("Index " + name + " not found.");
+        }
+        return status;
+    }
 
+    /**Метод возвращает количество пользователей, записей и распределение размеров
+     * телефонных книжек.
+     @return сводные показатели хранилища*/
+    @Override
+    public UsersStatistics getStatistics()
+    {
+        return statistics().getStatistics();
+    }
+
+    /**Метод возвращает самые большие телефонные книжки.
+     @param limit наибольшее количество книжек
+     @return id пользователей и размеры их книжек по убыванию размера*/
+    @Override
+    public List<PhoneBookSize> getLargestPhoneBooks(int limit)
+    {
+        return statistics().getLargestPhoneBooks(limit);
+    }
+
+    /**Метод возвращает самые частые номера телефонов во всех телефонных книжках.
+     * Количества записей с номерами оцениваются сверху.
+     @param limit наибольшее количество номеров
+     @return номера по убыванию количества записей с ними*/
+    @Override
+    public List<PhoneNumberCount> getTopPhoneNumbers(int limit)
+    {
+        return statistics().getTopPhoneNumbers(Math.min(limit, StatisticsIndex.MAX_TOP_PHONE_NUMBERS));
+    }
+
+    /**Метод возвращает индекс сводных показателей. Пока индекс строится, показатели
+     * не считаются просмотром хранилища: такой просмотр на каждый запрос замедлил бы
+     * и построение индекса, и остальные запросы.
+     @throws IndexNotReadyException если индекс ещё не построен*/
+    private StatisticsIndex statistics()
+    {
+        StatisticsIndex statistics = indexes.getReady(STATISTICS_INDEX, StatisticsIndex.class);
+        if(statistics == null)
+        {
+            throw new IndexNotReadyException("Index " + STATISTICS_INDEX + " is not built yet.");
+        }
+        return statistics;
+    }
+
+    /**Метод возвращает пользователей, номера телефонов которых есть в телефонной
+     * книжке пользователя.
+     @param userId id пользователя
+     @return id пользователей по возрастанию, или null если пользователя с таким id не существует*/
+    @Override
+    public List<Long> getContacts(Long userId)
+    {
+        return contacts().getContacts(userId);
+    }
+
+    /**Метод возвращает пользователей, в телефонных книжках которых есть номер телефона
+     * пользователя.
+     @param userId id пользователя
+     @return id пользователей по возрастанию, или null если пользователя с таким id не существует*/
+    @Override
+    public List<Long> getUsersHavingContact(Long userId)
+    {
+        return contacts().getUsersHaving(userId);
+    }
+
+    /**Метод возвращает общие контакты двух пользователей.
+     @param userId id первого пользователя
+     @param otherUserId id второго пользователя
+     @return id пользователей, номера которых есть в книжках обоих, по возрастанию,
+     или null если одного из пользователей не существует*/
+    @Override
+    public List<Long> getMutualContacts(Long userId, Long otherUserId)
+    {
+        return contacts().getMutualContacts(userId, otherUserId);
+    }
+
+    /**Метод возвращает пользователей, достижимых от пользователя по графу контактов.
+     @param userId id пользователя
+     @param maxHops наибольшее количество переходов
+     @param limit наибольшее количество пользователей
+     @return пользователи в порядке возрастания количества переходов до них,
+     или null если пользователя с таким id не существует*/
+    @Override
+    public List<ReachableUser> getReachableUsers(Long userId, int maxHops, int limit)
+    {
+        return contacts().getReachable(userId, maxHops, limit);
+    }
+
+    /**Метод возвращает граф контактов. Пока граф строится, он не строится заново
+     * на каждый запрос, как и индекс показателей.
+     @throws IndexNotReadyException если граф ещё не построен*/
+    private ContactGraph contacts()
+    {
+        ContactGraph contacts = indexes.getReady(CONTACTS_INDEX, ContactGraph.class);
+        if(contacts == null)
+        {
+            throw new IndexNotReadyException("Index " + CONTACTS_INDEX + " is not built yet.");
+        }
+        return contacts;
+    }
+
+    /**Метод возвращает блокировку, под которой сохраняются и публикуются изменения пользователя.
+     * Единственному потоку-писателю (UsersWritePipeline) эти блокировки не нужны: изменения
+     * одного пользователя и так идут по порядку, поэтому он вызывает методы с locked=false.*/
+    private Object lockOf(Long userId)
+    {
+        int hash = userId.hashCode();
+        return userLocks[(hash ^ (hash >>> 16)) & (USER_LOCKS - 1)];
+    }
+
+    /**Метод убирает из списка id повторы и null, сохраняя порядок.*/
+    private static Set<Long> distinctIds(Collection<Long> ids)
+    {
+        Set<Long> distinct = new LinkedHashSet<>();
+        for (Long id : ids)
+        {
+            if (id != null)
+            {
+                distinct.add(id);
+            }
+        }
+        return distinct;
+    }
+
+    /**Метод заменяет имя и номер телефона пользователя, имена и номера телефонов
+     * в его телефонной книжке общими экземплярами строк из пула и вычисляет
+     * канонические ключи номеров.
+     * Вызывается до сохранения пользователя.*/
+    private void normalize(User user)
+    {
+        user.setUserName(strings.intern(user.getUserName()));
+        user.setPhoneNumber(strings.intern(user.getPhoneNumber()));
+        if(user.getPhoneBook() != null)
+        {
+            for(PhoneRecord phoneRecord : user.getPhoneBook().getListPhoneRecords())
+            {
+                normalize(phoneRecord);
+            }
+        }
+    }
+
+    /**Метод заменяет имя и номер телефона записи общими экземплярами строк из пула
+     * и вычисляет канонический ключ номера, по которому запись ищется по номеру.
+     * Вызывается до сохранения записи.*/
+    private void normalize(PhoneRecord phoneRecord)
+    {
+        phoneRecord.setName(strings.intern(phoneRecord.getName()));
+        phoneRecord.setPhoneNumber(strings.intern(phoneRecord.getPhoneNumber()));
+        phoneRecord.computePhoneKey();
+    }
+
+    /**Метод проверяет, что телефонная книжка пользователя не превышает квоту записей.
+     @throws StorageLimitExceededException если квота превышена*/
+    private void checkQuota(User user)
+    {
+        PhoneBook phoneBook = user.getPhoneBook();
+        if(phoneBook != null && phoneBook.size() > maxRecordsPerUser)
+        {
+            throw new StorageLimitExceededException("Users id-" + user.getUserId() + " phone book has more than "
+                    + maxRecordsPerUser + " records.");
+        }
+    }
+
+    /**Метод проверяет, что хранилищу хватит памяти для записи указанного объёма.
+     @throws StorageLimitExceededException если бюджет памяти хранилища исчерпан*/
+    private void checkMemory(long bytes)
+    {
+        if(bytes > 0 && !usersDao.hasMemoryFor(bytes))
+        {
+            throw new StorageLimitExceededException("Users storage memory budget is exhausted.");
+        }
+    }
+
+    /**Метод для получения событий изменения хранилища в порядке их возникновения.
+     @param fromOffset номер первого события, которое нужно получить.
+     @param maxCount максимальное количество возвращаемых событий.
+     @return список событий, пустой если новых событий нет*/
+    @Override
+    public List<ChangeEvent> getChangeEvents(long fromOffset, int maxCount)
+    {
+        return changeEvents.read(fromOffset, maxCount);
+    }
 }
@@ -0,0 +1,494 @@
+package boot.services;
+
+
+import boot.contacts.ReachableUser;
+import boot.dao.MemoryStats;
+import boot.entities.BatchResult;
+import boot.entities.PhoneRecord;
+import boot.entities.PhoneRecordOrder;
+import boot.entities.User;
+import boot.events.ChangeEvent;
+import boot.exceptions.ServiceOverloadedException;
+import boot.indexes.IndexStatus;
+import boot.statistics.PhoneBookSize;
+import boot.statistics.PhoneNumberCount;
+import boot.statistics.UsersStatistics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+
+/**Класс-реализация интерфейса UsersService, в которой все изменения хранилища
+ * выполняются единственным потоком-писателем. Запросы на изменение помещаются
+ * в неблокирующую очередь и применяются пакетами, чтение выполняется напрямую
+ * из хранилища и остаётся параллельным.
+ *
+ * Поток-писатель применяет изменения без блокировок пользователей, которые берёт
+ * UsersServiceImpl при параллельной записи, поэтому, пока включён этот режим,
+ * хранилище можно изменять только через него. Мониторы хранилища и телефонных
+ * книжек остаются: они упорядочивают запись с параллельным чтением, построением
+ * индексов и уплотнением файла и между изменениями писателя не оспариваются.
+ * Сравнение с записью из многих потоков под блокировками - load.WritePipelineBenchmark
+ * из тестовых исходников.
+ * Режим включается свойством users.write-pipeline.enabled=true.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@Service
+@Primary
+@ConditionalOnProperty(name = "users.write-pipeline.enabled", havingValue = "true")
+public class UsersWritePipeline implements UsersService, DisposableBean
+{
+    /**Хранилище, к которому применяются изменения*/
+    private final UsersServiceImpl usersStore;
+
+    /**Очередь ожидающих применения изменений*/
+    private final Queue<WriteTask<?>> queue = new ConcurrentLinkedQueue<>();
+
+    /**Количество изменений в очереди*/
+    private final AtomicInteger queueSize = new AtomicInteger();
+
+    /**Максимальное количество изменений в очереди*/
+    private final int queueCapacity;
+
+    /**Максимальное количество изменений, применяемых одним пакетом*/
+    private final int maxBatchSize;
+
+    /**Поток-писатель, единственный поток, изменяющий хранилище*/
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    @Autowired
+    public UsersWritePipeline(UsersServiceImpl usersStore,
+                              @Value("${users.write-pipeline.queue-capacity:65536}") int queueCapacity,
+                              @Value("${users.write-pipeline.max-batch-size:256}") int maxBatchSize)
+    {
+        this.usersStore = usersStore;
+        this.queueCapacity = queueCapacity;
+        this.maxBatchSize = maxBatchSize;
+        this.writer = new Thread(this::runWriter, "users-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**Метод ставит в очередь добавление нового пользователя.
+     @param newUser объект представляющий пользователя, которого надо добавить
+     @return результат с id нового пользователя, или null если в параметре null*/
+    public CompletableFuture<Long> addUserAsync(User newUser)
+    {
+        return submit(() -> usersStore.addUser(newUser, false));
+    }
+
+    /**Метод ставит в очередь удаление пользователя по его id.
+     @param id id пользователя
+     @return результат с id удалённого пользователя или null,
+     если пользователя с таким id не существует*/
+    public CompletableFuture<Long> deleteUserAsync(Long id)
+    {
+        return submit(() -> usersStore.removeUser(id, false) == null ? null : id);
+    }
+
+    /**Метод ставит в очередь удаление пользователя по его id с возвратом удалённого пользователя.
+     @param id id пользователя
+     @return результат с удалённым пользователем или null,
+     если пользователя с таким id не существует*/
+    public CompletableFuture<User> removeUserAsync(Long id)
+    {
+        return submit(() -> usersStore.removeUser(id, false));
+    }
+
+    /**Метод ставит в очередь редактирование информации о пользователе.
+     @param user объект пользователя которым нужно обновить существующий
+     @return результат с id отредактированного пользователя или null,
+     если пользователя с таким id не существует*/
+    public CompletableFuture<Long> updateUserAsync(User user)
+    {
+        return submit(() -> usersStore.updateUser(user, false));
+    }
+
+    /**Метод ставит в очередь добавление новой записи в телефонную книжку пользователя.
+     @param userId id пользователя
+     @param newPhoneRecord объект представляющий запись, которую надо добавить
+     @return результат с id новой записи или null, если пользователя не существует*/
+    public CompletableFuture<Long> addUserPhoneRecordAsync(Long userId, PhoneRecord newPhoneRecord)
+    {
+        return submit(() -> usersStore.addUserPhoneRecord(userId, newPhoneRecord, false));
+    }
+
+    /**Метод ставит в очередь удаление записи из телефонной книжки пользователя.
+     @param userId id пользователя
+     @param id id записи которую нужно удалить
+     @return результат с id удалённой записи или null, если пользователя
+     или записи не существует*/
+    public CompletableFuture<Long> deleteUserPhoneRecordAsync(Long userId, Long id)
+    {
+        return submit(() -> usersStore.removeUserPhoneRecord(userId, id, false) == null ? null : id);
+    }
+
+    /**Метод ставит в очередь удаление записи из телефонной книжки пользователя
+     * с возвратом удалённой записи.
+     @param userId id пользователя
+     @param id id записи которую нужно удалить
+     @return результат с удалённой записью или null, если пользователя
+     или записи не существует*/
+    public CompletableFuture<PhoneRecord> removeUserPhoneRecordAsync(Long userId, Long id)
+    {
+        return submit(() -> usersStore.removeUserPhoneRecord(userId, id, false));
+    }
+
+    /**Метод ставит в очередь редактирование записи в телефонной книжке пользователя.
+     @param userId id пользователя
+     @param phoneRecord объект записи, которым нужно обновить существующую запись
+     @return результат с id отредактированной записи или null, если пользователя
+     или записи не существует*/
+    public CompletableFuture<Long> updateUserPhoneRecordAsync(Long userId, PhoneRecord phoneRecord)
+    {
+        return submit(() -> usersStore.updateUserPhoneRecord(userId, phoneRecord, false));
+    }
+
+    @Override
+    public List<User> getAllUsers()
+    {
+        return usersStore.getAllUsers();
+    }
+
+    @Override
+    public Long addUser(User newUser)
+    {
+        return await(addUserAsync(newUser));
+    }
+
+    @Override
+    public User getUser(Long id)
+    {
+        return usersStore.getUser(id);
+    }
+
+    @Override
+    public Long deleteUser(Long id)
+    {
+        return await(deleteUserAsync(id));
+    }
+
+    @Override
+    public User removeUser(Long id)
+    {
+        return await(removeUserAsync(id));
+    }
+
+    @Override
+    public boolean userExists(Long id)
+    {
+        return usersStore.userExists(id);
+    }
+
+    @Override
+    public Long updateUser(User user)
+    {
+        return await(updateUserAsync(user));
+    }
+
+    @Override
+    public List<User> getUsersByName(String partName)
+    {
+        return usersStore.getUsersByName(partName);
+    }
+
+    @Override
+    public BatchResult<User> getUsers(Collection<Long> userIds)
+    {
+        return usersStore.getUsers(userIds);
+    }
+
+    @Override
+    public BatchResult<PhoneRecord> getUserPhoneRecords(Long userId, Collection<Long> ids)
+    {
+        return usersStore.getUserPhoneRecords(userId, ids);
+    }
+
+    @Override
+    public User getUserAsOf(Long userId, long timestamp)
+    {
+        return usersStore.getUserAsOf(userId, timestamp);
+    }
+
+    @Override
+    public List<PhoneRecord> getUserPhoneRecordsAsOf(Long userId, long timestamp)
+    {
+        return usersStore.getUserPhoneRecordsAsOf(userId, timestamp);
+    }
+
+    @Override
+    public MemoryStats getMemoryStats()
+    {
+        return usersStore.getMemoryStats();
+    }
+
+    @Override
+    public List<IndexStatus> getIndexStatuses()
+    {
+        return usersStore.getIndexStatuses();
+    }
+
+    @Override
+    public IndexStatus reindex(String name)
+    {
+        return usersStore.reindex(name);
+    }
+
+    @Override
+    public UsersStatistics getStatistics()
+    {
+        return usersStore.getStatistics();
+    }
+
+    @Override
+    public List<PhoneBookSize> getLargestPhoneBooks(int limit)
+    {
+        return usersStore.getLargestPhoneBooks(limit);
+    }
+
+    @Override
+    public List<PhoneNumberCount> getTopPhoneNumbers(int limit)
+    {
+        return usersStore.getTopPhoneNumbers(limit);
+    }
+
+    @Override
+    public List<Long> getContacts(Long userId)
+    {
+        return usersStore.getContacts(userId);
+    }
+
+    @Override
+    public List<Long> getUsersHavingContact(Long userId)
+    {
+        return usersStore.getUsersHavingContact(userId);
+    }
+
+    @Override
+    public List<Long> getMutualContacts(Long userId, Long otherUserId)
+    {
+        return usersStore.getMutualContacts(userId, otherUserId);
+    }
+
+    @Override
+    public List<ReachableUser> getReachableUsers(Long userId, int maxHops, int limit)
+    {
+        return usersStore.getReachableUsers(userId, maxHops, limit);
+    }
+
+    @Override
+    public List<PhoneRecord> getUserAllPhoneRecords(Long userId)
+    {
+        return usersStore.getUserAllPhoneRecords(userId);
+    }
+
+    @Override
+    public List<PhoneRecord> getUserPhoneRecordsPage(Long userId, PhoneRecordOrder order,
+                                                     Long afterId, String afterKey, int limit)
+    {
+        return usersStore.getUserPhoneRecordsPage(userId, order, afterId, afterKey, limit);
+    }
+
+    @Override
+    public Long addUserPhoneRecord(Long userId, PhoneRecord newPhoneRecord)
+    {
+        return await(addUserPhoneRecordAsync(userId, newPhoneRecord));
+    }
+
+    @Override
+    public PhoneRecord getUserPhoneRecord(Long userId, Long id)
+    {
+        return usersStore.getUserPhoneRecord(userId, id);
+    }
+
+    @Override
+    public Long deleteUserPhoneRecord(Long userId, Long id)
+    {
+        return await(deleteUserPhoneRecordAsync(userId, id));
+    }
+
+    @Override
+    public PhoneRecord removeUserPhoneRecord(Long userId, Long id)
+    {
+        return await(removeUserPhoneRecordAsync(userId, id));
+    }
+
+    @Override
+    public boolean userPhoneRecordExists(Long userId, Long id)
+    {
+        return usersStore.userPhoneRecordExists(userId, id);
+    }
+
+    @Override
+    public Long updateUserPhoneRecord(Long userId, PhoneRecord phoneRecord)
+    {
+        return await(updateUserPhoneRecordAsync(userId, phoneRecord));
+    }
+
+    @Override
+    public List<PhoneRecord> getUserPhoneRecordsByPhoneNumber(Long userId, String phoneNumber)
+    {
+        return usersStore.getUserPhoneRecordsByPhoneNumber(userId, phoneNumber);
+    }
+
+    @Override
+    public List<ChangeEvent> getChangeEvents(long fromOffset, int maxCount)
+    {
+        return usersStore.getChangeEvents(fromOffset, maxCount);
+    }
+
+    /**Метод останавливает поток-писатель после применения всех изменений из очереди.*/
+    @Override
+    public void destroy() throws InterruptedException
+    {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join();
+    }
+
+    /**Метод помещает изменение в очередь потока-писателя.
+     @param mutation изменение хранилища
+     @return результат, который будет завершён после применения изменения*/
+    private <T> CompletableFuture<T> submit(Supplier<T> mutation)
+    {
+        WriteTask<T> task = new WriteTask<>(mutation);
+        if (!running)
+        {
+            return task.reject("Users write pipeline is stopped.");
+        }
+        if (queueSize.incrementAndGet() > queueCapacity)
+        {
+            queueSize.decrementAndGet();
+            return task.reject("Users write queue is full.");
+        }
+        queue.offer(task);
+        /*Если поток-писатель был остановлен одновременно с постановкой в очередь,
+        изменение может так и не быть применено, поэтому отзываем его*/
+        if (!running && queue.remove(task))
+        {
+            return task.reject("Users write pipeline is stopped.");
+        }
+        LockSupport.unpark(writer);
+        return task.result;
+    }
+
+    /**Метод выполняется потоком-писателем: извлекает изменения из очереди пакетами,
+     * применяет их по порядку и только затем завершает результаты всего пакета.*/
+    private void runWriter()
+    {
+        WriteTask<?>[] batch = new WriteTask<?>[maxBatchSize];
+        while (true)
+        {
+            int size = 0;
+            WriteTask<?> task;
+            while (size < maxBatchSize && (task = queue.poll()) != null)
+            {
+                batch[size++] = task;
+            }
+            if (size == 0)
+            {
+                if (!running && queue.isEmpty())
+                {
+                    break;
+                }
+                LockSupport.park(this);
+                continue;
+            }
+            queueSize.addAndGet(-size);
+
+            for (int i = 0; i < size; i++)
+            {
+                batch[i].apply();
+            }
+            for (int i = 0; i < size; i++)
+            {
+                batch[i].complete();
+                batch[i] = null;
+            }
+        }
+    }
+
+    /**Метод ожидает применения изменения и возвращает его результат,
+     * пробрасывая исключение, возникшее в потоке-писателе, без обёртки.*/
+    private static <T> T await(CompletableFuture<T> result)
+    {
+        try
+        {
+            return result.join();
+        }
+        catch (CompletionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error)
+            {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**Класс представляет изменение хранилища, ожидающее применения.*/
+    private static class WriteTask<T>
+    {
+        private final Supplier<T> mutation;
+
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private T value;
+
+        private Throwable error;
+
+        WriteTask(Supplier<T> mutation)
+        {
+            this.mutation = mutation;
+        }
+
+        void apply()
+        {
+            try
+            {
+                value = mutation.get();
+            }
+            catch (Throwable e)//Ошибка не должна завершать поток-писатель, иначе ожидающие зависнут
+            {
+                error = e;
+            }
+        }
+
+        CompletableFuture<T> reject(String message)
+        {
+            result.completeExceptionally(new ServiceOverloadedException(message));
+            return result;
+        }
+
+        void complete()
+        {
+            if (error != null)
+            {
+                result.completeExceptionally(error);
+            }
+            else
+            {
+                result.complete(value);
+            }
+        }
+    }
+}
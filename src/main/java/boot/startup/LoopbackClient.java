@@ -0,0 +1,91 @@
+package boot.startup;
+
+
+import boot.tenants.TenantContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**Класс служит для отправки запросов запущенным приложением самому себе,
+ * например при прогреве или тренировочном запуске.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+final class LoopbackClient
+{
+    /**Адрес методов для работы с пользователями, например http://localhost:8080/users*/
+    private final String usersUrl;
+
+    /**Арендатор, к данным которого относятся запросы, или null для арендатора по умолчанию*/
+    private final String tenant;
+
+    LoopbackClient(String port)
+    {
+        this(port, null);
+    }
+
+    LoopbackClient(String port, String tenant)
+    {
+        this.usersUrl = "http://localhost:" + port + "/users";
+        this.tenant = tenant;
+    }
+
+    /**Метод отправляет запрос и возвращает тело ответа.
+     @param method Http-метод
+     @param path путь относительно адреса методов для работы с пользователями
+     @param json тело запроса в формате JSON, или null если тела нет
+     @return тело ответа, в том числе ответа с ошибкой*/
+    String send(String method, String path, String json) throws IOException
+    {
+        HttpURLConnection connection = (HttpURLConnection) new URL(usersUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        if (tenant != null)
+        {
+            connection.setRequestProperty(TenantContext.TENANT_HEADER, tenant);
+        }
+        if (json != null)
+        {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream())
+            {
+                out.write(json.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        InputStream in = connection.getResponseCode() < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (in == null)
+        {
+            return "";
+        }
+        //Тело читается полностью, чтобы соединение могло быть использовано повторно
+        try (InputStream stream = in)
+        {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int n; (n = stream.read(buffer)) > 0; )
+            {
+                body.write(buffer, 0, n);
+            }
+            return new String(body.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**Метод извлекает id пользователя из ответа на запрос его добавления
+     * без разбора JSON, чтобы не загружать лишних классов.
+     @param user тело ответа с пользователем
+     @return id пользователя*/
+    static String userIdOf(String user)
+    {
+        int start = user.indexOf("\"userId\":") + "\"userId\":".length();
+        int end = start;
+        while (end < user.length() && Character.isDigit(user.charAt(end)))
+        {
+            end++;
+        }
+        return user.substring(start, end);
+    }
+}
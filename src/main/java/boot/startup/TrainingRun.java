@@ -0,0 +1,44 @@
+package boot.startup;
+
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+
+/**Класс представляет тренировочный запуск приложения (app.training-run=true):
+ * после старта приложение обрабатывает несколько запросов к самому себе и завершается.
+ * За время такого запуска JVM загружает классы, нужные для старта и обработки запросов,
+ * и может сохранить их в архив общих классов (AppCDS), который ускоряет последующие
+ * запуски, например: java -XX:ArchiveClassesAtExit=app.jsa -Dapp.training-run=true -jar app.jar
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public final class TrainingRun
+{
+    private TrainingRun()
+    {
+    }
+
+    /**Метод обрабатывает тренировочные запросы и завершает приложение.
+     @param context контекст запущенного приложения*/
+    public static void executeAndExit(ConfigurableApplicationContext context)
+    {
+        LoopbackClient client = new LoopbackClient(context.getEnvironment().getProperty("local.server.port"));
+        try
+        {
+            String userId = LoopbackClient.userIdOf(client.send("POST", "", "{\"userName\":\"training-run\"}"));
+            client.send("POST", "/phoneRecord/" + userId, "{\"name\":\"training-run\",\"phoneNumber\":\"0\"}");
+            client.send("GET", "/" + userId, null);
+            client.send("GET", "/phoneRecord/" + userId + "?id=1", null);
+            client.send("GET", "/phoneRecords/" + userId + "?sort=name&limit=10", null);
+            client.send("GET", "/name?partName=training-run", null);
+            client.send("GET", "/0", null);//Ответ 404 тоже входит в обычную работу
+            client.send("DELETE", "/" + userId, null);
+        }
+        catch (IOException e)
+        {
+            System.err.println("Training run request failed: " + e);
+        }
+        System.exit(SpringApplication.exit(context));
+    }
+}
@@ -0,0 +1,197 @@
+package boot.startup;
+
+
+import boot.App;
+import boot.tenants.TenantRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**Класс выполняет прогрев приложения после запуска (app.warm-up.enabled=true):
+ * несколько раз вызывает все методы REST API для набора синтетических пользователей,
+ * чтобы JIT-компилятор скомпилировал код обработки запросов, а Jackson и Spring MVC
+ * создали сериализаторы и кэши, до того как приложение начнёт получать настоящие запросы.
+ * Приложение сообщает о готовности только после окончания прогрева.
+ * Прогрев выполняется в хранилище служебного арендатора, которое удаляется после прогрева,
+ * поэтому синтетические пользователи не попадают в основное хранилище, его историю,
+ * поток изменений и ограничители нагрузки и не расходуют id пользователей.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@Component
+public class WarmUpRunner
+{
+    private static final Logger log = LoggerFactory.getLogger(WarmUpRunner.class);
+
+    /**Префикс имён синтетических пользователей*/
+    private static final String USER_NAME_PREFIX = "warm-up-user-";
+
+    /**Количество записей в телефонной книжке синтетического пользователя*/
+    private static final int RECORDS_PER_USER = 10;
+
+    /**Количество запросов в одном проходе по каждому синтетическому пользователю*/
+    private static final int REQUESTS_PER_USER = 9;
+
+    private final Environment environment;
+
+    private final TenantRegistry tenants;
+
+    private final boolean enabled;
+
+    /**Количество проходов по всем методам*/
+    private final int rounds;
+
+    /**Количество синтетических пользователей*/
+    private final int users;
+
+    private volatile boolean ready;
+
+    @Autowired
+    public WarmUpRunner(Environment environment, TenantRegistry tenants,
+                        @Value("${app.warm-up.enabled:false}") boolean enabled,
+                        @Value("${app.warm-up.rounds:50}") int rounds,
+                        @Value("${app.warm-up.users:20}") int users)
+    {
+        this.environment = environment;
+        this.tenants = tenants;
+        this.enabled = enabled;
+        this.rounds = rounds;
+        this.users = users;
+    }
+
+    /**Метод сообщает, готово ли приложение к обработке запросов.
+     @return true если приложение запущено и прогрето (или прогрев отключён)*/
+    public boolean isReady()
+    {
+        return ready;
+    }
+
+    /**Метод запускает прогрев, когда встроенный сервер уже принимает запросы.*/
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady()
+    {
+        if (!enabled)
+        {
+            ready = true;
+            return;
+        }
+        Thread thread = new Thread(() ->
+        {
+            try
+            {
+                warmUp();
+            }
+            catch (IOException | RuntimeException e)
+            {
+                log.warn("Warm-up failed, reporting readiness without it", e);
+            }
+            finally
+            {
+                ready = true;
+            }
+        }, "warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void warmUp() throws IOException
+    {
+        String tenant = tenants.createInternalTenant();
+        try
+        {
+            warmUp(new LoopbackClient(environment.getProperty("local.server.port"), tenant));
+        }
+        finally
+        {
+            tenants.removeTenant(tenant);
+        }
+    }
+
+    private void warmUp(LoopbackClient client) throws IOException
+    {
+        long start = System.nanoTime();
+        String[] userIds = new String[users];
+        for (int i = 0; i < users; i++)
+        {
+            //Отрицательные id не сдвигают счётчик id пользователей основного хранилища
+            userIds[i] = String.valueOf(-(i + 1));
+            client.send("POST", "", "{\"userId\":" + userIds[i] + ",\"userName\":\"" + USER_NAME_PREFIX + i + "\"}");
+            for (int j = 0; j < RECORDS_PER_USER; j++)
+            {
+                client.send("POST", "/phoneRecord/" + userIds[i],
+                        "{\"name\":\"name-" + j + "\",\"phoneNumber\":\"+7900000000" + j + "\"}");
+            }
+        }
+
+        //Телефонная книжка передаётся при редактировании пользователя, чтобы она не была удалена
+        StringBuilder records = new StringBuilder();
+        for (int j = 0; j < RECORDS_PER_USER; j++)
+        {
+            records.append(j == 0 ? "" : ",").append("{\"phoneRecordId\":").append(j + 1)
+                    .append(",\"name\":\"name-").append(j).append("\",\"phoneNumber\":\"+7900000000").append(j).append("\"}");
+        }
+        String phoneBook = "{\"listPhoneRecords\":[" + records + "]}";
+        String binaryFormat = App.CBOR_PRESENT ? "cbor" : App.SMILE_PRESENT ? "smile" : "json";
+
+        long[] firstRound = null;
+        long[] lastRound = null;
+        for (int round = 0; round < rounds; round++)
+        {
+            long[] latencies = new long[users * REQUESTS_PER_USER];
+            int n = 0;
+            for (int i = 0; i < users; i++)
+            {
+                String userId = userIds[i];
+                long recordId = 1 + (round + i) % RECORDS_PER_USER;
+                latencies[n++] = timed(client, "GET", "/" + userId, null);
+                latencies[n++] = timed(client, "GET", "/" + userId + "?format=" + binaryFormat, null);
+                latencies[n++] = timed(client, "GET", "/phoneRecord/" + userId + "?id=" + recordId, null);
+                latencies[n++] = timed(client, "PUT", "/phoneRecord/" + userId, "{\"phoneRecordId\":" + recordId
+                        + ",\"name\":\"name-" + recordId + "\",\"phoneNumber\":\"+7900000000" + recordId + "\"}");
+                latencies[n++] = timed(client, "GET", "/phoneRecords/" + userId + "?sort=name&limit=5", null);
+                latencies[n++] = timed(client, "GET", "/phoneRecords/phoneNumber/" + userId
+                        + "?phoneNumber=%2B79000000001", null);
+                latencies[n++] = timed(client, "GET", "/name?phoneBooks=false&partName=" + USER_NAME_PREFIX + i, null);
+                latencies[n++] = timed(client, "PUT", "", "{\"userId\":" + userId + ",\"userName\":\""
+                        + USER_NAME_PREFIX + i + "\",\"phoneBook\":" + phoneBook + "}");
+                latencies[n++] = timed(client, "GET", "/0", null);
+            }
+            //Методы с ограничением интенсивности и поток изменений вызываются по разу за проход
+            client.send("GET", "?phoneBooks=false", null);
+            client.send("GET", "/changes?waitMillis=0", null);
+            if (round == 0)
+            {
+                firstRound = latencies;
+            }
+            lastRound = latencies;
+        }
+
+        if (firstRound != null && firstRound.length > 0)
+        {
+            log.info("Warm-up finished in {} ms: p99 {} us in the first round, {} us in the last round",
+                    (System.nanoTime() - start) / 1_000_000, p99(firstRound), p99(lastRound));
+        }
+    }
+
+    /**Метод отправляет запрос и возвращает время ответа в микросекундах.*/
+    private static long timed(LoopbackClient client, String method, String path, String json) throws IOException
+    {
+        long start = System.nanoTime();
+        client.send(method, path, json);
+        return (System.nanoTime() - start) / 1000;
+    }
+
+    private static long p99(long[] latencies)
+    {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * 0.99) - 1)];
+    }
+}
@@ -0,0 +1,60 @@
+package boot.statistics;
+
+
+/**Класс представляет скетч Count-Min над ключами типа long: таблицу счётчиков,
+ * в каждой строке которой ключ попадает в один счётчик по своей хэш-функции.
+ * Оценка количества ключа - наименьший из его счётчиков; она не меньше точного
+ * количества и превышает его не больше чем на e/width от суммы всех количеств
+ * с вероятностью 1 - e^-depth. Количества можно и увеличивать, и уменьшать,
+ * пока они не становятся отрицательными. Методы не потокобезопасны.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class CountMinSketch
+{
+    private final long[][] counters;
+
+    /**Маска номера счётчика в строке, ширина строки - степень двойки*/
+    private final int mask;
+
+    /**@param depth количество строк (хэш-функций)
+     @param width количество счётчиков в строке, округляется вверх до степени двойки*/
+    public CountMinSketch(int depth, int width)
+    {
+        int size = Integer.highestOneBit(Math.max(1, width - 1)) << 1;
+        this.counters = new long[Math.max(1, depth)][size];
+        this.mask = size - 1;
+    }
+
+    /**Метод изменяет количество ключа.
+     @param key ключ
+     @param delta изменение количества, отрицательное при удалении*/
+    public void add(long key, long delta)
+    {
+        for (int row = 0; row < counters.length; row++)
+        {
+            counters[row][index(key, row)] += delta;
+        }
+    }
+
+    /**Метод оценивает количество ключа.
+     @param key ключ
+     @return оценка сверху количества ключа*/
+    public long estimate(long key)
+    {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < counters.length; row++)
+        {
+            min = Math.min(min, counters[row][index(key, row)]);
+        }
+        return min;
+    }
+
+    private int index(long key, int row)
+    {
+        //Финализатор SplitMix64 с разным приращением для каждой строки
+        long z = key + 0x9E3779B97F4A7C15L * (row + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (int) (z ^ (z >>> 31)) & mask;
+    }
+}
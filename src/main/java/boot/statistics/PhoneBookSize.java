@@ -0,0 +1,51 @@
+package boot.statistics;
+
+
+import java.util.Objects;
+
+/**Класс представляет размер телефонной книжки пользователя.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class PhoneBookSize
+{
+    /**id пользователя*/
+    private final Long userId;
+
+    /**Количество записей в телефонной книжке пользователя*/
+    private final int records;
+
+    public PhoneBookSize(Long userId, int records)
+    {
+        this.userId = userId;
+        this.records = records;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public int getRecords() {
+        return records;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PhoneBookSize)) return false;
+        PhoneBookSize that = (PhoneBookSize) o;
+        return records == that.records && Objects.equals(userId, that.userId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, records);
+    }
+
+    @Override
+    public String toString() {
+        return "PhoneBookSize{" +
+                "userId=" + userId +
+                ", records=" + records +
+                '}';
+    }
+}
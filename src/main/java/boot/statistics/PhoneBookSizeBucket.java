@@ -0,0 +1,59 @@
+package boot.statistics;
+
+
+import java.util.Objects;
+
+/**Класс представляет интервал распределения размеров телефонных книжек:
+ * количество пользователей, в книжках которых от minRecords до maxRecords записей.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class PhoneBookSizeBucket
+{
+    private final int minRecords;
+
+    private final int maxRecords;
+
+    /**Количество пользователей с размером книжки в интервале*/
+    private final long users;
+
+    public PhoneBookSizeBucket(int minRecords, int maxRecords, long users)
+    {
+        this.minRecords = minRecords;
+        this.maxRecords = maxRecords;
+        this.users = users;
+    }
+
+    public int getMinRecords() {
+        return minRecords;
+    }
+
+    public int getMaxRecords() {
+        return maxRecords;
+    }
+
+    public long getUsers() {
+        return users;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PhoneBookSizeBucket)) return false;
+        PhoneBookSizeBucket that = (PhoneBookSizeBucket) o;
+        return minRecords == that.minRecords && maxRecords == that.maxRecords && users == that.users;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minRecords, maxRecords, users);
+    }
+
+    @Override
+    public String toString() {
+        return "PhoneBookSizeBucket{" +
+                "minRecords=" + minRecords +
+                ", maxRecords=" + maxRecords +
+                ", users=" + users +
+                '}';
+    }
+}
@@ -0,0 +1,52 @@
+package boot.statistics;
+
+
+import java.util.Objects;
+
+/**Класс представляет номер телефона и количество записей с ним во всех
+ * телефонных книжках.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class PhoneNumberCount
+{
+    /**Номер телефона в каноническом виде, или как записан, если он не приводится к нему*/
+    private final String phoneNumber;
+
+    /**Оценка количества записей с этим номером, не меньше точного количества*/
+    private final long count;
+
+    public PhoneNumberCount(String phoneNumber, long count)
+    {
+        this.phoneNumber = phoneNumber;
+        this.count = count;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PhoneNumberCount)) return false;
+        PhoneNumberCount that = (PhoneNumberCount) o;
+        return count == that.count && Objects.equals(phoneNumber, that.phoneNumber);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(phoneNumber, count);
+    }
+
+    @Override
+    public String toString() {
+        return "PhoneNumberCount{" +
+                "phoneNumber='" + phoneNumber + '\'' +
+                ", count=" + count +
+                '}';
+    }
+}
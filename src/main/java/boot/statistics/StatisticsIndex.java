@@ -0,0 +1,387 @@
+package boot.statistics;
+
+
+import boot.entities.PhoneNumbers;
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+import boot.indexes.UsersIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**Класс поддерживает сводные показатели хранилища пользователей: количество
+ * пользователей и записей, распределение размеров телефонных книжек, самые большие
+ * книжки и самые частые номера телефонов. Показатели обновляются по разнице между
+ * прежним и текущим состоянием изменённого пользователя, а при изменении одной
+ * записи - только по этой записи, поэтому ни запрос показателей, ни изменение
+ * записи не просматривают хранилище и всю телефонную книжку.
+ *
+ * Частые номера считаются приближённо: количества номеров хранятся в скетче
+ * Count-Min, а номера-кандидаты в частые - в таблице ограниченного размера, куда
+ * номер попадает при увеличении его количества, если оно больше наименьшего
+ * из количеств кандидатов. Номера сравниваются в каноническом виде.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class StatisticsIndex implements UsersIndex
+{
+    /**Количество номеров-кандидатов в частые, не меньше наибольшего запрашиваемого количества*/
+    public static final int MAX_TOP_PHONE_NUMBERS = 256;
+
+    /**Количество строк скетча: вероятность превышения погрешности e^-4, около 2%*/
+    private static final int SKETCH_DEPTH = 4;
+
+    /**Ширина строки скетча: погрешность количества номера до 0.03% от всех записей*/
+    private static final int SKETCH_WIDTH = 1 << 13;
+
+    /**Количество интервалов распределения размеров книжек: 0, 1, 2-3, ..., 2^30-(2^31-1)*/
+    private static final int SIZE_BUCKETS = 33;
+
+    /**Книжки пользователей в том виде, в каком они учтены в показателях*/
+    private final Map<Long, Book> books = new HashMap<>();
+
+    /**Книжки в порядке убывания размера, при равном размере - по возрастанию id*/
+    private final TreeSet<PhoneBookSize> bySize = new TreeSet<>(
+            Comparator.comparingInt(PhoneBookSize::getRecords).reversed()
+                    .thenComparing(PhoneBookSize::getUserId));
+
+    /**Количество пользователей в каждом интервале размеров книжек*/
+    private final long[] sizeBuckets = new long[SIZE_BUCKETS];
+
+    private long phoneRecords;
+
+    private final CountMinSketch numberCounts = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+
+    /**Номера-кандидаты в частые по их ключам*/
+    private final Map<Long, Candidate> candidates = new HashMap<>();
+
+    @Override
+    public synchronized void put(User user)
+    {
+        Book current = Book.of(user);
+        Book previous = books.put(user.getUserId(), current);
+        if (previous != null)
+        {
+            unaccount(user.getUserId(), previous);
+        }
+        account(user.getUserId(), current);
+        List<PhoneRecord> phoneRecords = user.getPhoneBook() == null ? null : user.getPhoneBook().getListPhoneRecords();
+        if (previous == null)
+        {
+            countNumbers(Book.NO_NUMBERS, 0, current.numbers, current.size, phoneRecords);
+        }
+        else
+        {
+            countNumbers(previous.numbers, previous.size, current.numbers, current.size, phoneRecords);
+        }
+    }
+
+    @Override
+    public synchronized void remove(Long userId)
+    {
+        Book previous = books.remove(userId);
+        if (previous != null)
+        {
+            unaccount(userId, previous);
+            countNumbers(previous.numbers, previous.size, Book.NO_NUMBERS, 0, null);
+        }
+    }
+
+    @Override
+    public synchronized void phoneRecordChanged(Long userId, PhoneRecord removed, PhoneRecord added)
+    {
+        Book book = books.get(userId);
+        if (book == null)
+        {
+            return;//Пользователь будет занесён целиком
+        }
+        int records = book.records + (added == null ? 0 : 1) - (removed == null ? 0 : 1);
+        if (records != book.records)
+        {
+            unaccount(userId, book);
+            book.records = records;
+            account(userId, book);
+        }
+        boolean removedNumber = removed != null && removed.getPhoneNumber() != null;
+        boolean addedNumber = added != null && added.getPhoneNumber() != null;
+        long removedKey = removedNumber ? Book.keyOf(removed) : 0;
+        long addedKey = addedNumber ? Book.keyOf(added) : 0;
+        if (removedNumber && addedNumber && removedKey == addedKey)
+        {
+            return;//Номер записи не изменился
+        }
+        if (removedNumber && book.removeNumber(removedKey))
+        {
+            count(removedKey, -1, null);
+        }
+        if (addedNumber)
+        {
+            book.addNumber(addedKey);
+            count(addedKey, 1, Collections.singletonList(added));
+        }
+    }
+
+    /**Метод возвращает количество пользователей, записей и распределение размеров
+     * телефонных книжек.
+     @return сводные показатели*/
+    public synchronized UsersStatistics getStatistics()
+    {
+        int last = 0;
+        for (int i = 0; i < SIZE_BUCKETS; i++)
+        {
+            if (sizeBuckets[i] != 0)
+            {
+                last = i;
+            }
+        }
+        List<PhoneBookSizeBucket> distribution = new ArrayList<>(last + 1);
+        for (int i = 0; i <= last; i++)
+        {
+            int min = i == 0 ? 0 : 1 << (i - 1);
+            int max = i == 0 ? 0 : (int) Math.min(Integer.MAX_VALUE, (1L << i) - 1);
+            distribution.add(new PhoneBookSizeBucket(min, max, sizeBuckets[i]));
+        }
+        int maxSize = bySize.isEmpty() ? 0 : bySize.first().getRecords();
+        return new UsersStatistics(books.size(), phoneRecords, maxSize, distribution);
+    }
+
+    /**Метод возвращает самые большие телефонные книжки.
+     @param limit наибольшее количество книжек
+     @return размеры книжек по убыванию*/
+    public synchronized List<PhoneBookSize> getLargestPhoneBooks(int limit)
+    {
+        List<PhoneBookSize> largest = new ArrayList<>(Math.min(limit, bySize.size()));
+        for (Iterator<PhoneBookSize> iterator = bySize.iterator(); iterator.hasNext() && largest.size() < limit; )
+        {
+            largest.add(iterator.next());
+        }
+        return largest;
+    }
+
+    /**Метод возвращает самые частые номера телефонов во всех телефонных книжках.
+     @param limit наибольшее количество номеров, не больше MAX_TOP_PHONE_NUMBERS
+     @return номера по убыванию количества записей с ними*/
+    public synchronized List<PhoneNumberCount> getTopPhoneNumbers(int limit)
+    {
+        List<PhoneNumberCount> top = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates.values())
+        {
+            top.add(new PhoneNumberCount(candidate.phoneNumber, candidate.count));
+        }
+        top.sort(Comparator.comparingLong(PhoneNumberCount::getCount).reversed()
+                .thenComparing(PhoneNumberCount::getPhoneNumber));
+        return top.size() > limit ? new ArrayList<>(top.subList(0, limit)) : top;
+    }
+
+    private void account(Long userId, Book book)
+    {
+        phoneRecords += book.records;
+        sizeBuckets[bucketOf(book.records)]++;
+        bySize.add(new PhoneBookSize(userId, book.records));
+    }
+
+    private void unaccount(Long userId, Book book)
+    {
+        phoneRecords -= book.records;
+        sizeBuckets[bucketOf(book.records)]--;
+        bySize.remove(new PhoneBookSize(userId, book.records));
+    }
+
+    private static int bucketOf(int records)
+    {
+        return 32 - Integer.numberOfLeadingZeros(records);
+    }
+
+    /**Метод применяет к скетчу разницу между прежними и текущими номерами книжки,
+     * проходя оба упорядоченных массива ключей одновременно.
+     @param phoneRecords текущие записи книжки, по которым находится номер
+     в исходной записи, или null если пользователь удалён*/
+    private void countNumbers(long[] previous, int previousSize, long[] current, int currentSize,
+                              List<PhoneRecord> phoneRecords)
+    {
+        int i = 0;
+        int j = 0;
+        while (i < previousSize || j < currentSize)
+        {
+            long key;
+            if (j == currentSize || (i < previousSize && previous[i] < current[j]))
+            {
+                key = previous[i];
+            }
+            else
+            {
+                key = current[j];
+            }
+            long delta = 0;
+            for (; i < previousSize && previous[i] == key; i++)
+            {
+                delta--;
+            }
+            for (; j < currentSize && current[j] == key; j++)
+            {
+                delta++;
+            }
+            if (delta != 0)
+            {
+                count(key, delta, phoneRecords);
+            }
+        }
+    }
+
+    /**@param phoneRecords записи, среди которых есть запись с номером, если количество растёт*/
+    private void count(long key, long delta, List<PhoneRecord> phoneRecords)
+    {
+        numberCounts.add(key, delta);
+        long estimate = numberCounts.estimate(key);
+        Candidate candidate = candidates.get(key);
+        if (candidate != null)
+        {
+            if (estimate <= 0)
+            {
+                candidates.remove(key);
+            }
+            else
+            {
+                candidate.count = estimate;
+            }
+            return;
+        }
+        if (delta < 0)
+        {
+            return;//Номер стал реже и в кандидаты не попадает
+        }
+        if (candidates.size() >= MAX_TOP_PHONE_NUMBERS)
+        {
+            Map.Entry<Long, Candidate> rarest = null;
+            for (Map.Entry<Long, Candidate> entry : candidates.entrySet())
+            {
+                if (rarest == null || entry.getValue().count < rarest.getValue().count)
+                {
+                    rarest = entry;
+                }
+            }
+            if (rarest.getValue().count >= estimate)
+            {
+                return;
+            }
+            candidates.remove(rarest.getKey());
+        }
+        candidates.put(key, new Candidate(phoneNumberOf(key, phoneRecords), estimate));
+    }
+
+    /**Метод возвращает номер телефона для отчёта по его ключу: канонический вид,
+     * а для номеров без канонического вида - номер из записи с этим ключом.*/
+    private static String phoneNumberOf(long key, List<PhoneRecord> phoneRecords)
+    {
+        if (key >= 0)
+        {
+            return PhoneNumbers.canonical(key);
+        }
+        for (PhoneRecord phoneRecord : phoneRecords)
+        {
+            if (phoneRecord.getPhoneNumber() != null && Book.keyOf(phoneRecord) == key)
+            {
+                return phoneRecord.getPhoneNumber();
+            }
+        }
+        throw new IllegalStateException("Phone number with key " + key + " not found.");
+    }
+
+    /**Книжка пользователя в том виде, в каком она учтена в показателях: количество
+     * записей и упорядоченные ключи их номеров телефонов с повторами. Ключ отдельной
+     * записи вставляется и удаляется двоичным поиском без упорядочивания всех ключей.*/
+    private static final class Book
+    {
+        static final long[] NO_NUMBERS = new long[0];
+
+        int records;
+
+        long[] numbers;
+
+        /**Количество занятых элементов массива ключей*/
+        int size;
+
+        Book(int records, long[] numbers)
+        {
+            this.records = records;
+            this.numbers = numbers;
+            this.size = numbers.length;
+        }
+
+        static Book of(User user)
+        {
+            if (user.getPhoneBook() == null)
+            {
+                return new Book(0, NO_NUMBERS);
+            }
+            List<PhoneRecord> phoneRecords = user.getPhoneBook().getListPhoneRecords();
+            long[] numbers = new long[phoneRecords.size()];
+            int count = 0;
+            for (PhoneRecord phoneRecord : phoneRecords)
+            {
+                if (phoneRecord.getPhoneNumber() != null)
+                {
+                    numbers[count++] = keyOf(phoneRecord);
+                }
+            }
+            numbers = count == numbers.length ? numbers : Arrays.copyOf(numbers, count);
+            Arrays.sort(numbers);
+            return new Book(phoneRecords.size(), numbers);
+        }
+
+        void addNumber(long key)
+        {
+            int index = Arrays.binarySearch(numbers, 0, size, key);
+            index = index < 0 ? -index - 1 : index;
+            if (size == numbers.length)
+            {
+                numbers = Arrays.copyOf(numbers, Math.max(4, size + (size >> 1)));
+            }
+            System.arraycopy(numbers, index, numbers, index + 1, size - index);
+            numbers[index] = key;
+            size++;
+        }
+
+        /**@return true если ключ был в книжке*/
+        boolean removeNumber(long key)
+        {
+            int index = Arrays.binarySearch(numbers, 0, size, key);
+            if (index < 0)
+            {
+                return false;
+            }
+            System.arraycopy(numbers, index + 1, numbers, index, size - index - 1);
+            size--;
+            if (size < numbers.length >> 2)
+            {
+                numbers = size == 0 ? NO_NUMBERS : Arrays.copyOf(numbers, size << 1);
+            }
+            return true;
+        }
+
+        static long keyOf(PhoneRecord phoneRecord)
+        {
+            return PhoneNumbers.numericMatchKey(phoneRecord.getPhoneNumber(), phoneRecord.getPhoneKey());
+        }
+    }
+
+    /**Номер-кандидат в частые и оценка количества записей с ним*/
+    private static final class Candidate
+    {
+        final String phoneNumber;
+
+        long count;
+
+        Candidate(String phoneNumber, long count)
+        {
+            this.phoneNumber = phoneNumber;
+            this.count = count;
+        }
+    }
+}
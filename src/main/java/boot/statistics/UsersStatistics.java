@@ -0,0 +1,53 @@
+package boot.statistics;
+
+
+import java.util.List;
+
+/**Класс представляет сводные показатели хранилища пользователей.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class UsersStatistics
+{
+    /**Количество пользователей*/
+    private final long users;
+
+    /**Количество записей во всех телефонных книжках*/
+    private final long phoneRecords;
+
+    /**Наибольшее количество записей в телефонной книжке одного пользователя*/
+    private final int maxPhoneBookSize;
+
+    /**Распределение размеров телефонных книжек по интервалам 0, 1, 2-3, 4-7 и т.д.
+     * до интервала наибольшей книжки*/
+    private final List<PhoneBookSizeBucket> phoneBookSizes;
+
+    public UsersStatistics(long users, long phoneRecords, int maxPhoneBookSize,
+                           List<PhoneBookSizeBucket> phoneBookSizes)
+    {
+        this.users = users;
+        this.phoneRecords = phoneRecords;
+        this.maxPhoneBookSize = maxPhoneBookSize;
+        this.phoneBookSizes = phoneBookSizes;
+    }
+
+    public long getUsers() {
+        return users;
+    }
+
+    public long getPhoneRecords() {
+        return phoneRecords;
+    }
+
+    public int getMaxPhoneBookSize() {
+        return maxPhoneBookSize;
+    }
+
+    /**@return среднее количество записей в телефонной книжке, 0 если пользователей нет*/
+    public double getAveragePhoneBookSize() {
+        return users == 0 ? 0 : (double) phoneRecords / users;
+    }
+
+    public List<PhoneBookSizeBucket> getPhoneBookSizes() {
+        return phoneBookSizes;
+    }
+}
@@ -0,0 +1,41 @@
+package boot.tenants;
+
+
+/**Класс хранит организацию-арендатора, к данным которой относится запрос,
+ * обрабатываемый текущим потоком. Арендатор задаётся перехватчиком TenantInterceptor
+ * по заголовку запроса X-Tenant-Id; запросы без заголовка относятся к арендатору
+ * по умолчанию, данные которого хранятся в основном хранилище приложения.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public final class TenantContext
+{
+    /**Заголовок запроса с идентификатором арендатора*/
+    public static final String TENANT_HEADER = "X-Tenant-Id";
+
+    /**Арендатор запросов без заголовка X-Tenant-Id*/
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext()
+    {
+    }
+
+    /**Метод возвращает арендатора запроса, обрабатываемого текущим потоком.
+     @return идентификатор арендатора, DEFAULT_TENANT если он не задан*/
+    public static String current()
+    {
+        String tenant = CURRENT.get();
+        return tenant == null ? DEFAULT_TENANT : tenant;
+    }
+
+    static void set(String tenant)
+    {
+        CURRENT.set(tenant);
+    }
+
+    static void clear()
+    {
+        CURRENT.remove();
+    }
+}
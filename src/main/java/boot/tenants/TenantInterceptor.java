@@ -0,0 +1,86 @@
+package boot.tenants;
+
+
+import boot.exceptions.ServiceOverloadedException;
+import boot.limits.AdaptiveConcurrencyLimiter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**Класс представляет перехватчик Http-запросов, определяющий арендатора запроса
+ * по заголовку X-Tenant-Id и ограничивающий количество одновременно обрабатываемых
+ * запросов каждого арендатора (Http-статус 503), чтобы нагрузка одного арендатора
+ * не увеличивала задержки остальных.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class TenantInterceptor implements AsyncHandlerInterceptor
+{
+    /**Имя атрибута запроса, который задаётся запросам служебных арендаторов*/
+    public static final String INTERNAL_TENANT_ATTRIBUTE = TenantInterceptor.class.getName() + ".INTERNAL";
+
+    /**Имя атрибута запроса с ограничителем параллельности арендатора, в котором занято место*/
+    private static final String LIMITER_ATTRIBUTE = TenantInterceptor.class.getName() + ".LIMITER";
+
+    /**Имя атрибута запроса со временем начала обработки*/
+    private static final String START_ATTRIBUTE = TenantInterceptor.class.getName() + ".START";
+
+    /**Через сколько секунд клиенту предлагается повторить отклонённый запрос*/
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final TenantRegistry tenants;
+
+    public TenantInterceptor(TenantRegistry tenants)
+    {
+        this.tenants = tenants;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+    {
+        /*При асинхронной обработке хранилище арендатора выбрано при первой диспетчеризации,
+        а место в ограничителе освобождается после завершения запроса*/
+        if (request.getDispatcherType() == DispatcherType.ASYNC)
+        {
+            return true;
+        }
+        String tenant = tenants.resolveName(request.getHeader(TenantContext.TENANT_HEADER));
+        AdaptiveConcurrencyLimiter limiter = tenants.limiterFor(tenant);
+        if (!limiter.tryAcquire())
+        {
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            throw new ServiceOverloadedException("Too many concurrent requests of tenant " + tenant);
+        }
+        request.setAttribute(LIMITER_ATTRIBUTE, limiter);
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        if (tenants.isInternal(tenant))
+        {
+            request.setAttribute(INTERNAL_TENANT_ATTRIBUTE, Boolean.TRUE);
+        }
+        TenantContext.set(tenant);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler)
+    {
+        TenantContext.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex)
+    {
+        TenantContext.clear();
+        Object limiter = request.getAttribute(LIMITER_ATTRIBUTE);
+        if (limiter != null)
+        {
+            request.removeAttribute(LIMITER_ATTRIBUTE);
+            long start = (Long) request.getAttribute(START_ATTRIBUTE);
+            ((AdaptiveConcurrencyLimiter) limiter).release(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package boot.tenants;
+
+
+import boot.dao.InMemoryUsersDao;
+import boot.dao.SharedMemoryBudget;
+import boot.entities.UserIdGenerator;
+import boot.exceptions.InvalidRequestParameterException;
+import boot.exceptions.StorageLimitExceededException;
+import boot.history.UsersHistory;
+import boot.limits.AdaptiveConcurrencyLimiter;
+import boot.services.UsersService;
+import boot.services.UsersServiceImpl;
+import boot.services.UsersWritePipeline;
+import boot.tracing.UsersServiceTracing;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**Класс хранит изолированные хранилища организаций-арендаторов. У каждого
+ * арендатора, кроме арендатора по умолчанию, своё хранилище в оперативной памяти
+ * со своим бюджетом памяти, своими вторичными индексами, историей, потоком
+ * изменений и генератором id пользователей. Хранилище создаётся при первом запросе
+ * арендатора, если не превышено наибольшее количество арендаторов. Арендатор
+ * по умолчанию использует основное хранилище приложения (в том числе файловое).
+ * Хранилище арендатора оборачивается так же, как основное: конвейером записи,
+ * если он включён, и трассировкой операций.
+ *
+ * Хранилища арендаторов, кроме собственных бюджетов, входят в общий бюджет памяти,
+ * поэтому наибольшее количество арендаторов, умноженное на бюджет одного, может
+ * превышать доступную память: при исчерпании общего бюджета отклоняются записи,
+ * увеличивающие любое из хранилищ. Данные арендаторов не вытесняются.
+ *
+ * Каждому арендатору, включая арендатора по умолчанию, выделен свой адаптивный
+ * ограничитель количества одновременно обрабатываемых запросов; ограничитель
+ * создаётся вместе с хранилищем и удаляется вместе с ним. Затратные запросы всех
+ * арендаторов выполняются в общем пуле QueryExecutor, в котором у арендатора
+ * ограничено количество запросов, а не отдельный пул.
+ *
+ * Служебные арендаторы (например, для прогрева приложения) создаются со случайным
+ * идентификатором и удаляются, когда становятся не нужны.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@Component
+public class TenantRegistry implements InitializingBean, DisposableBean
+{
+    /**Допустимый идентификатор арендатора: латинские буквы, цифры, '_', '-' и '.'*/
+    private static final Pattern TENANT_NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9_.-]{0,63}");
+
+    /**Арендаторы со своими хранилищами по их идентификаторам*/
+    private final Map<String, Tenant> tenants = new ConcurrentHashMap<>();
+
+    /**Ограничитель параллельности арендатора по умолчанию*/
+    private final AdaptiveConcurrencyLimiter defaultLimiter;
+
+    /**Общий бюджет памяти хранилищ всех арендаторов*/
+    private final SharedMemoryBudget sharedBudget;
+
+    /**Идентификаторы служебных арендаторов*/
+    private final Set<String> internalTenants = ConcurrentHashMap.newKeySet();
+
+    /**Наибольшее количество арендаторов со своими хранилищами*/
+    private final int maxTenants;
+
+    /**Бюджет памяти хранилища одного арендатора в байтах*/
+    private final long memoryBudgetBytes;
+
+    /**Наибольшее количество одновременно обрабатываемых запросов одного арендатора*/
+    private final int maxConcurrency;
+
+    private final int maxRecordsPerUser;
+
+    private final long historyRetentionMillis;
+
+    /**Включён ли конвейер записи (users.write-pipeline.enabled)*/
+    private boolean writePipeline;
+
+    private int pipelineQueueCapacity;
+
+    private int pipelineMaxBatchSize;
+
+    /**Трассировка операций сервиса, или null если она отключена*/
+    private UsersServiceTracing tracing;
+
+    /**Поток удаления устаревших версий из историй арендаторов*/
+    private ScheduledExecutorService collector;
+
+    /**Конструктор создаёт реестр с общим бюджетом памяти по умолчанию.*/
+    public TenantRegistry(int maxTenants, long memoryBudgetBytes, int maxConcurrency,
+                          int maxRecordsPerUser, long historyRetentionMillis)
+    {
+        this(maxTenants, memoryBudgetBytes, 0, maxConcurrency, maxRecordsPerUser, historyRetentionMillis);
+    }
+
+    /**@param totalMemoryBytes общий бюджет памяти хранилищ всех арендаторов,
+     0 - четверть максимального размера кучи*/
+    @Autowired
+    public TenantRegistry(@Value("${app.tenants.max-tenants:1000}") int maxTenants,
+                          @Value("${app.tenants.memory-budget-bytes:67108864}") long memoryBudgetBytes,
+                          @Value("${app.tenants.total-memory-bytes:0}") long totalMemoryBytes,
+                          @Value("${app.tenants.max-concurrency:32}") int maxConcurrency,
+                          @Value("${users.memory.max-records-per-user:100000}") int maxRecordsPerUser,
+                          @Value("${users.history.retention-millis:86400000}") long historyRetentionMillis)
+    {
+        this.maxTenants = maxTenants;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.maxConcurrency = maxConcurrency;
+        this.maxRecordsPerUser = maxRecordsPerUser;
+        this.historyRetentionMillis = historyRetentionMillis;
+        this.defaultLimiter = new AdaptiveConcurrencyLimiter(maxConcurrency);
+        this.sharedBudget = new SharedMemoryBudget(totalMemoryBytes > 0 ? totalMemoryBytes
+                : Runtime.getRuntime().maxMemory() / 4);
+    }
+
+    /**Метод задаёт обёртки хранилищ арендаторов, такие же, как у основного хранилища.
+     * Применяется к хранилищам, созданным после вызова.
+     @param writePipeline true если изменения применяются конвейером записи UsersWritePipeline
+     @param pipelineQueueCapacity максимальное количество изменений в очереди конвейера
+     @param pipelineMaxBatchSize максимальное количество изменений, применяемых одним пакетом
+     @param tracing трассировка операций сервиса, или null если она отключена*/
+    @Autowired
+    public void configureStores(@Value("${users.write-pipeline.enabled:false}") boolean writePipeline,
+                                @Value("${users.write-pipeline.queue-capacity:65536}") int pipelineQueueCapacity,
+                                @Value("${users.write-pipeline.max-batch-size:256}") int pipelineMaxBatchSize,
+                                @Nullable UsersServiceTracing tracing)
+    {
+        this.writePipeline = writePipeline;
+        this.pipelineQueueCapacity = pipelineQueueCapacity;
+        this.pipelineMaxBatchSize = pipelineMaxBatchSize;
+        this.tracing = tracing;
+    }
+
+    /**Метод запускает фоновое удаление устаревших версий из историй арендаторов
+     * с периодом в четверть окна хранения, как у основной истории.*/
+    @Override
+    public void afterPropertiesSet()
+    {
+        long period = Math.max(1000, historyRetentionMillis / 4);
+        collector = Executors.newSingleThreadScheduledExecutor(task ->
+        {
+            Thread thread = new Thread(task, "tenants-history-gc");
+            thread.setDaemon(true);
+            return thread;
+        });
+        collector.scheduleWithFixedDelay(() -> tenants.values().forEach(tenant -> tenant.history.collectGarbage()),
+                period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy()
+    {
+        if (collector != null)
+        {
+            collector.shutdownNow();
+        }
+        tenants.values().forEach(Tenant::stop);
+    }
+
+    /**Метод проверяет идентификатор арендатора из запроса.
+     @param tenant идентификатор арендатора, или null если он не указан
+     @return идентификатор арендатора, DEFAULT_TENANT если он не указан
+     @throws InvalidRequestParameterException если идентификатор недопустим*/
+    public String resolveName(String tenant)
+    {
+        if (tenant == null || tenant.isEmpty())
+        {
+            return TenantContext.DEFAULT_TENANT;
+        }
+        if (!TENANT_NAME.matcher(tenant).matches())
+        {
+            throw new InvalidRequestParameterException("Invalid tenant " + tenant + ".");
+        }
+        return tenant;
+    }
+
+    /**Метод возвращает хранилище арендатора, создавая его при первом обращении.
+     @param tenant идентификатор арендатора
+     @param defaultService хранилище арендатора по умолчанию
+     @return хранилище арендатора
+     @throws StorageLimitExceededException если создано наибольшее количество хранилищ арендаторов*/
+    public UsersService serviceFor(String tenant, UsersService defaultService)
+    {
+        if (TenantContext.DEFAULT_TENANT.equals(tenant))
+        {
+            return defaultService;
+        }
+        return tenantOf(tenant).service;
+    }
+
+    /**Метод возвращает ограничитель количества одновременно обрабатываемых запросов
+     * арендатора, создавая хранилище арендатора при первом обращении.
+     @param tenant идентификатор арендатора
+     @return ограничитель параллельности
+     @throws StorageLimitExceededException если создано наибольшее количество хранилищ арендаторов*/
+    public AdaptiveConcurrencyLimiter limiterFor(String tenant)
+    {
+        if (TenantContext.DEFAULT_TENANT.equals(tenant))
+        {
+            return defaultLimiter;
+        }
+        return tenantOf(tenant).limiter;
+    }
+
+    /**Метод создаёт служебного арендатора со случайным идентификатором и пустым хранилищем.
+     * Служебные арендаторы не учитываются в наибольшем количестве арендаторов, а их запросы -
+     * в ограничениях методов-обработчиков, чтобы служебная нагрузка не изменяла оценку
+     * времени обработки настоящих запросов.
+     @return идентификатор служебного арендатора*/
+    public synchronized String createInternalTenant()
+    {
+        String tenant = "internal-" + UUID.randomUUID();
+        internalTenants.add(tenant);
+        putTenant(tenant);
+        return tenant;
+    }
+
+    /**Метод сообщает, является ли арендатор служебным.
+     @param tenant идентификатор арендатора
+     @return true если арендатор создан методом createInternalTenant и ещё не удалён*/
+    public boolean isInternal(String tenant)
+    {
+        return internalTenants.contains(tenant);
+    }
+
+    /**Метод удаляет хранилище арендатора вместе с его данными, историей и ограничителем,
+     * останавливает его конвейер записи и возвращает занятую хранилищем память в общий бюджет.
+     @param tenant идентификатор арендатора*/
+    public synchronized void removeTenant(String tenant)
+    {
+        Tenant removed = tenants.remove(tenant);
+        if (removed != null)
+        {
+            removed.stop();
+            removed.usersDao.releaseSharedBudget();
+        }
+        internalTenants.remove(tenant);
+    }
+
+    private Tenant tenantOf(String tenant)
+    {
+        Tenant existing = tenants.get(tenant);
+        return existing != null ? existing : createTenant(tenant);
+    }
+
+    private synchronized Tenant createTenant(String tenant)
+    {
+        Tenant existing = tenants.get(tenant);
+        if (existing != null)
+        {
+            return existing;
+        }
+        if (tenants.size() - internalTenants.size() >= maxTenants)
+        {
+            throw new StorageLimitExceededException("Tenants limit " + maxTenants + " is reached.");
+        }
+        return putTenant(tenant);
+    }
+
+    private Tenant putTenant(String tenant)
+    {
+        InMemoryUsersDao usersDao = new InMemoryUsersDao(memoryBudgetBytes, sharedBudget);
+        UsersHistory history = new UsersHistory(historyRetentionMillis);
+        UsersServiceImpl store = wrap(new UsersServiceImpl(usersDao, maxRecordsPerUser, history,
+                new UserIdGenerator()), "usersServiceImpl", tenant);
+        UsersWritePipeline pipeline = writePipeline
+                ? wrap(new UsersWritePipeline(store, pipelineQueueCapacity, pipelineMaxBatchSize),
+                        "usersWritePipeline", tenant)
+                : null;
+        Tenant created = new Tenant(usersDao, pipeline != null ? pipeline : store, pipeline, history,
+                new AdaptiveConcurrencyLimiter(maxConcurrency));
+        tenants.put(tenant, created);
+        return created;
+    }
+
+    /**Метод оборачивает реализацию сервиса арендатора трассировкой, как компонент
+     * основного хранилища с тем же именем.
+     @return прокси, наследующий класс реализации, или сама реализация если трассировка отключена*/
+    @SuppressWarnings("unchecked")
+    private <T extends UsersService> T wrap(T service, String beanName, String tenant)
+    {
+        return tracing == null ? service
+                : (T) tracing.postProcessAfterInitialization(service, beanName + "." + tenant);
+    }
+
+    /**Арендатор со своим хранилищем: хранилище, сервис, через который к нему обращаются
+     * запросы, конвейер записи, история и ограничитель параллельности*/
+    private static final class Tenant
+    {
+        final InMemoryUsersDao usersDao;
+
+        /**Сервис арендатора: конвейер записи, если он включён, иначе само хранилище*/
+        final UsersService service;
+
+        /**Конвейер записи, или null если изменения выполняются под блокировками хранилища*/
+        final UsersWritePipeline pipeline;
+
+        final UsersHistory history;
+
+        final AdaptiveConcurrencyLimiter limiter;
+
+        Tenant(InMemoryUsersDao usersDao, UsersService service, UsersWritePipeline pipeline,
+               UsersHistory history, AdaptiveConcurrencyLimiter limiter)
+        {
+            this.usersDao = usersDao;
+            this.service = service;
+            this.pipeline = pipeline;
+            this.history = history;
+            this.limiter = limiter;
+        }
+
+        /**Метод останавливает поток-писатель конвейера записи арендатора.*/
+        void stop()
+        {
+            if (pipeline == null)
+            {
+                return;
+            }
+            try
+            {
+                pipeline.destroy();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
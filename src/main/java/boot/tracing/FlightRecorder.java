@@ -0,0 +1,112 @@
+package boot.tracing;
+
+
+import boot.exceptions.EntityNotFoundException;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**Класс запускает по запросу запись Java Flight Recorder с настройками "profile"
+ * и событиями приложения (boot.Request и boot.UsersServiceOperation) и отдаёт
+ * результат записи в виде файла. Одновременно идёт не больше одной записи;
+ * запись, которую не забрали, останавливается сама по истечении заданного времени.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@Component
+public class FlightRecorder implements DisposableBean
+{
+    /**Текущая запись, или null если записи нет*/
+    private Recording recording;
+
+    /**Метод запускает запись, если она ещё не идёт.
+     @param maxDurationSeconds время, через которое запись остановится сама
+     @return состояние записи*/
+    public synchronized RecordingStatus start(long maxDurationSeconds)
+    {
+        if (recording == null)
+        {
+            try
+            {
+                Recording started = new Recording(Configuration.getConfiguration("profile"));
+                started.setName("users-on-demand");
+                started.enable(RequestEvent.class);
+                started.enable(ServiceOperationEvent.class);
+                started.setDuration(Duration.ofSeconds(maxDurationSeconds));
+                started.setToDisk(true);
+                started.start();
+                recording = started;
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            catch (ParseException e)
+            {
+                throw new IllegalStateException("JFR configuration \"profile\" is invalid", e);
+            }
+        }
+        return status();
+    }
+
+    /**Метод возвращает состояние записи.
+     @return состояние записи
+     @throws EntityNotFoundException если записи нет*/
+    public synchronized RecordingStatus status()
+    {
+        if (recording == null)
+        {
+            throw new EntityNotFoundException("No flight recording in progress.");
+        }
+        return new RecordingStatus(recording.getId(), recording.getState().name(),
+                recording.getStartTime() == null ? null : recording.getStartTime().toEpochMilli(),
+                recording.getDuration() == null ? 0 : recording.getDuration().getSeconds());
+    }
+
+    /**Метод останавливает запись и сохраняет её во временный файл, который
+     * вызывающий должен удалить после чтения.
+     @return путь к файлу записи
+     @throws EntityNotFoundException если записи нет*/
+    public synchronized Path stop() throws IOException
+    {
+        if (recording == null)
+        {
+            throw new EntityNotFoundException("No flight recording in progress.");
+        }
+        Recording stopped = recording;
+        recording = null;
+        try
+        {
+            //Запись могла уже остановиться сама по истечении времени
+            if (stopped.getState() == RecordingState.RUNNING)
+            {
+                stopped.stop();
+            }
+            Path file = Files.createTempFile("users-", ".jfr");
+            stopped.dump(file);
+            return file;
+        }
+        finally
+        {
+            stopped.close();
+        }
+    }
+
+    @Override
+    public synchronized void destroy()
+    {
+        if (recording != null)
+        {
+            recording.close();
+            recording = null;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package boot.tracing;
+
+
+import java.util.Objects;
+
+/**Класс представляет состояние записи Java Flight Recorder для ответа клиенту.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class RecordingStatus
+{
+    /**id записи в JFR*/
+    private final long id;
+
+    /**Состояние записи: RUNNING, STOPPED и т.д.*/
+    private final String state;
+
+    /**Время начала записи в миллисекундах, или null если запись ещё не началась*/
+    private final Long startedAt;
+
+    /**Время, через которое запись остановится сама, в секундах*/
+    private final long maxDurationSeconds;
+
+    public RecordingStatus(long id, String state, Long startedAt, long maxDurationSeconds)
+    {
+        this.id = id;
+        this.state = state;
+        this.startedAt = startedAt;
+        this.maxDurationSeconds = maxDurationSeconds;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public Long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getMaxDurationSeconds() {
+        return maxDurationSeconds;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RecordingStatus)) return false;
+        RecordingStatus that = (RecordingStatus) o;
+        return id == that.id &&
+                maxDurationSeconds == that.maxDurationSeconds &&
+                Objects.equals(state, that.state) &&
+                Objects.equals(startedAt, that.startedAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, state, startedAt, maxDurationSeconds);
+    }
+
+    @Override
+    public String toString() {
+        return "RecordingStatus{" +
+                "id=" + id +
+                ", state='" + state + '\'' +
+                ", startedAt=" + startedAt +
+                ", maxDurationSeconds=" + maxDurationSeconds +
+                '}';
+    }
+}
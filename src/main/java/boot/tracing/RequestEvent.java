@@ -0,0 +1,62 @@
+package boot.tracing;
+
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**Класс представляет событие Java Flight Recorder об обработке Http-запроса
+ * с разбиением времени обработки по фазам. Событие создаётся, только пока идёт
+ * запись JFR, в которой оно включено, чтобы запросы без записи не выделяли память.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@Name("boot.Request")
+@Label("Users Request")
+@Category("Users")
+@Description("Обработка Http-запроса к приложению")
+@StackTrace(false)
+class RequestEvent extends jdk.jfr.Event
+{
+    @Label("Method")
+    String method;
+
+    @Label("Path")
+    String path;
+
+    @Label("Handler")
+    String handler;
+
+    @Label("Status")
+    int status;
+
+    @Label("Controller Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long controllerNanos;
+
+    @Label("Service Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long serviceNanos;
+
+    @Label("Serialization Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long serializationNanos;
+
+    @Label("Entities")
+    int entities;
+
+    @Label("Phone Records")
+    long phoneRecords;
+
+    private static final EventType TYPE = EventType.getEventType(RequestEvent.class);
+
+    /**Метод сообщает, включено ли событие в какой-либо идущей записи JFR.
+     @return true если событие нужно создавать*/
+    static boolean enabled()
+    {
+        return TYPE.isEnabled();
+    }
+}
@@ -0,0 +1,199 @@
+package boot.tracing;
+
+
+import boot.entities.BatchResult;
+import boot.entities.PhoneBook;
+import boot.entities.User;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**Класс накапливает время обработки одного Http-запроса по фазам: работа контроллёра,
+ * вызовы UsersService и сериализация ответа, а также размер сущностей в ответе.
+ * Трассировка запроса доступна потоку, который его обрабатывает, через метод current,
+ * а задачам, выполняемым для запроса в других потоках, - через метод propagate.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class RequestTrace
+{
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private static final List<GarbageCollectorMXBean> COLLECTORS = ManagementFactory.getGarbageCollectorMXBeans();
+
+    /**Событие JFR, длительность которого - всё время обработки запроса,
+     или null если в начале обработки событие не было включено в записи JFR*/
+    final RequestEvent event;
+
+    /**Время начала обработки запроса*/
+    final long startNanos;
+
+    /**Суммарное время сборок мусора на момент начала обработки, в миллисекундах*/
+    final long startGcMillis;
+
+    /**Время, когда метод контроллёра вернул ответ, или 0 если ответ ещё не получен*/
+    private long handledNanos;
+
+    /**Суммарное время вызовов UsersService*/
+    private long serviceNanos;
+
+    /**Количество вызовов UsersService*/
+    private int serviceCalls;
+
+    /**Количество сущностей в ответе: пользователей или записей телефонной книжки*/
+    private int entities;
+
+    /**Количество записей в телефонных книжках пользователей из ответа*/
+    private long phoneRecords;
+
+    RequestTrace()
+    {
+        event = RequestEvent.enabled() ? new RequestEvent() : null;
+        if (event != null)
+        {
+            event.begin();
+        }
+        this.startNanos = System.nanoTime();
+        this.startGcMillis = gcMillis();
+    }
+
+    /**Метод возвращает трассировку запроса, который обрабатывает текущий поток.
+     @return трассировка, или null если поток не обрабатывает запрос или трассировка отключена*/
+    public static RequestTrace current()
+    {
+        return CURRENT.get();
+    }
+
+    /**Метод оборачивает задачу, которая будет выполнена в другом потоке, так, чтобы
+     * на время её выполнения тому потоку была доступна трассировка запроса текущего
+     * потока, и вызовы сервиса из задачи учитывались в ней. Задача должна завершиться
+     * до окончания обработки запроса, как завершается запрос с отложенным результатом.
+     @param task задача
+     @return обёрнутая задача, или сама задача если текущий поток не обрабатывает запрос*/
+    public static <T> Supplier<T> propagate(Supplier<T> task)
+    {
+        RequestTrace trace = CURRENT.get();
+        if (trace == null)
+        {
+            return task;
+        }
+        return () ->
+        {
+            RequestTrace previous = CURRENT.get();
+            CURRENT.set(trace);
+            try
+            {
+                return task.get();
+            }
+            finally
+            {
+                if (previous == null)
+                {
+                    CURRENT.remove();
+                }
+                else
+                {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    static void attach(RequestTrace trace)
+    {
+        CURRENT.set(trace);
+    }
+
+    static void detach()
+    {
+        CURRENT.remove();
+    }
+
+    /**Метод учитывает вызов UsersService.
+     @param nanos длительность вызова*/
+    void addServiceCall(long nanos)
+    {
+        serviceNanos += nanos;
+        serviceCalls++;
+    }
+
+    /**Метод отмечает, что метод контроллёра вернул ответ, и запоминает размер ответа.
+     @param body тело ответа перед сериализацией*/
+    void handled(Object body)
+    {
+        handledNanos = System.nanoTime();
+        entities = 0;
+        phoneRecords = 0;
+        count(body);
+    }
+
+    long getHandledNanos()
+    {
+        return handledNanos;
+    }
+
+    long getServiceNanos()
+    {
+        return serviceNanos;
+    }
+
+    int getServiceCalls()
+    {
+        return serviceCalls;
+    }
+
+    int getEntities()
+    {
+        return entities;
+    }
+
+    long getPhoneRecords()
+    {
+        return phoneRecords;
+    }
+
+    /**Метод возвращает суммарное время сборок мусора с момента запуска.
+     @return время в миллисекундах*/
+    static long gcMillis()
+    {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : COLLECTORS)
+        {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+
+    private void count(Object body)
+    {
+        if (body instanceof Collection)
+        {
+            for (Object element : (Collection<?>) body)
+            {
+                count(element);
+            }
+        }
+        else if (body instanceof BatchResult)
+        {
+            count(((BatchResult<?>) body).getFound());
+        }
+        else if (body instanceof User)
+        {
+            entities++;
+            /*Пользователь без телефонной книжки в ответе её не содержит, а незагруженная
+            книжка не загружается ради подсчёта*/
+            User user = (User) body;
+            PhoneBook phoneBook = user.phoneBookLoaded() ? user.getPhoneBook() : null;
+            if (phoneBook != null)
+            {
+                phoneRecords += phoneBook.size();
+            }
+        }
+        else if (body != null)
+        {
+            entities++;
+        }
+    }
+}
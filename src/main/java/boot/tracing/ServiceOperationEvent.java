@@ -0,0 +1,43 @@
+package boot.tracing;
+
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**Класс представляет событие Java Flight Recorder о вызове операции UsersService.
+ * Событие создаётся, только пока идёт запись JFR, в которой оно включено, чтобы
+ * вызовы сервиса без записи не выделяли память.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@Name("boot.UsersServiceOperation")
+@Label("Users Service Operation")
+@Category("Users")
+@Description("Вызов операции сервиса пользователей")
+@StackTrace(false)
+class ServiceOperationEvent extends jdk.jfr.Event
+{
+    @Label("Operation")
+    String operation;
+
+    @Label("Service")
+    String service;
+
+    @Label("Entities")
+    int entities;
+
+    @Label("Failed")
+    boolean failed;
+
+    private static final EventType TYPE = EventType.getEventType(ServiceOperationEvent.class);
+
+    /**Метод сообщает, включено ли событие в какой-либо идущей записи JFR.
+     @return true если событие нужно создавать*/
+    static boolean enabled()
+    {
+        return TYPE.isEnabled();
+    }
+}
@@ -0,0 +1,112 @@
+package boot.tracing;
+
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+/**Класс представляет перехватчик Http-запросов, трассирующий их обработку: создаёт
+ * трассировку запроса, по окончании обработки фиксирует событие JFR с разбиением
+ * времени по фазам и пишет в журнал запросы, обработка которых длилась дольше порога.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class TracingInterceptor implements AsyncHandlerInterceptor
+{
+    private static final Logger log = LoggerFactory.getLogger(TracingInterceptor.class);
+
+    /**Имя атрибута запроса с его трассировкой*/
+    static final String TRACE_ATTRIBUTE = TracingInterceptor.class.getName() + ".TRACE";
+
+    /**Порог времени обработки, начиная с которого запрос пишется в журнал*/
+    private final long slowRequestNanos;
+
+    /**@param slowRequestMillis порог времени обработки медленного запроса в миллисекундах*/
+    public TracingInterceptor(long slowRequestMillis)
+    {
+        this.slowRequestNanos = TimeUnit.MILLISECONDS.toNanos(slowRequestMillis);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+    {
+        //При асинхронной обработке запрос продолжает трассировку, начатую при первой диспетчеризации
+        RequestTrace trace = (RequestTrace) request.getAttribute(TRACE_ATTRIBUTE);
+        if (trace == null || request.getDispatcherType() != DispatcherType.ASYNC)
+        {
+            trace = new RequestTrace();
+            request.setAttribute(TRACE_ATTRIBUTE, trace);
+        }
+        RequestTrace.attach(trace);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler)
+    {
+        RequestTrace.detach();//Поток возвращается контейнеру, запрос продолжится в другом
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex)
+    {
+        RequestTrace.detach();
+        RequestTrace trace = (RequestTrace) request.getAttribute(TRACE_ATTRIBUTE);
+        if (trace == null)
+        {
+            return;
+        }
+        request.removeAttribute(TRACE_ATTRIBUTE);
+        long end = System.nanoTime();
+        long handled = trace.getHandledNanos() == 0 ? end : trace.getHandledNanos();
+        long total = end - trace.startNanos;
+        long controllerNanos = Math.max(0, handled - trace.startNanos - trace.getServiceNanos());
+        long serializationNanos = end - handled;
+
+        RequestEvent event = trace.event;
+        if (event != null)
+        {
+            event.end();
+        }
+        if (event != null && event.shouldCommit())
+        {
+            event.method = request.getMethod();
+            event.path = request.getRequestURI();
+            event.handler = handlerName(handler);
+            event.status = response.getStatus();
+            event.controllerNanos = controllerNanos;
+            event.serviceNanos = trace.getServiceNanos();
+            event.serializationNanos = serializationNanos;
+            event.entities = trace.getEntities();
+            event.phoneRecords = trace.getPhoneRecords();
+            event.commit();
+        }
+        if (total >= slowRequestNanos)
+        {
+            log.warn("Slow request {} {} ({}) -> {} in {} ms: controller {} ms, service {} ms in {} calls,"
+                            + " serialization {} ms, GC {} ms; {} entities, {} phone records",
+                    request.getMethod(), request.getRequestURI(), handlerName(handler), response.getStatus(),
+                    millis(total), millis(controllerNanos), millis(trace.getServiceNanos()),
+                    trace.getServiceCalls(), millis(serializationNanos),
+                    RequestTrace.gcMillis() - trace.startGcMillis, trace.getEntities(), trace.getPhoneRecords());
+        }
+    }
+
+    private static String handlerName(Object handler)
+    {
+        return handler instanceof HandlerMethod ? ((HandlerMethod) handler).getMethod().getName()
+                : String.valueOf(handler);
+    }
+
+    private static String millis(long nanos)
+    {
+        return String.format("%.1f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,62 @@
+package boot.tracing;
+
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**Класс отмечает в трассировке запроса момент, когда метод контроллёра вернул ответ
+ * и начинается его сериализация, запоминает размер ответа и добавляет в ответ
+ * заголовок Server-Timing со временем работы контроллёра и сервиса, чтобы клиент
+ * видел разбиение времени без доступа к журналу сервера.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@ControllerAdvice
+public class TracingResponseAdvice implements ResponseBodyAdvice<Object>
+{
+    /**Заголовок ответа с временем обработки по фазам*/
+    static final String SERVER_TIMING = "Server-Timing";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType)
+    {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response)
+    {
+        RequestTrace trace = RequestTrace.current();
+        if (trace == null)
+        {
+            return body;
+        }
+        trace.handled(body);
+        long serviceNanos = trace.getServiceNanos();
+        long controllerNanos = Math.max(0, trace.getHandledNanos() - trace.startNanos - serviceNanos);
+        //Время сериализации станет известно только после отправки заголовков
+        response.getHeaders().add(SERVER_TIMING, "controller;dur=" + durationMillis(controllerNanos)
+                + ", service;dur=" + durationMillis(serviceNanos));
+        return body;
+    }
+
+    /**Метод переводит наносекунды в миллисекунды с тремя знаками после запятой,
+     * как принято в заголовке Server-Timing.*/
+    private static String durationMillis(long nanos)
+    {
+        long micros = nanos / 1000;
+        StringBuilder value = new StringBuilder().append(micros / 1000).append('.');
+        String fraction = Long.toString(micros % 1000);
+        for (int i = fraction.length(); i < 3; i++)
+        {
+            value.append('0');
+        }
+        return value.append(fraction).toString();
+    }
+}
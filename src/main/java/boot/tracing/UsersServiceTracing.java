@@ -0,0 +1,122 @@
+package boot.tracing;
+
+
+import boot.entities.BatchResult;
+import boot.services.UsersService;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**Класс оборачивает компоненты, реализующие UsersService, в прокси, который измеряет
+ * время каждой операции сервиса: добавляет его к трассировке текущего запроса и
+ * фиксирует событие JFR. Если одна реализация сервиса вызывает другую (конвейер
+ * записи вызывает хранилище), в трассировке учитывается только внешний вызов.
+ * Событие JFR создаётся, только если оно включено в идущей записи.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+@Component
+@ConditionalOnProperty(name = "app.tracing.enabled", havingValue = "true", matchIfMissing = true)
+public class UsersServiceTracing implements BeanPostProcessor
+{
+    /**Названия операций сервиса; остальные методы компонентов не трассируются*/
+    private static final Set<String> OPERATIONS = Arrays.stream(UsersService.class.getMethods())
+            .map(Method::getName).collect(Collectors.toSet());
+
+    /**Глубина вложенных вызовов сервиса в текущем потоке*/
+    private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName)
+    {
+        if (!(bean instanceof UsersService))
+        {
+            return bean;
+        }
+        //Прокси наследует класс компонента, чтобы его можно было внедрять и по классу
+        ProxyFactory factory = new ProxyFactory(bean);
+        factory.setProxyTargetClass(true);
+        factory.addAdvice(new OperationInterceptor(bean.getClass().getSimpleName()));
+        return factory.getProxy();
+    }
+
+    private static final class OperationInterceptor implements MethodInterceptor
+    {
+        private final String service;
+
+        OperationInterceptor(String service)
+        {
+            this.service = service;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable
+        {
+            if (!OPERATIONS.contains(invocation.getMethod().getName()))
+            {
+                return invocation.proceed();
+            }
+            int[] depth = DEPTH.get();
+            ServiceOperationEvent event = ServiceOperationEvent.enabled() ? new ServiceOperationEvent() : null;
+            if (event != null)
+            {
+                event.begin();
+            }
+            long start = System.nanoTime();
+            boolean failed = true;
+            Object result = null;
+            depth[0]++;
+            try
+            {
+                result = invocation.proceed();
+                failed = false;
+                return result;
+            }
+            finally
+            {
+                depth[0]--;
+                if (depth[0] == 0)
+                {
+                    RequestTrace trace = RequestTrace.current();
+                    if (trace != null)
+                    {
+                        trace.addServiceCall(System.nanoTime() - start);
+                    }
+                }
+                if (event != null)
+                {
+                    event.end();
+                }
+                if (event != null && event.shouldCommit())
+                {
+                    event.operation = invocation.getMethod().getName();
+                    event.service = service;
+                    event.entities = entities(result);
+                    event.failed = failed;
+                    event.commit();
+                }
+            }
+        }
+
+        private static int entities(Object result)
+        {
+            if (result instanceof Collection)
+            {
+                return ((Collection<?>) result).size();
+            }
+            if (result instanceof BatchResult)
+            {
+                return ((BatchResult<?>) result).getFound().size();
+            }
+            return result == null ? 0 : 1;
+        }
+    }
+}
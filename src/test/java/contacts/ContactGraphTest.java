@@ -0,0 +1,130 @@
+package contacts;
+
+
+import boot.contacts.ContactGraph;
+import boot.contacts.ReachableUser;
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+/**Класс содержит юнит-тесты к методам класса ContactGraph
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class ContactGraphTest
+{
+    @Test
+    public void testGetContacts()
+    {
+        ContactGraph testedObject = new ContactGraph();
+        User alice = user("TEST_ALICE", "+7 900 000-00-01");
+        User bob = user("TEST_BOB", "+7 900 000-00-02");
+        User carol = user("TEST_CAROL", "+7 900 000-00-03");
+        alice.getPhoneBook().addPhoneRecord(new PhoneRecord("BOB", "89000000002"));
+        alice.getPhoneBook().addPhoneRecord(new PhoneRecord("BOB_AGAIN", "+79000000002"));
+        alice.getPhoneBook().addPhoneRecord(new PhoneRecord("SELF", "+79000000001"));
+        carol.getPhoneBook().addPhoneRecord(new PhoneRecord("BOB", "9000000002"));
+        testedObject.put(alice);
+        testedObject.put(bob);
+        testedObject.put(carol);
+
+        assertEquals(Collections.singletonList(bob.getUserId()), testedObject.getContacts(alice.getUserId()));
+        assertEquals(Arrays.asList(alice.getUserId(), carol.getUserId()), testedObject.getUsersHaving(bob.getUserId()));
+        assertTrue(testedObject.getUsersHaving(alice.getUserId()).isEmpty());
+        assertEquals(Collections.singletonList(bob.getUserId()),
+                testedObject.getMutualContacts(alice.getUserId(), carol.getUserId()));
+        assertEquals(2, testedObject.getEdgeCount());
+        assertNull(testedObject.getContacts(-1L));
+        assertNull(testedObject.getMutualContacts(alice.getUserId(), -1L));
+    }
+
+    @Test
+    public void testPutUpdatesEdges()
+    {
+        ContactGraph testedObject = new ContactGraph();
+        User alice = user("TEST_ALICE", "+79000000001");
+        User bob = user("TEST_BOB", "+79000000002");
+        alice.getPhoneBook().addPhoneRecord(new PhoneRecord("BOB", "+79000000002"));
+        testedObject.put(alice);
+        testedObject.put(bob);
+
+        bob.setPhoneNumber("+79000000009");//Боб сменил номер - старая запись Алисы больше не ведёт к нему
+        testedObject.put(bob);
+        assertTrue(testedObject.getContacts(alice.getUserId()).isEmpty());
+
+        alice.getPhoneBook().addPhoneRecord(new PhoneRecord("BOB_NEW", "+79000000009"));
+        testedObject.put(alice);
+        assertEquals(Collections.singletonList(bob.getUserId()), testedObject.getContacts(alice.getUserId()));
+
+        testedObject.remove(bob.getUserId());
+        assertTrue(testedObject.getContacts(alice.getUserId()).isEmpty());
+        assertNull(testedObject.getUsersHaving(bob.getUserId()));
+
+        User carol = user("TEST_CAROL", "+79000000009");//Занимает номер и вершину Боба
+        testedObject.put(carol);
+        assertEquals(Collections.singletonList(carol.getUserId()), testedObject.getContacts(alice.getUserId()));
+        assertEquals(Collections.singletonList(alice.getUserId()), testedObject.getUsersHaving(carol.getUserId()));
+    }
+
+    @Test
+    public void testPhoneRecordChanged()
+    {
+        ContactGraph testedObject = new ContactGraph();
+        User alice = user("TEST_ALICE", "+79000000001");
+        User bob = user("TEST_BOB", "+79000000002");
+        testedObject.put(alice);
+        testedObject.put(bob);
+
+        PhoneRecord first = new PhoneRecord("BOB", "+79000000002");
+        PhoneRecord second = new PhoneRecord("BOB_AGAIN", "89000000002");
+        testedObject.phoneRecordChanged(alice.getUserId(), null, first);
+        testedObject.phoneRecordChanged(alice.getUserId(), null, second);
+        assertEquals(Collections.singletonList(bob.getUserId()), testedObject.getContacts(alice.getUserId()));
+
+        //Ребро остаётся, пока в книжке есть хотя бы одна запись с номером
+        testedObject.phoneRecordChanged(alice.getUserId(), first, null);
+        assertEquals(Collections.singletonList(bob.getUserId()), testedObject.getContacts(alice.getUserId()));
+        testedObject.phoneRecordChanged(alice.getUserId(), second, new PhoneRecord("BOB_OLD", "+79000000009"));
+        assertTrue(testedObject.getContacts(alice.getUserId()).isEmpty());
+        assertTrue(testedObject.getUsersHaving(bob.getUserId()).isEmpty());
+        assertEquals(0, testedObject.getEdgeCount());
+    }
+
+    @Test
+    public void testGetReachable()
+    {
+        ContactGraph testedObject = new ContactGraph();
+        User[] chain = new User[5];
+        for (int i = 0; i < chain.length; i++)
+        {
+            chain[i] = user("TEST" + i, "+7900000000" + i);
+        }
+        for (int i = 0; i < chain.length; i++)
+        {
+            //Кольцо: каждый знает номер следующего
+            chain[i].getPhoneBook().addPhoneRecord(new PhoneRecord("NEXT", "+7900000000" + (i + 1) % chain.length));
+            testedObject.put(chain[i]);
+        }
+
+        assertEquals(Arrays.asList(new ReachableUser(chain[1].getUserId(), 1), new ReachableUser(chain[2].getUserId(), 2)),
+                testedObject.getReachable(chain[0].getUserId(), 2, 100));
+        assertEquals(4, testedObject.getReachable(chain[0].getUserId(), 10, 100).size());
+        assertEquals(Collections.singletonList(new ReachableUser(chain[1].getUserId(), 1)),
+                testedObject.getReachable(chain[0].getUserId(), 10, 1));
+        assertNull(testedObject.getReachable(-1L, 2, 100));
+    }
+
+    private static User user(String name, String phoneNumber)
+    {
+        User user = new User(name);
+        user.setPhoneNumber(phoneNumber);
+        return user;
+    }
+}
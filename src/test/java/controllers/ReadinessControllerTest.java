@@ -0,0 +1,51 @@
+package controllers;
+
+
+import boot.App;
+import boot.controllers.ReadinessController;
+import boot.startup.WarmUpRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes= App.class)
+@WebMvcTest(ReadinessController.class)
+/**Класс содержит юнит-тесты к методам класса ReadinessController
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class ReadinessControllerTest
+{
+    @MockBean
+    private WarmUpRunner warmUpRunner;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testNotReadyDuringWarmUp() throws Exception
+    {
+        when(warmUpRunner.isReady()).thenReturn(false);
+
+        mockMvc.perform(get("/ready"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void testReadyAfterWarmUp() throws Exception
+    {
+        when(warmUpRunner.isReady()).thenReturn(true);
+
+        mockMvc.perform(get("/ready"))
+                .andExpect(status().isOk());
+    }
+}
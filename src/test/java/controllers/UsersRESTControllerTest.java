@@ -2,11 +2,32 @@ package controllers;
 
 
 import boot.App;
+import boot.contacts.ReachableUser;
 import boot.controllers.UsersRESTController;
+import boot.dao.MemoryStats;
+import boot.entities.BatchResult;
 import boot.entities.PhoneRecord;
+import boot.entities.PhoneRecordOrder;
 import boot.entities.User;
+import boot.events.ChangeEvent;
+import boot.events.ChangeType;
+import boot.exceptions.EntityAlreadyExistsException;
+import boot.exceptions.EntityNotFoundException;
+import boot.exceptions.IndexNotReadyException;
+import boot.exceptions.ServiceOverloadedException;
+import boot.exceptions.VersionConflictException;
+import boot.indexes.IndexState;
+import boot.indexes.IndexStatus;
+import boot.limits.QueryExecutor;
 import boot.services.UsersService;
+import boot.statistics.PhoneBookSize;
+import boot.statistics.PhoneBookSizeBucket;
+import boot.statistics.PhoneNumberCount;
+import boot.statistics.UsersStatistics;
+import boot.tenants.TenantContext;
+import boot.tenants.TenantRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,18 +35,24 @@ import org.springframework.boot.Banner;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static junit.framework.Assert.assertEquals;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
@@ -33,6 +60,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 /*Аннотация @WebMvcTest(UsersRESTController.class) создаёт тестовое окружение с настроенным
 Spring MVC и входящим в него Jackson, в том виде, в каком они настроены в реальном приложении.*/
 @WebMvcTest(UsersRESTController.class)
+/*Пул затратных запросов и реестр арендаторов - обычные компоненты, а @WebMvcTest создаёт
+только компоненты Spring MVC, поэтому они подключаются явно*/
+@Import({QueryExecutor.class, TenantRegistry.class})
 /**Класс содержит юнит-тесты к методам класса UsersRESTController
  @author Артемьев Р.А.
  @version 03.12.2019 */
@@ -57,12 +87,31 @@ public class UsersRESTControllerTest
         вызван метод getAllUsers() и что в ответ он должен вернуть объект expected*/
         when(usersService.getAllUsers()).thenReturn(expected);
 
-        mockMvc.perform(get("/users"))
+        //Запрос выполняется асинхронно, поэтому результат получаем через асинхронную диспетчеризацию
+        MvcResult result = mockMvc.perform(get("/users"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())//Проверяем Http-ответ
                 .andExpect(content().string(
                         new ObjectMapper().writeValueAsString(expected)));//Конвертируем в json
     }
 
+    @Test
+    public void testGetUsersByNameFailure() throws Exception
+    {
+        when(usersService.getUsersByName("T1")).thenThrow(new ServiceOverloadedException("TEST"));
+
+        //Исключение из пула затратных запросов обрабатывается так же, как исключение из обработчика
+        MvcResult result = mockMvc.perform(get("/users/name?partName=T1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable());
+    }
+
     @Test
     public void testAddUser() throws Exception
     {
@@ -79,6 +128,18 @@ public class UsersRESTControllerTest
                         objectMapper.writeValueAsString(expected)));//Конвертируем в json
     }
 
+    @Test
+    public void testAddUserConflict() throws Exception
+    {
+        User user = new User("TEST");
+        when(usersService.addUser(user)).thenThrow(new EntityAlreadyExistsException());
+
+        mockMvc.perform(post("/users")
+                .content(new ObjectMapper().writeValueAsString(user))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     public void testGetUserNotExist() throws Exception
     {
@@ -119,13 +180,25 @@ public class UsersRESTControllerTest
     {
         User expected = new User("TEST1");
         Long id = expected.getUserId();
-        when(usersService.getUser(id)).thenReturn(expected);
-        when(usersService.deleteUser(id)).thenReturn(id);
+        when(usersService.removeUser(id)).thenReturn(expected);
 
         mockMvc.perform(delete("/users/" + id))
                 .andExpect(status().isOk())//Проверяем Http-ответ
                 .andExpect(content().string(
                         new ObjectMapper().writeValueAsString(expected)));//Конвертируем в json
+        mockMvc.perform(delete("/users/" + (id + 1)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testUserExists() throws Exception
+    {
+        when(usersService.userExists(1L)).thenReturn(true);
+
+        mockMvc.perform(head("/users/1"))
+                .andExpect(status().isOk());
+        mockMvc.perform(head("/users/2"))
+                .andExpect(status().isNotFound());
     }
 
     @Test
@@ -168,7 +241,34 @@ public class UsersRESTControllerTest
 
         when(usersService.getUsersByName(partName)).thenReturn(expected);
 
-        mockMvc.perform(get("/users/name?partName=" + partName))
+        MvcResult result = mockMvc.perform(get("/users/name?partName=" + partName))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())//Проверяем Http-ответ
+                .andExpect(content().string(
+                        new ObjectMapper().writeValueAsString(expected)));//Конвертируем в json
+    }
+
+    @Test
+    public void testGetUsersByNameWithoutPhoneBooks() throws Exception
+    {
+        User user = new User("TEST1");
+        user.getPhoneBook().addPhoneRecord(new PhoneRecord("TEST", "TEST"));
+        List<User> found = new ArrayList<>();
+        found.add(user);
+        List<User> expected = new ArrayList<>();
+        expected.add(user.withoutPhoneBook());
+        String partName = "T1";
+
+        when(usersService.getUsersByName(partName)).thenReturn(found);
+
+        MvcResult result = mockMvc.perform(get("/users/name?partName=" + partName + "&phoneBooks=false"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())//Проверяем Http-ответ
                 .andExpect(content().string(
                         new ObjectMapper().writeValueAsString(expected)));//Конвертируем в json
@@ -193,6 +293,32 @@ public class UsersRESTControllerTest
                         new ObjectMapper().writeValueAsString(expected)));//Конвертируем в json
     }
 
+    @Test
+    public void testGetUserPhoneRecordsPage() throws Exception
+    {
+        Long id = 1L;
+        PhoneRecord record = new PhoneRecord("TEST2", "TEST2");
+        record.setPhoneRecordId(7L);
+
+        List<PhoneRecord> expected = new ArrayList<>();
+        expected.add(record);
+
+        when(usersService.getUserPhoneRecordsPage(id, PhoneRecordOrder.NAME, 5L, null, 2))
+                .thenReturn(expected);
+
+        mockMvc.perform(get("/users/phoneRecords/" + id + "?sort=name&afterId=5&limit=2"))
+                .andExpect(status().isOk())//Проверяем Http-ответ
+                .andExpect(content().string(
+                        new ObjectMapper().writeValueAsString(expected)));//Конвертируем в json
+    }
+
+    @Test
+    public void testGetUserPhoneRecordsPageUnknownSort() throws Exception
+    {
+        mockMvc.perform(get("/users/phoneRecords/1?sort=unknown"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void testAddUserPhoneRecord() throws Exception
     {
@@ -248,8 +374,7 @@ public class UsersRESTControllerTest
         PhoneRecord expected = new PhoneRecord("TEST", "TEST");
         Long id = 1L;
 
-        when(usersService.getUserPhoneRecord(userId, id)).thenReturn(expected);
-        when(usersService.deleteUserPhoneRecord(userId, id)).thenReturn(id);
+        when(usersService.removeUserPhoneRecord(userId, id)).thenReturn(expected);
         expected.setPhoneRecordId(id);
 
         mockMvc.perform(delete("/users/phoneRecord/" + userId + "?id=" + id))
@@ -258,6 +383,17 @@ public class UsersRESTControllerTest
                         new ObjectMapper().writeValueAsString(expected)));
     }
 
+    @Test
+    public void testUserPhoneRecordExists() throws Exception
+    {
+        when(usersService.userPhoneRecordExists(1L, 2L)).thenReturn(true);
+
+        mockMvc.perform(head("/users/phoneRecord/1?id=2"))
+                .andExpect(status().isOk());
+        mockMvc.perform(head("/users/phoneRecord/1?id=3"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     public void testUpdateUserPhoneRecord() throws Exception
     {
@@ -295,4 +431,316 @@ public class UsersRESTControllerTest
                 .andExpect(content().string(
                         new ObjectMapper().writeValueAsString(expected)));
     }
+
+    @Test
+    public void testGetChangeEvents() throws Exception
+    {
+        ChangeEvent event1 = ChangeEvent.ofUser(ChangeType.USER_ADDED, new User("TEST"));
+        ChangeEvent event2 = ChangeEvent.ofUserDeleted(event1.getUserId());
+        List<ChangeEvent> events = new ArrayList<>();
+        events.add(event1);
+        events.add(event2);
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        when(usersService.getChangeEvents(0L, 256)).thenReturn(events);
+        when(usersService.getChangeEvents(1L, 256)).thenReturn(new ArrayList<>());
+
+        //Ответ передаётся потоком, поэтому результат получаем через асинхронную диспетчеризацию
+        MvcResult result = mockMvc.perform(get("/users/changes?fromOffset=0"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        objectMapper.writeValueAsString(event1) + "\n" +
+                        objectMapper.writeValueAsString(event2) + "\n"));
+    }
+
+    @Test
+    public void testGetUserETag() throws Exception
+    {
+        User expected = new User("TEST1");
+        expected.setVersion(3L);
+        Long id = expected.getUserId();
+        when(usersService.getUser(id)).thenReturn(expected);
+
+        mockMvc.perform(get("/users/" + id))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""));
+    }
+
+    @Test
+    public void testUpdateUserIfMatchConflict() throws Exception
+    {
+        User user = new User("TEST");
+        ObjectMapper objectMapper = new ObjectMapper();
+        String content = objectMapper.writeValueAsString(user);
+        user.setVersion(5L);//Версия, которую контроллер возьмёт из заголовка If-Match
+        when(usersService.updateUser(user)).thenThrow(new VersionConflictException());
+
+        mockMvc.perform(put("/users/")
+                .header("If-Match", "\"5\"")
+                .content(content)
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().is(412));//Проверяем Http-ответ
+    }
+
+    @Test
+    public void testGetUserFormatParameter() throws Exception
+    {
+        User expected = new User("TEST1");
+        Long id = expected.getUserId();
+        when(usersService.getUser(id)).thenReturn(expected);
+
+        mockMvc.perform(get("/users/" + id + "?format=json"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(content().string(
+                        new ObjectMapper().writeValueAsString(expected)));
+    }
+
+    @Test
+    public void testGetUserCbor() throws Exception
+    {
+        User expected = new User("TEST1");
+        Long id = expected.getUserId();
+        when(usersService.getUser(id)).thenReturn(expected);
+
+        byte[] body = mockMvc.perform(get("/users/" + id + "?format=cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(App.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(expected, new ObjectMapper(new CBORFactory()).readValue(body, User.class));
+
+        mockMvc.perform(get("/users/" + id).accept(App.APPLICATION_SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(App.APPLICATION_SMILE));
+    }
+
+    @Test
+    public void testGetMemoryStats() throws Exception
+    {
+        MemoryStats expected = new MemoryStats(2, 2, 1024, 4096, 0, 1);
+        when(usersService.getMemoryStats()).thenReturn(expected);
+
+        mockMvc.perform(get("/users/stats/memory"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        new ObjectMapper().writeValueAsString(expected)));
+    }
+
+    @Test
+    public void testGetIndexStatuses() throws Exception
+    {
+        List<IndexStatus> expected = Collections.singletonList(new IndexStatus("userName",
+                IndexState.BUILDING, 10, 100, 2, 1760868930000L, null, null));
+        when(usersService.getIndexStatuses()).thenReturn(expected);
+
+        mockMvc.perform(get("/users/indexes"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        new ObjectMapper().writeValueAsString(expected)));
+    }
+
+    @Test
+    public void testReindex() throws Exception
+    {
+        IndexStatus expected = new IndexStatus("userName",
+                IndexState.BUILDING, 0, 0, 0, 1760868930000L, 1760868920000L, null);
+        when(usersService.reindex("userName")).thenReturn(expected);
+        when(usersService.reindex("unknown")).thenThrow(new EntityNotFoundException("Index unknown not found."));
+
+        mockMvc.perform(post("/users/indexes/userName/rebuild"))
+                .andExpect(status().isAccepted())
+                .andExpect(content().string(
+                        new ObjectMapper().writeValueAsString(expected)));
+        mockMvc.perform(post("/users/indexes/unknown/rebuild"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testGetStatistics() throws Exception
+    {
+        UsersStatistics expected = new UsersStatistics(2, 5, 4, Arrays.asList(
+                new PhoneBookSizeBucket(0, 0, 0), new PhoneBookSizeBucket(1, 1, 1),
+                new PhoneBookSizeBucket(2, 3, 0), new PhoneBookSizeBucket(4, 7, 1)));
+        when(usersService.getStatistics()).thenReturn(expected);
+
+        mockMvc.perform(get("/users/statistics"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        new ObjectMapper().writeValueAsString(expected)));
+
+        when(usersService.getStatistics()).thenThrow(new IndexNotReadyException());
+        mockMvc.perform(get("/users/statistics"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void testGetLargestPhoneBooks() throws Exception
+    {
+        List<PhoneBookSize> expected = Arrays.asList(new PhoneBookSize(2L, 4), new PhoneBookSize(1L, 1));
+        when(usersService.getLargestPhoneBooks(10)).thenReturn(expected);
+        when(usersService.getLargestPhoneBooks(100)).thenReturn(expected.subList(0, 1));
+
+        mockMvc.perform(get("/users/statistics/largestPhoneBooks"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        new ObjectMapper().writeValueAsString(expected)));
+        mockMvc.perform(get("/users/statistics/largestPhoneBooks?limit=100000"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        new ObjectMapper().writeValueAsString(expected.subList(0, 1))));
+    }
+
+    @Test
+    public void testGetTopPhoneNumbers() throws Exception
+    {
+        List<PhoneNumberCount> expected = Collections.singletonList(new PhoneNumberCount("+79001234567", 3));
+        when(usersService.getTopPhoneNumbers(1)).thenReturn(expected);
+
+        mockMvc.perform(get("/users/statistics/topPhoneNumbers?limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        new ObjectMapper().writeValueAsString(expected)));
+    }
+
+    @Test
+    public void testGetContacts() throws Exception
+    {
+        List<Long> expected = Arrays.asList(2L, 3L);
+        when(usersService.getContacts(1L)).thenReturn(expected);
+        when(usersService.getUsersHavingContact(1L)).thenReturn(Collections.singletonList(3L));
+        when(usersService.getContacts(4L)).thenReturn(null);//Непрописанный вызов вернул бы пустой список
+        when(usersService.getContacts(5L)).thenThrow(new IndexNotReadyException());
+
+        mockMvc.perform(get("/users/contacts/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("[2,3]"));
+        mockMvc.perform(get("/users/contacts/1/knownBy"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("[3]"));
+        mockMvc.perform(get("/users/contacts/4"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/users/contacts/5"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void testGetMutualContacts() throws Exception
+    {
+        when(usersService.getMutualContacts(1L, 2L)).thenReturn(Collections.singletonList(3L));
+        when(usersService.getMutualContacts(1L, 4L)).thenReturn(null);
+        when(usersService.userExists(1L)).thenReturn(true);
+
+        mockMvc.perform(get("/users/contacts/1/mutual?with=2"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("[3]"));
+        mockMvc.perform(get("/users/contacts/1/mutual?with=4"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testGetReachableUsers() throws Exception
+    {
+        List<ReachableUser> expected = Arrays.asList(new ReachableUser(2L, 1), new ReachableUser(3L, 2));
+        when(usersService.getReachableUsers(1L, 2, 1000)).thenReturn(expected);
+        when(usersService.getReachableUsers(1L, 6, 10_000)).thenReturn(expected.subList(0, 1));
+
+        mockMvc.perform(get("/users/contacts/1/reachable"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        new ObjectMapper().writeValueAsString(expected)));
+        mockMvc.perform(get("/users/contacts/1/reachable?hops=100&limit=1000000"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        new ObjectMapper().writeValueAsString(expected.subList(0, 1))));
+    }
+
+    @Test
+    public void testGetUserAsOf() throws Exception
+    {
+        User expected = new User("TEST");
+        Long id = expected.getUserId();
+        when(usersService.getUserAsOf(id, 1760868930000L)).thenReturn(expected);
+
+        mockMvc.perform(get("/users/history/" + id + "?asOf=2025-10-19T10:15:30Z"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        new ObjectMapper().writeValueAsString(expected)));
+        mockMvc.perform(get("/users/history/" + id + "?asOf=1760868930000"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testGetUserPhoneRecordsAsOfBadTimestamp() throws Exception
+    {
+        mockMvc.perform(get("/users/phoneRecords/history/1?asOf=yesterday"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testGetUsers() throws Exception
+    {
+        User user = new User("TEST");
+        BatchResult<User> expected = new BatchResult<>(Collections.singletonList(user),
+                Collections.singletonList(-1L));
+        when(usersService.getUsers(Arrays.asList(user.getUserId(), -1L))).thenReturn(expected);
+
+        mockMvc.perform(get("/users/batch?ids=" + user.getUserId() + ",-1"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        new ObjectMapper().writeValueAsString(expected)));
+        mockMvc.perform(post("/users/batch")
+                .content("[" + user.getUserId() + ",-1]")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        new ObjectMapper().writeValueAsString(expected)));
+    }
+
+    @Test
+    public void testGetUserPhoneRecords() throws Exception
+    {
+        PhoneRecord record = new PhoneRecord("TEST", "TEST_NUMBER");
+        record.setPhoneRecordId(1L);
+        BatchResult<PhoneRecord> expected = new BatchResult<>(Collections.singletonList(record),
+                Collections.singletonList(2L));
+        when(usersService.getUserPhoneRecords(5L, Arrays.asList(1L, 2L))).thenReturn(expected);
+
+        mockMvc.perform(get("/users/phoneRecords/batch/5?ids=1,2"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        new ObjectMapper().writeValueAsString(expected)));
+        mockMvc.perform(get("/users/phoneRecords/batch/6?ids=1,2"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testTenantsAreIsolated() throws Exception
+    {
+        ObjectMapper objectMapper = new ObjectMapper();
+        MvcResult result = mockMvc.perform(post("/users")
+                .header(TenantContext.TENANT_HEADER, "acme")
+                .content(objectMapper.writeValueAsString(new User("TEST")))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().is(201))
+                .andReturn();
+        User added = objectMapper.readValue(result.getResponse().getContentAsString(), User.class);
+
+        //Пользователь арендатора хранится в его хранилище, а не в основном
+        mockMvc.perform(get("/users/" + added.getUserId())
+                .header(TenantContext.TENANT_HEADER, "acme"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users/" + added.getUserId()))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/users/" + added.getUserId())
+                .header(TenantContext.TENANT_HEADER, "other"))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/users/" + added.getUserId())
+                .header(TenantContext.TENANT_HEADER, "../acme"))
+                .andExpect(status().isBadRequest());
     }
+}
@@ -0,0 +1,370 @@
+package dao;
+
+
+import boot.dao.FileUsersDao;
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+import boot.services.UsersServiceImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+/**Класс содержит юнит-тесты к методам класса FileUsersDao
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class FileUsersDaoTest
+{
+    private Path directory;
+
+    private FileUsersDao testedObject;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("users-dao-test");
+        testedObject = new FileUsersDao(directory.toString(), 2, false);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        testedObject.destroy();
+        for (File file : directory.toFile().listFiles())
+        {
+            Files.delete(file.toPath());
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testUsersSurviveReopen() throws IOException
+    {
+        UsersServiceImpl usersService = new UsersServiceImpl(testedObject);
+        User first = new User("FIRST");
+        first.setPhoneNumber("+79001234567");
+        User second = new User("SECOND");
+        usersService.addUser(first);
+        usersService.addUser(second);
+        Long recordId = usersService.addUserPhoneRecord(first.getUserId(), new PhoneRecord("TEST", "TEST_NUMBER"));
+        usersService.deleteUser(second.getUserId());
+
+        reopen();
+        usersService = new UsersServiceImpl(testedObject);
+
+        assertEquals("FIRST", usersService.getUser(first.getUserId()).getUserName());
+        assertEquals("+79001234567", usersService.getUser(first.getUserId()).getPhoneNumber());
+        assertEquals("TEST_NUMBER",
+                usersService.getUserPhoneRecord(first.getUserId(), recordId).getPhoneNumber());
+        assertNull(usersService.getUser(second.getUserId()));
+        assertEquals(1, usersService.getAllUsers().size());
+    }
+
+    @Test
+    public void testFindEvictedUsers()
+    {
+        for (int i = 0; i < 10; i++)
+        {
+            testedObject.insertUser(new User("USER" + i));
+        }
+
+        assertEquals(10, testedObject.findAllUsers().size());
+        assertEquals(1, testedObject.findUsersByName("USER7").size());
+    }
+
+    @Test
+    public void testFindUsers()
+    {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+        {
+            User user = new User("USER" + i);
+            testedObject.insertUser(user);
+            ids.add(0, user.getUserId());
+        }
+        ids.add(1, -1L);
+
+        Map<Long, User> found = testedObject.findUsers(ids);
+
+        assertEquals(10, found.size());
+        ids.remove(1);
+        assertEquals(ids, new ArrayList<>(found.keySet()));
+        assertEquals("USER9", found.get(ids.get(0)).getUserName());
+    }
+
+    @Test
+    public void testPhoneBookIsLoadedLazily() throws IOException
+    {
+        User user = new User("TEST");
+        user.getPhoneBook().addPhoneRecord(new PhoneRecord("TEST", "TEST_NUMBER"));
+        testedObject.insertUser(user);
+        reopen();
+
+        User found = testedObject.findUsersByName("TEST").get(0);
+        assertFalse(found.phoneBookLoaded());
+        assertEquals("TEST_NUMBER", found.getPhoneBook().getListPhoneRecords().get(0).getPhoneNumber());
+        assertTrue(found.phoneBookLoaded());
+    }
+
+    @Test
+    public void testLoadedPhoneBooksAreCountedInCache() throws IOException
+    {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+        {
+            User user = new User("USER" + i);
+            for (int j = 0; j < 50; j++)
+            {
+                user.getPhoneBook().addPhoneRecord(new PhoneRecord("NAME" + j, "NUMBER" + j));
+            }
+            testedObject.insertUser(user);
+            ids.add(user.getUserId());
+        }
+        //Кэш вмещает всех пользователей без телефонных книжек, но не с ними
+        testedObject.destroy();
+        testedObject = new FileUsersDao(directory.toString(), 20 << 10, false);
+
+        for (Long id : ids)
+        {
+            assertEquals(50, testedObject.findUser(id).getPhoneBook().size());
+        }
+        assertTrue(testedObject.getMemoryStats().getUsersInMemory() < ids.size());
+        assertTrue(testedObject.getMemoryStats().getEvictedUsers() > 0);
+    }
+
+    @Test
+    public void testStaleUserReadsItsOwnPhoneBook() throws IOException
+    {
+        User user = new User("TEST");
+        user.getPhoneBook().addPhoneRecord(new PhoneRecord("TEST", "TEST_NUMBER"));
+        testedObject.insertUser(user);
+        reopen();
+
+        User beforeChange = testedObject.findUser(user.getUserId());
+        testedObject.modifyUser(user.getUserId(),
+                stored -> stored.getPhoneBook().addPhoneRecord(new PhoneRecord("NEW", "NEW_NUMBER")));
+        User beforeDelete = testedObject.findUser(user.getUserId());
+        testedObject.removeUser(user.getUserId());
+
+        //Сравнение не читает телефонные книжки
+        assertFalse(beforeChange.equals(beforeDelete));
+        assertEquals(beforeChange.hashCode(), beforeChange.hashCode());
+        assertFalse(beforeChange.phoneBookLoaded());
+        assertFalse(beforeDelete.phoneBookLoaded());
+
+        assertEquals(1, beforeChange.getPhoneBook().size());
+        assertEquals(2, beforeDelete.getPhoneBook().size());
+    }
+
+    @Test
+    public void testUserRenameKeepsPhoneBook() throws IOException
+    {
+        User user = new User("TEST");
+        user.getPhoneBook().addPhoneRecord(new PhoneRecord("TEST", "TEST_NUMBER"));
+        testedObject.insertUser(user);
+        reopen();
+
+        testedObject.modifyUser(user.getUserId(), stored ->
+        {
+            stored.setUserName("RENAMED");
+            return stored.getUserId();
+        });
+        reopen();
+
+        User found = testedObject.findUser(user.getUserId());
+        assertEquals("RENAMED", found.getUserName());
+        assertEquals(1, found.getPhoneBook().getListPhoneRecords().size());
+    }
+
+    @Test
+    public void testReplaceUserChecksVersion()
+    {
+        User user = new User("TEST");
+        testedObject.insertUser(user);
+
+        User stale = new User("STALE");
+        stale.setUserId(user.getUserId());
+        stale.setVersion(6L);
+        User updated = new User("UPDATED");
+        updated.setUserId(user.getUserId());
+        updated.setVersion(1L);
+
+        assertFalse(testedObject.replaceUser(stale));
+        assertTrue(testedObject.replaceUser(updated));
+        assertEquals("UPDATED", testedObject.findUser(user.getUserId()).getUserName());
+    }
+
+    @Test
+    public void testTornTailIsDiscarded() throws IOException
+    {
+        User user = new User("TEST");
+        testedObject.insertUser(user);
+        testedObject.destroy();
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("users.log").toFile(), "rw"))
+        {
+            file.seek(file.length());
+            file.write(new byte[]{0, 0, 1, 0, 1});//Недописанная запись
+        }
+
+        testedObject = new FileUsersDao(directory.toString(), 2, false);
+
+        assertEquals("TEST", testedObject.findUser(user.getUserId()).getUserName());
+        testedObject.insertUser(new User("NEXT"));
+        assertEquals(2, testedObject.findAllUsers().size());
+    }
+
+    @Test
+    public void testPhoneRecordChangesAreAppendedSeparately() throws IOException
+    {
+        UsersServiceImpl usersService = new UsersServiceImpl(testedObject);
+        User user = new User("TEST");
+        usersService.addUser(user);
+        for (int i = 0; i < 2000; i++)
+        {
+            usersService.addUserPhoneRecord(user.getUserId(), new PhoneRecord("NAME" + i, "+7900000" + i));
+        }
+
+        //Переписывание телефонной книжки при каждом изменении заняло бы десятки мегабайт
+        assertTrue(Files.size(directory.resolve("users.log")) < 1 << 20);
+    }
+
+    @Test
+    public void testPhoneRecordChangesSurviveReopen() throws IOException
+    {
+        UsersServiceImpl usersService = new UsersServiceImpl(testedObject);
+        User user = new User("TEST");
+        usersService.addUser(user);
+        Long userId = user.getUserId();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 50; i++)
+        {
+            ids.add(usersService.addUserPhoneRecord(userId, new PhoneRecord("NAME" + i, "+7900000" + i)));
+        }
+        usersService.deleteUserPhoneRecord(userId, ids.get(3));
+        PhoneRecord updated = new PhoneRecord("UPDATED", "+79001112233");
+        updated.setPhoneRecordId(ids.get(7));
+        usersService.updateUserPhoneRecord(userId, updated);
+        List<PhoneRecord> expected = usersService.getUserAllPhoneRecords(userId);
+
+        reopen();
+        usersService = new UsersServiceImpl(testedObject);
+
+        assertEquals(expected, usersService.getUserAllPhoneRecords(userId));
+        assertNull(usersService.getUserPhoneRecord(userId, ids.get(3)));
+        assertEquals("UPDATED", usersService.getUserPhoneRecord(userId, ids.get(7)).getName());
+        //Id удалённой записи не выдаётся повторно
+        assertEquals(51L, (long) usersService.addUserPhoneRecord(userId, new PhoneRecord("NEW", "+79000000000")));
+    }
+
+    @Test
+    public void testCompactionRunsInBackground() throws Exception
+    {
+        User user = new User("TEST");
+        user.getPhoneBook().addPhoneRecord(new PhoneRecord("TEST", "TEST_NUMBER"));
+        testedObject.insertUser(user);
+        Path dataFile = directory.resolve("users.log");
+        //Около 50 байт на версию пользователя, всего около 2 Мбайт
+        for (int i = 0; i < 40_000; i++)
+        {
+            String name = "RENAMED" + i;
+            testedObject.modifyUser(user.getUserId(), stored ->
+            {
+                stored.setUserName(name);
+                return stored.getUserId();
+            });
+        }
+
+        for (int i = 0; i < 100 && Files.size(dataFile) > 1 << 20; i++)
+        {
+            Thread.sleep(50);
+        }
+        assertTrue(Files.size(dataFile) < 1 << 20);
+        String name = testedObject.findUser(user.getUserId()).getUserName();
+        reopen();
+        User found = testedObject.findUser(user.getUserId());
+        assertEquals(name, found.getUserName());
+        assertEquals(1, found.getPhoneBook().size());
+    }
+
+    @Test
+    public void testCachedUserReadsPhoneBookAfterTwoCompactions() throws Exception
+    {
+        User user = new User("TEST");
+        user.getPhoneBook().addPhoneRecord(new PhoneRecord("TEST", "TEST_NUMBER"));
+        testedObject.insertUser(user);
+        User renamed = new User("RENAMED");
+        testedObject.insertUser(renamed);
+        testedObject.destroy();
+        testedObject = new FileUsersDao(directory.toString(), 1 << 20, false);
+
+        assertFalse(testedObject.findUser(user.getUserId()).phoneBookLoaded());
+        Path dataFile = directory.resolve("users.log");
+        for (int compaction = 0; compaction < 2; compaction++)
+        {
+            for (int i = 0; i < 40_000; i++)
+            {
+                String name = "RENAMED" + i;
+                testedObject.modifyUser(renamed.getUserId(), stored ->
+                {
+                    stored.setUserName(name);
+                    return stored.getUserId();
+                });
+            }
+            for (int i = 0; i < 100 && Files.size(dataFile) > 1 << 20; i++)
+            {
+                Thread.sleep(50);
+            }
+            assertTrue(Files.size(dataFile) < 1 << 20);
+        }
+
+        User found = testedObject.findUser(user.getUserId());
+        assertEquals("TEST_NUMBER", found.getPhoneBook().getListPhoneRecords().get(0).getPhoneNumber());
+        assertEquals(Long.valueOf(1L), testedObject.modifyUser(user.getUserId(),
+                stored -> (long) stored.getPhoneBook().size()));
+    }
+
+    @Test
+    public void testCorruptEntryIsSkipped() throws IOException
+    {
+        Path dataFile = directory.resolve("users.log");
+        User first = new User("FIRST");
+        testedObject.insertUser(first);
+        long corruptOffset = Files.size(dataFile) + 20;
+        User second = new User("SECOND");
+        testedObject.insertUser(second);
+        User third = new User("THIRD");
+        testedObject.insertUser(third);
+        long size = Files.size(dataFile);
+        testedObject.destroy();
+        try (RandomAccessFile file = new RandomAccessFile(dataFile.toFile(), "rw"))
+        {
+            file.seek(corruptOffset);
+            file.write(~file.read());
+        }
+
+        testedObject = new FileUsersDao(directory.toString(), 2, false);
+
+        assertEquals("FIRST", testedObject.findUser(first.getUserId()).getUserName());
+        assertNull(testedObject.findUser(second.getUserId()));
+        assertEquals("THIRD", testedObject.findUser(third.getUserId()).getUserName());
+        assertEquals(size, Files.size(dataFile));
+    }
+
+    private void reopen() throws IOException
+    {
+        testedObject.destroy();
+        testedObject = new FileUsersDao(directory.toString(), 2, false);
+    }
+}
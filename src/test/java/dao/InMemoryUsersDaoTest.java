@@ -0,0 +1,70 @@
+package dao;
+
+
+import boot.dao.InMemoryUsersDao;
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+/**Класс содержит юнит-тесты к методам класса InMemoryUsersDao
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class InMemoryUsersDaoTest
+{
+    @Test
+    public void testMemoryAccounting()
+    {
+        InMemoryUsersDao testedObject = new InMemoryUsersDao(1L << 20);
+        User user = new User("TEST");
+        testedObject.insertUser(user);
+        long userBytes = user.estimatedBytes();
+        assertEquals(userBytes, testedObject.getMemoryStats().getEstimatedBytes());
+
+        PhoneRecord record = new PhoneRecord("TEST", "TEST_NUMBER");
+        testedObject.modifyUser(user.getUserId(), stored -> stored.getPhoneBook().addPhoneRecord(record));
+        assertEquals(userBytes + record.estimatedBytes(), testedObject.getMemoryStats().getEstimatedBytes());
+
+        testedObject.removeUser(user.getUserId());
+        assertEquals(0L, testedObject.getMemoryStats().getEstimatedBytes());
+    }
+
+    @Test
+    public void testModifyUserAppliesToStoredUser()
+    {
+        InMemoryUsersDao testedObject = new InMemoryUsersDao(1L << 20);
+        User user = new User("TEST");
+        testedObject.insertUser(user);
+        User updated = new User("UPDATED");
+        updated.setUserId(user.getUserId());
+        updated.setVersion(1L);
+        assertTrue(testedObject.replaceUser(updated));
+        User stale = new User("STALE");
+        stale.setUserId(user.getUserId());
+        stale.setVersion(1L);
+        assertFalse(testedObject.replaceUser(stale));
+
+        PhoneRecord record = new PhoneRecord("TEST", "TEST_NUMBER");
+        testedObject.modifyUser(user.getUserId(), stored -> stored.getPhoneBook().addPhoneRecord(record));
+        User found = testedObject.findUser(user.getUserId());
+        assertEquals(1, found.getPhoneBook().size());
+        assertEquals(Long.valueOf(2L), found.getVersion());
+        assertEquals(0, user.getPhoneBook().size());
+    }
+
+    @Test
+    public void testWritesRejectedOverBudget()
+    {
+        User user = new User("TEST");
+        InMemoryUsersDao testedObject = new InMemoryUsersDao(user.estimatedBytes() + 100);
+
+        assertTrue(testedObject.hasMemoryFor(user.estimatedBytes()));
+        testedObject.insertUser(user);
+        assertFalse(testedObject.hasMemoryFor(200));
+        assertEquals(1L, testedObject.getMemoryStats().getRejectedWrites());
+    }
+}
@@ -0,0 +1,46 @@
+package entities;
+
+
+import boot.entities.PhoneNumbers;
+import boot.entities.PhoneRecord;
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+
+
+/**Класс содержит юнит-тесты к методам класса PhoneNumbers
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class PhoneNumbersTest
+{
+    @Test
+    public void testCanonicalKey()
+    {
+        long expected = PhoneNumbers.canonicalKey("+79001234567");
+        assertEquals("+79001234567", PhoneNumbers.canonical(expected));
+        assertEquals(expected, PhoneNumbers.canonicalKey("+7 (900) 123-45-67"));
+        assertEquals(expected, PhoneNumbers.canonicalKey("89001234567"));
+        assertEquals(expected, PhoneNumbers.canonicalKey("8 900 123.45.67"));
+        assertEquals(expected, PhoneNumbers.canonicalKey("9001234567"));
+
+        assertEquals("+89001234567", PhoneNumbers.canonical(PhoneNumbers.canonicalKey("+89001234567")));
+        assertEquals("+0012", PhoneNumbers.canonical(PhoneNumbers.canonicalKey("0012")));
+        assertEquals(PhoneNumbers.NO_KEY, PhoneNumbers.canonicalKey("TEST_NUMBER"));
+        assertEquals(PhoneNumbers.NO_KEY, PhoneNumbers.canonicalKey("900+123"));
+        assertEquals(PhoneNumbers.NO_KEY, PhoneNumbers.canonicalKey("1234567890123456"));
+        assertEquals(PhoneNumbers.NO_KEY, PhoneNumbers.canonicalKey("()"));
+        assertEquals(PhoneNumbers.NO_KEY, PhoneNumbers.canonicalKey(null));
+    }
+
+    @Test
+    public void testMatchKey()
+    {
+        assertEquals("+79001234567", PhoneNumbers.matchKey("8 (900) 123-45-67"));
+        assertEquals("TEST_NUMBER", PhoneNumbers.matchKey("TEST_NUMBER"));
+
+        PhoneRecord record = new PhoneRecord("TEST", "8 (900) 123-45-67");
+        assertEquals("+79001234567", record.getPhoneMatchKey());
+        record.setPhoneNumber("TEST_NUMBER");
+        assertEquals(PhoneNumbers.NO_KEY, record.getPhoneKey());
+    }
+}
@@ -0,0 +1,94 @@
+package events;
+
+
+import boot.entities.User;
+import boot.events.ChangeEvent;
+import boot.events.ChangeEventBuffer;
+import boot.events.ChangeType;
+import boot.exceptions.ChangeEventsExpiredException;
+import boot.exceptions.InvalidRequestParameterException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+/**Класс содержит юнит-тесты к методам класса ChangeEventBuffer
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class ChangeEventBufferTest
+{
+    private ChangeEventBuffer testedObject;
+
+    @Before
+    public void setUp() {
+        testedObject = new ChangeEventBuffer(4);
+    }
+
+    @Test
+    public void testPublish()
+    {
+        ChangeEvent event = ChangeEvent.ofUser(ChangeType.USER_ADDED, new User("TEST"));
+
+        assertEquals(0L, testedObject.publish(event));
+        assertEquals(0L, event.getOffset());
+        assertEquals(1L, testedObject.getNextOffset());
+    }
+
+    @Test
+    public void testReadMaxCount()
+    {
+        for (long i = 0; i < 3; i++)
+        {
+            testedObject.publish(ChangeEvent.ofUserDeleted(i));
+        }
+
+        List<ChangeEvent> events = testedObject.read(1L, 1);
+        assertEquals(1, events.size());
+        assertEquals(1L, events.get(0).getOffset());
+    }
+
+    @Test
+    public void testReadNotPublished()
+    {
+        testedObject.publish(ChangeEvent.ofUserDeleted(1L));
+
+        assertTrue(testedObject.read(1L, 10).isEmpty());
+    }
+
+    @Test
+    public void testReadAfterWrap()
+    {
+        for (long i = 0; i < 6; i++)
+        {
+            testedObject.publish(ChangeEvent.ofUserDeleted(i));
+        }
+
+        List<ChangeEvent> events = testedObject.read(2L, 10);
+        assertEquals(4, events.size());
+        assertEquals(5L, events.get(3).getOffset());
+        assertEquals(2L, testedObject.getOldestOffset());
+    }
+
+    @Test(expected = ChangeEventsExpiredException.class)
+    public void testReadExpired()
+    {
+        for (long i = 0; i < 6; i++)
+        {
+            testedObject.publish(ChangeEvent.ofUserDeleted(i));
+        }
+
+        testedObject.read(1L, 10);
+    }
+
+    @Test(expected = InvalidRequestParameterException.class)
+    public void testReadBeyondNextOffset()
+    {
+        testedObject.publish(ChangeEvent.ofUserDeleted(1L));
+
+        testedObject.read(2L, 10);
+    }
+}
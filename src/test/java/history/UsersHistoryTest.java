@@ -0,0 +1,106 @@
+package history;
+
+
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+import boot.exceptions.InvalidRequestParameterException;
+import boot.history.UsersHistory;
+import org.junit.Test;
+
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+/**Класс содержит юнит-тесты к методам класса UsersHistory
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class UsersHistoryTest
+{
+    @Test
+    public void testGetUserAsOf() throws InterruptedException
+    {
+        UsersHistory testedObject = new UsersHistory(UsersHistory.DEFAULT_RETENTION_MILLIS);
+        User user = new User("TEST");
+        user.setPhoneNumber("TEST_OWN_NUMBER");
+        PhoneRecord record = new PhoneRecord("TEST", "TEST_NUMBER");
+        user.getPhoneBook().addPhoneRecord(record);
+        long before = tick();
+        testedObject.recordUserAdded(user);
+        long added = tick();
+
+        PhoneRecord updated = new PhoneRecord("TEST", "TEST_NUMBER_2");
+        updated.setPhoneRecordId(record.getPhoneRecordId());
+        updated.setVersion(1L);
+        testedObject.recordPhoneRecord(user.getUserId(), updated);
+        long changed = tick();
+
+        testedObject.recordPhoneRecordDeleted(user.getUserId(), record.getPhoneRecordId());
+        long deleted = tick();
+
+        assertNull(testedObject.getUserAsOf(user.getUserId(), before));
+        assertEquals(record, testedObject.getUserAsOf(user.getUserId(), added)
+                .getPhoneBook().getPhoneRecord(record.getPhoneRecordId()));
+        assertEquals(updated, testedObject.getUserPhoneRecordsAsOf(user.getUserId(), changed).get(0));
+        List<PhoneRecord> records = testedObject.getUserPhoneRecordsAsOf(user.getUserId(), deleted);
+        assertTrue(records.isEmpty());
+
+        testedObject.recordUserDeleted(user);
+        assertNull(testedObject.getUserAsOf(user.getUserId(), tick()));
+        assertEquals("TEST", testedObject.getUserAsOf(user.getUserId(), deleted).getUserName());
+        assertEquals("TEST_OWN_NUMBER", testedObject.getUserAsOf(user.getUserId(), deleted).getPhoneNumber());
+    }
+
+    @Test
+    public void testLateUpdateIsIgnored()
+    {
+        UsersHistory testedObject = new UsersHistory(UsersHistory.DEFAULT_RETENTION_MILLIS);
+        User user = new User("TEST");
+        testedObject.recordUserAdded(user);
+        User newer = new User("TEST2");
+        newer.setUserId(user.getUserId());
+        newer.setVersion(2L);
+        testedObject.recordUserUpdated(newer);
+        User older = new User("TEST1");
+        older.setUserId(user.getUserId());
+        older.setVersion(1L);
+        testedObject.recordUserUpdated(older);
+
+        assertEquals("TEST2", testedObject.getUserAsOf(user.getUserId(), System.currentTimeMillis()).getUserName());
+    }
+
+    @Test
+    public void testCollectGarbage() throws InterruptedException
+    {
+        UsersHistory testedObject = new UsersHistory(50);
+        User user = new User("TEST");
+        testedObject.recordUserAdded(user);
+        testedObject.recordUserDeleted(user);
+        Thread.sleep(100);
+
+        testedObject.collectGarbage();
+
+        assertEquals(0, testedObject.size());
+    }
+
+    @Test(expected = InvalidRequestParameterException.class)
+    public void testGetUserAsOfOutsideRetention()
+    {
+        UsersHistory testedObject = new UsersHistory(1000);
+        testedObject.getUserAsOf(1L, System.currentTimeMillis() - 2000);
+    }
+
+    /**Метод ожидает смены миллисекунды, чтобы следующая версия получила более позднее время.
+     @return время до смены*/
+    private static long tick() throws InterruptedException
+    {
+        long now = System.currentTimeMillis();
+        while (System.currentTimeMillis() == now)
+        {
+            Thread.sleep(1);
+        }
+        return now;
+    }
+}
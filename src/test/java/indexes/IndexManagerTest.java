@@ -0,0 +1,230 @@
+package indexes;
+
+
+import boot.dao.InMemoryUsersDao;
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+import boot.indexes.IndexManager;
+import boot.indexes.IndexState;
+import boot.indexes.IndexStatus;
+import boot.indexes.NameIndex;
+import boot.indexes.PhoneNumberIndex;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+
+/**Класс содержит юнит-тесты к методам класса IndexManager
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class IndexManagerTest
+{
+    @Test
+    public void testBuildFromStore() throws InterruptedException
+    {
+        InMemoryUsersDao usersDao = new InMemoryUsersDao();
+        User user1 = insert(usersDao, "TEST_ALICE", "TEST_NUMBER");
+        User user2 = insert(usersDao, "TEST_BOB", "TEST_NUMBER");
+        IndexManager testedObject = new IndexManager(usersDao);
+        testedObject.register("name", NameIndex::new);
+        testedObject.register("phone", PhoneNumberIndex::new);
+        assertTrue(testedObject.awaitReady(10_000));
+
+        assertEquals(Collections.singletonList(user1.getUserId()), Arrays.asList(
+                testedObject.getReady("name", NameIndex.class).findCandidates("ALICE").toArray()));
+        assertEquals(Arrays.asList(user1.getUserId(), user2.getUserId()), Arrays.asList(
+                testedObject.getReady("phone", PhoneNumberIndex.class).findUsers("TEST_NUMBER").toArray()));
+        IndexStatus status = testedObject.getStatuses().get(0);
+        assertEquals("name", status.getName());
+        assertEquals(IndexState.READY, status.getState());
+        assertEquals(2, status.getScannedUsers());
+        assertEquals(2, status.getTotalUsers());
+        assertNotNull(status.getReadyAt());
+    }
+
+    @Test
+    public void testChangesDuringBuildAreCaughtUp() throws InterruptedException
+    {
+        BlockingUsersDao usersDao = new BlockingUsersDao();
+        User renamed = insert(usersDao, "TEST_ALICE", "TEST_NUMBER");
+        User deleted = insert(usersDao, "TEST_ALICE_2", "TEST_NUMBER");
+        IndexManager testedObject = new IndexManager(usersDao);
+        testedObject.register("name", NameIndex::new);
+        usersDao.started.await();
+
+        //Изменения сделаны после чтения хранилища, но до заполнения индекса
+        User added = insert(usersDao, "TEST_ALICE_3", "TEST_NUMBER");
+        testedObject.changed(added.getUserId());
+        User update = new User("TEST_BOB");
+        update.setUserId(renamed.getUserId());
+        update.setVersion(renamed.getVersion() + 1);
+        usersDao.replaceUser(update);
+        testedObject.changed(renamed.getUserId());
+        usersDao.removeUser(deleted.getUserId());
+        testedObject.changed(deleted.getUserId());
+
+        assertNull(testedObject.getReady("name", NameIndex.class));
+        IndexStatus status = testedObject.getStatuses().get(0);
+        assertEquals(IndexState.BUILDING, status.getState());
+        assertEquals(3, status.getPendingChanges());
+
+        usersDao.release.countDown();
+        assertTrue(testedObject.awaitReady(10_000));
+        NameIndex index = testedObject.getReady("name", NameIndex.class);
+        assertEquals(Collections.singletonList(added.getUserId()),
+                Arrays.asList(index.findCandidates("ALICE").toArray()));
+        assertEquals(Collections.singletonList(renamed.getUserId()),
+                Arrays.asList(index.findCandidates("BOB").toArray()));
+        assertEquals(0, testedObject.getStatuses().get(0).getPendingChanges());
+    }
+
+    @Test
+    public void testChangesAfterBuild() throws InterruptedException
+    {
+        InMemoryUsersDao usersDao = new InMemoryUsersDao();
+        IndexManager testedObject = new IndexManager(usersDao);
+        testedObject.register("phone", PhoneNumberIndex::new);
+        assertTrue(testedObject.awaitReady(10_000));
+
+        User user = insert(usersDao, "TEST", "TEST_NUMBER");
+        testedObject.changed(user.getUserId());
+        PhoneNumberIndex index = testedObject.getReady("phone", PhoneNumberIndex.class);
+        assertTrue(index.contains(user.getUserId(), "TEST_NUMBER"));
+
+        usersDao.removeUser(user.getUserId());
+        testedObject.changed(user.getUserId());
+        assertTrue(index.findUsers("TEST_NUMBER").isEmpty());
+    }
+
+    @Test
+    public void testPhoneRecordChangesAreAppliedWithoutReadingStore() throws InterruptedException
+    {
+        AtomicInteger reads = new AtomicInteger();
+        InMemoryUsersDao usersDao = new InMemoryUsersDao()
+        {
+            @Override
+            public User findUser(Long userId)
+            {
+                reads.incrementAndGet();
+                return super.findUser(userId);
+            }
+        };
+        IndexManager testedObject = new IndexManager(usersDao);
+        testedObject.register("phone", PhoneNumberIndex::new);
+        assertTrue(testedObject.awaitReady(10_000));
+        User user = insert(usersDao, "TEST", "TEST_NUMBER");
+        testedObject.changed(user.getUserId());
+        PhoneNumberIndex index = testedObject.getReady("phone", PhoneNumberIndex.class);
+
+        long generation = testedObject.generation();
+        PhoneRecord phoneRecord = new PhoneRecord("TEST", "TEST_OTHER_NUMBER");
+        user.getPhoneBook().addPhoneRecord(phoneRecord);
+        int readsBefore = reads.get();
+        testedObject.phoneRecordChanged(generation, user.getUserId(), null, phoneRecord);
+        assertEquals(readsBefore, reads.get());
+        assertTrue(index.contains(user.getUserId(), "TEST_OTHER_NUMBER"));
+
+        //Если за время изменения сменилось поколение индексов, пользователь перечитывается
+        user.getPhoneBook().deletePhoneRecord(phoneRecord);
+        testedObject.phoneRecordChanged(generation + 2, user.getUserId(), phoneRecord, null);
+        assertEquals(readsBefore + 1, reads.get());
+        assertFalse(index.contains(user.getUserId(), "TEST_OTHER_NUMBER"));
+        assertTrue(index.contains(user.getUserId(), "TEST_NUMBER"));
+    }
+
+    @Test
+    public void testReindexKeepsServingPreviousIndex() throws InterruptedException
+    {
+        BlockingUsersDao usersDao = new BlockingUsersDao();
+        usersDao.release.countDown();
+        User user = insert(usersDao, "TEST_ALICE", "TEST_NUMBER");
+        IndexManager testedObject = new IndexManager(usersDao);
+        testedObject.register("name", NameIndex::new);
+        assertTrue(testedObject.awaitReady(10_000));
+        NameIndex previous = testedObject.getReady("name", NameIndex.class);
+
+        usersDao.block();
+        assertEquals(IndexState.BUILDING, testedObject.reindex("name").getState());
+        usersDao.started.await();
+        assertSame(previous, testedObject.getReady("name", NameIndex.class));
+        assertNull(testedObject.reindex("unknown"));
+
+        usersDao.release.countDown();
+        assertTrue(testedObject.awaitReady(10_000));
+        NameIndex rebuilt = testedObject.getReady("name", NameIndex.class);
+        assertNotSame(previous, rebuilt);
+        assertEquals(Collections.singletonList(user.getUserId()),
+                Arrays.asList(rebuilt.findCandidates("ALICE").toArray()));
+    }
+
+    @Test
+    public void testFailedBuild() throws InterruptedException
+    {
+        InMemoryUsersDao usersDao = new InMemoryUsersDao()
+        {
+            @Override
+            public List<User> findAllUsers()
+            {
+                throw new IllegalStateException("TEST_ERROR");
+            }
+        };
+        IndexManager testedObject = new IndexManager(usersDao);
+        testedObject.register("name", NameIndex::new);
+        assertFalse(testedObject.awaitReady(10_000));
+
+        IndexStatus status = testedObject.getStatuses().get(0);
+        assertEquals(IndexState.FAILED, status.getState());
+        assertEquals("TEST_ERROR", status.getError());
+        assertNull(testedObject.getReady("name", NameIndex.class));
+    }
+
+    private static User insert(InMemoryUsersDao usersDao, String userName, String phoneNumber)
+    {
+        User user = new User(userName);
+        user.getPhoneBook().addPhoneRecord(new PhoneRecord("TEST", phoneNumber));
+        usersDao.insertUser(user);
+        return user;
+    }
+
+    /**Хранилище, чтение всех пользователей из которого останавливается до разрешения теста*/
+    private static class BlockingUsersDao extends InMemoryUsersDao
+    {
+        volatile CountDownLatch started = new CountDownLatch(1);
+
+        volatile CountDownLatch release = new CountDownLatch(1);
+
+        void block()
+        {
+            started = new CountDownLatch(1);
+            release = new CountDownLatch(1);
+        }
+
+        @Override
+        public List<User> findAllUsers()
+        {
+            List<User> users = super.findAllUsers();
+            started.countDown();
+            try
+            {
+                release.await();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            return users;
+        }
+    }
+}
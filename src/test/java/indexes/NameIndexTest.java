@@ -0,0 +1,54 @@
+package indexes;
+
+
+import boot.entities.User;
+import boot.indexes.NameIndex;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+/**Класс содержит юнит-тесты к методам класса NameIndex
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class NameIndexTest
+{
+    @Test
+    public void testFindCandidates()
+    {
+        NameIndex testedObject = new NameIndex();
+        User user1 = new User("TEST_ALICE");
+        User user2 = new User("ALI_CE_TEST");
+        testedObject.put(user1);
+        testedObject.put(user2);
+
+        assertEquals(Arrays.asList(user1.getUserId(), user2.getUserId()),
+                Arrays.asList(testedObject.findCandidates("TEST").toArray()));
+        assertEquals(Collections.singletonList(user1.getUserId()),
+                Arrays.asList(testedObject.findCandidates("ALICE").toArray()));
+        assertTrue(testedObject.findCandidates("MISSING").isEmpty());
+        assertNull(testedObject.findCandidates("AL"));
+    }
+
+    @Test
+    public void testPutReplacesName()
+    {
+        NameIndex testedObject = new NameIndex();
+        User user = new User("TEST_ALICE");
+        testedObject.put(user);
+        user.setUserName("TEST_BOB");
+        testedObject.put(user);
+
+        assertTrue(testedObject.findCandidates("ALICE").isEmpty());
+        assertEquals(Collections.singletonList(user.getUserId()),
+                Arrays.asList(testedObject.findCandidates("BOB").toArray()));
+
+        testedObject.remove(user.getUserId());
+        assertTrue(testedObject.findCandidates("TEST").isEmpty());
+    }
+}
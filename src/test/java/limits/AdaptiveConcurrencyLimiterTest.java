@@ -0,0 +1,105 @@
+package limits;
+
+
+import boot.limits.AdaptiveConcurrencyLimiter;
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+/**Класс содержит юнит-тесты к методам класса AdaptiveConcurrencyLimiter
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class AdaptiveConcurrencyLimiterTest
+{
+    @Test
+    public void testTryAcquire()
+    {
+        AdaptiveConcurrencyLimiter testedObject = new AdaptiveConcurrencyLimiter(2);
+
+        assertTrue(testedObject.tryAcquire());
+        assertTrue(testedObject.tryAcquire());
+        assertFalse(testedObject.tryAcquire());
+
+        testedObject.release(1_000L);
+        assertTrue(testedObject.tryAcquire());
+    }
+
+    @Test
+    public void testLimitDecreasesOncePerWindow()
+    {
+        AdaptiveConcurrencyLimiter testedObject = new AdaptiveConcurrencyLimiter(10);
+        runWindow(testedObject, 1_000L);
+        assertEquals(10, testedObject.getLimit());
+
+        //Все запросы окна долгие, но предел уменьшается только один раз
+        runWindow(testedObject, 10_000L);
+        assertEquals(9, testedObject.getLimit());
+    }
+
+    @Test
+    public void testSingleSlowRequestDoesNotDecreaseLimit()
+    {
+        AdaptiveConcurrencyLimiter testedObject = new AdaptiveConcurrencyLimiter(10);
+        runWindow(testedObject, 1_000L);
+
+        for (int i = 0; i < 10; i++)
+        {
+            testedObject.tryAcquire();
+        }
+        testedObject.release(10_000L);
+        for (int i = 1; i < 10; i++)
+        {
+            testedObject.release(1_000L);
+        }
+        assertEquals(10, testedObject.getLimit());
+    }
+
+    @Test
+    public void testLimitRecovers()
+    {
+        AdaptiveConcurrencyLimiter testedObject = new AdaptiveConcurrencyLimiter(10);
+        runWindow(testedObject, 1_000L);
+        runWindow(testedObject, 10_000L);
+        assertEquals(9, testedObject.getLimit());
+
+        //Предел снова исчерпан, а время обработки вернулось к базовому
+        runWindow(testedObject, 1_000L);
+        assertEquals(10, testedObject.getLimit());
+    }
+
+    @Test
+    public void testBaselineFollowsLatencyGrowth()
+    {
+        AdaptiveConcurrencyLimiter testedObject = new AdaptiveConcurrencyLimiter(32);
+        //Короткие запросы прогрева, затем время обработки выросло навсегда
+        runWindow(testedObject, 1_000L);
+        for (int i = 0; i < 200; i++)
+        {
+            runWindow(testedObject, 100_000L);
+        }
+        assertEquals(32, testedObject.getLimit());
+    }
+
+    /**Метод занимает все места ограничителя и освобождает их с заданным временем обработки,
+     * пока не наберётся окно из MIN_WINDOW_SAMPLES (10) или более запросов.*/
+    private static void runWindow(AdaptiveConcurrencyLimiter limiter, long latencyNanos)
+    {
+        int released = 0;
+        while (released < Math.max(10, limiter.getLimit()))
+        {
+            int acquired = 0;
+            while (limiter.tryAcquire())
+            {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++)
+            {
+                limiter.release(latencyNanos);
+            }
+            released += acquired;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package limits;
+
+
+import boot.exceptions.EntityNotFoundException;
+import boot.exceptions.ServiceOverloadedException;
+import boot.limits.QueryExecutor;
+import org.junit.Test;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.CountDownLatch;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+
+/**Класс содержит юнит-тесты к методам класса QueryExecutor
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class QueryExecutorTest
+{
+    @Test
+    public void testSubmit() throws InterruptedException
+    {
+        QueryExecutor testedObject = new QueryExecutor(1, 1, 10_000);
+        try
+        {
+            DeferredResult<String> result = testedObject.submit(() -> "TEST");
+            assertEquals("TEST", await(result));
+
+            EntityNotFoundException error = EntityNotFoundException.ofUser(1L);
+            DeferredResult<String> failed = testedObject.submit(() ->
+            {
+                throw error;
+            });
+            assertEquals(error, await(failed));
+        }
+        finally
+        {
+            testedObject.destroy();
+        }
+    }
+
+    @Test
+    public void testSubmitWhenOverloaded() throws InterruptedException
+    {
+        QueryExecutor testedObject = new QueryExecutor(1, 1, 10_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try
+        {
+            DeferredResult<String> running = testedObject.submit(() ->
+            {
+                started.countDown();
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                return "TEST1";
+            });
+            started.await();
+            DeferredResult<String> queued = testedObject.submit(() -> "TEST2");
+            try
+            {
+                testedObject.submit(() -> "TEST3");
+                fail("Query must be rejected when the pool and its queue are busy");
+            }
+            catch (ServiceOverloadedException e)
+            {
+                //Ожидаемый отказ
+            }
+
+            release.countDown();
+            assertEquals("TEST1", await(running));
+            assertEquals("TEST2", await(queued));
+        }
+        finally
+        {
+            testedObject.destroy();
+        }
+    }
+
+    @Test
+    public void testSubmitWhenTenantQueriesLimitIsReached() throws InterruptedException
+    {
+        QueryExecutor testedObject = new QueryExecutor(2, 10, 10_000, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try
+        {
+            DeferredResult<String> running = testedObject.submit(() ->
+            {
+                started.countDown();
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                return "TEST1";
+            });
+            started.await();
+            try
+            {
+                testedObject.submit(() -> "TEST2");
+                fail("Query must be rejected when the tenant has the maximum number of queries");
+            }
+            catch (ServiceOverloadedException e)
+            {
+                //Ожидаемый отказ, хотя в пуле есть свободный поток
+            }
+
+            release.countDown();
+            assertEquals("TEST1", await(running));
+            //Место арендатора освобождается после выполнения запроса
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (true)
+            {
+                try
+                {
+                    assertEquals("TEST3", await(testedObject.submit(() -> "TEST3")));
+                    break;
+                }
+                catch (ServiceOverloadedException e)
+                {
+                    assertTrue(System.currentTimeMillis() < deadline);
+                    Thread.sleep(1);
+                }
+            }
+        }
+        finally
+        {
+            testedObject.destroy();
+        }
+    }
+
+    private static Object await(DeferredResult<?> result) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!result.hasResult())
+        {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+        return result.getResult();
+    }
+}
@@ -0,0 +1,48 @@
+package limits;
+
+
+import boot.limits.TokenBucket;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+/**Класс содержит юнит-тесты к методам класса TokenBucket
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class TokenBucketTest
+{
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    public void testBurst()
+    {
+        TokenBucket testedObject = new TokenBucket(1, 3, 0L);
+
+        assertTrue(testedObject.tryAcquire(0L));
+        assertTrue(testedObject.tryAcquire(0L));
+        assertTrue(testedObject.tryAcquire(0L));
+        assertFalse(testedObject.tryAcquire(0L));
+    }
+
+    @Test
+    public void testRefill()
+    {
+        TokenBucket testedObject = new TokenBucket(2, 1, 0L);
+
+        assertTrue(testedObject.tryAcquire(0L));
+        assertFalse(testedObject.tryAcquire(SECOND / 4));
+        assertTrue(testedObject.tryAcquire(SECOND / 2));
+    }
+
+    @Test
+    public void testIsIdle()
+    {
+        TokenBucket testedObject = new TokenBucket(1, 1, 0L);
+
+        testedObject.tryAcquire(0L);
+        assertFalse(testedObject.isIdle(SECOND / 2));
+        assertTrue(testedObject.isIdle(SECOND));
+    }
+}
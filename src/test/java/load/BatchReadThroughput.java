@@ -0,0 +1,195 @@
+package load;
+
+
+import boot.App;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**Класс служит для сравнения пакетного чтения с чтением по одному: загружает
+ * одинаковые «экраны» из нескольких пользователей и записей их телефонных книжек
+ * отдельными запросами GET /users/{userId} и GET /users/phoneRecord/{userId}?id=
+ * и одним запросом к /users/batch и /users/phoneRecords/batch/{userId}, и печатает
+ * количество экранов в секунду для каждого способа.
+ *
+ * Параметры задаются системными свойствами:
+ * batch.users - пользователей (1000), batch.records - записей в телефонной книжке
+ * каждого пользователя (50), batch.screen - сущностей на экране (50),
+ * batch.duration - длительность замера каждого способа в секундах (20),
+ * batch.url - адрес уже запущенного приложения.
+ *
+ * Пример запуска:
+ * {@code java -cp <test-classpath> load.BatchReadThroughput}
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class BatchReadThroughput
+{
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String usersUrl;
+
+    private final int screen;
+
+    private final long durationNanos;
+
+    private final List<Long> userIds = new ArrayList<>();
+
+    private final List<Long> recordIds = new ArrayList<>();
+
+    BatchReadThroughput(String usersUrl)
+    {
+        this.usersUrl = usersUrl;
+        this.screen = Integer.getInteger("batch.screen", 50);
+        this.durationNanos = TimeUnit.SECONDS.toNanos(Integer.getInteger("batch.duration", 20));
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        String url = System.getProperty("batch.url");
+        ConfigurableApplicationContext context = null;
+        if (url == null)
+        {
+            context = SpringApplication.run(App.class, "--server.port=0");
+            url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+        try
+        {
+            BatchReadThroughput benchmark = new BatchReadThroughput(url + "/users");
+            benchmark.populate(Integer.getInteger("batch.users", 1000), Integer.getInteger("batch.records", 50));
+
+            double single = benchmark.measure("users one by one", false, benchmark::usersOneByOne);
+            double batch = benchmark.measure("users batch", false, benchmark::usersBatch);
+            System.out.printf("users: batch is %.1fx faster%n", batch / single);
+
+            single = benchmark.measure("phone records one by one", true, benchmark::recordsOneByOne);
+            batch = benchmark.measure("phone records batch", true, benchmark::recordsBatch);
+            System.out.printf("phone records: batch is %.1fx faster%n", batch / single);
+        }
+        finally
+        {
+            if (context != null)
+            {
+                context.close();
+            }
+        }
+    }
+
+    private interface Screen
+    {
+        void load(List<Long> ids) throws IOException;
+    }
+
+    void populate(int users, int records) throws IOException
+    {
+        for (int i = 0; i < users; i++)
+        {
+            userIds.add(MAPPER.readTree(send("POST", "", "{\"userName\":\"batch-user-" + i + "\"}"))
+                    .get("userId").asLong());
+        }
+        //Записи добавляются первому пользователю, экраны записей читаются из его книжки
+        for (int j = 0; j < records; j++)
+        {
+            recordIds.add(MAPPER.readTree(send("POST", "/phoneRecord/" + userIds.get(0),
+                    "{\"name\":\"name-" + j + "\",\"phoneNumber\":\"+7900" + j + "\"}"))
+                    .get("phoneRecordId").asLong());
+        }
+    }
+
+    /**Метод загружает случайные экраны указанным способом в течение заданного времени
+     * (после прогрева такой же длительности) и печатает количество экранов в секунду.*/
+    private double measure(String name, boolean records, Screen method) throws IOException
+    {
+        Random random = new Random(1);
+        List<Long> source = records ? recordIds : userIds;
+        for (int pass = 0; pass < 2; pass++)
+        {
+            long screens = 0;
+            long start = System.nanoTime();
+            while (System.nanoTime() - start < durationNanos)
+            {
+                List<Long> ids = new ArrayList<>(screen);
+                for (int i = 0; i < screen; i++)
+                {
+                    ids.add(source.get(random.nextInt(source.size())));
+                }
+                method.load(ids);
+                screens++;
+            }
+            if (pass == 1)//Первый проход - прогрев
+            {
+                double perSecond = screens * 1e9 / (System.nanoTime() - start);
+                System.out.printf("%s: %.1f screens/s%n", name, perSecond);
+                return perSecond;
+            }
+        }
+        throw new AssertionError();
+    }
+
+    private void usersOneByOne(List<Long> ids) throws IOException
+    {
+        for (Long id : ids)
+        {
+            send("GET", "/" + id, null);
+        }
+    }
+
+    private void usersBatch(List<Long> ids) throws IOException
+    {
+        send("POST", "/batch", MAPPER.writeValueAsString(ids));
+    }
+
+    private void recordsOneByOne(List<Long> ids) throws IOException
+    {
+        for (Long id : ids)
+        {
+            send("GET", "/phoneRecord/" + userIds.get(0) + "?id=" + id, null);
+        }
+    }
+
+    private void recordsBatch(List<Long> ids) throws IOException
+    {
+        send("POST", "/phoneRecords/batch/" + userIds.get(0), MAPPER.writeValueAsString(ids));
+    }
+
+    private String send(String method, String path, String json) throws IOException
+    {
+        HttpURLConnection connection = (HttpURLConnection) new URL(usersUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        if (json != null)
+        {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream())
+            {
+                out.write(json.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        if (status >= 400)
+        {
+            throw new IOException(method + " " + path + " failed with status " + status);
+        }
+        try (InputStream in = connection.getInputStream())
+        {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int n; (n = in.read(buffer)) > 0; )
+            {
+                body.write(buffer, 0, n);
+            }
+            return new String(body.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
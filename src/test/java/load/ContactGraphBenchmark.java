@@ -0,0 +1,123 @@
+package load;
+
+
+import boot.contacts.ContactGraph;
+import boot.entities.PhoneBook;
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**Класс служит для оценки времени запросов к графу контактов: заносит в граф
+ * пользователей со случайными телефонными книжками из номеров других пользователей
+ * (часть номеров выбирается из небольшого набора популярных пользователей) и печатает
+ * время построения, задержки запросов «чьи номера есть в книжке», «у кого есть номер
+ * пользователя», общих контактов и достижимых за два перехода пользователей,
+ * а также время добавления и удаления записи.
+ *
+ * Параметры задаются системными свойствами:
+ * graph.users - пользователей (1000000), graph.records - записей в телефонной книжке
+ * каждого пользователя (10), graph.queries - запросов каждого вида (10000),
+ * graph.reachable-limit - наибольшее количество достижимых пользователей (10000).
+ *
+ * Пример запуска:
+ * {@code java -Xmx4g -cp <test-classpath> load.ContactGraphBenchmark}
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class ContactGraphBenchmark
+{
+    /**Доля записей с номерами популярных пользователей*/
+    private static final double POPULAR_SHARE = 0.1;
+
+    private static final int POPULAR_USERS = 1000;
+
+    public static void main(String[] args)
+    {
+        int users = Integer.getInteger("graph.users", 1_000_000);
+        int records = Integer.getInteger("graph.records", 10);
+        int queries = Integer.getInteger("graph.queries", 10_000);
+        int reachableLimit = Integer.getInteger("graph.reachable-limit", 10_000);
+
+        Random random = new Random(1);
+        ContactGraph graph = new ContactGraph();
+        Long[] ids = new Long[users];
+        for (int i = 0; i < users; i++)
+        {
+            ids[i] = User.nextUserId();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < users; i++)
+        {
+            User user = new User();
+            user.setUserId(ids[i]);
+            user.setPhoneNumber(phoneNumber(i));
+            user.setPhoneBook(new PhoneBook());
+            for (int j = 0; j < records; j++)
+            {
+                int contact = random.nextDouble() < POPULAR_SHARE ? random.nextInt(POPULAR_USERS) : random.nextInt(users);
+                user.getPhoneBook().addPhoneRecord(new PhoneRecord("name", phoneNumber(contact)));
+            }
+            graph.put(user);
+        }
+        System.out.printf("build: %d users, %d edges in %d ms%n", users, graph.getEdgeCount(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        for (int pass = 0; pass < 2; pass++)//Первый проход - прогрев
+        {
+            boolean print = pass == 1;
+            measure(print, "contacts", queries, () -> graph.getContacts(ids[random.nextInt(users)]).size());
+            measure(print, "known by (popular user)", queries,
+                    () -> graph.getUsersHaving(ids[random.nextInt(POPULAR_USERS)]).size());
+            measure(print, "known by", queries, () -> graph.getUsersHaving(ids[random.nextInt(users)]).size());
+            measure(print, "mutual", queries,
+                    () -> graph.getMutualContacts(ids[random.nextInt(users)], ids[random.nextInt(users)]).size());
+            measure(print, "reachable, 2 hops", queries,
+                    () -> graph.getReachable(ids[random.nextInt(users)], 2, reachableLimit).size());
+        }
+
+        User user = new User();
+        user.setUserId(ids[0]);
+        user.setPhoneNumber(phoneNumber(0));
+        user.setPhoneBook(new PhoneBook());
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++)
+        {
+            //Запись добавляется и удаляется, книжка перечитывается целиком, как в IndexManager
+            user.getPhoneBook().addPhoneRecord(new PhoneRecord("name", phoneNumber(random.nextInt(users))));
+            graph.put(user);
+            user.getPhoneBook().deletePhoneRecord(user.getPhoneBook().getListPhoneRecords().get(0));
+            graph.put(user);
+        }
+        System.out.printf("add + delete record: %.1f us%n",
+                (System.nanoTime() - start) / 1000.0 / queries);
+    }
+
+    private interface Query
+    {
+        int run();
+    }
+
+    private static void measure(boolean print, String name, int queries, Query query)
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long found = 0;
+        for (int i = 0; i < queries; i++)
+        {
+            long start = System.nanoTime();
+            found += query.run();
+            histogram.record(System.nanoTime() - start);
+        }
+        if (print)
+        {
+            System.out.printf("%s: %.1f results, p50 %.3f  p99 %.3f  max %.3f ms%n", name, (double) found / queries,
+                    histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(99) / 1e6,
+                    histogram.getMaxValue() / 1e6);
+        }
+    }
+
+    private static String phoneNumber(int user)
+    {
+        return "+7" + (9_000_000_000L + user);
+    }
+}
@@ -0,0 +1,167 @@
+package load;
+
+
+import boot.dao.FileUsersDao;
+import boot.dao.InMemoryUsersDao;
+import boot.dao.MemoryStats;
+import boot.dao.UsersDao;
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**Класс служит для проверки хранилища на данных, превышающих размер кучи: заполняет
+ * хранилище в оперативной памяти, пока не будет исчерпан его бюджет памяти, и файловое
+ * хранилище - данными в заданное число раз больше максимального размера кучи. Для обоих
+ * печатаются объём данных, занятая куча после сборки мусора и скорость записи, для
+ * файлового хранилища - ещё задержки чтения пользователей вместе с телефонными
+ * книжками: горячих (на них приходится 90% чтений) и холодных.
+ *
+ * Параметры задаются системными свойствами:
+ * storage.heap-multiple - во сколько раз данные больше кучи (10), storage.records -
+ * записей в телефонной книжке каждого пользователя (100), storage.hot-percent - процент
+ * горячих пользователей (2, их данные занимают пятую часть кучи), storage.reads - чтений (200000),
+ * storage.directory - каталог для файла данных (временный каталог).
+ *
+ * Пример запуска:
+ * {@code java -Xmx64m -cp <test-classpath> load.FileStorageBenchmark}
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class FileStorageBenchmark
+{
+    /**Доля чтений горячих пользователей*/
+    private static final double HOT_READS = 0.9;
+
+    public static void main(String[] args) throws IOException
+    {
+        long heap = Runtime.getRuntime().maxMemory();
+        long target = heap * Integer.getInteger("storage.heap-multiple", 10);
+        int records = Integer.getInteger("storage.records", 100);
+        int reads = Integer.getInteger("storage.reads", 200_000);
+        int hotPercent = Integer.getInteger("storage.hot-percent", 2);
+        System.out.printf("max heap: %.1f MB%n", heap / 1048576.0);
+
+        InMemoryUsersDao memory = new InMemoryUsersDao();
+        fill("memory", memory, target, records);
+        memory = null;
+        usedHeapAfterGc();
+
+        String directory = System.getProperty("storage.directory");
+        Path path = directory != null ? Files.createDirectories(Paths.get(directory))
+                : Files.createTempDirectory("users-storage");
+        FileUsersDao file = new FileUsersDao(path.toString(), 0, false);
+        try
+        {
+            int users = fill("file", file, target, records);
+            System.out.printf("file: data file %.1f MB%n", directorySize(path) / 1048576.0);
+            read(file, users * hotPercent / 100, reads);//Прогрев
+            read(file, users * hotPercent / 100, reads);
+        }
+        finally
+        {
+            file.destroy();
+            try (Stream<Path> files = Files.walk(path))
+            {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    /**Метод добавляет пользователей, пока их объём не достигнет заданного или хранилище
+     * не откажет в записи из-за бюджета памяти.
+     @return количество добавленных пользователей*/
+    private static int fill(String name, UsersDao dao, long target, int records)
+    {
+        long baseline = usedHeapAfterGc();
+        long bytes = 0;
+        int users = 0;
+        long start = System.nanoTime();
+        while (bytes < target)
+        {
+            User user = user(users, records);
+            if (!dao.hasMemoryFor(user.estimatedBytes()))
+            {
+                break;
+            }
+            user.setVersion(0L);
+            dao.insertUser(user);
+            bytes += user.estimatedBytes();
+            users++;
+        }
+        long nanos = System.nanoTime() - start;
+        MemoryStats stats = dao.getMemoryStats();
+        System.out.printf("%s: %d users, %.1f MB of data, %.1f MB heap after GC (%.1f MB counted by store), "
+                        + "%.0f users/s%n", name, users, bytes / 1048576.0,
+                (usedHeapAfterGc() - baseline) / 1048576.0, stats.getEstimatedBytes() / 1048576.0,
+                users * 1e9 / nanos);
+        return users;
+    }
+
+    private static User user(int number, int records)
+    {
+        User user = new User("storage-user-" + number);
+        user.setPhoneNumber("+7 900 " + (1_000_000 + number));
+        for (int j = 0; j < records; j++)
+        {
+            user.getPhoneBook().addPhoneRecord(new PhoneRecord("contact-" + number + "-" + j,
+                    "+7 901 " + (1_000_000 + number * 31 + j)));
+        }
+        return user;
+    }
+
+    /**Метод читает пользователей вместе с телефонными книжками и печатает процентили
+     * задержек чтения горячих и холодных пользователей.*/
+    private static void read(FileUsersDao dao, int hotUsers, int reads)
+    {
+        Long[] ids = dao.findAllUsers().stream().map(User::getUserId).toArray(Long[]::new);
+        int hot = Math.max(1, hotUsers);
+        Random random = new Random(1);
+        LatencyHistogram hotLatency = new LatencyHistogram();
+        LatencyHistogram coldLatency = new LatencyHistogram();
+        long evictions = dao.getMemoryStats().getEvictedUsers();
+        long start = System.nanoTime();
+        for (int i = 0; i < reads; i++)
+        {
+            boolean hotRead = random.nextDouble() < HOT_READS;
+            Long id = ids[hotRead ? random.nextInt(hot) : hot + random.nextInt(ids.length - hot)];
+            long begin = System.nanoTime();
+            User user = dao.findUser(id);
+            user.getPhoneBook().size();
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin);
+            (hotRead ? hotLatency : coldLatency).record(micros);
+        }
+        long nanos = System.nanoTime() - start;
+        MemoryStats stats = dao.getMemoryStats();
+        System.out.printf("file reads: %.0f reads/s, %d cached users, %d evictions%n",
+                reads * 1e9 / nanos, stats.getUsersInMemory(), stats.getEvictedUsers() - evictions);
+        System.out.printf("  hot:  p50 %d us, p99 %d us, p99.9 %d us%n", hotLatency.getValueAtPercentile(50),
+                hotLatency.getValueAtPercentile(99), hotLatency.getValueAtPercentile(99.9));
+        System.out.printf("  cold: p50 %d us, p99 %d us, p99.9 %d us%n", coldLatency.getValueAtPercentile(50),
+                coldLatency.getValueAtPercentile(99), coldLatency.getValueAtPercentile(99.9));
+    }
+
+    private static long directorySize(Path path) throws IOException
+    {
+        try (Stream<Path> files = Files.walk(path))
+        {
+            return files.filter(Files::isRegularFile).mapToLong(p -> p.toFile().length()).sum();
+        }
+    }
+
+    private static long usedHeapAfterGc()
+    {
+        for (int i = 0; i < 3; i++)
+        {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
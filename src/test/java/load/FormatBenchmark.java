@@ -0,0 +1,108 @@
+package load;
+
+
+import boot.App;
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**Класс служит для сравнения форматов ответа: кодирует одни и те же данные в JSON,
+ * CBOR и Smile тем же способом, что и конвертеры Spring MVC, и для каждого формата
+ * печатает размер ответа без сжатия и со сжатием gzip и среднее время кодирования.
+ * Форматы, библиотек которых нет в classpath, пропускаются.
+ *
+ * Параметры задаются системными свойствами:
+ * format.users - пользователей в списке (1000), format.records - записей в телефонной
+ * книжке каждого пользователя (20), format.duration - длительность замера каждого
+ * формата в секундах (10).
+ *
+ * Пример запуска:
+ * {@code java -cp <test-classpath> load.FormatBenchmark}
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class FormatBenchmark
+{
+    private final long durationNanos;
+
+    FormatBenchmark(long durationNanos)
+    {
+        this.durationNanos = durationNanos;
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        FormatBenchmark benchmark = new FormatBenchmark(
+                TimeUnit.SECONDS.toNanos(Integer.getInteger("format.duration", 10)));
+        Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+        mappers.put("json", Jackson2ObjectMapperBuilder.json().build());
+        if (App.CBOR_PRESENT)
+        {
+            mappers.put("cbor", Jackson2ObjectMapperBuilder.cbor().build());
+        }
+        if (App.SMILE_PRESENT)
+        {
+            mappers.put("smile", Jackson2ObjectMapperBuilder.smile().build());
+        }
+
+        List<User> users = users(Integer.getInteger("format.users", 1000), Integer.getInteger("format.records", 20));
+        User single = users.get(0);
+        for (Map.Entry<String, ObjectMapper> mapper : mappers.entrySet())
+        {
+            benchmark.measure(mapper.getKey() + " user", mapper.getValue(), single);
+            benchmark.measure(mapper.getKey() + " users", mapper.getValue(), users);
+        }
+    }
+
+    private static List<User> users(int count, int records)
+    {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            User user = new User("format-user-" + i);
+            user.setPhoneNumber("+7 900 " + (1_000_000 + i));
+            for (int j = 0; j < records; j++)
+            {
+                user.getPhoneBook().addPhoneRecord(new PhoneRecord("contact-" + j, "+7 901 " + (1_000_000 + i * 31 + j)));
+            }
+            users.add(user);
+        }
+        return users;
+    }
+
+    /**Метод кодирует значение в течение заданного времени (после прогрева такой же
+     * длительности) и печатает размеры ответа и среднее время кодирования.*/
+    private void measure(String name, ObjectMapper mapper, Object value) throws IOException
+    {
+        byte[] encoded = mapper.writeValueAsBytes(value);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed))
+        {
+            gzip.write(encoded);
+        }
+        for (int pass = 0; pass < 2; pass++)
+        {
+            long encodings = 0;
+            long start = System.nanoTime();
+            while (System.nanoTime() - start < durationNanos)
+            {
+                mapper.writeValueAsBytes(value);
+                encodings++;
+            }
+            if (pass == 1)//Первый проход - прогрев
+            {
+                System.out.printf("%s: %d bytes, %d bytes gzip, %.1f us per encoding%n", name,
+                        encoded.length, compressed.size(), (System.nanoTime() - start) / 1e3 / encodings);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package load;
+
+
+import boot.dao.InMemoryUsersDao;
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+import boot.services.UsersService;
+import boot.services.UsersServiceImpl;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Random;
+
+/**Класс служит для оценки экономии памяти от дедупликации строк: заполняет хранилище
+ * пользователями, телефонные книжки которых составлены из общего набора контактов,
+ * один раз напрямую через хранилище (без дедупликации) и один раз через сервис
+ * (с дедупликацией), и сравнивает занятую кучу после сборки мусора и время поиска
+ * записей по номеру телефона. Каждая строка создаётся заново, как при разборе JSON.
+ *
+ * Параметры задаются системными свойствами:
+ * footprint.users - пользователей (10000), footprint.records - записей в телефонной
+ * книжке каждого пользователя (50), footprint.contacts - различных контактов (5000),
+ * footprint.lookups - поисков по номеру телефона (200000).
+ *
+ * Пример запуска:
+ * {@code java -Xmx2g -cp <test-classpath> load.InterningFootprint}
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class InterningFootprint
+{
+    public static void main(String[] args)
+    {
+        int users = Integer.getInteger("footprint.users", 10_000);
+        int records = Integer.getInteger("footprint.records", 50);
+        int contacts = Integer.getInteger("footprint.contacts", 5000);
+        int lookups = Integer.getInteger("footprint.lookups", 200_000);
+
+        long baseline = usedHeapAfterGc();
+        InMemoryUsersDao plain = new InMemoryUsersDao();
+        Long[] plainIds = fill(users, records, contacts, user ->
+        {
+            user.setVersion(0L);
+            plain.insertUser(user);
+            return user.getUserId();
+        });
+        long plainBytes = usedHeapAfterGc() - baseline;
+        UsersService plainService = new UsersServiceImpl(plain);
+        lookups(plainService, plainIds, contacts, lookups);//Прогрев
+        long plainLookupNanos = lookups(plainService, plainIds, contacts, lookups);
+        report("without interning", plainBytes, plainLookupNanos, lookups);
+
+        plainIds = null;
+        plainService = null;
+        plain.findAllUsers().forEach(user -> plain.removeUser(user.getUserId()));
+
+        baseline = usedHeapAfterGc();
+        UsersService interned = new UsersServiceImpl();
+        Long[] internedIds = fill(users, records, contacts, interned::addUser);
+        long internedBytes = usedHeapAfterGc() - baseline;
+        lookups(interned, internedIds, contacts, lookups);
+        long internedLookupNanos = lookups(interned, internedIds, contacts, lookups);
+        report("with interning", internedBytes, internedLookupNanos, lookups);
+
+        System.out.printf("heap saved: %.1f MB (%.0f%%)%n", (plainBytes - internedBytes) / 1048576.0,
+                100.0 * (plainBytes - internedBytes) / plainBytes);
+    }
+
+    private interface Store
+    {
+        Long add(User user);
+    }
+
+    private static Long[] fill(int users, int records, int contacts, Store store)
+    {
+        Random random = new Random(42);
+        Long[] ids = new Long[users];
+        for (int i = 0; i < users; i++)
+        {
+            //Имена пользователей тоже повторяются, как повторяются имена у людей
+            User user = new User(new String(("user-" + random.nextInt(Math.max(1, users / 10))).toCharArray()));
+            for (int j = 0; j < records; j++)
+            {
+                int contact = random.nextInt(contacts);
+                user.getPhoneBook().addPhoneRecord(new PhoneRecord(
+                        new String(("contact-" + contact).toCharArray()),
+                        new String(phoneNumber(contact).toCharArray())));
+            }
+            ids[i] = store.add(user);
+        }
+        return ids;
+    }
+
+    private static long lookups(UsersService service, Long[] ids, int contacts, int lookups)
+    {
+        Random random = new Random(7);
+        long found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++)
+        {
+            String phoneNumber = new String(phoneNumber(random.nextInt(contacts)).toCharArray());
+            found += service.getUserPhoneRecordsByPhoneNumber(ids[random.nextInt(ids.length)], phoneNumber).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (found < 0)//Результат используется, чтобы JIT-компилятор не удалил поиск
+        {
+            System.out.println(found);
+        }
+        return elapsed;
+    }
+
+    private static String phoneNumber(int contact)
+    {
+        return "+7" + (9_000_000_000L + contact);
+    }
+
+    private static void report(String name, long bytes, long lookupNanos, int lookups)
+    {
+        System.out.printf("%s: heap %.1f MB, lookup by phone number %.2f us%n",
+                name, bytes / 1048576.0, lookupNanos / 1000.0 / lookups);
+    }
+
+    private static long usedHeapAfterGc()
+    {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++)
+        {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
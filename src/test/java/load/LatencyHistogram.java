@@ -0,0 +1,114 @@
+package load;
+
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**Класс представляет гистограмму задержек с логарифмическими интервалами
+ * (по образцу HdrHistogram): каждая степень двойки делится на 32 равных интервала,
+ * поэтому относительная погрешность процентилей не превышает 1/32 (около 3%).
+ * Запись значения не выполняет выделений памяти и блокировок.
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class LatencyHistogram
+{
+    /**Количество двоичных разрядов, задающих интервал внутри степени двойки*/
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**Количество интервалов: значения до 2^SUB_BUCKET_BITS хранятся точно,
+     * далее по SUB_BUCKET_COUNT интервалов на каждую из оставшихся степеней двойки*/
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT * (64 - SUB_BUCKET_BITS + 1);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    private final AtomicLong totalCount = new AtomicLong();
+
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**Метод записывает значение в гистограмму.
+     @param value значение, например задержка в микросекундах, отрицательные считаются нулём*/
+    public void record(long value)
+    {
+        if (value < 0)
+        {
+            value = 0;
+        }
+        counts.incrementAndGet(bucketOf(value));
+        totalCount.incrementAndGet();
+        maxValue.accumulateAndGet(value, Math::max);
+    }
+
+    /**Метод добавляет в гистограмму все значения другой гистограммы.
+     @param other гистограмма, значения которой нужно добавить*/
+    public void add(LatencyHistogram other)
+    {
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            long count = other.counts.get(i);
+            if (count != 0)
+            {
+                counts.addAndGet(i, count);
+            }
+        }
+        totalCount.addAndGet(other.totalCount.get());
+        maxValue.accumulateAndGet(other.maxValue.get(), Math::max);
+    }
+
+    /**Метод возвращает значение, не превышаемое указанной долей записанных значений.
+     @param percentile процентиль от 0 до 100
+     @return верхняя граница интервала, содержащего процентиль, или 0 если значений нет*/
+    public long getValueAtPercentile(double percentile)
+    {
+        long total = totalCount.get();
+        if (total == 0)
+        {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(percentile, 100.0) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            seen += counts.get(i);
+            if (seen >= rank)
+            {
+                return Math.min(highestValueIn(i), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+
+    public long getTotalCount()
+    {
+        return totalCount.get();
+    }
+
+    public long getMaxValue()
+    {
+        return maxValue.get();
+    }
+
+    private static int bucketOf(long value)
+    {
+        if (value < SUB_BUCKET_COUNT)
+        {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);//Номер старшего разряда
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT * (shift + 1) + subBucket;
+    }
+
+    private static long highestValueIn(int bucket)
+    {
+        if (bucket < SUB_BUCKET_COUNT)
+        {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKET_COUNT - 1;
+        long subBucket = bucket % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
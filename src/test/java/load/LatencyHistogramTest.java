@@ -0,0 +1,59 @@
+package load;
+
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+/**Класс содержит юнит-тесты к методам класса LatencyHistogram
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class LatencyHistogramTest
+{
+    @Test
+    public void testSmallValuesAreExact()
+    {
+        LatencyHistogram testedObject = new LatencyHistogram();
+        for (long value = 1; value <= 10; value++)
+        {
+            testedObject.record(value);
+        }
+
+        assertEquals(5L, testedObject.getValueAtPercentile(50));
+        assertEquals(10L, testedObject.getValueAtPercentile(100));
+        assertEquals(10L, testedObject.getTotalCount());
+    }
+
+    @Test
+    public void testPercentilesWithinPrecision()
+    {
+        LatencyHistogram testedObject = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++)
+        {
+            testedObject.record(value);
+        }
+
+        long p99 = testedObject.getValueAtPercentile(99);
+        assertTrue(p99 >= 99_000 && p99 <= 99_000 * 33 / 32);
+        assertEquals(100_000L, testedObject.getValueAtPercentile(100));
+        assertEquals(100_000L, testedObject.getMaxValue());
+    }
+
+    @Test
+    public void testAdd()
+    {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record(10);
+        second.record(20);
+        second.record(30);
+
+        first.add(second);
+
+        assertEquals(3L, first.getTotalCount());
+        assertEquals(30L, first.getMaxValue());
+        assertEquals(20L, first.getValueAtPercentile(50));
+    }
+}
@@ -0,0 +1,415 @@
+package load;
+
+
+import boot.App;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**Класс представляет генератор нагрузки на REST API пользователей и их телефонных
+ * книжек. Запускает приложение в том же процессе (или использует уже запущенное,
+ * если задан load.url) и отправляет запросы с постоянной интенсивностью (открытая
+ * модель нагрузки): время очередного запроса не зависит от времени ответа на предыдущие.
+ * Задержка отсчитывается от запланированного времени запроса, поэтому замедление
+ * сервера не скрывается уменьшением числа отправленных запросов.
+ * Во время длительных прогонов проверяется рост занятой кучи после сборок мусора.
+ *
+ * Параметры задаются системными свойствами:
+ * load.rate - запросов в секунду (200), load.duration - длительность в секундах (60),
+ * load.warmup - прогрев в секундах, не входящий в итоги (10), load.threads - потоков
+ * клиента (64), load.users - пользователей (1000), load.records - записей в телефонной
+ * книжке каждого пользователя (10), load.mix - доли операций, например
+ * "getUser=40,getPhoneRecord=25,getPhoneRecords=15,updatePhoneRecord=10,getUsersByName=5,addPhoneRecord=5",
+ * load.report - интервал отчёта в секундах (10), load.maxHeapGrowthMbPerHour -
+ * допустимый рост кучи (64), load.url - адрес уже запущенного приложения.
+ *
+ * Пример запуска часового прогона:
+ * {@code java -Dload.rate=500 -Dload.duration=3600 -cp <test-classpath> load.LoadGenerator}
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class LoadGenerator
+{
+    /**Операции, из которых складывается нагрузка*/
+    enum Operation
+    {
+        GET_USER("getUser"),
+        GET_USERS_BY_NAME("getUsersByName"),
+        GET_PHONE_RECORDS("getPhoneRecords"),
+        GET_PHONE_RECORD("getPhoneRecord"),
+        ADD_PHONE_RECORD("addPhoneRecord"),
+        UPDATE_PHONE_RECORD("updatePhoneRecord");
+
+        private final String parameterName;
+
+        Operation(String parameterName)
+        {
+            this.parameterName = parameterName;
+        }
+
+        static Operation of(String parameterName)
+        {
+            for (Operation operation : values())
+            {
+                if (operation.parameterName.equals(parameterName))
+                {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation " + parameterName);
+        }
+    }
+
+    private static final String DEFAULT_MIX =
+            "getUser=40,getPhoneRecord=25,getPhoneRecords=15,updatePhoneRecord=10,getUsersByName=5,addPhoneRecord=5";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String baseUrl;
+
+    private final int rate;
+
+    private final long durationNanos;
+
+    private final long warmupNanos;
+
+    private final long reportNanos;
+
+    private final int records;
+
+    /**Операции, каждая повторена столько раз, какова её доля в нагрузке*/
+    private final Operation[] mix;
+
+    private final List<Long> userIds = new ArrayList<>();
+
+    /**Задержки за текущий интервал отчёта, по порядковому номеру операции*/
+    private final AtomicReferenceArray<LatencyHistogram> intervalHistograms =
+            new AtomicReferenceArray<>(Operation.values().length);
+
+    private final Map<Operation, LatencyHistogram> totalHistograms = new EnumMap<>(Operation.class);
+
+    private final AtomicLong errors = new AtomicLong();
+
+    /**Занятая куча после сборок мусора: время замера в секундах и объём в байтах*/
+    private final List<double[]> heapSamples = new ArrayList<>();
+
+    /**Признак окончания прогрева, результаты до него не входят в итоги*/
+    private volatile boolean measuring;
+
+    LoadGenerator(String baseUrl)
+    {
+        this.baseUrl = baseUrl;
+        this.rate = Integer.getInteger("load.rate", 200);
+        this.durationNanos = TimeUnit.SECONDS.toNanos(Integer.getInteger("load.duration", 60));
+        this.warmupNanos = TimeUnit.SECONDS.toNanos(Integer.getInteger("load.warmup", 10));
+        this.reportNanos = TimeUnit.SECONDS.toNanos(Integer.getInteger("load.report", 10));
+        this.records = Integer.getInteger("load.records", 10);
+        this.mix = parseMix(System.getProperty("load.mix", DEFAULT_MIX));
+        for (Operation operation : Operation.values())
+        {
+            intervalHistograms.set(operation.ordinal(), new LatencyHistogram());
+            totalHistograms.put(operation, new LatencyHistogram());
+        }
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        String url = System.getProperty("load.url");
+        ConfigurableApplicationContext context = null;
+        if (url == null)
+        {
+            //Ограничения интенсивности запросов приложения не должны искажать замеры
+            context = SpringApplication.run(App.class, "--server.port=0",
+                    "--users.rate-limit.get-users-by-name.permits-per-second=1000000",
+                    "--users.rate-limit.get-users-by-name.burst=1000000",
+                    "--users.rate-limit.get-users-by-name.max-concurrency=1000000");
+            url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+        boolean passed;
+        try
+        {
+            LoadGenerator generator = new LoadGenerator(url + "/users");
+            generator.populate(Integer.getInteger("load.users", 1000));
+            passed = generator.run(Integer.getInteger("load.threads", 64));
+        }
+        finally
+        {
+            if (context != null)
+            {
+                context.close();
+            }
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**Метод создаёт пользователей и их телефонные книжки перед прогоном.*/
+    void populate(int users) throws IOException
+    {
+        for (int i = 0; i < users; i++)
+        {
+            JsonNode user = MAPPER.readTree(send("POST", "", "{\"userName\":\"load-user-" + i + "\"}"));
+            long userId = user.get("userId").asLong();
+            for (int j = 0; j < records; j++)
+            {
+                send("POST", "/phoneRecord/" + userId, "{\"name\":\"name-" + j + "\",\"phoneNumber\":\"+7"
+                        + ThreadLocalRandom.current().nextLong(1_000_000_000L, 9_999_999_999L) + "\"}");
+            }
+            userIds.add(userId);
+        }
+    }
+
+    /**Метод выполняет прогон и печатает отчёты.
+     @return true если рост кучи не превысил допустимый*/
+    boolean run(int threads) throws InterruptedException
+    {
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + warmupNanos + durationNanos;
+        long nextReport = start + reportNanos;
+        long sent = 0;
+        while (true)
+        {
+            long intended = start + sent * intervalNanos;
+            if (intended >= end)
+            {
+                break;
+            }
+            long now = System.nanoTime();
+            if (now >= nextReport)
+            {
+                report(now - start);
+                nextReport += reportNanos;
+            }
+            if (!measuring && now - start >= warmupNanos)
+            {
+                measuring = true;
+            }
+            if (intended > now)
+            {
+                LockSupport.parkNanos(intended - now);
+                continue;
+            }
+            Operation operation = mix[ThreadLocalRandom.current().nextInt(mix.length)];
+            workers.execute(() -> execute(operation, intended));
+            sent++;
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.MINUTES);
+        return summarize(System.nanoTime() - start);
+    }
+
+    private void execute(Operation operation, long intended)
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long userId = userIds.get(random.nextInt(userIds.size()));
+        long recordId = 1 + random.nextInt(records);
+        try
+        {
+            switch (operation)
+            {
+                case GET_USER:
+                    send("GET", "/" + userId, null);
+                    break;
+                case GET_USERS_BY_NAME:
+                    send("GET", "/name?phoneBooks=false&partName=load-user-" + random.nextInt(userIds.size()), null);
+                    break;
+                case GET_PHONE_RECORDS:
+                    send("GET", "/phoneRecords/" + userId + "?sort=name&limit=20", null);
+                    break;
+                case GET_PHONE_RECORD:
+                    send("GET", "/phoneRecord/" + userId + "?id=" + recordId, null);
+                    break;
+                case ADD_PHONE_RECORD:
+                    send("POST", "/phoneRecord/" + userId, "{\"name\":\"added\",\"phoneNumber\":\"+7"
+                            + random.nextLong(1_000_000_000L, 9_999_999_999L) + "\"}");
+                    break;
+                case UPDATE_PHONE_RECORD:
+                    send("PUT", "/phoneRecord/" + userId, "{\"phoneRecordId\":" + recordId
+                            + ",\"name\":\"updated\",\"phoneNumber\":\"+7"
+                            + random.nextLong(1_000_000_000L, 9_999_999_999L) + "\"}");
+                    break;
+            }
+        }
+        catch (IOException e)
+        {
+            errors.incrementAndGet();
+        }
+        long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended);
+        intervalHistograms.get(operation.ordinal()).record(latencyMicros);
+        if (measuring)
+        {
+            totalHistograms.get(operation).record(latencyMicros);
+        }
+    }
+
+    /**Метод отправляет запрос и возвращает тело ответа. Тело читается полностью,
+     * чтобы соединение могло быть использовано повторно.*/
+    private byte[] send(String method, String path, String json) throws IOException
+    {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        if (json != null)
+        {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream())
+            {
+                out.write(json.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        if (in != null)
+        {
+            try (InputStream stream = in)
+            {
+                byte[] buffer = new byte[8192];
+                for (int n; (n = stream.read(buffer)) > 0; )
+                {
+                    body.write(buffer, 0, n);
+                }
+            }
+        }
+        if (status >= 400)
+        {
+            throw new IOException(method + " " + path + " returned " + status);
+        }
+        return body.toByteArray();
+    }
+
+    /**Метод печатает задержки за прошедший интервал и запоминает занятую кучу.*/
+    private void report(long elapsedNanos)
+    {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%n[%.0f s]%s%n", seconds, measuring ? "" : " warm-up");
+        for (Operation operation : Operation.values())
+        {
+            LatencyHistogram interval = intervalHistograms.getAndSet(operation.ordinal(), new LatencyHistogram());
+            print(operation, interval, reportNanos);
+        }
+        long heapAfterGc = heapUsedAfterGc();
+        System.out.printf("heap after GC %d MB, errors %d%n", heapAfterGc >> 20, errors.get());
+        if (measuring)
+        {
+            heapSamples.add(new double[]{seconds, heapAfterGc});
+        }
+    }
+
+    /**Метод печатает итоговые задержки и оценивает рост кучи.
+     @return true если рост кучи не превысил допустимый*/
+    private boolean summarize(long elapsedNanos)
+    {
+        System.out.printf("%n[total, without warm-up]%n");
+        for (Operation operation : Operation.values())
+        {
+            print(operation, totalHistograms.get(operation), elapsedNanos - warmupNanos);
+        }
+        System.out.printf("errors %d%n", errors.get());
+
+        if (heapSamples.size() < 3)
+        {
+            System.out.println("Run is too short to estimate heap growth");
+            return true;
+        }
+        double growthMbPerHour = slope(heapSamples) * 3600 / (1 << 20);
+        long allowed = Long.getLong("load.maxHeapGrowthMbPerHour", 64);
+        System.out.printf("heap growth %.1f MB/hour (allowed %d)%n", growthMbPerHour, allowed);
+        return growthMbPerHour <= allowed;
+    }
+
+    private static void print(Operation operation, LatencyHistogram histogram, long periodNanos)
+    {
+        if (histogram.getTotalCount() == 0)
+        {
+            return;
+        }
+        System.out.printf("%-18s %8.1f req/s  p50 %6.2f  p90 %6.2f  p99 %7.2f  p99.9 %7.2f  max %8.2f ms%n",
+                operation.parameterName, histogram.getTotalCount() * 1e9 / periodNanos,
+                histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(90) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    /**Метод возвращает занятую кучу по состоянию на конец последних сборок мусора.
+     * В отличие от текущей занятости, эта величина не зависит от накопившегося мусора,
+     * и её рост означает рост живых данных.*/
+    private static long heapUsedAfterGc()
+    {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && usage != null)
+            {
+                used += usage.getUsed();
+            }
+        }
+        return used;
+    }
+
+    /**Метод возвращает наклон прямой, приближающей замеры по методу наименьших квадратов.*/
+    private static double slope(List<double[]> samples)
+    {
+        double meanX = 0;
+        double meanY = 0;
+        for (double[] sample : samples)
+        {
+            meanX += sample[0];
+            meanY += sample[1];
+        }
+        meanX /= samples.size();
+        meanY /= samples.size();
+        double covariance = 0;
+        double variance = 0;
+        for (double[] sample : samples)
+        {
+            covariance += (sample[0] - meanX) * (sample[1] - meanY);
+            variance += (sample[0] - meanX) * (sample[0] - meanX);
+        }
+        return covariance / variance;
+    }
+
+    private static Operation[] parseMix(String mix)
+    {
+        List<Operation> slots = new ArrayList<>();
+        for (String part : mix.split(","))
+        {
+            String[] weight = part.trim().split("=");
+            Operation operation = Operation.of(weight[0].trim());
+            for (int i = Integer.parseInt(weight[1].trim()); i > 0; i--)
+            {
+                slots.add(operation);
+            }
+        }
+        if (slots.isEmpty())
+        {
+            throw new IllegalArgumentException("Empty load mix " + mix);
+        }
+        return slots.toArray(new Operation[0]);
+    }
+}
@@ -0,0 +1,230 @@
+package load;
+
+
+import boot.App;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**Класс служит для проверки задержек дешёвых запросов при смешанной нагрузке:
+ * одни потоки клиента без пауз запрашивают всех пользователей (GET /users) и поиск
+ * по части имени (GET /users/name), другие - пользователей по id (GET /users/{userId}).
+ * Печатаются задержки запросов по id, количество выполненных и отклонённых
+ * (статусы 429 и 503) затратных запросов.
+ * Приложение запускается в том же процессе с аргументами из bench.args, например
+ * с размером пула затратных запросов из app.async.* и числом потоков Tomcat
+ * из app.server.max-threads, или используется уже запущенное (bench.url).
+ *
+ * Параметры задаются системными свойствами:
+ * bench.threads - потоков запросов по id (32), bench.heavy-threads - потоков затратных
+ * запросов (64), bench.users - пользователей (2000), bench.records - записей в телефонной
+ * книжке каждого пользователя (20), bench.duration - длительность в секундах (30),
+ * bench.warmup - прогрев в секундах (10), bench.args - аргументы приложения через пробел,
+ * bench.url - адрес запущенного приложения.
+ *
+ * Пример сравнения (второй запуск - на сборке без асинхронных методов):
+ * {@code java -Dbench.args="--app.server.max-threads=64" -cp <test-classpath> load.MixedWorkloadBenchmark}
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class MixedWorkloadBenchmark
+{
+    public static void main(String[] args) throws Exception
+    {
+        int threads = Integer.getInteger("bench.threads", 32);
+        int heavyThreads = Integer.getInteger("bench.heavy-threads", 64);
+        int users = Integer.getInteger("bench.users", 2000);
+        int records = Integer.getInteger("bench.records", 20);
+        long durationNanos = TimeUnit.SECONDS.toNanos(Integer.getInteger("bench.duration", 30));
+        long warmupNanos = TimeUnit.SECONDS.toNanos(Integer.getInteger("bench.warmup", 10));
+
+        String url = System.getProperty("bench.url");
+        ConfigurableApplicationContext context = null;
+        if (url == null)
+        {
+            List<String> appArgs = new ArrayList<>();
+            appArgs.add("--server.port=0");
+            String extra = System.getProperty("bench.args", "").trim();
+            if (!extra.isEmpty())
+            {
+                for (String arg : extra.split("\\s+"))
+                {
+                    appArgs.add(arg);
+                }
+            }
+            context = SpringApplication.run(App.class, appArgs.toArray(new String[0]));
+            url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+        try
+        {
+            String usersUrl = url + "/users";
+            List<String> userIds = new ArrayList<>();
+            for (int i = 0; i < users; i++)
+            {
+                String user = send("POST", usersUrl, "{\"userName\":\"mixed-user-" + i + "\"}");
+                String userId = user.replaceAll("(?s).*\"userId\":(\\d+).*", "$1");
+                userIds.add(userId);
+                for (int j = 0; j < records; j++)
+                {
+                    send("POST", usersUrl + "/phoneRecord/" + userId,
+                            "{\"name\":\"name-" + j + "\",\"phoneNumber\":\"+7900" + i + "-" + j + "\"}");
+                }
+            }
+
+            LatencyHistogram histogram = new LatencyHistogram();
+            AtomicLong errors = new AtomicLong();
+            AtomicLong heavyDone = new AtomicLong();
+            AtomicLong heavyRejected = new AtomicLong();
+            long start = System.nanoTime();
+            long measureFrom = start + warmupNanos;
+            long end = measureFrom + durationNanos;
+            CountDownLatch done = new CountDownLatch(threads + heavyThreads);
+            for (int t = 0; t < heavyThreads; t++)
+            {
+                boolean all = t % 2 == 0;
+                startClient("bench-heavy-" + t, done, () ->
+                {
+                    while (System.nanoTime() < end)
+                    {
+                        String target = all ? usersUrl : usersUrl + "/name?partName=user-"
+                                + ThreadLocalRandom.current().nextInt(10);
+                        int status = status(target);
+                        if (status == 429 || status == 503)
+                        {
+                            heavyRejected.incrementAndGet();
+                        }
+                        else if (status >= 400)
+                        {
+                            errors.incrementAndGet();
+                        }
+                        else
+                        {
+                            heavyDone.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            for (int t = 0; t < threads; t++)
+            {
+                startClient("bench-client-" + t, done, () ->
+                {
+                    while (true)
+                    {
+                        long requestStart = System.nanoTime();
+                        if (requestStart >= end)
+                        {
+                            break;
+                        }
+                        String target = usersUrl + "/" + userIds.get(ThreadLocalRandom.current().nextInt(users));
+                        if (status(target) >= 400)
+                        {
+                            errors.incrementAndGet();
+                        }
+                        if (requestStart >= measureFrom)
+                        {
+                            histogram.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - requestStart));
+                        }
+                    }
+                });
+            }
+            done.await();
+
+            System.out.printf("id lookups: %.0f requests/s, p50 %.2f  p99 %.2f  p99.9 %.2f  max %.2f ms%n",
+                    histogram.getTotalCount() * 1e9 / durationNanos,
+                    histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getMaxValue() / 1000.0);
+            System.out.printf("full scans: %d completed, %d rejected, %d errors%n",
+                    heavyDone.get(), heavyRejected.get(), errors.get());
+        }
+        finally
+        {
+            if (context != null)
+            {
+                context.close();
+            }
+        }
+    }
+
+    private interface Client
+    {
+        void run() throws IOException;
+    }
+
+    private static void startClient(String name, CountDownLatch done, Client client)
+    {
+        Thread thread = new Thread(() ->
+        {
+            try
+            {
+                client.run();
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+            }
+            finally
+            {
+                done.countDown();
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**Метод отправляет GET-запрос, читает ответ целиком и возвращает его Http-статус.*/
+    private static int status(String url) throws IOException
+    {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        int status = connection.getResponseCode();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream())
+        {
+            if (in != null)
+            {
+                byte[] buffer = new byte[8192];
+                while (in.read(buffer) > 0)
+                {
+                    //Ответ дочитывается, чтобы соединение вернулось в пул keep-alive
+                }
+            }
+        }
+        return status;
+    }
+
+    private static String send(String method, String url, String json) throws IOException
+    {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json");
+        try (OutputStream out = connection.getOutputStream())
+        {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+        int status = connection.getResponseCode();
+        if (status >= 400)
+        {
+            throw new IOException(method + " " + url + " failed with status " + status);
+        }
+        try (InputStream in = connection.getInputStream())
+        {
+            StringBuilder body = new StringBuilder();
+            byte[] buffer = new byte[4096];
+            for (int n; (n = in.read(buffer)) > 0; )
+            {
+                body.append(new String(buffer, 0, n, StandardCharsets.UTF_8));
+            }
+            return body.toString();
+        }
+    }
+}
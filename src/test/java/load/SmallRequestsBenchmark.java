@@ -0,0 +1,166 @@
+package load;
+
+
+import boot.App;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**Класс служит для сравнения настроек сервера на большом количестве коротких
+ * одновременных запросов к методам /users/phoneRecord/{userId}: каждый поток клиента
+ * держит своё keep-alive соединение и без пауз отправляет запросы чтения записей,
+ * после чего печатаются пропускная способность и задержки.
+ * Приложение запускается в том же процессе с аргументами из bench.args, например
+ * с настройками коннектора из app.server.*, или используется уже запущенное (bench.url).
+ * Мультиплексирование HTTP/2 (h2c) этим клиентом не проверяется, так как в Java 8 нет
+ * HTTP/2-клиента, для него используется h2load (см. README).
+ *
+ * Параметры задаются системными свойствами:
+ * bench.threads - потоков клиента (256), bench.duration - длительность в секундах (30),
+ * bench.warmup - прогрев в секундах (10), bench.records - записей в телефонной книжке (100),
+ * bench.args - аргументы приложения через пробел, bench.url - адрес запущенного приложения.
+ *
+ * Пример сравнения:
+ * {@code java -cp <test-classpath> load.SmallRequestsBenchmark}
+ * {@code java -Dbench.args="--app.server.max-threads=64 --app.server.max-keep-alive-requests=-1"
+ * -cp <test-classpath> load.SmallRequestsBenchmark}
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class SmallRequestsBenchmark
+{
+    public static void main(String[] args) throws Exception
+    {
+        int threads = Integer.getInteger("bench.threads", 256);
+        long durationNanos = TimeUnit.SECONDS.toNanos(Integer.getInteger("bench.duration", 30));
+        long warmupNanos = TimeUnit.SECONDS.toNanos(Integer.getInteger("bench.warmup", 10));
+        int records = Integer.getInteger("bench.records", 100);
+
+        String url = System.getProperty("bench.url");
+        ConfigurableApplicationContext context = null;
+        if (url == null)
+        {
+            List<String> appArgs = new ArrayList<>();
+            appArgs.add("--server.port=0");
+            String extra = System.getProperty("bench.args", "").trim();
+            if (!extra.isEmpty())
+            {
+                for (String arg : extra.split("\\s+"))
+                {
+                    appArgs.add(arg);
+                }
+            }
+            context = SpringApplication.run(App.class, appArgs.toArray(new String[0]));
+            url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+        try
+        {
+            String phoneRecordUrl = url + "/users/phoneRecord/";
+            String user = send("POST", url + "/users", "{\"userName\":\"bench\"}");
+            String userId = user.replaceAll("(?s).*\"userId\":(\\d+).*", "$1");
+            for (int i = 0; i < records; i++)
+            {
+                send("POST", phoneRecordUrl + userId, "{\"name\":\"name-" + i + "\",\"phoneNumber\":\"" + i + "\"}");
+            }
+
+            LatencyHistogram histogram = new LatencyHistogram();
+            AtomicLong errors = new AtomicLong();
+            long start = System.nanoTime();
+            long measureFrom = start + warmupNanos;
+            long end = measureFrom + durationNanos;
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++)
+            {
+                Thread thread = new Thread(() ->
+                {
+                    try
+                    {
+                        while (true)
+                        {
+                            long requestStart = System.nanoTime();
+                            if (requestStart >= end)
+                            {
+                                break;
+                            }
+                            String target = phoneRecordUrl + userId + "?id=" + (1 + ThreadLocalRandom.current().nextInt(records));
+                            try
+                            {
+                                send("GET", target, null);
+                            }
+                            catch (IOException e)
+                            {
+                                errors.incrementAndGet();
+                            }
+                            if (requestStart >= measureFrom)
+                            {
+                                histogram.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - requestStart));
+                            }
+                        }
+                    }
+                    finally
+                    {
+                        done.countDown();
+                    }
+                }, "bench-client-" + t);
+                thread.setDaemon(true);
+                thread.start();
+            }
+            done.await();
+
+            System.out.printf("%d threads: %.0f requests/s, p50 %.2f  p99 %.2f  p99.9 %.2f  max %.2f ms, %d errors%n",
+                    threads, histogram.getTotalCount() * 1e9 / durationNanos,
+                    histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getMaxValue() / 1000.0, errors.get());
+        }
+        finally
+        {
+            if (context != null)
+            {
+                context.close();
+            }
+        }
+    }
+
+    /**Метод отправляет запрос и читает ответ целиком, чтобы соединение вернулось
+     * в пул keep-alive соединений и было использовано следующим запросом потока.*/
+    private static String send(String method, String url, String json) throws IOException
+    {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        if (json != null)
+        {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream())
+            {
+                out.write(json.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream())
+        {
+            if (status >= 400)
+            {
+                throw new IOException(method + " " + url + " failed with status " + status);
+            }
+            StringBuilder body = new StringBuilder();
+            byte[] buffer = new byte[4096];
+            for (int n; (n = in.read(buffer)) > 0; )
+            {
+                body.append(new String(buffer, 0, n, StandardCharsets.UTF_8));
+            }
+            return body.toString();
+        }
+    }
+}
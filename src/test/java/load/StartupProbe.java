@@ -0,0 +1,199 @@
+package load;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**Класс служит для измерения времени запуска приложения: запускает собранный jar
+ * в отдельном процессе с указанными параметрами JVM, измеряет время до первого
+ * успешного ответа, время до готовности (/ready, с прогревом - после его окончания)
+ * и задержки запросов в течение первой минуты работы.
+ * Позволяет сравнить обычный запуск с запуском с прогревом (-Dapp.warm-up.enabled=true)
+ * и с архивом общих классов (AppCDS).
+ *
+ * Параметры задаются системными свойствами:
+ * probe.jar - путь к jar приложения, или probe.classpath - classpath приложения
+ * (классы в jar, если нужен архив общих классов), probe.jvmArgs - параметры JVM через пробел,
+ * probe.port - порт приложения (18080), probe.rate - запросов в секунду (50),
+ * probe.duration - длительность измерения задержек в секундах (60).
+ *
+ * Пример сравнения:
+ * {@code java -Dprobe.jar=app.jar -cp <test-classpath> load.StartupProbe}
+ * {@code java -Dprobe.jar=app.jar -Dprobe.jvmArgs=-XX:SharedArchiveFile=app.jsa -cp <test-classpath> load.StartupProbe}
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class StartupProbe
+{
+    public static void main(String[] args) throws Exception
+    {
+        String jar = System.getProperty("probe.jar");
+        String classpath = System.getProperty("probe.classpath");
+        if (jar == null && classpath == null)
+        {
+            throw new IllegalArgumentException("probe.jar or probe.classpath is not set");
+        }
+        int port = Integer.getInteger("probe.port", 18080);
+        int rate = Integer.getInteger("probe.rate", 50);
+        int duration = Integer.getInteger("probe.duration", 60);
+
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        String jvmArgs = System.getProperty("probe.jvmArgs", "").trim();
+        if (!jvmArgs.isEmpty())
+        {
+            command.addAll(Arrays.asList(jvmArgs.split("\\s+")));
+        }
+        if (jar != null)
+        {
+            command.addAll(Arrays.asList("-jar", jar));
+        }
+        else
+        {
+            command.addAll(Arrays.asList("-cp", classpath, "boot.App"));
+        }
+        command.add("--server.port=" + port);
+
+        String users = "http://localhost:" + port + "/users";
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.INHERIT).start();
+        try
+        {
+            await(process, users + "/phoneRecords/0");
+            long timeToFirstRequest = System.nanoTime() - start;
+            await(process, "http://localhost:" + port + "/ready");
+            long timeToReady = System.nanoTime() - start;
+            System.out.printf("time to first request %d ms, time to ready %d ms%n",
+                    TimeUnit.NANOSECONDS.toMillis(timeToFirstRequest), TimeUnit.NANOSECONDS.toMillis(timeToReady));
+            measure(users, rate, duration);
+        }
+        finally
+        {
+            process.destroy();
+            process.waitFor(30, TimeUnit.SECONDS);
+        }
+    }
+
+    /**Метод отправляет запросы с постоянной интенсивностью и печатает задержки
+     * за каждые 10 секунд, отсчитывая их от запланированного времени запроса.*/
+    private static void measure(String users, int rate, int duration) throws IOException
+    {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long reportNanos = TimeUnit.SECONDS.toNanos(10);
+        LatencyHistogram histogram = new LatencyHistogram();
+        long start = System.nanoTime();
+        long nextReport = start + reportNanos;
+        String userId = null;
+        for (long i = 0; ; i++)
+        {
+            long intended = start + i * intervalNanos;
+            if (intended - start >= TimeUnit.SECONDS.toNanos(duration))
+            {
+                break;
+            }
+            long now = System.nanoTime();
+            if (intended > now)
+            {
+                LockSupport.parkNanos(intended - now);
+            }
+            //Чередуем добавление пользователя, запись в телефонную книжку и чтение по id
+            if (i % 3 == 0 || userId == null)
+            {
+                String user = send("POST", users, "{\"userName\":\"probe-" + i + "\"}");
+                int from = user.indexOf("\"userId\":") + "\"userId\":".length();
+                int to = from;
+                while (to < user.length() && Character.isDigit(user.charAt(to)))
+                {
+                    to++;
+                }
+                userId = user.substring(from, to);
+            }
+            else if (i % 3 == 1)
+            {
+                send("POST", users + "/phoneRecord/" + userId, "{\"name\":\"probe\",\"phoneNumber\":\"" + i + "\"}");
+            }
+            else
+            {
+                send("GET", users + "/" + userId, null);
+            }
+            histogram.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended));
+
+            if (System.nanoTime() >= nextReport)
+            {
+                System.out.printf("[%d s] p50 %.2f  p99 %.2f  max %.2f ms%n",
+                        TimeUnit.NANOSECONDS.toSeconds(nextReport - start),
+                        histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+                        histogram.getMaxValue() / 1000.0);
+                histogram = new LatencyHistogram();
+                nextReport += reportNanos;
+            }
+        }
+    }
+
+    /**Метод ожидает, пока приложение не ответит по адресу без ошибки сервера.*/
+    private static void await(Process process, String url)
+    {
+        while (!ready(url))
+        {
+            if (!process.isAlive())
+            {
+                throw new IllegalStateException("Application exited with code " + process.exitValue());
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+        }
+    }
+
+    private static boolean ready(String url)
+    {
+        try
+        {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(100);
+            return connection.getResponseCode() < 500;
+        }
+        catch (IOException e)//Приложение ещё не слушает порт
+        {
+            return false;
+        }
+    }
+
+    private static String send(String method, String url, String json) throws IOException
+    {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        if (json != null)
+        {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream())
+            {
+                out.write(json.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream())
+        {
+            if (in == null)
+            {
+                return "";
+            }
+            byte[] body = new byte[8192];
+            StringBuilder text = new StringBuilder();
+            for (int n; (n = in.read(body)) > 0; )
+            {
+                text.append(new String(body, 0, n, StandardCharsets.ISO_8859_1));
+            }
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package load;
+
+
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+import boot.services.UsersService;
+import boot.services.UsersServiceImpl;
+import boot.services.UsersWritePipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**Класс служит для сравнения записи из многих потоков под блокировками пользователей
+ * (UsersServiceImpl) с записью через единственный поток-писатель (UsersWritePipeline):
+ * потоки добавляют запись в телефонную книжку случайного пользователя и удаляют её,
+ * и для каждого способа печатаются количество изменений в секунду и процентили
+ * задержки изменения в микросекундах. Замер выполняется в одном процессе без Http,
+ * чтобы сравнивались только способы записи.
+ *
+ * Параметры задаются системными свойствами:
+ * pipeline.users - пользователей (10000), pipeline.threads - пишущих потоков (8),
+ * pipeline.duration - длительность замера каждого способа в секундах (20).
+ *
+ * Пример запуска:
+ * {@code java -cp <test-classpath> load.WritePipelineBenchmark}
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class WritePipelineBenchmark
+{
+    private final int users;
+
+    private final int threads;
+
+    private final long durationNanos;
+
+    WritePipelineBenchmark(int users, int threads, long durationNanos)
+    {
+        this.users = users;
+        this.threads = threads;
+        this.durationNanos = durationNanos;
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        WritePipelineBenchmark benchmark = new WritePipelineBenchmark(Integer.getInteger("pipeline.users", 10_000),
+                Integer.getInteger("pipeline.threads", 8),
+                TimeUnit.SECONDS.toNanos(Integer.getInteger("pipeline.duration", 20)));
+
+        UsersServiceImpl locked = new UsersServiceImpl();
+        double lockedRate = benchmark.measure("locked", locked, benchmark.populate(locked));
+
+        UsersServiceImpl store = new UsersServiceImpl();
+        List<Long> userIds = benchmark.populate(store);
+        UsersWritePipeline pipeline = new UsersWritePipeline(store, 65536, 256);
+        try
+        {
+            double pipelineRate = benchmark.measure("pipeline", pipeline, userIds);
+            System.out.printf("pipeline/locked throughput: %.2f%n", pipelineRate / lockedRate);
+        }
+        finally
+        {
+            pipeline.destroy();
+        }
+    }
+
+    List<Long> populate(UsersService service)
+    {
+        List<Long> userIds = new ArrayList<>(users);
+        for (int i = 0; i < users; i++)
+        {
+            userIds.add(service.addUser(new User("pipeline-user-" + i)));
+        }
+        return userIds;
+    }
+
+    /**Метод изменяет хранилище из всех потоков в течение заданного времени (после прогрева
+     * такой же длительности) и печатает количество изменений в секунду и процентили задержки.*/
+    private double measure(String name, UsersService service, List<Long> userIds) throws InterruptedException
+    {
+        for (int pass = 0; pass < 2; pass++)
+        {
+            LatencyHistogram histogram = new LatencyHistogram();
+            AtomicLong changes = new AtomicLong();
+            long deadline = System.nanoTime() + durationNanos;
+            List<Thread> writers = new ArrayList<>(threads);
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++)
+            {
+                Thread writer = new Thread(() ->
+                {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long count = 0;
+                    while (System.nanoTime() < deadline)
+                    {
+                        Long userId = userIds.get(random.nextInt(userIds.size()));
+                        long begin = System.nanoTime();
+                        Long id = service.addUserPhoneRecord(userId, new PhoneRecord("name", "+7 900 000-00-00"));
+                        long added = System.nanoTime();
+                        service.deleteUserPhoneRecord(userId, id);
+                        long deleted = System.nanoTime();
+                        histogram.record(TimeUnit.NANOSECONDS.toMicros(added - begin));
+                        histogram.record(TimeUnit.NANOSECONDS.toMicros(deleted - added));
+                        count += 2;
+                    }
+                    changes.addAndGet(count);
+                }, "pipeline-benchmark-" + t);
+                writers.add(writer);
+                writer.start();
+            }
+            for (Thread writer : writers)
+            {
+                writer.join();
+            }
+            if (pass == 1)//Первый проход - прогрев
+            {
+                double perSecond = changes.get() * 1e9 / (System.nanoTime() - start);
+                System.out.printf("%s: %.0f changes/s, p50 %d us, p99 %d us, p99.9 %d us, max %d us%n",
+                        name, perSecond, histogram.getValueAtPercentile(50),
+                        histogram.getValueAtPercentile(99), histogram.getValueAtPercentile(99.9),
+                        histogram.getMaxValue());
+                return perSecond;
+            }
+        }
+        throw new AssertionError();
+    }
+}
@@ -0,0 +1,47 @@
+package services;
+
+
+import boot.services.BloomFilter;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+
+/**Класс содержит юнит-тесты к методам класса BloomFilter
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class BloomFilterTest
+{
+    @Test
+    public void testNoFalseNegatives()
+    {
+        BloomFilter testedObject = new BloomFilter(10_000, 0.01);
+        for (long key = 0; key < 10_000; key++)
+        {
+            testedObject.add(key);
+        }
+        for (long key = 0; key < 10_000; key++)
+        {
+            assertTrue(testedObject.mightContain(key));
+        }
+    }
+
+    @Test
+    public void testFalsePositiveRate()
+    {
+        BloomFilter testedObject = new BloomFilter(10_000, 0.01);
+        for (long key = 0; key < 10_000; key++)
+        {
+            testedObject.add(key);
+        }
+        int falsePositives = 0;
+        for (long key = 10_000; key < 110_000; key++)
+        {
+            if (testedObject.mightContain(key))
+            {
+                falsePositives++;
+            }
+        }
+        assertTrue("False positives: " + falsePositives, falsePositives < 2000);
+    }
+}
@@ -0,0 +1,45 @@
+package services;
+
+
+import boot.services.StringInterner;
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+
+/**Класс содержит юнит-тесты к методам класса StringInterner
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class StringInternerTest
+{
+    @Test
+    public void testIntern()
+    {
+        StringInterner testedObject = new StringInterner();
+        String first = new String("TEST".toCharArray());
+        String second = new String("TEST".toCharArray());
+
+        assertSame(first, testedObject.intern(first));
+        assertSame(first, testedObject.intern(second));
+        assertEquals(1, testedObject.size());
+        assertNull(testedObject.intern(null));
+    }
+
+    @Test
+    public void testUnreferencedStringsAreCollected() throws InterruptedException
+    {
+        StringInterner testedObject = new StringInterner();
+        for (int i = 0; i < 1000; i++)
+        {
+            testedObject.intern("TEST" + i);
+        }
+        for (int i = 0; i < 50 && testedObject.size() > 0; i++)
+        {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(0, testedObject.size());
+    }
+}
@@ -1,20 +1,42 @@
 package services;
 
 
+import boot.contacts.ReachableUser;
+import boot.dao.InMemoryUsersDao;
+import boot.entities.BatchResult;
 import boot.entities.PhoneRecord;
+import boot.entities.PhoneRecordOrder;
 import boot.entities.User;
+import boot.events.ChangeEvent;
+import boot.events.ChangeType;
+import boot.exceptions.EntityAlreadyExistsException;
+import boot.exceptions.EntityNotFoundException;
+import boot.exceptions.IndexNotReadyException;
+import boot.exceptions.StorageLimitExceededException;
+import boot.exceptions.VersionConflictException;
+import boot.indexes.IndexState;
 import boot.services.UsersService;
 import boot.services.UsersServiceImpl;
+import boot.statistics.PhoneBookSize;
+import boot.statistics.PhoneNumberCount;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.Banner;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 
 /**Класс содержит юнит-тесты к методам класса UsersServiceImpl
@@ -43,6 +65,33 @@ public class UsersServiceImplTest
         assertEquals(expected, testedObject.getAllUsers());
     }
 
+    @Test
+    public void testLookupsByIdDoNotAllocate()
+    {
+        User user = new User("TEST1");
+        Long userId = testedObject.addUser(user);
+        Long recordId = testedObject.addUserPhoneRecord(userId, new PhoneRecord("TEST", "TEST"));
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int iterations = 100_000;
+
+        for (int i = 0; i < iterations; i++)//Прогрев
+        {
+            testedObject.getUser(userId);
+            testedObject.getUserPhoneRecord(userId, recordId);
+        }
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++)
+        {
+            testedObject.getUser(userId);
+            testedObject.getUserPhoneRecord(userId, recordId);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals("bytes per lookup", 0L, allocated / iterations);
+    }
+
     @Test
     public void testAddUserIsNull()
     {
@@ -111,6 +160,149 @@ public class UsersServiceImplTest
         assertEquals(user2, testedObject.getUsersByName("T2").get(0));
     }
 
+    @Test
+    public void testIndexesAreMaintained() throws InterruptedException
+    {
+        User user1 = new User("TEST_ALICE");
+        User user2 = new User("TEST_BOB");
+        testedObject.addUser(user1);
+        testedObject.addUser(user2);
+        testedObject.addUserPhoneRecord(user1.getUserId(), new PhoneRecord("TEST", "TEST_NUMBER"));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!testedObject.getIndexStatuses().stream().allMatch(s -> s.getState() == IndexState.READY))
+        {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+
+        User update = new User("TEST_BOBBY");
+        update.setUserId(user2.getUserId());
+        testedObject.updateUser(update);
+        assertEquals(Collections.singletonList(update), testedObject.getUsersByName("BOBBY"));
+        assertEquals(Arrays.asList(user1, update), testedObject.getUsersByName("TEST_"));
+        assertEquals(1, testedObject.getUserPhoneRecordsByPhoneNumber(user1.getUserId(), "TEST_NUMBER").size());
+        assertTrue(testedObject.getUserPhoneRecordsByPhoneNumber(user2.getUserId(), "TEST_NUMBER").isEmpty());
+
+        assertEquals(IndexState.BUILDING, testedObject.reindex(UsersServiceImpl.NAME_INDEX).getState());
+        assertEquals(Collections.singletonList(user1), testedObject.getUsersByName("ALICE"));
+    }
+
+    @Test
+    public void testGetStatistics() throws InterruptedException
+    {
+        User user1 = new User("TEST1");
+        User user2 = new User("TEST2");
+        testedObject.addUser(user1);
+        testedObject.addUser(user2);
+        Long recordId = testedObject.addUserPhoneRecord(user1.getUserId(), new PhoneRecord("TEST1", "+7 900 123-45-67"));
+        testedObject.addUserPhoneRecord(user2.getUserId(), new PhoneRecord("TEST2", "89001234567"));
+        testedObject.addUserPhoneRecord(user2.getUserId(), new PhoneRecord("TEST3", "TEST_NUMBER"));
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!testedObject.getIndexStatuses().stream().allMatch(s -> s.getState() == IndexState.READY))
+        {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+        assertEquals(3, testedObject.getStatistics().getPhoneRecords());
+        PhoneRecord update = new PhoneRecord("TEST1", "TEST_NUMBER");
+        update.setPhoneRecordId(recordId);
+        testedObject.updateUserPhoneRecord(user1.getUserId(), update);
+        User user3 = new User("TEST3");
+        testedObject.addUser(user3);
+
+        assertEquals(3, testedObject.getStatistics().getUsers());
+        assertEquals(3, testedObject.getStatistics().getPhoneRecords());
+        assertEquals(Arrays.asList(new PhoneBookSize(user2.getUserId(), 2), new PhoneBookSize(user1.getUserId(), 1)),
+                testedObject.getLargestPhoneBooks(2));
+        assertEquals(Arrays.asList(new PhoneNumberCount("TEST_NUMBER", 2), new PhoneNumberCount("+79001234567", 1)),
+                testedObject.getTopPhoneNumbers(10));
+
+        testedObject.deleteUser(user2.getUserId());
+        assertEquals(2, testedObject.getStatistics().getUsers());
+        assertEquals(1, testedObject.getStatistics().getPhoneRecords());
+        assertEquals(Collections.singletonList(new PhoneNumberCount("TEST_NUMBER", 1)),
+                testedObject.getTopPhoneNumbers(10));
+    }
+
+    @Test
+    public void testIndexQueriesAreUnavailableWhileIndexesAreBuilt() throws InterruptedException
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        UsersServiceImpl usersService = new UsersServiceImpl(new InMemoryUsersDao()
+        {
+            @Override
+            public List<User> findAllUsers()
+            {
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                return super.findAllUsers();
+            }
+        });
+        try
+        {
+            usersService.getStatistics();
+            fail();
+        }
+        catch (IndexNotReadyException e)
+        {
+            //Хранилище не просматривается на каждый запрос, пока индекс строится
+        }
+        try
+        {
+            usersService.getContacts(1L);
+            fail();
+        }
+        catch (IndexNotReadyException e)
+        {
+            //Граф контактов не строится заново на каждый запрос
+        }
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!usersService.getIndexStatuses().stream().allMatch(s -> s.getState() == IndexState.READY))
+        {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+        assertEquals(0, usersService.getStatistics().getUsers());
+        assertNull(usersService.getContacts(1L));
+    }
+
+    @Test
+    public void testContactGraphIsMaintained() throws InterruptedException
+    {
+        User alice = new User("TEST_ALICE");
+        alice.setPhoneNumber("+7 900 000-00-01");
+        User bob = new User("TEST_BOB");
+        bob.setPhoneNumber("+7 900 000-00-02");
+        testedObject.addUser(alice);
+        testedObject.addUser(bob);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!testedObject.getIndexStatuses().stream().allMatch(s -> s.getState() == IndexState.READY))
+        {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+
+        Long recordId = testedObject.addUserPhoneRecord(alice.getUserId(), new PhoneRecord("BOB", "89000000002"));
+        testedObject.addUserPhoneRecord(bob.getUserId(), new PhoneRecord("ALICE", "+79000000001"));
+        assertEquals(Collections.singletonList(bob.getUserId()), testedObject.getContacts(alice.getUserId()));
+        assertEquals(Collections.singletonList(alice.getUserId()), testedObject.getUsersHavingContact(bob.getUserId()));
+        assertEquals(Collections.singletonList(new ReachableUser(bob.getUserId(), 1)),
+                testedObject.getReachableUsers(alice.getUserId(), 2, 10));
+
+        testedObject.deleteUserPhoneRecord(alice.getUserId(), recordId);
+        assertTrue(testedObject.getContacts(alice.getUserId()).isEmpty());
+        assertTrue(testedObject.getMutualContacts(alice.getUserId(), bob.getUserId()).isEmpty());
+        assertNull(testedObject.getContacts(-1L));
+    }
+
     @Test
     public void testGetUserAllPhoneRecords()
     {
@@ -137,6 +329,201 @@ public class UsersServiceImplTest
         assertNull(testedObject.getUserAllPhoneRecords(0L));
     }
 
+    @Test
+    public void testRemoveUser()
+    {
+        User user = new User("TEST");
+        Long id = testedObject.addUser(user);
+
+        assertEquals(user, testedObject.removeUser(id));
+        assertNull(testedObject.removeUser(id));
+        assertNull(testedObject.getUser(id));
+    }
+
+    @Test
+    public void testRemoveUserPhoneRecord()
+    {
+        Long userId = testedObject.addUser(new User("TEST"));
+        PhoneRecord record = new PhoneRecord("TEST", "TEST_NUMBER");
+        Long id = testedObject.addUserPhoneRecord(userId, record);
+
+        assertEquals(record, testedObject.removeUserPhoneRecord(userId, id));
+        assertNull(testedObject.removeUserPhoneRecord(userId, id));
+    }
+
+    @Test
+    public void testExists()
+    {
+        User user = new User("TEST");
+        user.getPhoneBook().addPhoneRecord(new PhoneRecord("TEST", "TEST_NUMBER"));
+        Long userId = testedObject.addUser(user);
+        assertTrue(testedObject.userExists(userId));
+        assertTrue(testedObject.userPhoneRecordExists(userId, 1L));
+
+        Long recordId = testedObject.addUserPhoneRecord(userId, new PhoneRecord("TEST2", "TEST_NUMBER"));
+        assertTrue(testedObject.userPhoneRecordExists(userId, recordId));
+        assertFalse(testedObject.userPhoneRecordExists(userId, recordId + 1));
+
+        testedObject.deleteUser(userId);
+        assertFalse(testedObject.userExists(userId));
+        assertFalse(testedObject.userPhoneRecordExists(userId, recordId));
+    }
+
+    @Test
+    public void testGetUsers()
+    {
+        Long id1 = testedObject.addUser(new User("TEST1"));
+        Long id2 = testedObject.addUser(new User("TEST2"));
+
+        BatchResult<User> result = testedObject.getUsers(Arrays.asList(id2, -1L, id1, id2));
+
+        assertEquals(Arrays.asList(testedObject.getUser(id2), testedObject.getUser(id1)), result.getFound());
+        assertEquals(Collections.singletonList(-1L), result.getMissing());
+    }
+
+    @Test
+    public void testGetUserPhoneRecords()
+    {
+        Long userId = testedObject.addUser(new User("TEST"));
+        PhoneRecord record = new PhoneRecord("TEST", "TEST_NUMBER");
+        Long id = testedObject.addUserPhoneRecord(userId, record);
+
+        BatchResult<PhoneRecord> result = testedObject.getUserPhoneRecords(userId, Arrays.asList(id, id + 1));
+
+        assertEquals(Collections.singletonList(record), result.getFound());
+        assertEquals(Collections.singletonList(id + 1), result.getMissing());
+        assertNull(testedObject.getUserPhoneRecords(userId + 1, Arrays.asList(id)));
+    }
+
+    @Test
+    public void testGetUserAsOf()
+    {
+        User user = new User("TEST");
+        Long id = testedObject.addUser(user);
+        PhoneRecord record = new PhoneRecord("TEST", "TEST_NUMBER");
+        testedObject.addUserPhoneRecord(id, record);
+        long now = System.currentTimeMillis();
+
+        assertEquals(testedObject.getUser(id), testedObject.getUserAsOf(id, now));
+        assertEquals(record, testedObject.getUserPhoneRecordsAsOf(id, now).get(0));
+        assertNull(testedObject.getUserAsOf(id + 1, now));
+    }
+
+    @Test
+    public void testEqualStringsAreShared()
+    {
+        User user1 = new User(new String("TEST".toCharArray()));
+        User user2 = new User(new String("TEST".toCharArray()));
+        PhoneRecord record1 = new PhoneRecord(new String("TEST".toCharArray()), new String("TEST_NUMBER".toCharArray()));
+        PhoneRecord record2 = new PhoneRecord(new String("TEST".toCharArray()), new String("TEST_NUMBER".toCharArray()));
+        Long id1 = testedObject.addUser(user1);
+        Long id2 = testedObject.addUser(user2);
+        testedObject.addUserPhoneRecord(id1, record1);
+        testedObject.addUserPhoneRecord(id2, record2);
+
+        assertSame(testedObject.getUser(id1).getUserName(), testedObject.getUser(id2).getUserName());
+        assertSame(record1.getName(), record2.getName());
+        assertSame(record1.getPhoneNumber(), record2.getPhoneNumber());
+    }
+
+    @Test(expected = StorageLimitExceededException.class)
+    public void testAddUserPhoneRecordOverQuota()
+    {
+        testedObject = new UsersServiceImpl(new InMemoryUsersDao(), 2);
+        Long id = testedObject.addUser(new User("TEST1"));
+        testedObject.addUserPhoneRecord(id, new PhoneRecord("TEST1", "TEST1"));
+        testedObject.addUserPhoneRecord(id, new PhoneRecord("TEST2", "TEST2"));
+
+        testedObject.addUserPhoneRecord(id, new PhoneRecord("TEST3", "TEST3"));
+    }
+
+    @Test(expected = StorageLimitExceededException.class)
+    public void testAddUserOverMemoryBudget()
+    {
+        testedObject = new UsersServiceImpl(new InMemoryUsersDao(1000));
+        for (int i = 0; i < 10; i++)
+        {
+            testedObject.addUser(new User("TEST" + i));
+        }
+    }
+
+    @Test
+    public void testGetUserPhoneRecordsPage()
+    {
+        User user = new User("TEST1");
+        Long id = user.getUserId();
+        testedObject.addUser(user);
+
+        PhoneRecord record1 = new PhoneRecord("C", "1");
+        PhoneRecord record2 = new PhoneRecord("A", "3");
+        PhoneRecord record3 = new PhoneRecord("B", "2");
+        testedObject.addUserPhoneRecord(id, record1);
+        testedObject.addUserPhoneRecord(id, record2);
+        testedObject.addUserPhoneRecord(id, record3);
+
+        List<PhoneRecord> expected = new ArrayList<>();
+        expected.add(record2);
+        expected.add(record3);
+        assertEquals(expected, testedObject.getUserPhoneRecordsPage(id, PhoneRecordOrder.NAME, null, null, 2));
+
+        expected = new ArrayList<>();
+        expected.add(record1);
+        assertEquals(expected, testedObject.getUserPhoneRecordsPage(id, PhoneRecordOrder.NAME,
+                record3.getPhoneRecordId(), null, 2));
+
+        expected = new ArrayList<>();
+        expected.add(record3);
+        expected.add(record2);
+        assertEquals(expected, testedObject.getUserPhoneRecordsPage(id, PhoneRecordOrder.PHONE_NUMBER,
+                record1.getPhoneRecordId(), null, 10));
+
+        expected = new ArrayList<>();
+        expected.add(record2);
+        expected.add(record3);
+        assertEquals(expected, testedObject.getUserPhoneRecordsPage(id, PhoneRecordOrder.ID,
+                record1.getPhoneRecordId(), null, 10));
+    }
+
+    @Test
+    public void testGetUserPhoneRecordsPageAfterUpdatedRecord()
+    {
+        User user = new User("TEST1");
+        Long id = user.getUserId();
+        testedObject.addUser(user);
+
+        PhoneRecord record1 = new PhoneRecord("A", "1");
+        PhoneRecord record2 = new PhoneRecord("B", "2");
+        testedObject.addUserPhoneRecord(id, record1);
+        testedObject.addUserPhoneRecord(id, record2);
+
+        PhoneRecord updated = new PhoneRecord("C", "1");
+        updated.setPhoneRecordId(record1.getPhoneRecordId());
+        testedObject.updateUserPhoneRecord(id, updated);
+
+        List<PhoneRecord> expected = new ArrayList<>();
+        expected.add(record2);
+        expected.add(updated);
+        assertEquals(expected, testedObject.getUserPhoneRecordsPage(id, PhoneRecordOrder.NAME, null, null, 10));
+
+        testedObject.deleteUserPhoneRecord(id, record2.getPhoneRecordId());
+        expected = new ArrayList<>();
+        expected.add(updated);
+        assertEquals(expected, testedObject.getUserPhoneRecordsPage(id, PhoneRecordOrder.NAME,
+                record2.getPhoneRecordId(), "B", 10));
+    }
+
+    @Test(expected = EntityNotFoundException.class)
+    public void testGetUserPhoneRecordsPageAfterDeletedRecord()
+    {
+        User user = new User("TEST1");
+        Long id = user.getUserId();
+        testedObject.addUser(user);
+        Long recordId = testedObject.addUserPhoneRecord(id, new PhoneRecord("A", "1"));
+        testedObject.deleteUserPhoneRecord(id, recordId);
+
+        testedObject.getUserPhoneRecordsPage(id, PhoneRecordOrder.NAME, recordId, null, 10);
+    }
+
     @Test
     public void testAddUserPhoneRecord()
     {
@@ -220,4 +607,228 @@ public class UsersServiceImplTest
                 userId, "TEST_NUMBER"));
     }
 
+    @Test
+    public void testGetUserPhoneRecordsByNormalizedPhoneNumber()
+    {
+        User user = new User("TEST1");
+        Long userId = testedObject.addUser(user);
+
+        PhoneRecord record1 = new PhoneRecord("TEST", "+7 (900) 123-45-67");
+        PhoneRecord record2 = new PhoneRecord("TEST2", "89001234567");
+        PhoneRecord record3 = new PhoneRecord("TEST3", "89001234568");
+        testedObject.addUserPhoneRecord(userId, record1);
+        testedObject.addUserPhoneRecord(userId, record2);
+        testedObject.addUserPhoneRecord(userId, record3);
+
+        assertEquals(Arrays.asList(record1, record2),
+                testedObject.getUserPhoneRecordsByPhoneNumber(userId, "8 900 123 45 67"));
+
+        PhoneRecord updated = new PhoneRecord("TEST3", "+7 900 123-45-67");
+        updated.setPhoneRecordId(record3.getPhoneRecordId());
+        testedObject.updateUserPhoneRecord(userId, updated);
+        assertEquals(3, testedObject.getUserPhoneRecordsByPhoneNumber(userId, "+79001234567").size());
+        assertTrue(testedObject.getUserPhoneRecordsByPhoneNumber(userId, "89001234568").isEmpty());
+    }
+
+    @Test
+    public void testGetChangeEvents()
+    {
+        User user = new User("TEST");
+        Long userId = testedObject.addUser(user);
+
+        PhoneRecord record = new PhoneRecord("TEST", "TEST");
+        Long id = testedObject.addUserPhoneRecord(userId, record);
+        testedObject.deleteUserPhoneRecord(userId, id);
+
+        List<ChangeEvent> events = testedObject.getChangeEvents(0L, 10);
+        assertEquals(3, events.size());
+        assertEquals(ChangeType.USER_ADDED, events.get(0).getType());
+        assertEquals(ChangeType.PHONE_RECORD_ADDED, events.get(1).getType());
+        assertEquals(id, events.get(1).getPhoneRecordId());
+        assertEquals(ChangeType.PHONE_RECORD_DELETED, events.get(2).getType());
+    }
+
+    @Test
+    public void testGetChangeEventsFromOffset()
+    {
+        User user1 = new User("TEST1");
+        User user2 = new User("TEST2");
+        testedObject.addUser(user1);
+        testedObject.addUser(user2);
+
+        List<ChangeEvent> events = testedObject.getChangeEvents(1L, 10);
+        assertEquals(1, events.size());
+        assertEquals(user2.getUserId(), events.get(0).getUserId());
+        assertTrue(testedObject.getChangeEvents(2L, 10).isEmpty());
+    }
+
+    @Test
+    public void testAddUserWithTakenId()
+    {
+        User user = new User("TEST");
+        testedObject.addUser(user);
+        User duplicate = new User();
+        duplicate.setUserName("DUPLICATE");
+        duplicate.setUserId(user.getUserId());
+
+        try
+        {
+            testedObject.addUser(duplicate);
+            fail();
+        }
+        catch (EntityAlreadyExistsException e)
+        {
+            //Ожидаемое исключение
+        }
+        assertEquals("TEST", testedObject.getUser(user.getUserId()).getUserName());
+    }
+
+    @Test
+    public void testAddUserReservesClientId()
+    {
+        User client = new User();
+        client.setUserName("CLIENT");
+        client.setUserId(User.nextUserId() + 1000);
+        testedObject.addUser(client);
+
+        //Id, присвоенный сервисом, не совпадает с id, указанным клиентом
+        User user = new User();
+        user.setUserName("TEST");
+        assertTrue(testedObject.addUser(user) > client.getUserId());
+    }
+
+    @Test
+    public void testChangeEventsKeepUserOrder() throws InterruptedException
+    {
+        for (int i = 0; i < 200; i++)
+        {
+            User user = new User("TEST");
+            Long userId = testedObject.addUser(user);
+            long fromOffset = testedObject.getChangeEvents(0L, Integer.MAX_VALUE).size();
+
+            User updated = new User("UPDATED");
+            updated.setUserId(userId);
+            Thread updater = new Thread(() -> testedObject.updateUser(updated));
+            Thread remover = new Thread(() -> testedObject.deleteUser(userId));
+            updater.start();
+            remover.start();
+            updater.join();
+            remover.join();
+
+            //Удаление, выполненное в любом порядке с редактированием, публикуется последним
+            List<ChangeEvent> events = testedObject.getChangeEvents(fromOffset, 10);
+            assertEquals(ChangeType.USER_DELETED, events.get(events.size() - 1).getType());
+        }
+    }
+
+    @Test
+    public void testUpdateUserIncrementsVersion()
+    {
+        User user = new User("TEST1");
+        testedObject.addUser(user);
+
+        User updated = new User("TEST2");
+        updated.setUserId(user.getUserId());
+        updated.setVersion(0L);
+        testedObject.updateUser(updated);
+
+        assertEquals(Long.valueOf(1L), testedObject.getUser(user.getUserId()).getVersion());
+    }
+
+    @Test
+    public void testPhoneRecordChangesIncrementUserVersion()
+    {
+        User user = new User("TEST");
+        Long userId = testedObject.addUser(user);
+        Long id = testedObject.addUserPhoneRecord(userId, new PhoneRecord("TEST", "TEST"));
+        PhoneRecord updated = new PhoneRecord("UPDATED", "TEST");
+        updated.setPhoneRecordId(id);
+        testedObject.updateUserPhoneRecord(userId, updated);
+        testedObject.deleteUserPhoneRecord(userId, id);
+        assertEquals(Long.valueOf(3L), testedObject.getUser(userId).getVersion());
+
+        //Редактирование по версии, прочитанной до изменения книжки, не затирает его
+        User stale = new User("STALE");
+        stale.setUserId(userId);
+        stale.setVersion(0L);
+        try
+        {
+            testedObject.updateUser(stale);
+            fail();
+        }
+        catch (VersionConflictException e)
+        {
+            //Ожидаемое исключение
+        }
+    }
+
+    @Test(expected = VersionConflictException.class)
+    public void testUpdateUserVersionConflict()
+    {
+        User user = new User("TEST1");
+        testedObject.addUser(user);
+
+        User first = new User("TEST2");
+        first.setUserId(user.getUserId());
+        first.setVersion(0L);
+        testedObject.updateUser(first);
+
+        User second = new User("TEST3");
+        second.setUserId(user.getUserId());
+        second.setVersion(0L);
+        testedObject.updateUser(second);
+    }
+
+    @Test
+    public void testUpdateUserWithoutVersion()
+    {
+        User user = new User("TEST1");
+        testedObject.addUser(user);
+
+        User updated = new User("TEST2");
+        updated.setUserId(user.getUserId());
+        updated.setVersion(null);
+
+        assertEquals(user.getUserId(), testedObject.updateUser(updated));
+        assertEquals(updated, testedObject.getUser(user.getUserId()));
+    }
+
+    @Test(expected = VersionConflictException.class)
+    public void testUpdateUserPhoneRecordVersionConflict()
+    {
+        User user = new User("TEST1");
+        Long userId = testedObject.addUser(user);
+        Long id = testedObject.addUserPhoneRecord(userId, new PhoneRecord("TEST", "TEST"));
+
+        PhoneRecord first = new PhoneRecord("TEST2", "TEST2");
+        first.setPhoneRecordId(id);
+        first.setVersion(0L);
+        testedObject.updateUserPhoneRecord(userId, first);
+
+        PhoneRecord second = new PhoneRecord("TEST3", "TEST3");
+        second.setPhoneRecordId(id);
+        second.setVersion(0L);
+        testedObject.updateUserPhoneRecord(userId, second);
+    }
+
+    @Test
+    public void testUpdateUserPhoneRecordWithoutVersion()
+    {
+        User user = new User("TEST1");
+        Long userId = testedObject.addUser(user);
+        Long id = testedObject.addUserPhoneRecord(userId, new PhoneRecord("TEST", "TEST"));
+
+        //Записи без версии, как в теле PUT-запроса без "version", редактируются безусловно
+        PhoneRecord first = new PhoneRecord("TEST2", "TEST2");
+        first.setPhoneRecordId(id);
+        assertEquals(id, testedObject.updateUserPhoneRecord(userId, first));
+
+        PhoneRecord second = new PhoneRecord("TEST3", "TEST3");
+        second.setPhoneRecordId(id);
+        assertEquals(id, testedObject.updateUserPhoneRecord(userId, second));
+
+        PhoneRecord stored = testedObject.getUserPhoneRecord(userId, id);
+        assertEquals("TEST3", stored.getName());
+        assertEquals(Long.valueOf(2L), stored.getVersion());
+    }
 }
@@ -0,0 +1,160 @@
+package services;
+
+
+import boot.dao.InMemoryUsersDao;
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+import boot.exceptions.ServiceOverloadedException;
+import boot.services.UsersServiceImpl;
+import boot.services.UsersWritePipeline;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+
+/**Класс содержит юнит-тесты к методам класса UsersWritePipeline
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class UsersWritePipelineTest
+{
+    private UsersServiceImpl usersStore;
+
+    private UsersWritePipeline testedObject;
+
+    @Before
+    public void setUp() {
+        usersStore = new UsersServiceImpl();
+        testedObject = new UsersWritePipeline(usersStore, 1024, 16);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        testedObject.destroy();
+    }
+
+    @Test
+    public void testAddUser()
+    {
+        User expected = new User("TEST");
+
+        Long id = testedObject.addUser(expected);
+        assertEquals(expected, usersStore.getUser(id));
+        assertEquals(expected, testedObject.getUser(id));
+    }
+
+    @Test
+    public void testAddUserPhoneRecordAsync()
+    {
+        User user = new User("TEST");
+        Long userId = testedObject.addUserAsync(user).join();
+        PhoneRecord expected = new PhoneRecord("TEST", "TEST");
+
+        Long id = testedObject.addUserPhoneRecordAsync(userId, expected).join();
+        assertEquals(expected, testedObject.getUserPhoneRecord(userId, id));
+    }
+
+    @Test
+    public void testDeleteUserNotExist()
+    {
+        assertNull(testedObject.deleteUserAsync(0L).join());
+    }
+
+    @Test
+    public void testWritesAppliedInOrder()
+    {
+        User user = new User("TEST");
+        testedObject.addUserAsync(user);
+
+        List<CompletableFuture<Long>> results = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+        {
+            results.add(testedObject.addUserPhoneRecordAsync(
+                    user.getUserId(), new PhoneRecord("TEST" + i, "TEST")));
+        }
+
+        for (int i = 0; i < 100; i++)
+        {
+            assertEquals(Long.valueOf(i + 1), results.get(i).join());
+        }
+        assertEquals(100, testedObject.getUserAllPhoneRecords(user.getUserId()).size());
+    }
+
+    @Test
+    public void testConcurrentWriters() throws Exception
+    {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++)
+        {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 250; j++)
+                {
+                    testedObject.addUser(new User("TEST"));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertEquals(1000, testedObject.getAllUsers().size());
+    }
+
+    @Test(expected = CompletionException.class)
+    public void testRejectedAfterDestroy() throws Exception
+    {
+        testedObject.destroy();
+
+        testedObject.addUserAsync(new User("TEST")).join();
+    }
+
+    @Test(expected = ServiceOverloadedException.class)
+    public void testRejectedWhenQueueIsFull() throws Exception
+    {
+        testedObject.destroy();
+        testedObject = new UsersWritePipeline(usersStore, 0, 16);
+
+        testedObject.addUser(new User("TEST"));
+    }
+
+    @Test
+    public void testWriterSurvivesError() throws Exception
+    {
+        testedObject.destroy();
+        testedObject = new UsersWritePipeline(new UsersServiceImpl(new InMemoryUsersDao()
+        {
+            @Override
+            public boolean insertUser(User user)
+            {
+                if ("ERROR".equals(user.getUserName()))
+                {
+                    throw new StackOverflowError();
+                }
+                return super.insertUser(user);
+            }
+        }), 1024, 16);
+
+        try
+        {
+            testedObject.addUser(new User("ERROR"));
+            fail();
+        }
+        catch (StackOverflowError e)
+        {
+            //Ожидаемая ошибка
+        }
+        User user = new User("TEST");
+        assertEquals(user.getUserId(), testedObject.addUser(user));
+    }
+}
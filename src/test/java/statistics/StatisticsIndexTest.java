@@ -0,0 +1,160 @@
+package statistics;
+
+
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+import boot.statistics.PhoneBookSize;
+import boot.statistics.PhoneBookSizeBucket;
+import boot.statistics.PhoneNumberCount;
+import boot.statistics.StatisticsIndex;
+import boot.statistics.UsersStatistics;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+/**Класс содержит юнит-тесты к методам класса StatisticsIndex
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class StatisticsIndexTest
+{
+    @Test
+    public void testGetStatistics()
+    {
+        StatisticsIndex testedObject = new StatisticsIndex();
+        User user1 = user("TEST1", 0);
+        User user2 = user("TEST2", 1);
+        User user3 = user("TEST3", 5);
+        testedObject.put(user1);
+        testedObject.put(user2);
+        testedObject.put(user3);
+
+        UsersStatistics statistics = testedObject.getStatistics();
+        assertEquals(3, statistics.getUsers());
+        assertEquals(6, statistics.getPhoneRecords());
+        assertEquals(5, statistics.getMaxPhoneBookSize());
+        assertEquals(Arrays.asList(new PhoneBookSizeBucket(0, 0, 1), new PhoneBookSizeBucket(1, 1, 1),
+                new PhoneBookSizeBucket(2, 3, 0), new PhoneBookSizeBucket(4, 7, 1)),
+                statistics.getPhoneBookSizes());
+
+        user3.getPhoneBook().addPhoneRecord(new PhoneRecord("TEST", "+7 900 000-00-00"));
+        testedObject.put(user3);
+        testedObject.remove(user2.getUserId());
+        testedObject.remove(user2.getUserId());
+
+        statistics = testedObject.getStatistics();
+        assertEquals(2, statistics.getUsers());
+        assertEquals(6, statistics.getPhoneRecords());
+        assertEquals(Arrays.asList(new PhoneBookSizeBucket(0, 0, 1), new PhoneBookSizeBucket(1, 1, 0),
+                new PhoneBookSizeBucket(2, 3, 0), new PhoneBookSizeBucket(4, 7, 1)),
+                statistics.getPhoneBookSizes());
+    }
+
+    @Test
+    public void testGetLargestPhoneBooks()
+    {
+        StatisticsIndex testedObject = new StatisticsIndex();
+        User user1 = user("TEST1", 3);
+        User user2 = user("TEST2", 7);
+        User user3 = user("TEST3", 3);
+        testedObject.put(user1);
+        testedObject.put(user2);
+        testedObject.put(user3);
+
+        assertEquals(Arrays.asList(new PhoneBookSize(user2.getUserId(), 7), new PhoneBookSize(user1.getUserId(), 3)),
+                testedObject.getLargestPhoneBooks(2));
+
+        testedObject.remove(user2.getUserId());
+        user3.getPhoneBook().addPhoneRecord(new PhoneRecord("TEST", "TEST"));
+        testedObject.put(user3);
+        assertEquals(Arrays.asList(new PhoneBookSize(user3.getUserId(), 4), new PhoneBookSize(user1.getUserId(), 3)),
+                testedObject.getLargestPhoneBooks(10));
+    }
+
+    @Test
+    public void testGetTopPhoneNumbers()
+    {
+        StatisticsIndex testedObject = new StatisticsIndex();
+        User user1 = new User("TEST1");
+        user1.getPhoneBook().addPhoneRecord(new PhoneRecord("TEST1", "+7 (900) 123-45-67"));
+        user1.getPhoneBook().addPhoneRecord(new PhoneRecord("TEST2", "NOT_A_NUMBER"));
+        User user2 = new User("TEST2");
+        user2.getPhoneBook().addPhoneRecord(new PhoneRecord("TEST1", "89001234567"));
+        user2.getPhoneBook().addPhoneRecord(new PhoneRecord("TEST2", "9001234567"));
+        user2.getPhoneBook().addPhoneRecord(new PhoneRecord("TEST3", "NOT_A_NUMBER"));
+        user2.getPhoneBook().addPhoneRecord(new PhoneRecord("TEST4", null));
+        testedObject.put(user1);
+        testedObject.put(user2);
+
+        assertEquals(Arrays.asList(new PhoneNumberCount("+79001234567", 3), new PhoneNumberCount("NOT_A_NUMBER", 2)),
+                testedObject.getTopPhoneNumbers(10));
+        assertEquals(Collections.singletonList(new PhoneNumberCount("+79001234567", 3)),
+                testedObject.getTopPhoneNumbers(1));
+
+        testedObject.remove(user2.getUserId());
+        assertEquals(Arrays.asList(new PhoneNumberCount("+79001234567", 1), new PhoneNumberCount("NOT_A_NUMBER", 1)),
+                testedObject.getTopPhoneNumbers(10));
+        testedObject.remove(user1.getUserId());
+        assertEquals(Collections.emptyList(), testedObject.getTopPhoneNumbers(10));
+    }
+
+    @Test
+    public void testPhoneRecordChanged()
+    {
+        StatisticsIndex testedObject = new StatisticsIndex();
+        User user = user("TEST", 2);
+        testedObject.put(user);
+
+        PhoneRecord added = new PhoneRecord("TEST", "NOT_A_NUMBER");
+        testedObject.phoneRecordChanged(user.getUserId(), null, added);
+        testedObject.phoneRecordChanged(user.getUserId(), null, new PhoneRecord("TEST", "+7 900 000-00-01"));
+        assertEquals(4, testedObject.getStatistics().getPhoneRecords());
+        assertEquals(Collections.singletonList(new PhoneBookSize(user.getUserId(), 4)),
+                testedObject.getLargestPhoneBooks(10));
+        assertTrue(testedObject.getTopPhoneNumbers(10).contains(new PhoneNumberCount("NOT_A_NUMBER", 1)));
+
+        testedObject.phoneRecordChanged(user.getUserId(), added, new PhoneRecord("TEST", "89000000001"));
+        assertEquals(4, testedObject.getStatistics().getPhoneRecords());
+        assertEquals(new PhoneNumberCount("+79000000001", 2), testedObject.getTopPhoneNumbers(1).get(0));
+        assertFalse(testedObject.getTopPhoneNumbers(10).contains(new PhoneNumberCount("NOT_A_NUMBER", 1)));
+
+        testedObject.remove(user.getUserId());
+        assertEquals(0, testedObject.getStatistics().getPhoneRecords());
+        assertEquals(Collections.emptyList(), testedObject.getTopPhoneNumbers(10));
+    }
+
+    @Test
+    public void testTopPhoneNumbersDisplaceRareCandidates()
+    {
+        StatisticsIndex testedObject = new StatisticsIndex();
+        User rare = new User("TEST_RARE");
+        for (int i = 0; i < StatisticsIndex.MAX_TOP_PHONE_NUMBERS; i++)
+        {
+            rare.getPhoneBook().addPhoneRecord(new PhoneRecord("TEST", "+1555" + (1_000_000 + i)));
+        }
+        testedObject.put(rare);
+        for (int i = 0; i < 3; i++)
+        {
+            User user = new User("TEST" + i);
+            user.getPhoneBook().addPhoneRecord(new PhoneRecord("TEST", "+7 900 000-00-01"));
+            testedObject.put(user);
+        }
+
+        assertEquals(new PhoneNumberCount("+79000000001", 3), testedObject.getTopPhoneNumbers(1).get(0));
+    }
+
+    private static User user(String name, int records)
+    {
+        User user = new User(name);
+        for (int i = 0; i < records; i++)
+        {
+            user.getPhoneBook().addPhoneRecord(new PhoneRecord("TEST" + i, "+7900" + i));
+        }
+        return user;
+    }
+}
@@ -0,0 +1,289 @@
+package tenants;
+
+
+import boot.entities.PhoneRecord;
+import boot.entities.User;
+import boot.exceptions.InvalidRequestParameterException;
+import boot.exceptions.ServiceOverloadedException;
+import boot.exceptions.StorageLimitExceededException;
+import boot.limits.AdaptiveConcurrencyLimiter;
+import boot.services.UsersService;
+import boot.services.UsersServiceImpl;
+import boot.services.UsersWritePipeline;
+import boot.tenants.TenantContext;
+import boot.tenants.TenantRegistry;
+import boot.tracing.UsersServiceTracing;
+import org.junit.Test;
+import org.springframework.aop.support.AopUtils;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+
+/**Класс содержит юнит-тесты к методам класса TenantRegistry
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class TenantRegistryTest
+{
+    @Test
+    public void testTenantsAreIsolated()
+    {
+        TenantRegistry testedObject = new TenantRegistry(10, 1 << 20, 4, 1000, 60_000);
+        UsersService defaultService = new UsersServiceImpl();
+
+        assertSame(defaultService, testedObject.serviceFor(TenantContext.DEFAULT_TENANT, defaultService));
+        UsersService acme = testedObject.serviceFor("acme", defaultService);
+        UsersService other = testedObject.serviceFor("other", defaultService);
+        assertNotSame(defaultService, acme);
+        assertNotSame(acme, other);
+        assertSame(acme, testedObject.serviceFor("acme", defaultService));
+
+        User user = new User("TEST");
+        Long id = acme.addUser(user);
+        acme.addUserPhoneRecord(id, new PhoneRecord("TEST", "+7 900 000-00-00"));
+        assertNotNull(acme.getUser(id));
+        assertEquals(1, acme.getUserAllPhoneRecords(id).size());
+        assertEquals(1, acme.getUsersByName("TEST").size());
+        assertNull(other.getUser(id));
+        assertNull(defaultService.getUser(id));
+        assertEquals(0, other.getAllUsers().size());
+        assertEquals(0, defaultService.getAllUsers().size());
+    }
+
+    @Test
+    public void testTenantUserIdsAreIndependent()
+    {
+        TenantRegistry testedObject = new TenantRegistry(10, 1 << 20, 4, 1000, 60_000);
+        UsersService defaultService = new UsersServiceImpl();
+        UsersService acme = testedObject.serviceFor("acme", defaultService);
+        UsersService other = testedObject.serviceFor("other", defaultService);
+
+        //Пользователи приходят от клиентов без id
+        assertEquals(Long.valueOf(1), acme.addUser(userWithoutId()));
+        defaultService.addUser(userWithoutId());
+        assertEquals(Long.valueOf(2), acme.addUser(userWithoutId()));
+        assertEquals(Long.valueOf(1), other.addUser(userWithoutId()));
+
+        //id, указанный клиентом, сдвигает генератор только своего хранилища
+        User user = userWithoutId();
+        user.setUserId(100L);
+        other.addUser(user);
+        assertEquals(Long.valueOf(101), other.addUser(userWithoutId()));
+        assertEquals(Long.valueOf(3), acme.addUser(userWithoutId()));
+    }
+
+    @Test
+    public void testTenantStoresAreWrappedLikeDefaultStore()
+    {
+        TenantRegistry testedObject = new TenantRegistry(10, 1 << 20, 4, 1000, 60_000);
+        testedObject.configureStores(true, 1024, 16, new UsersServiceTracing());
+        UsersService defaultService = new UsersServiceImpl();
+        UsersService acme = testedObject.serviceFor("acme", defaultService);
+        assertTrue(acme instanceof UsersWritePipeline);
+        assertTrue(AopUtils.isAopProxy(acme));
+
+        Long id = acme.addUser(userWithoutId());
+        Long recordId = acme.addUserPhoneRecord(id, new PhoneRecord("TEST", "+7 900 000-00-00"));
+        assertEquals(1, acme.getUserAllPhoneRecords(id).size());
+        acme.deleteUserPhoneRecord(id, recordId);
+        assertEquals(0, acme.getUserAllPhoneRecords(id).size());
+
+        //Удаление арендатора останавливает поток-писатель его конвейера
+        testedObject.removeTenant("acme");
+        try
+        {
+            acme.addUser(userWithoutId());
+            fail();
+        }
+        catch (ServiceOverloadedException e)
+        {
+            //Ожидаемое исключение
+        }
+        testedObject.destroy();
+    }
+
+    @Test
+    public void testResolveName()
+    {
+        TenantRegistry testedObject = new TenantRegistry(10, 1 << 20, 4, 1000, 60_000);
+        assertEquals(TenantContext.DEFAULT_TENANT, testedObject.resolveName(null));
+        assertEquals(TenantContext.DEFAULT_TENANT, testedObject.resolveName(""));
+        assertEquals("acme-1.eu_west", testedObject.resolveName("acme-1.eu_west"));
+        for (String invalid : new String[]{"../acme", ".acme", "acme corp", "acme/1"})
+        {
+            try
+            {
+                testedObject.resolveName(invalid);
+                fail(invalid);
+            }
+            catch (InvalidRequestParameterException e)
+            {
+                //Ожидаемое исключение
+            }
+        }
+    }
+
+    @Test
+    public void testTenantsLimit()
+    {
+        TenantRegistry testedObject = new TenantRegistry(2, 1 << 20, 4, 1000, 60_000);
+        UsersService defaultService = new UsersServiceImpl();
+        testedObject.serviceFor("first", defaultService);
+        testedObject.serviceFor("second", defaultService);
+        assertNotNull(testedObject.serviceFor("first", defaultService));
+        assertSame(defaultService, testedObject.serviceFor(TenantContext.DEFAULT_TENANT, defaultService));
+        try
+        {
+            testedObject.serviceFor("third", defaultService);
+            fail();
+        }
+        catch (StorageLimitExceededException e)
+        {
+            //Ожидаемое исключение
+        }
+    }
+
+    @Test
+    public void testInternalTenants()
+    {
+        TenantRegistry testedObject = new TenantRegistry(1, 1 << 20, 4, 1000, 60_000);
+        UsersService defaultService = new UsersServiceImpl();
+        String internal = testedObject.createInternalTenant();
+        assertTrue(testedObject.isInternal(internal));
+        assertFalse(testedObject.isInternal("first"));
+
+        //Служебный арендатор не занимает место настоящих
+        testedObject.serviceFor("first", defaultService);
+        UsersService store = testedObject.serviceFor(internal, defaultService);
+        User user = new User("TEST");
+        user.setUserId(-1L);
+        store.addUser(user);
+        assertNull(defaultService.getUser(-1L));
+
+        testedObject.removeTenant(internal);
+        assertFalse(testedObject.isInternal(internal));
+        try
+        {
+            testedObject.serviceFor(internal, defaultService);
+            fail();
+        }
+        catch (StorageLimitExceededException e)
+        {
+            //Хранилище удалено, а новое сверх наибольшего количества арендаторов не создаётся
+        }
+    }
+
+    @Test
+    public void testMemoryBudget()
+    {
+        TenantRegistry testedObject = new TenantRegistry(10, 16 << 10, 4, 1000, 60_000);
+        UsersService defaultService = new UsersServiceImpl();
+        UsersService small = testedObject.serviceFor("small", defaultService);
+        UsersService large = testedObject.serviceFor("large", defaultService);
+        try
+        {
+            for (int i = 0; i < 10_000; i++)
+            {
+                large.addUser(new User("TEST" + i));
+            }
+            fail();
+        }
+        catch (StorageLimitExceededException e)
+        {
+            //Ожидаемое исключение
+        }
+        //Бюджет исчерпан только у большого арендатора
+        assertNotNull(small.addUser(new User("TEST")));
+    }
+
+    @Test
+    public void testSharedMemoryBudget()
+    {
+        TenantRegistry testedObject = new TenantRegistry(10, 1 << 20, 16 << 10, 4, 1000, 60_000);
+        UsersService defaultService = new UsersServiceImpl();
+        String internal = testedObject.createInternalTenant();
+        UsersService first = testedObject.serviceFor(internal, defaultService);
+        UsersService second = testedObject.serviceFor("second", defaultService);
+        try
+        {
+            for (int i = 0; i < 10_000; i++)
+            {
+                first.addUser(new User("TEST" + i));
+            }
+            fail();
+        }
+        catch (StorageLimitExceededException e)
+        {
+            //Собственный бюджет не исчерпан, но исчерпан общий
+        }
+        try
+        {
+            second.addUser(new User("TEST"));
+            fail();
+        }
+        catch (StorageLimitExceededException e)
+        {
+            //Общий бюджет исчерпан для всех арендаторов
+        }
+
+        //Удалённое хранилище возвращает память в общий бюджет
+        testedObject.removeTenant(internal);
+        assertNotNull(second.addUser(new User("TEST")));
+    }
+
+    @Test
+    public void testLimitersAreCreatedOnlyForAdmittedTenants()
+    {
+        TenantRegistry testedObject = new TenantRegistry(2, 1 << 20, 4, 1000, 60_000);
+        AdaptiveConcurrencyLimiter first = testedObject.limiterFor("first");
+        testedObject.limiterFor("second");
+        for (int i = 0; i < 3; i++)
+        {
+            try
+            {
+                testedObject.limiterFor("third" + i);
+                fail();
+            }
+            catch (StorageLimitExceededException e)
+            {
+                //Ограничитель сверх наибольшего количества арендаторов не создаётся
+            }
+        }
+        assertSame(first, testedObject.limiterFor("first"));
+        assertNotNull(testedObject.limiterFor(TenantContext.DEFAULT_TENANT));
+
+        testedObject.removeTenant("second");
+        assertNotSame(first, testedObject.limiterFor("third0"));
+    }
+
+    @Test
+    public void testLimiters()
+    {
+        TenantRegistry testedObject = new TenantRegistry(10, 1 << 20, 1, 1000, 60_000);
+        AdaptiveConcurrencyLimiter acme = testedObject.limiterFor("acme");
+        assertSame(acme, testedObject.limiterFor("acme"));
+        assertNotSame(acme, testedObject.limiterFor(TenantContext.DEFAULT_TENANT));
+
+        while (acme.tryAcquire())
+        {
+            //Занимаем все места арендатора
+        }
+        if (!testedObject.limiterFor("other").tryAcquire())
+        {
+            fail("Tenant limiters must be independent");
+        }
+    }
+
+    private static User userWithoutId()
+    {
+        User user = new User();
+        user.setUserName("TEST");
+        return user;
+    }
+}
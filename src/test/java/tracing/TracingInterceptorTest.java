@@ -0,0 +1,135 @@
+package tracing;
+
+
+import boot.dao.InMemoryUsersDao;
+import boot.entities.User;
+import boot.limits.QueryExecutor;
+import boot.services.UsersService;
+import boot.services.UsersServiceImpl;
+import boot.tracing.RequestTrace;
+import boot.tracing.TracingInterceptor;
+import boot.tracing.TracingResponseAdvice;
+import boot.tracing.UsersServiceTracing;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.servlet.DispatcherType;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+/**Класс содержит юнит-тесты к трассировке запросов: перехватчику TracingInterceptor,
+ * TracingResponseAdvice и прокси сервиса UsersServiceTracing
+ @author Артемьев Р.А.
+ @version 19.10.2026 */
+public class TracingInterceptorTest
+{
+    @Test
+    public void testRequestIsTraced() throws IOException
+    {
+        TracingInterceptor testedObject = new TracingInterceptor(0);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        UsersService usersService = (UsersService) new UsersServiceTracing()
+                .postProcessAfterInitialization(new UsersServiceImpl(), "usersServiceImpl");
+        assertTrue(usersService instanceof UsersServiceImpl);
+
+        testedObject.preHandle(request, response, null);
+        assertNotNull(RequestTrace.current());
+        User user = new User("TEST");
+        usersService.addUser(user);
+        assertEquals(user, usersService.getUser(user.getUserId()));
+
+        ServletServerHttpResponse serverResponse = new ServletServerHttpResponse(response);
+        new TracingResponseAdvice().beforeBodyWrite(Collections.singletonList(user), null,
+                MediaType.APPLICATION_JSON, null, new ServletServerHttpRequest(request), serverResponse);
+        serverResponse.flush();//Заголовки переносятся в ответ сервлета при записи тела
+        testedObject.afterCompletion(request, response, null, null);
+
+        assertNull(RequestTrace.current());
+        String serverTiming = response.getHeader("Server-Timing");
+        assertNotNull(serverTiming);
+        assertTrue(serverTiming.matches("controller;dur=\\d+\\.\\d{3}, service;dur=\\d+\\.\\d{3}"));
+    }
+
+    @Test
+    public void testServiceCallInQueryExecutorIsTraced() throws Exception
+    {
+        TracingInterceptor testedObject = new TracingInterceptor(0);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        //Просмотр всех пользователей длится не меньше 20 мс
+        UsersService usersService = (UsersService) new UsersServiceTracing()
+                .postProcessAfterInitialization(new UsersServiceImpl(new InMemoryUsersDao()
+                {
+                    @Override
+                    public List<User> findAllUsers()
+                    {
+                        try
+                        {
+                            Thread.sleep(20);
+                        }
+                        catch (InterruptedException e)
+                        {
+                            Thread.currentThread().interrupt();
+                        }
+                        return super.findAllUsers();
+                    }
+                }), "usersServiceImpl");
+        QueryExecutor queryExecutor = new QueryExecutor(1, 1, 10_000);
+        try
+        {
+            testedObject.preHandle(request, response, null);
+            DeferredResult<Collection<User>> result = queryExecutor.submit(usersService::getAllUsers);
+            testedObject.afterConcurrentHandlingStarted(request, response, null);
+            for (int i = 0; i < 100 && !result.hasResult(); i++)
+            {
+                Thread.sleep(50);
+            }
+            assertTrue(result.hasResult());
+
+            request.setDispatcherType(DispatcherType.ASYNC);
+            testedObject.preHandle(request, response, null);
+            ServletServerHttpResponse serverResponse = new ServletServerHttpResponse(response);
+            new TracingResponseAdvice().beforeBodyWrite(result.getResult(), null,
+                    MediaType.APPLICATION_JSON, null, new ServletServerHttpRequest(request), serverResponse);
+            serverResponse.flush();
+            testedObject.afterCompletion(request, response, null, null);
+        }
+        finally
+        {
+            queryExecutor.destroy();
+        }
+
+        String serverTiming = response.getHeader("Server-Timing");
+        assertNotNull(serverTiming);
+        double serviceMillis = Double.parseDouble(serverTiming.substring(serverTiming.lastIndexOf('=') + 1));
+        assertTrue(serverTiming, serviceMillis >= 20);
+    }
+
+    @Test
+    public void testNoTraceOutsideRequest() throws IOException
+    {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ServletServerHttpResponse serverResponse = new ServletServerHttpResponse(response);
+        Object body = new Object();
+
+        assertEquals(body, new TracingResponseAdvice().beforeBodyWrite(body, null,
+                MediaType.APPLICATION_JSON, null, new ServletServerHttpRequest(new MockHttpServletRequest()),
+                serverResponse));
+        serverResponse.flush();
+        assertNull(response.getHeader("Server-Timing"));
+    }
+}